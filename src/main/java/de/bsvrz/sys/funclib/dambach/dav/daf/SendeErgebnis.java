@@ -0,0 +1,55 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.dav.daf;
+
+/**
+ * Ergebnis des Versendens eines Datensatzes über das {@link SenderRegister}.
+ *
+ * @author Dambach Werke GmbH
+ */
+public enum SendeErgebnis
+{
+  /**
+   * Der Datensatz wurde an den Datenverteiler übergeben
+   */
+  GESENDET,
+
+  /**
+   * Der Datensatz wartete auf die Sendesteuerung und wurde durch einen später
+   * übergebenen Datensatz derselben Datenidentifikation ersetzt, er wird nicht gesendet
+   */
+  ERSETZT,
+
+  /**
+   * Der Datenverteiler hat das Senden abgelehnt (keine Rechte oder ungültige Anmeldung)
+   */
+  KEINE_SENDESTEUERUNG,
+
+  /**
+   * Fehler beim Versand, z. B. fehlende Sendeanmeldung oder beendetes Register
+   */
+  FEHLER
+}
@@ -0,0 +1,1056 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.dav.daf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import de.bsvrz.dav.daf.main.ClientDavInterface;
+import de.bsvrz.dav.daf.main.ClientSenderInterface;
+import de.bsvrz.dav.daf.main.DataDescription;
+import de.bsvrz.dav.daf.main.DataNotSubscribedException;
+import de.bsvrz.dav.daf.main.DavConnectionListener;
+import de.bsvrz.dav.daf.main.OneSubscriptionPerSendData;
+import de.bsvrz.dav.daf.main.ResultData;
+import de.bsvrz.dav.daf.main.SendSubscriptionNotConfirmed;
+import de.bsvrz.dav.daf.main.SenderRole;
+import de.bsvrz.dav.daf.main.config.SystemObject;
+import de.bsvrz.sys.funclib.debug.Debug;
+
+/**
+ * Zentrale Verwaltung der Sendeanmeldungen einer Datenverteilerverbindung.<br>
+ * Jede Datenidentifikation (Objekt und Datenbeschreibung) wird höchstens einmal
+ * als Sender angemeldet. Die Anmeldung wird über {@link #anmelden(SystemObject, DataDescription)}
+ * und {@link #abmelden(SystemObject, DataDescription)} gezählt und bleibt nach der
+ * letzten Abmeldung für die Leerlaufzeit bestehen, so dass sie von weiteren Nutzern
+ * ohne erneute Anmeldung und ohne erneutes Warten auf die Sendesteuerung
+ * verwendet werden kann.<br>
+ * Der Zustand der Sendesteuerung wird je Datenidentifikation festgehalten. Auf
+ * die Sendesteuerung kann mit {@link #erwarteSendesteuerung(SystemObject, DataDescription)}
+ * gewartet werden. Datensätze, die mit {@link #sende(ResultData)} vor Eintreffen
+ * der Sendesteuerung übergeben werden, werden zurückgestellt und beim nächsten
+ * START_SENDING gesendet. Dabei wird je Datenidentifikation nur der zuletzt
+ * übergebene Datensatz gesendet, ältere werden mit {@link SendeErgebnis#ERSETZT}
+ * abgeschlossen.<br>
+ * Ergebnisse werden über {@link CompletableFuture} gemeldet und können im Thread
+ * des Datenverteilers abgeschlossen werden, abhängige Aktionen dürfen daher
+ * nicht blockieren.<br>
+ * Die Klasse ist threadsicher. Mit {@link #getInstanz(ClientDavInterface)} erhält
+ * man das gemeinsame Register einer Verbindung. Jedes Register wird beim
+ * Schließen seiner Verbindung beendet, das gemeinsame Register wird dabei
+ * freigegeben und sein Thread beendet.
+ *
+ * @author Dambach Werke GmbH
+ */
+public class SenderRegister implements ClientSenderInterface
+{
+  /**
+   * Debug-Logger für Logging-Ausgaben
+   */
+  private final static Debug _debug = Debug.getLogger();
+
+  /**
+   * Voreinstellung der Zeit in ms, nach der eine unbenutzte Sendeanmeldung abgemeldet wird
+   */
+  public static final long LEERLAUF = 60000;
+
+  /**
+   * Zustand der Sendesteuerung, solange noch kein dataRequest eingetroffen ist
+   */
+  public static final byte UNBEKANNT = -1;
+
+  /**
+   * Gemeinsame Register je Datenverteilerverbindung
+   */
+  private static final ConcurrentHashMap<ClientDavInterface, SenderRegister> _instanzen = new ConcurrentHashMap<ClientDavInterface, SenderRegister>();
+
+  /**
+   * Die Datenverteilerverbindung
+   */
+  private final ClientDavInterface _connection;
+
+  /**
+   * Zeit in ms, nach der eine unbenutzte Sendeanmeldung abgemeldet wird
+   */
+  private final long _leerlauf;
+
+  /**
+   * Thread für zurückgestellte Datensätze und das Abmelden unbenutzter Sendeanmeldungen
+   */
+  private final ScheduledExecutorService _zeitgeber;
+
+  /**
+   * Sendeanmeldungen je Objekt und Datenbeschreibung
+   */
+  private final ConcurrentHashMap<Schluessel, Eintrag> _eintraege = new ConcurrentHashMap<Schluessel, Eintrag>();
+
+  /**
+   * Beendet das Register, wenn die Verbindung geschlossen wird
+   */
+  private final DavConnectionListener _verbindungsBeobachter;
+
+  /**
+   * Ist auf true gesetzt, nachdem das Register beendet wurde
+   */
+  private volatile boolean _beendet = false;
+
+  /**
+   * Bestimmt das gemeinsame Register einer Datenverteilerverbindung mit der
+   * Leerlaufzeit {@link #LEERLAUF} und legt es bei Bedarf an. Das Register
+   * wird beim Schließen der Verbindung beendet und freigegeben.
+   *
+   * @param con die Datenverteilerverbindung
+   * @return das Register der Verbindung
+   */
+  public static SenderRegister getInstanz(ClientDavInterface con)
+  {
+    SenderRegister register = _instanzen.get(con);
+    if (register == null)
+    {
+      SenderRegister neu = new SenderRegister(con, LEERLAUF);
+      register = _instanzen.putIfAbsent(con, neu);
+      if (register == null)
+      {
+        register = neu;
+      }
+      else
+      {
+        neu.dispose();
+      }
+    }
+    return register;
+  }
+
+  /**
+   * Konstruiert ein eigenes Register. Für Datenidentifikationen, die bereits von
+   * einem anderen Register angemeldet sind, wird die bestehende Anmeldung
+   * mitbenutzt, ohne dass deren Sendesteuerung bekannt ist.
+   *
+   * @param con die Datenverteilerverbindung
+   * @param leerlauf Zeit in ms, nach der eine unbenutzte Sendeanmeldung abgemeldet wird,
+   * 0 für sofortiges Abmelden
+   */
+  public SenderRegister(ClientDavInterface con, long leerlauf)
+  {
+    _connection = con;
+    _leerlauf = leerlauf;
+
+    ScheduledThreadPoolExecutor zeitgeber = new ScheduledThreadPoolExecutor(1, new ThreadFactory()
+    {
+      public Thread newThread(Runnable r)
+      {
+        Thread t = new Thread(r, "SenderRegister");
+        t.setDaemon(true);
+        return t;
+      }
+    });
+    zeitgeber.setRemoveOnCancelPolicy(true);
+    _zeitgeber = zeitgeber;
+
+    if (leerlauf > 0)
+    {
+      _zeitgeber.scheduleWithFixedDelay(new Runnable()
+      {
+        public void run()
+        {
+          abmeldenUnbenutzt(System.currentTimeMillis() - _leerlauf);
+        }
+      }, leerlauf, leerlauf, TimeUnit.MILLISECONDS);
+    }
+
+    _verbindungsBeobachter = new DavConnectionListener()
+    {
+      public void connectionClosed(ClientDavInterface connection)
+      {
+        _debug.fine("Verbindung geschlossen, SenderRegister wird beendet");
+        beenden(false);
+      }
+    };
+    con.addConnectionListener(_verbindungsBeobachter);
+  }
+
+  /**
+   * Meldet eine Datenidentifikation als Sender an bzw. erhöht die Anzahl der
+   * Nutzer einer bestehenden Anmeldung. Jeder Aufruf muss durch
+   * {@link #abmelden(SystemObject, DataDescription)} aufgehoben werden.
+   *
+   * @param obj das Objekt
+   * @param dd die Datenbeschreibung
+   */
+  public void anmelden(SystemObject obj, DataDescription dd)
+  {
+    anmelden(Collections.singletonList(obj), dd);
+  }
+
+  /**
+   * Meldet mehrere Objekte mit derselben Datenbeschreibung an. Alle noch nicht
+   * angemeldeten Objekte werden mit einem Aufruf beim Datenverteiler angemeldet.
+   *
+   * @param objekte die Objekte
+   * @param dd die Datenbeschreibung
+   * @throws IllegalStateException wenn das Register beendet ist
+   */
+  public void anmelden(Collection<SystemObject> objekte, DataDescription dd)
+  {
+    if (_beendet)
+    {
+      throw new IllegalStateException("SenderRegister ist beendet");
+    }
+
+    List<Eintrag> belegt = new ArrayList<Eintrag>(objekte.size());
+    List<Eintrag> eigene = new ArrayList<Eintrag>();
+
+    for (SystemObject obj: objekte)
+    {
+      belegt.add(belege(obj, dd, eigene));
+    }
+
+    if (eigene.isEmpty())
+    {
+      return;
+    }
+
+    try
+    {
+      anmeldenBeiDav(eigene, dd);
+    }
+    catch (RuntimeException e)
+    {
+      for (Eintrag eintrag: belegt)
+      {
+        freigeben(eintrag);
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Hebt eine Anmeldung mit {@link #anmelden(SystemObject, DataDescription)} auf.
+   * Die Sendeanmeldung beim Datenverteiler bleibt für die Leerlaufzeit bestehen.
+   *
+   * @param obj das Objekt
+   * @param dd die Datenbeschreibung
+   */
+  public void abmelden(SystemObject obj, DataDescription dd)
+  {
+    Eintrag eintrag = _eintraege.get(new Schluessel(obj, dd));
+    if (eintrag != null)
+    {
+      freigeben(eintrag);
+    }
+  }
+
+  /**
+   * Hebt eine Anmeldung mit {@link #anmelden(Collection, DataDescription)} auf.
+   *
+   * @param objekte die Objekte
+   * @param dd die Datenbeschreibung
+   */
+  public void abmelden(Collection<SystemObject> objekte, DataDescription dd)
+  {
+    for (SystemObject obj: objekte)
+    {
+      abmelden(obj, dd);
+    }
+  }
+
+  /**
+   * @param obj das Objekt
+   * @param dd die Datenbeschreibung
+   * @return der letzte Zustand der Sendesteuerung oder {@link #UNBEKANNT}
+   */
+  public byte getZustand(SystemObject obj, DataDescription dd)
+  {
+    Eintrag eintrag = _eintraege.get(new Schluessel(obj, dd));
+    if (eintrag == null)
+    {
+      return UNBEKANNT;
+    }
+    synchronized(eintrag)
+    {
+      return eintrag.zustand;
+    }
+  }
+
+  /**
+   * Wartet auf die Sendesteuerung einer angemeldeten Datenidentifikation. Das
+   * Ergebnis wird mit START_SENDING, STOP_SENDING_NO_RIGHTS oder
+   * STOP_SENDING_NOT_A_VALID_SUBSCRIPTION abgeschlossen, sobald der Zustand
+   * bekannt ist, mit {@link #UNBEKANNT}, wenn die Datenidentifikation nicht
+   * oder von einem anderen Sender angemeldet ist oder abgemeldet wird.
+   *
+   * @param obj das Objekt
+   * @param dd die Datenbeschreibung
+   * @return der Zustand der Sendesteuerung
+   */
+  public CompletableFuture<Byte> erwarteSendesteuerung(SystemObject obj, DataDescription dd)
+  {
+    Eintrag eintrag = _eintraege.get(new Schluessel(obj, dd));
+    if (eintrag == null)
+    {
+      return CompletableFuture.completedFuture(UNBEKANNT);
+    }
+
+    synchronized(eintrag)
+    {
+      if (eintrag.zustand != UNBEKANNT && eintrag.zustand != STOP_SENDING)
+      {
+        return CompletableFuture.completedFuture(eintrag.zustand);
+      }
+      if (eintrag.entfernt || eintrag.abmeldend || (eintrag.angemeldet && !eintrag.eigeneAnmeldung))
+      {
+        return CompletableFuture.completedFuture(UNBEKANNT);
+      }
+
+      CompletableFuture<Byte> warter = new CompletableFuture<Byte>();
+      eintrag.warter.add(warter);
+      return warter;
+    }
+  }
+
+  /**
+   * Sendet einen Datensatz, dessen Datenidentifikation angemeldet sein muss.
+   * Liegt noch keine positive Sendesteuerung vor, wird der Datensatz
+   * zurückgestellt und beim nächsten START_SENDING gesendet; ein bereits
+   * zurückgestellter Datensatz derselben Datenidentifikation wird dabei
+   * ersetzt. Wird das Ergebnis vor dem Versand abgebrochen, wird der
+   * Datensatz nicht gesendet.
+   *
+   * @param daten der Datensatz
+   * @return das Ergebnis des Versands
+   */
+  public CompletableFuture<SendeErgebnis> sende(ResultData daten)
+  {
+    return sende(Collections.singletonList(daten)).get(0);
+  }
+
+  /**
+   * Sendet mehrere Datensätze (siehe {@link #sende(ResultData)}). Alle
+   * Datensätze mit positiver Sendesteuerung werden mit einem Aufruf gesendet.
+   *
+   * @param daten die Datensätze
+   * @return das Ergebnis des Versands je Datensatz in der Reihenfolge der Datensätze
+   */
+  public List<CompletableFuture<SendeErgebnis>> sende(List<ResultData> daten)
+  {
+    List<CompletableFuture<SendeErgebnis>> ergebnisse = new ArrayList<CompletableFuture<SendeErgebnis>>(daten.size());
+    List<Sendung> sofort = new ArrayList<Sendung>();
+    List<Sendung> ersetzt = new ArrayList<Sendung>();
+
+    for (ResultData datenSatz: daten)
+    {
+      Sendung sendung = new Sendung(datenSatz);
+      ergebnisse.add(sendung.ergebnis);
+
+      Eintrag eintrag = _eintraege.get(new Schluessel(datenSatz.getObject(), datenSatz.getDataDescription()));
+      if (eintrag == null || _beendet)
+      {
+        _debug.warning("Keine Sendeanmeldung für " + datenSatz.getObject().getPid());
+        sendung.ergebnis.complete(SendeErgebnis.FEHLER);
+        continue;
+      }
+      sendung.eintrag = eintrag;
+
+      synchronized(eintrag)
+      {
+        if (eintrag.referenzen <= 0 || eintrag.entfernt)
+        {
+          _debug.warning("Keine Sendeanmeldung für " + datenSatz.getObject().getPid());
+          sendung.ergebnis.complete(SendeErgebnis.FEHLER);
+        }
+        else if (eintrag.abgelehnt())
+        {
+          sendung.ergebnis.complete(SendeErgebnis.KEINE_SENDESTEUERUNG);
+        }
+        else if (eintrag.ausstehend == null && eintrag.sendebereit())
+        {
+          sofort.add(sendung);
+        }
+        else
+        {
+          Sendung alt = eintrag.ausstehend;
+          eintrag.ausstehend = sendung;
+          if (alt != null)
+          {
+            ersetzt.add(alt);
+          }
+        }
+      }
+    }
+
+    for (Sendung sendung: ersetzt)
+    {
+      sendung.ergebnis.complete(SendeErgebnis.ERSETZT);
+    }
+
+    if (sofort.size() == 1)
+    {
+      versenden(sofort.get(0));
+    }
+    else if (!sofort.isEmpty())
+    {
+      ResultData[] feld = new ResultData[sofort.size()];
+      for (int i = 0; i < feld.length; i++)
+      {
+        feld[i] = sofort.get(i).daten;
+      }
+
+      try
+      {
+        _connection.sendData(feld);
+        for (Sendung sendung: sofort)
+        {
+          sendung.ergebnis.complete(SendeErgebnis.GESENDET);
+        }
+      }
+      catch (SendSubscriptionNotConfirmed e)
+      {
+        /* Sendesteuerung inzwischen entzogen, einzeln senden bzw. zurückstellen */
+        for (Sendung sendung: sofort)
+        {
+          versenden(sendung);
+        }
+      }
+      catch (DataNotSubscribedException e)
+      {
+        for (Sendung sendung: sofort)
+        {
+          versenden(sendung);
+        }
+      }
+    }
+
+    return ergebnisse;
+  }
+
+  /**
+   * @return Anzahl der bestehenden Sendeanmeldungen
+   */
+  public int getAnzahlAnmeldungen()
+  {
+    return _eintraege.size();
+  }
+
+  /**
+   * Beendet das Register. Zurückgestellte Datensätze werden mit
+   * {@link SendeErgebnis#FEHLER} abgeschlossen, alle Sendeanmeldungen werden
+   * abgemeldet.
+   */
+  public void dispose()
+  {
+    beenden(true);
+  }
+
+  /**
+   * Beendet das Register und gibt es als gemeinsames Register der Verbindung frei
+   *
+   * @param abmelden true, wenn die eigenen Sendeanmeldungen beim Datenverteiler
+   * abgemeldet werden, false bei geschlossener Verbindung
+   */
+  private void beenden(boolean abmelden)
+  {
+    _beendet = true;
+    _instanzen.remove(_connection, this);
+    _zeitgeber.shutdownNow();
+    _connection.removeConnectionListener(_verbindungsBeobachter);
+
+    for (Iterator<Eintrag> it = _eintraege.values().iterator(); it.hasNext(); )
+    {
+      Eintrag eintrag = it.next();
+      Sendung offen;
+      List<CompletableFuture<Byte>> warter;
+      boolean eigene;
+
+      synchronized(eintrag)
+      {
+        eintrag.entfernt = true;
+        eigene = eintrag.angemeldet && eintrag.eigeneAnmeldung;
+        offen = eintrag.ausstehend;
+        eintrag.ausstehend = null;
+        warter = new ArrayList<CompletableFuture<Byte>>(eintrag.warter);
+        eintrag.warter.clear();
+        eintrag.notifyAll();
+      }
+      it.remove();
+
+      abschliessen(offen, warter, SendeErgebnis.FEHLER, UNBEKANNT);
+      if (eigene && abmelden)
+      {
+        abmeldenBeiDav(eintrag);
+      }
+    }
+  }
+
+  /**
+   * Bestimmt den Eintrag für Objekt und Datenbeschreibung und erhöht die Anzahl
+   * seiner Nutzer. Muss der Eintrag beim Datenverteiler angemeldet werden, wird
+   * er der Liste der eigenen Anmeldungen hinzugefügt.
+   */
+  private Eintrag belege(SystemObject obj, DataDescription dd, List<Eintrag> eigene)
+  {
+    Schluessel schluessel = new Schluessel(obj, dd);
+    boolean unterbrochen = false;
+
+    try
+    {
+      while (true)
+      {
+        Eintrag eintrag = _eintraege.get(schluessel);
+        if (eintrag == null)
+        {
+          Eintrag neu = new Eintrag(schluessel, obj, dd);
+          eintrag = _eintraege.putIfAbsent(schluessel, neu);
+          if (eintrag == null)
+          {
+            eintrag = neu;
+          }
+        }
+
+        synchronized(eintrag)
+        {
+          while (eintrag.abmeldend)
+          {
+            /* Abmeldung läuft in einem anderen Thread */
+            try
+            {
+              eintrag.wait();
+            }
+            catch (InterruptedException e)
+            {
+              unterbrochen = true;
+            }
+          }
+
+          if (eintrag.entfernt)
+          {
+            continue;
+          }
+
+          eintrag.referenzen++;
+
+          if (!eintrag.angemeldet && !eintrag.anmeldend)
+          {
+            eintrag.anmeldend = true;
+            eigene.add(eintrag);
+          }
+          return eintrag;
+        }
+      }
+    }
+    finally
+    {
+      if (unterbrochen)
+      {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Meldet Einträge einer Datenbeschreibung mit einem Aufruf beim Datenverteiler
+   * an. Ist eine Datenidentifikation bereits anderweitig angemeldet, werden die
+   * Objekte einzeln angemeldet. Die Anmeldung erfolgt außerhalb der Sperren,
+   * damit dataRequest nicht blockiert wird.
+   */
+  private void anmeldenBeiDav(List<Eintrag> eigene, DataDescription dd)
+  {
+    boolean[] eigeneAnmeldung = new boolean[eigene.size()];
+    boolean erfolgreich = false;
+
+    try
+    {
+      SystemObject[] objekte = new SystemObject[eigene.size()];
+      for (int i = 0; i < objekte.length; i++)
+      {
+        objekte[i] = eigene.get(i).objekt;
+      }
+
+      try
+      {
+        _connection.subscribeSender(this, objekte, dd, SenderRole.sender());
+        Arrays.fill(eigeneAnmeldung, true);
+      }
+      catch (OneSubscriptionPerSendData e)
+      {
+        /* Mindestens ein Objekt ist bereits angemeldet, einzeln anmelden */
+        for (int i = 0; i < objekte.length; i++)
+        {
+          try
+          {
+            _connection.subscribeSender(this, objekte[i], dd, SenderRole.sender());
+            eigeneAnmeldung[i] = true;
+          }
+          catch (OneSubscriptionPerSendData ex)
+          {
+            _debug.finer("Sendeanmeldung bereits vorhanden für " + objekte[i].getPid());
+          }
+        }
+      }
+      erfolgreich = true;
+    }
+    finally
+    {
+      for (int i = 0; i < eigene.size(); i++)
+      {
+        Eintrag eintrag = eigene.get(i);
+        boolean nachreichen;
+
+        synchronized(eintrag)
+        {
+          eintrag.anmeldend = false;
+          eintrag.angemeldet = erfolgreich;
+          eintrag.eigeneAnmeldung = erfolgreich && eigeneAnmeldung[i];
+          eintrag.letzteNutzung = System.currentTimeMillis();
+          nachreichen = eintrag.ausstehend != null && eintrag.sendebereit();
+          eintrag.notifyAll();
+        }
+
+        if (nachreichen)
+        {
+          planeNachreichen(eintrag);
+        }
+      }
+    }
+  }
+
+  /**
+   * Verringert die Anzahl der Nutzer eines Eintrags. Ohne Leerlaufzeit wird
+   * ein unbenutzter Eintrag sofort im Thread des Registers abgemeldet.
+   */
+  private void freigeben(final Eintrag eintrag)
+  {
+    synchronized(eintrag)
+    {
+      if (eintrag.referenzen <= 0)
+      {
+        return;
+      }
+      eintrag.referenzen--;
+      eintrag.letzteNutzung = System.currentTimeMillis();
+      if (eintrag.referenzen > 0 || _leerlauf > 0)
+      {
+        return;
+      }
+    }
+
+    try
+    {
+      _zeitgeber.execute(new Runnable()
+      {
+        public void run()
+        {
+          abmeldenWennUnbenutzt(eintrag, Long.MAX_VALUE);
+        }
+      });
+    }
+    catch (RejectedExecutionException e)
+    {
+      // Register beendet, Abmeldung erfolgt durch dispose
+    }
+  }
+
+  /**
+   * Meldet alle Einträge ab, die seit der angegebenen Zeit unbenutzt sind
+   */
+  private void abmeldenUnbenutzt(long grenze)
+  {
+    for (Eintrag eintrag: _eintraege.values())
+    {
+      abmeldenWennUnbenutzt(eintrag, grenze);
+    }
+  }
+
+  /**
+   * Meldet einen Eintrag ab, wenn er keine Nutzer hat und seit der angegebenen
+   * Zeit unbenutzt ist. Wird der Eintrag während der Abmeldung erneut belegt,
+   * bleibt er erhalten und wird vom neuen Nutzer wieder angemeldet.
+   */
+  private void abmeldenWennUnbenutzt(Eintrag eintrag, long grenze)
+  {
+    Sendung offen;
+    List<CompletableFuture<Byte>> warter;
+    boolean eigene;
+
+    synchronized(eintrag)
+    {
+      if (eintrag.referenzen > 0 || eintrag.anmeldend || eintrag.abmeldend || eintrag.entfernt
+          || eintrag.letzteNutzung > grenze)
+      {
+        return;
+      }
+      eintrag.abmeldend = true;
+      eigene = eintrag.angemeldet && eintrag.eigeneAnmeldung;
+      offen = eintrag.ausstehend;
+      eintrag.ausstehend = null;
+      warter = new ArrayList<CompletableFuture<Byte>>(eintrag.warter);
+      eintrag.warter.clear();
+    }
+
+    try
+    {
+      abschliessen(offen, warter, SendeErgebnis.FEHLER, UNBEKANNT);
+      if (eigene)
+      {
+        abmeldenBeiDav(eintrag);
+      }
+    }
+    finally
+    {
+      synchronized(eintrag)
+      {
+        eintrag.abmeldend = false;
+        eintrag.angemeldet = false;
+        eintrag.eigeneAnmeldung = false;
+        eintrag.zustand = UNBEKANNT;
+        if (eintrag.referenzen == 0)
+        {
+          eintrag.entfernt = true;
+          _eintraege.remove(eintrag.schluessel, eintrag);
+        }
+        eintrag.notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Meldet die Datenidentifikation eines Eintrags beim Datenverteiler ab
+   */
+  private void abmeldenBeiDav(Eintrag eintrag)
+  {
+    try
+    {
+      _connection.unsubscribeSender(this, eintrag.objekt, eintrag.datenBeschreibung);
+    }
+    catch (RuntimeException e)
+    {
+      _debug.warning("Fehler beim Abmelden des Senders für " + eintrag.objekt.getPid(), e);
+    }
+  }
+
+  /**
+   * Sendet einen Datensatz, bei fehlender Sendesteuerung wird er zurückgestellt,
+   * sofern inzwischen kein neuerer Datensatz zurückgestellt wurde
+   */
+  private void versenden(Sendung sendung)
+  {
+    if (sendung.ergebnis.isDone())
+    {
+      return;
+    }
+
+    Eintrag eintrag = sendung.eintrag;
+
+    try
+    {
+      _connection.sendData(sendung.daten);
+      _debug.finer("Daten gesendet mit " + eintrag.datenBeschreibung.getAttributeGroup() + " für " + eintrag.objekt);
+      sendung.ergebnis.complete(SendeErgebnis.GESENDET);
+    }
+    catch (SendSubscriptionNotConfirmed e)
+    {
+      boolean ersetzt = false;
+      boolean nachreichen = false;
+
+      synchronized(eintrag)
+      {
+        if (eintrag.ausstehend != null)
+        {
+          ersetzt = true;
+        }
+        else
+        {
+          eintrag.ausstehend = sendung;
+          nachreichen = eintrag.zustand == START_SENDING;
+        }
+      }
+
+      if (ersetzt)
+      {
+        sendung.ergebnis.complete(SendeErgebnis.ERSETZT);
+      }
+      else if (nachreichen)
+      {
+        planeNachreichen(eintrag);
+      }
+    }
+    catch (DataNotSubscribedException e)
+    {
+      _debug.error("Keine Sendeanmeldung bzw. Sendeanmeldung ungültig für " + eintrag.objekt.getPid(), e);
+      sendung.ergebnis.complete(SendeErgebnis.FEHLER);
+    }
+    catch (RuntimeException e)
+    {
+      _debug.error("Fehler beim Senden für " + eintrag.objekt.getPid(), e);
+      sendung.ergebnis.complete(SendeErgebnis.FEHLER);
+    }
+  }
+
+  /**
+   * Sendet den zurückgestellten Datensatz eines Eintrags im Thread des Registers
+   */
+  private void planeNachreichen(final Eintrag eintrag)
+  {
+    try
+    {
+      _zeitgeber.execute(new Runnable()
+      {
+        public void run()
+        {
+          Sendung sendung;
+          synchronized(eintrag)
+          {
+            if (!eintrag.sendebereit())
+            {
+              return;
+            }
+            sendung = eintrag.ausstehend;
+            eintrag.ausstehend = null;
+          }
+
+          if (sendung != null)
+          {
+            versenden(sendung);
+          }
+        }
+      });
+    }
+    catch (RejectedExecutionException e)
+    {
+      // Register beendet, zurückgestellte Datensätze schließt dispose ab
+    }
+  }
+
+  /**
+   * Schließt einen zurückgestellten Datensatz und wartende Aufrufer ab
+   */
+  private static void abschliessen(Sendung sendung, List<CompletableFuture<Byte>> warter,
+      SendeErgebnis ergebnis, byte zustand)
+  {
+    if (sendung != null)
+    {
+      sendung.ergebnis.complete(ergebnis);
+    }
+    for (CompletableFuture<Byte> w: warter)
+    {
+      w.complete(zustand);
+    }
+  }
+
+  /*
+   * (Kein Javadoc)
+   * @see de.bsvrz.dav.daf.main.ClientSenderInterface#dataRequest(de.bsvrz.dav.daf.main.config.SystemObject, de.bsvrz.dav.daf.main.DataDescription, byte)
+   */
+  public void dataRequest(SystemObject object, DataDescription dataDescription, byte state)
+  {
+    _debug.finest("dataRequest() für " + object.getPid() + " - Sender state: " + state);
+
+    if (_beendet)
+    {
+      return;
+    }
+
+    Eintrag eintrag = _eintraege.get(new Schluessel(object, dataDescription));
+    if (eintrag == null)
+    {
+      return;
+    }
+
+    Sendung abgelehnt = null;
+    List<CompletableFuture<Byte>> warter = Collections.emptyList();
+    boolean nachreichen = false;
+
+    synchronized(eintrag)
+    {
+      eintrag.zustand = state;
+
+      if (state == START_SENDING)
+      {
+        nachreichen = eintrag.ausstehend != null;
+      }
+      else if (eintrag.abgelehnt())
+      {
+        abgelehnt = eintrag.ausstehend;
+        eintrag.ausstehend = null;
+      }
+
+      if (state != STOP_SENDING)
+      {
+        warter = new ArrayList<CompletableFuture<Byte>>(eintrag.warter);
+        eintrag.warter.clear();
+      }
+    }
+
+    if (abgelehnt != null)
+    {
+      _debug.warning("Keine Sendesteuerung für " + object.getPid());
+    }
+    abschliessen(abgelehnt, warter, SendeErgebnis.KEINE_SENDESTEUERUNG, state);
+
+    if (nachreichen)
+    {
+      planeNachreichen(eintrag);
+    }
+  }
+
+  /*
+   * (Kein Javadoc)
+   * @see de.bsvrz.dav.daf.main.ClientSenderInterface#isRequestSupported(de.bsvrz.dav.daf.main.config.SystemObject, de.bsvrz.dav.daf.main.DataDescription)
+   */
+  public boolean isRequestSupported(SystemObject so, DataDescription dd)
+  {
+    return true;
+  }
+
+  /**
+   * Schlüssel einer Sendeanmeldung aus Objekt und Datenbeschreibung
+   */
+  private static final class Schluessel
+  {
+    private final long objekt;
+    private final long atg;
+    private final long asp;
+    private final short simulationsVariante;
+
+    Schluessel(SystemObject obj, DataDescription dd)
+    {
+      objekt = obj.getId();
+      atg = dd.getAttributeGroup().getId();
+      asp = dd.getAspect().getId();
+      simulationsVariante = dd.getSimulationVariant();
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+      if (!(o instanceof Schluessel))
+      {
+        return false;
+      }
+      Schluessel s = (Schluessel)o;
+      return objekt == s.objekt && atg == s.atg && asp == s.asp && simulationsVariante == s.simulationsVariante;
+    }
+
+    @Override
+    public int hashCode()
+    {
+      long h = objekt * 31 + atg;
+      h = h * 31 + asp;
+      return (int)(h ^ (h >>> 32)) * 31 + simulationsVariante;
+    }
+  }
+
+  /**
+   * Sendeanmeldung für ein Objekt und eine Datenbeschreibung. Alle nicht
+   * finalen Felder werden unter der Sperre der Instanz gelesen und geschrieben.
+   */
+  private static final class Eintrag
+  {
+    final Schluessel schluessel;
+    final SystemObject objekt;
+    final DataDescription datenBeschreibung;
+
+    /** Letzter Zustand der Sendesteuerung */
+    byte zustand = UNBEKANNT;
+
+    /** Ist auf true gesetzt, solange subscribeSender in einem Thread läuft */
+    boolean anmeldend = false;
+
+    /** Ist auf true gesetzt, solange unsubscribeSender in einem Thread läuft */
+    boolean abmeldend = false;
+
+    /** Ist auf true gesetzt, nachdem subscribeSender aufgerufen wurde */
+    boolean angemeldet = false;
+
+    /** Ist auf true gesetzt, wenn die Anmeldung von diesem Register stammt und abgemeldet werden muss */
+    boolean eigeneAnmeldung = false;
+
+    /** Ist auf true gesetzt, nachdem der Eintrag aus der Tabelle entfernt wurde */
+    boolean entfernt = false;
+
+    /** Anzahl der Nutzer */
+    int referenzen = 0;
+
+    /** Zeitpunkt der letzten Freigabe */
+    long letzteNutzung = System.currentTimeMillis();
+
+    /** Datensatz, der auf START_SENDING wartet */
+    Sendung ausstehend = null;
+
+    /** Aufrufer, die auf die Sendesteuerung warten */
+    final List<CompletableFuture<Byte>> warter = new ArrayList<CompletableFuture<Byte>>();
+
+    Eintrag(Schluessel s, SystemObject obj, DataDescription dd)
+    {
+      schluessel = s;
+      objekt = obj;
+      datenBeschreibung = dd;
+    }
+
+    /**
+     * @return true, wenn gesendet werden darf bzw. bei fremder Anmeldung versucht werden kann
+     */
+    boolean sendebereit()
+    {
+      return zustand == START_SENDING || (angemeldet && !eigeneAnmeldung);
+    }
+
+    /**
+     * @return true, wenn der Datenverteiler das Senden abgelehnt hat
+     */
+    boolean abgelehnt()
+    {
+      return zustand == STOP_SENDING_NO_RIGHTS || zustand == STOP_SENDING_NOT_A_VALID_SUBSCRIPTION;
+    }
+  }
+
+  /**
+   * Ein zu sendender Datensatz mit seinem Ergebnis
+   */
+  private static final class Sendung
+  {
+    final ResultData daten;
+    final CompletableFuture<SendeErgebnis> ergebnis = new CompletableFuture<SendeErgebnis>();
+
+    /** Eintrag der Datenidentifikation, null wenn nicht angemeldet */
+    Eintrag eintrag;
+
+    Sendung(ResultData d)
+    {
+      daten = d;
+    }
+  }
+}
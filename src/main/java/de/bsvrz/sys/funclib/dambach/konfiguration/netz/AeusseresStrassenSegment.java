@@ -46,6 +46,16 @@ public class AeusseresStrassenSegment extends StrassenSegment
    */
   private StrassenKnoten m_nachKnoten;
   
+  /**
+   * Systemobjekt des Startknotens (wird beim Lesen der Konfiguration bestimmt)
+   */
+  private SystemObject m_vonKnotenObjekt;
+
+  /**
+   * Systemobjekt des Zielknotens (wird beim Lesen der Konfiguration bestimmt)
+   */
+  private SystemObject m_nachKnotenObjekt;
+
   /**
    * zum Straßensegment gehörende TMC Richtung
    */
@@ -67,6 +77,18 @@ public class AeusseresStrassenSegment extends StrassenSegment
    * @param objekt äußeres Straßensegment
    */
   public AeusseresStrassenSegment (DataModel dataModel, SystemObject objekt)
+  {
+    this (dataModel, objekt, true);
+  }
+
+  /**
+   * Konstruktor der Klasse
+   * @param dataModel Datenmodell
+   * @param objekt äußeres Straßensegment
+   * @param knotenBestimmen true: die Straßenknoten werden sofort bestimmt, false: die Straßenknoten
+   * werden erst beim Aufruf von {@link #bestimmeKnoten()} bestimmt (paralleles Lesen der Konfiguration)
+   */
+  AeusseresStrassenSegment (DataModel dataModel, SystemObject objekt, boolean knotenBestimmen)
   {
     super (dataModel, objekt);
     
@@ -76,23 +98,74 @@ public class AeusseresStrassenSegment extends StrassenSegment
     
     if (atg != null)
     {
-      Data confData = objekt.getConfigurationData(atg);
+      Data confData = Konfiguration.getInstanz().getKonfigurationsDaten(objekt, atg);
     
       if (confData != null)
       {
-        SystemObject o1 = confData.getReferenceValue("vonKnoten").getSystemObject();
-        if (o1 != null)
-          m_vonKnoten = Konfiguration.getInstanz().getStrassenKnoten( o1.getPid() );
-
-        SystemObject o2 = confData.getReferenceValue("nachKnoten").getSystemObject();
-        if (o2 != null)
-          m_nachKnoten = Konfiguration.getInstanz().getStrassenKnoten( o2.getPid() );
+        m_vonKnotenObjekt  = confData.getReferenceValue("vonKnoten").getSystemObject();
+        m_nachKnotenObjekt = confData.getReferenceValue("nachKnoten").getSystemObject();
         
         m_tmcRichtung = confData.getScaledValue("TmcRichtung").getValueText();
         
         m_strasse = getStrassenNummer( objekt );
       }
     }
+    
+    if (knotenBestimmen)
+      bestimmeKnoten();
+  }
+  
+  /**
+   * Methode bestimmt die Instanzen des Start- und Zielknotens des Straßensegments. Die Methode
+   * greift auf die Straßenknoten der Konfiguration zu und darf daher nicht parallel aufgerufen werden.
+   */
+  void bestimmeKnoten ()
+  {
+    if (m_vonKnotenObjekt != null)
+      m_vonKnoten = Konfiguration.getInstanz().getStrassenKnoten( m_vonKnotenObjekt.getPid() );
+
+    if (m_nachKnotenObjekt != null)
+      m_nachKnoten = Konfiguration.getInstanz().getStrassenKnoten( m_nachKnotenObjekt.getPid() );
+  }
+
+  /**
+   * @return liefert das Systemobjekt des Startknotens zurück
+   */
+  SystemObject getVonKnotenObjekt()
+  {
+    return m_vonKnotenObjekt;
+  }
+
+  /**
+   * @return liefert das Systemobjekt des Zielknotens zurück
+   */
+  SystemObject getNachKnotenObjekt()
+  {
+    return m_nachKnotenObjekt;
+  }
+  
+  /**
+   * Konstruktor der Klasse, die Daten werden nicht aus der Konfiguration gelesen sondern übergeben
+   * (z.B. beim Laden eines Netzabbilds). Die Straßenknoten werden erst beim Aufruf von {@link #bestimmeKnoten()} 
+   * bestimmt.
+   * @param dataModel Datenmodell
+   * @param objekt äußeres Straßensegment
+   * @param vonKnotenObjekt Systemobjekt des Startknotens
+   * @param nachKnotenObjekt Systemobjekt des Zielknotens
+   * @param tmcRichtung TMC Richtung
+   * @param strasse Nummer der Straße
+   */
+  AeusseresStrassenSegment (DataModel dataModel, SystemObject objekt, SystemObject vonKnotenObjekt, SystemObject nachKnotenObjekt,
+      String tmcRichtung, String strasse)
+  {
+    super (dataModel, objekt);
+    
+    m_dataModel = dataModel;
+    
+    m_vonKnotenObjekt  = vonKnotenObjekt;
+    m_nachKnotenObjekt = nachKnotenObjekt;
+    m_tmcRichtung      = tmcRichtung;
+    m_strasse          = strasse;
   }
   
   /**
@@ -109,7 +182,7 @@ public class AeusseresStrassenSegment extends StrassenSegment
  
     AttributeGroup atg  = m_dataModel.getAttributeGroup("atg.straßenSegment");
 
-    Data confDataSS = strassenSegment.getConfigurationData(atg);
+    Data confDataSS = Konfiguration.getInstanz().getKonfigurationsDaten(strassenSegment, atg);
     
     if (confDataSS != null)
     {
@@ -119,7 +192,7 @@ public class AeusseresStrassenSegment extends StrassenSegment
         SystemObject soStr = m_dataModel.getObject(strasse); 
         if (soStr != null)
         {
-          Data confDataStr = soStr.getConfigurationData(m_dataModel.getAttributeGroup("atg.straße"));
+          Data confDataStr = Konfiguration.getInstanz().getKonfigurationsDaten(soStr, m_dataModel.getAttributeGroup("atg.straße"));
           if (confDataStr != null)
           {
             nr = confDataStr.getTextValue("Nummer").getValueText();
@@ -46,12 +46,34 @@ public class InneresStrassenSegment extends StrassenSegment
    */
   private AeusseresStrassenSegment m_nachStrassenSegment;
   
+  /**
+   * Systemobjekt des Vorgängersegments (wird beim Lesen der Konfiguration bestimmt)
+   */
+  private SystemObject m_vonStrassenSegmentObjekt;
+
+  /**
+   * Systemobjekt des Nachfolgersegments (wird beim Lesen der Konfiguration bestimmt)
+   */
+  private SystemObject m_nachStrassenSegmentObjekt;
+  
   /**
    * Konstruktor der Klasse
    * @param dataModel Datenmodell
    * @param objekt Objekt vom Typ "typ.inneresStraßenSegment"
    */
   public InneresStrassenSegment (DataModel dataModel, SystemObject objekt)
+  {
+    this (dataModel, objekt, true);
+  }
+
+  /**
+   * Konstruktor der Klasse
+   * @param dataModel Datenmodell
+   * @param objekt Objekt vom Typ "typ.inneresStraßenSegment"
+   * @param segmenteBestimmen true: die angrenzenden äußeren Straßensegmente werden sofort bestimmt, 
+   * false: erst beim Aufruf von {@link #bestimmeStrassenSegmente()}
+   */
+  InneresStrassenSegment (DataModel dataModel, SystemObject objekt, boolean segmenteBestimmen)
   {
     super (dataModel, objekt);
     
@@ -59,23 +81,68 @@ public class InneresStrassenSegment extends StrassenSegment
     
     if (atg != null)
     {
-      Data confData = objekt.getConfigurationData(atg);
+      Data confData = Konfiguration.getInstanz().getKonfigurationsDaten(objekt, atg);
     
       if (confData != null)
       {
-        SystemObject s1 = confData.getReferenceValue ("nachStraßenSegment").getSystemObject();
-        if (s1 == null)
-          m_nachStrassenSegment = null;
-        else
-          m_nachStrassenSegment = Konfiguration.getInstanz().getAeusseresStrassenSegment( s1.getPid() );
-        
-        SystemObject s2 = confData.getReferenceValue ("vonStraßenSegment").getSystemObject();
-        if (s2 == null)
-          m_vonStrassenSegment = null;
-        else
-          m_vonStrassenSegment = Konfiguration.getInstanz().getAeusseresStrassenSegment( s2.getPid() );
+        m_nachStrassenSegmentObjekt = confData.getReferenceValue ("nachStraßenSegment").getSystemObject();
+        m_vonStrassenSegmentObjekt  = confData.getReferenceValue ("vonStraßenSegment").getSystemObject();
       }
     }
+    
+    if (segmenteBestimmen)
+      bestimmeStrassenSegmente();
+  }
+
+  /**
+   * Konstruktor der Klasse, die Daten werden nicht aus der Konfiguration gelesen sondern übergeben
+   * (z.B. beim Laden eines Netzabbilds). Die äußeren Straßensegmente werden erst beim Aufruf von 
+   * {@link #bestimmeStrassenSegmente()} bestimmt.
+   * @param dataModel Datenmodell
+   * @param objekt Objekt vom Typ "typ.inneresStraßenSegment"
+   * @param vonStrassenSegmentObjekt Systemobjekt des Vorgängersegments
+   * @param nachStrassenSegmentObjekt Systemobjekt des Nachfolgersegments
+   */
+  InneresStrassenSegment (DataModel dataModel, SystemObject objekt, SystemObject vonStrassenSegmentObjekt,
+      SystemObject nachStrassenSegmentObjekt)
+  {
+    super (dataModel, objekt);
+    
+    m_vonStrassenSegmentObjekt  = vonStrassenSegmentObjekt;
+    m_nachStrassenSegmentObjekt = nachStrassenSegmentObjekt;
+  }
+
+  /**
+   * Methode bestimmt die Instanzen der durch das innere Straßensegment verbundenen äußeren Straßensegmente.
+   * Die äußeren Straßensegmente müssen zu diesem Zeitpunkt in der Konfiguration vollständig bestimmt sein.
+   */
+  void bestimmeStrassenSegmente ()
+  {
+    if (m_nachStrassenSegmentObjekt == null)
+      m_nachStrassenSegment = null;
+    else
+      m_nachStrassenSegment = Konfiguration.getInstanz().getAeusseresStrassenSegment( m_nachStrassenSegmentObjekt.getPid() );
+    
+    if (m_vonStrassenSegmentObjekt == null)
+      m_vonStrassenSegment = null;
+    else
+      m_vonStrassenSegment = Konfiguration.getInstanz().getAeusseresStrassenSegment( m_vonStrassenSegmentObjekt.getPid() );
+  }
+
+  /**
+   * @return liefert das Systemobjekt des Vorgängersegments zurück
+   */
+  SystemObject getVonStrassenSegmentObjekt()
+  {
+    return m_vonStrassenSegmentObjekt;
+  }
+
+  /**
+   * @return liefert das Systemobjekt des Nachfolgersegments zurück
+   */
+  SystemObject getNachStrassenSegmentObjekt()
+  {
+    return m_nachStrassenSegmentObjekt;
   }
 
   /**
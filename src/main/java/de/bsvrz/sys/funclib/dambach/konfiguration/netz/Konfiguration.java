@@ -25,15 +25,28 @@
 
 package de.bsvrz.sys.funclib.dambach.konfiguration.netz;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import de.bsvrz.dav.daf.main.ClientDavInterface;
 import de.bsvrz.dav.daf.main.Data;
+import de.bsvrz.dav.daf.main.config.AttributeGroup;
 import de.bsvrz.dav.daf.main.config.ConfigurationObject;
 import de.bsvrz.dav.daf.main.config.ConfigurationObjectType;
 import de.bsvrz.dav.daf.main.config.DataModel;
@@ -71,29 +84,82 @@ public class Konfiguration
   /**
    * Hashmap mit Instanzen der einzelnen Staßenknoten (Key = Pid, Value = Instanz)
    */
-  private HashMap<String, StrassenKnoten> m_strassenKnoten =  new HashMap<String, StrassenKnoten>();
+  private HashMap<String, StrassenKnoten> m_strassenKnoten =  new LinkedHashMap<String, StrassenKnoten>();
 
   /**
    * Hashmap mit Instanzen der einzelnen äußeren Straßensegmente (Key = Pid, Value = Instanz)
    */
-  private HashMap<String, AeusseresStrassenSegment> m_aeusseresStrassenSegment = new HashMap<String, AeusseresStrassenSegment>();
+  private HashMap<String, AeusseresStrassenSegment> m_aeusseresStrassenSegment = new LinkedHashMap<String, AeusseresStrassenSegment>();
   
   /**
    * Hashmap mit Instanzen der einzelnen inneren Staßensegmente (Key = Pid, Value = Instanz)
    */
-  private HashMap<String, InneresStrassenSegment> m_inneresStrassenSegment = new HashMap<String, InneresStrassenSegment>();
+  private HashMap<String, InneresStrassenSegment> m_inneresStrassenSegment = new LinkedHashMap<String, InneresStrassenSegment>();
 
   /**
    * Hashmap mit Instanzen der einzelnen Messquerschnitte (Key = Pid, Value = Instanz)
    */
-  private HashMap<String, MessQuerschnitt> m_messQuerschnitt = new HashMap<String, MessQuerschnitt>();
+  private HashMap<String, MessQuerschnitt> m_messQuerschnitt = new LinkedHashMap<String, MessQuerschnitt>();
   
 
   /**
-   * Zuordnungstabelle MessQuerschnitt zu NBA MessQuerschnitt.
-   * (Key = PID des MessQuerschnitt, Value = die Pid des NbaMessQuerschnitts) 
+   * Bidirektionale Zuordnung MessQuerschnitt zu NBA MessQuerschnitt, wird beim Bestimmen der Objekte neu aufgebaut
+   * und als Ganzes ausgetauscht
    */
-  private static HashMap<String, String> m_zuordnungMqZuNbaMq = new HashMap<String, String>();
+  private volatile MqNbaZuordnung m_zuordnungMqNbaMq = new MqNbaZuordnung();
+
+  /**
+   * Anzahl der Threads, mit denen die Konfigurationsdaten beim Bestimmen der Objekte gelesen werden 
+   * (1: kein paralleles Lesen)
+   */
+  private int m_parallelitaet = 1;
+  
+  /**
+   * Executor zum parallelen Lesen der Konfigurationsdaten, nur während {@link #bestimmeObjekte(ClientDavInterface, String, String)}
+   * vorhanden und nur, wenn parallel gelesen wird
+   */
+  private ExecutorService m_executor;
+  
+  /**
+   * Dauer der einzelnen Phasen beim Bestimmen der Objekte in ms (Key = Name der Phase, Value = Dauer) 
+   */
+  private Map<String, Long> m_phasenDauer = new LinkedHashMap<String, Long>();
+
+  /**
+   * Legt fest, ob die konfigurierenden Daten beim Bestimmen der Objekte vorab blockweise geladen werden
+   */
+  private boolean m_vorabLaden = true;
+  
+  /**
+   * Puffer mit den vorab geladenen konfigurierenden Daten, nur während 
+   * {@link #bestimmeObjekte(ClientDavInterface, String, String)} vorhanden
+   */
+  private volatile KonfigurationsDatenPuffer m_puffer;
+
+  /**
+   * Datei mit dem binären Abbild des Netzes, null wenn kein Netzabbild verwendet wird
+   */
+  private File m_netzAbbild = null;
+
+  /**
+   * Legt fest, ob das Netz nach dem Bestimmen der Objekte eingefroren wird (Default: nicht einfrieren)
+   */
+  private boolean m_einfrieren = false;
+
+  /**
+   * Nicht veränderbare Liste der äußeren Straßensegmente, nur im eingefrorenen Zustand vorhanden
+   */
+  private volatile List<AeusseresStrassenSegment> m_aeussereStrassenSegmenteListe = null;
+
+  /**
+   * Nicht veränderbare Liste der inneren Straßensegmente, nur im eingefrorenen Zustand vorhanden
+   */
+  private volatile List<InneresStrassenSegment> m_innereStrassenSegmenteListe = null;
+
+  /**
+   * Nicht veränderbare Liste aller Straßenteilsegmente, nur im eingefrorenen Zustand vorhanden
+   */
+  private volatile List<StrassenTeilSegment> m_strassenTeilSegmenteListe = null;
 
 
   /**
@@ -138,25 +204,79 @@ public class Konfiguration
     
     m_dataModel = m_connection.getDataModel();
 
-    System.out.println("Bestimme äußere Straßensegmente");
-
-    bestimmeAeussereStrassenSegmente (netz);
+    m_phasenDauer.clear();
     
-//    System.out.println("Bestimme Straßenknoten");
-//    
-//    bestimmeStrassenKnoten();
-
-    System.out.println("Bestimme innere Straßensegmente");
+    m_aeussereStrassenSegmenteListe = null;
+    m_innereStrassenSegmenteListe   = null;
+    m_strassenTeilSegmenteListe     = null;
+    
+    if (m_netzAbbild != null && ladeNetzAbbild( netz, kbMessQuerschnitte ))
+    {
+      if (m_einfrieren)
+        einfrieren();
 
-    bestimmeInnereStrassenSegmente();    
+      ausgabeErgebnis();
+      return;
+    }
+    
+    if (m_vorabLaden)
+      m_puffer = new KonfigurationsDatenPuffer(m_dataModel);
+    
+    if (m_parallelitaet > 1)
+    {
+      System.out.println("Konfigurationsdaten werden mit " + m_parallelitaet + " Threads gelesen");
+      
+      m_executor = new ForkJoinPool(m_parallelitaet);
+    }
+    
+    try
+    {
+      System.out.println("Bestimme äußere Straßensegmente");
+  
+      bestimmeAeussereStrassenSegmente (netz);
+      
+//      System.out.println("Bestimme Straßenknoten");
+//      
+//      bestimmeStrassenKnoten();
+  
+      System.out.println("Bestimme innere Straßensegmente");
+  
+      bestimmeInnereStrassenSegmente();    
+  
+      System.out.println("Bestimme Messquerschnitte");
+  
+      bestimmeMessQuerschnitte(kbMessQuerschnitte);
+  
+      System.out.println("Bestimme NBA Messquerschnitte");
+      
+      bestimmeNbaMessQuerschnitte();
+    }
+    finally
+    {
+      m_puffer = null;
+      
+      if (m_executor != null)
+      {
+        m_executor.shutdown();
+        m_executor = null;
+      }
+    }
 
-    System.out.println("Bestimme Messquerschnitte");
+    if (m_netzAbbild != null)
+      schreibeNetzAbbild( netz, kbMessQuerschnitte );
 
-    bestimmeMessQuerschnitte(kbMessQuerschnitte);
+    if (m_einfrieren)
+      einfrieren();
 
-    System.out.println("Bestimme NBA Messquerschnitte");
-    
-    bestimmeNbaMessQuerschnitte();
+    ausgabeErgebnis();
+  }
+  
+  /**
+   * Methode gibt die Dauer der Phasen und die Anzahl der bestimmten Objekte aus
+   */
+  private void ausgabeErgebnis ()
+  {
+    ausgabePhasenDauer();
 
     if (_debug)
       ausgabeStrassenKnoten();
@@ -173,6 +293,144 @@ public class Konfiguration
     System.out.println("Anzahl Messquerschnitt         : " + m_messQuerschnitt.size());
   }
   
+  /**
+   * Methode übernimmt die Objekte aus dem Netzabbild, sofern es zum Netz und zu den aktiven Versionen 
+   * der Konfigurationsbereiche passt.
+   * @param netz zu betrachtendes Netz
+   * @param kbMessQuerschnitte Konfigurationsbereich(e) der zu betrachtenden Messquerschnitte
+   * @return true: Objekte wurden aus dem Netzabbild übernommen, false: Objekte müssen bestimmt werden
+   */
+  private boolean ladeNetzAbbild (String netz, String kbMessQuerschnitte)
+  {
+    long start = System.currentTimeMillis();
+    
+    NetzAbbild abbild;
+    
+    try
+    {
+      abbild = NetzAbbild.lese( m_netzAbbild, m_dataModel, netz, kbMessQuerschnitte );
+    }
+    catch (IOException e)
+    {
+      m_debug.warning("Netzabbild " + m_netzAbbild + " kann nicht gelesen werden", e);
+      abbild = null;
+    }
+    
+    if (abbild == null)
+    {
+      System.out.println("Netzabbild " + m_netzAbbild + " nicht vorhanden oder veraltet");
+      
+      return false;
+    }
+    
+    System.out.println("Objekte werden aus Netzabbild " + m_netzAbbild + " übernommen");
+    
+    for (StrassenKnoten knoten : abbild.getStrassenKnoten())
+      m_strassenKnoten.put( knoten.getPid(), knoten );
+    
+    verknuepfeAeussereStrassenSegmente( abbild.getAeussereStrassenSegmente() );
+    
+    for (InneresStrassenSegment segment : abbild.getInnereStrassenSegmente())
+      segment.bestimmeStrassenSegmente();
+    
+    verknuepfeInnereStrassenSegmente( abbild.getInnereStrassenSegmente() );
+    
+    for (MessQuerschnitt mq : abbild.getMessQuerschnitte())
+      mq.bestimmeReferenz();
+    
+    ordneMessQuerschnitteZu( abbild.getMessQuerschnitte() );
+    
+    m_zuordnungMqNbaMq = abbild.getZuordnungMqNbaMq();
+    
+    uebernehmeNbaZuordnung();
+    
+    phaseBeendet("Netzabbild laden", start);
+    
+    return true;
+  }
+  
+  /**
+   * Methode schreibt die bestimmten Objekte in das Netzabbild
+   * @param netz zu betrachtendes Netz
+   * @param kbMessQuerschnitte Konfigurationsbereich(e) der zu betrachtenden Messquerschnitte
+   */
+  private void schreibeNetzAbbild (String netz, String kbMessQuerschnitte)
+  {
+    long start = System.currentTimeMillis();
+    
+    try
+    {
+      NetzAbbild.schreibe( m_netzAbbild, m_dataModel, netz, kbMessQuerschnitte, m_strassenKnoten.values(), 
+                           m_aeusseresStrassenSegment.values(), m_inneresStrassenSegment.values(), 
+                           m_messQuerschnitt.values(), m_zuordnungMqNbaMq );
+    }
+    catch (IOException e)
+    {
+      m_debug.warning("Netzabbild " + m_netzAbbild + " kann nicht geschrieben werden", e);
+    }
+    
+    phaseBeendet("Netzabbild schreiben", start);
+  }
+
+  /**
+   * Methode friert das Netz ein. Alle Straßensegmente werden eingefroren und die Listen der Straßensegmente und 
+   * Straßenteilsegmente werden einmalig als nicht veränderbare Listen angelegt. Die Methoden, die Listen liefern, 
+   * geben danach diese Listen ohne Kopie zurück.
+   */
+  public void einfrieren ()
+  {
+    List<AeusseresStrassenSegment> aeussere = new ArrayList<AeusseresStrassenSegment>( m_aeusseresStrassenSegment.values() );
+    List<InneresStrassenSegment> innere     = new ArrayList<InneresStrassenSegment>( m_inneresStrassenSegment.values() );
+    List<StrassenTeilSegment> teilSegmente  = new ArrayList<StrassenTeilSegment>();
+    
+    for (AeusseresStrassenSegment segment : aeussere)
+    {
+      segment.einfrieren();
+      teilSegmente.addAll( segment.getStrassenTeilSegmenteListe() );
+    }
+    
+    for (InneresStrassenSegment segment : innere)
+    {
+      segment.einfrieren();
+      teilSegmente.addAll( segment.getStrassenTeilSegmenteListe() );
+    }
+    
+    m_aeussereStrassenSegmenteListe = Collections.unmodifiableList( aeussere );
+    m_innereStrassenSegmenteListe   = Collections.unmodifiableList( innere );
+    m_strassenTeilSegmenteListe     = Collections.unmodifiableList( teilSegmente );
+  }
+
+  /**
+   * @return liefert true zurück, wenn das Netz eingefroren ist
+   */
+  public boolean isEingefroren ()
+  {
+    return m_strassenTeilSegmenteListe != null;
+  }
+
+  /**
+   * Methode legt fest, ob das Netz am Ende von {@link #bestimmeObjekte(ClientDavInterface, String, String)} 
+   * eingefroren wird (siehe {@link #einfrieren()}). Im eingefrorenen Netz führt jeder Versuch, ein Straßensegment 
+   * zu verändern, zu einer IllegalStateException.
+   * @param einfrieren true: Netz einfrieren, false: Netz bleibt veränderbar (Default)
+   */
+  public void setEinfrieren (boolean einfrieren)
+  {
+    m_einfrieren = einfrieren;
+  }
+
+  /**
+   * Methode legt die Datei für das binäre Abbild des Netzes fest. Ist die Datei gesetzt, werden die Objekte 
+   * in {@link #bestimmeObjekte(ClientDavInterface, String, String)} aus dem Abbild übernommen, solange sich 
+   * keine Version eines Konfigurationsbereichs geändert hat. Andernfalls werden die Objekte bestimmt und das 
+   * Abbild neu geschrieben.
+   * @param netzAbbild Datei des Netzabbilds, null: kein Netzabbild verwenden (Default)
+   */
+  public void setNetzAbbild (File netzAbbild)
+  {
+    m_netzAbbild = netzAbbild;
+  }
+
   /**
    * Methode zum Bestimmen aller Objekte vom Typ "typ.straßenKnoten"
    */
@@ -196,6 +454,128 @@ public class Konfiguration
    * Strassenknoten angelegt und eine Zuordnung der Strassensegmente zu den Strassenknoten vorgenommen
    */
   private void bestimmeAeussereStrassenSegmente (String netz)
+  {
+    long start = System.currentTimeMillis();
+    
+    Set<SystemObject> objekte = new LinkedHashSet<SystemObject>();
+    
+    sammleAeussereStrassenSegmente (netz, objekte);
+
+//    äußereStraßenSegmente = bestimmeObjekte( "typ.äußeresStraßenSegment" );  // Test mit allen äüßeren Straßensegmenten
+
+    if (m_puffer != null)
+    {
+      m_puffer.lade( "atg.äußeresStraßenSegment", objekte );
+      
+      ladeStrassenSegmente( objekte );
+      
+      m_puffer.lade( "atg.straße", m_puffer.getReferenzen( "atg.straßenSegment", "gehörtZuStraße", false, objekte ) );
+      
+      start = phaseBeendet("Äußere Straßensegmente vorab laden", start);
+    }
+
+    // Lesen der Konfigurationsdaten der Straßensegmente (kann parallel erfolgen)
+    
+    List<Callable<AeusseresStrassenSegment>> aufgaben = new ArrayList<Callable<AeusseresStrassenSegment>>();
+    
+    Iterator<SystemObject> it = objekte.iterator();
+    while (it.hasNext())
+    {
+      final SystemObject objekt = it.next();
+      
+      aufgaben.add( new Callable<AeusseresStrassenSegment>()
+      {
+        public AeusseresStrassenSegment call()
+        {
+          AeusseresStrassenSegment strassenSegment = new AeusseresStrassenSegment (m_dataModel, objekt, false);
+          strassenSegment.initialisiere();
+          
+          return strassenSegment;
+        }
+      });
+    }
+    
+    List<AeusseresStrassenSegment> segmente = fuehreAus( aufgaben );
+    
+    start = phaseBeendet("Äußere Straßensegmente lesen", start);
+    
+    // Lesen der Konfigurationsdaten der Straßenknoten (kann parallel erfolgen)
+    
+    Set<SystemObject> knotenObjekte = new LinkedHashSet<SystemObject>();
+    for (AeusseresStrassenSegment strassenSegment : segmente)
+    {
+      if (strassenSegment.getVonKnotenObjekt() != null)
+        knotenObjekte.add( strassenSegment.getVonKnotenObjekt() );
+      
+      if (strassenSegment.getNachKnotenObjekt() != null)
+        knotenObjekte.add( strassenSegment.getNachKnotenObjekt() );
+    }
+    
+    List<SystemObject> neueKnoten = new ArrayList<SystemObject>();
+    
+    for (SystemObject objekt : knotenObjekte)
+    {
+      if (!m_strassenKnoten.containsKey( objekt.getPid() ) && objekt.isOfType( "typ.straßenKnoten" ))
+        neueKnoten.add( objekt );
+    }
+    
+    if (m_puffer != null)
+      m_puffer.lade( "atg.straßenKnoten", neueKnoten );
+    
+    List<Callable<StrassenKnoten>> knotenAufgaben = new ArrayList<Callable<StrassenKnoten>>();
+    
+    for (final SystemObject objekt : neueKnoten)
+    {
+      knotenAufgaben.add( new Callable<StrassenKnoten>()
+      {
+        public StrassenKnoten call()
+        {
+          return new StrassenKnoten (m_connection, objekt);
+        }
+      });
+    }
+    
+    for (StrassenKnoten sk : fuehreAus( knotenAufgaben ))
+      m_strassenKnoten.put( sk.getPid(), sk );
+    
+    start = phaseBeendet("Straßenknoten lesen", start);
+    
+    verknuepfeAeussereStrassenSegmente( segmente );
+    
+    phaseBeendet("Äußere Straßensegmente verknüpfen", start);
+  }
+
+  /**
+   * Methode verknüpft die äußeren Straßensegmente mit den Straßenknoten (in der Reihenfolge der Segmente).
+   * Die Straßenknoten müssen bereits bestimmt sein.
+   * @param segmente äußere Straßensegmente
+   */
+  private void verknuepfeAeussereStrassenSegmente (List<AeusseresStrassenSegment> segmente)
+  {
+    for (AeusseresStrassenSegment strassenSegment : segmente)
+    {
+      strassenSegment.bestimmeKnoten();
+      
+      m_aeusseresStrassenSegment.put( strassenSegment.getPid(), strassenSegment );
+      
+      StrassenKnoten vonKnoten  = strassenSegment.getVonKnoten(); 
+      StrassenKnoten nachKnoten = strassenSegment.getNachKnoten();
+      
+      if (vonKnoten != null)
+        vonKnoten.addAbgehendesAeusseresStrassenSegment (strassenSegment);
+      
+      if (nachKnoten != null)
+        nachKnoten.addHinfuehrendesAeusseresStrassenSegment(strassenSegment);
+    }
+  }
+
+  /**
+   * Methode sammelt alle Objekte vom Typ "typ.äußeresStraßenSegment" im übergebenen Netz. Enthaltene Netze werden
+   * rekursiv durchlaufen, deren Straßensegmente werden vor den Straßensegmenten des übergeordneten Netzes eingetragen.
+   * @param netz Pid des Netzes
+   * @param objekte Menge, in die die gefundenen Straßensegmente eingetragen werden
+   */
+  private void sammleAeussereStrassenSegmente (String netz, Set<SystemObject> objekte)
   {
     List<SystemObject> aeussereStrassenSegmente = new ArrayList<SystemObject> ();
     
@@ -211,27 +591,7 @@ public class Konfiguration
     for (int i = 0; i < liste.size(); i++)
     {
       ConfigurationObject coNetz = (ConfigurationObject)liste.get(i);
-      /*
-      if (!coNetz.getType().isOfType("typ.äußeresStraßenSegment"))
-      {
-        List liste2 = coNetz.getNonMutableSet("NetzBestandTeile").getElements();
-          
-        for (int j = 0; j < liste2.size(); j++)
-        {
-          ConfigurationObject coNetz2 = (ConfigurationObject)liste2.get(j);
 
-          if (!coNetz2.getType().getPid().equals("typ.äußeresStraßenSegment"))
-          {
-            System.out.println("Kein ÄußeresStrassenSegment gefunden!");
-          }
-          else
-          {
-            if (!aeussereStrassenSegmente.contains(coNetz2))
-              aeussereStrassenSegmente.add(coNetz2);
-          }       
-        }     
-      }
-      */
       /* Rekursive Lösung ab 17.4.2008 - ANFANG - */
       if (coNetz.isOfType("typ.äußeresStraßenSegment"))
       {
@@ -242,7 +602,7 @@ public class Konfiguration
       }
       else if (coNetz.isOfType("typ.netz"))
       {
-        bestimmeAeussereStrassenSegmente(coNetz.getPid());
+        sammleAeussereStrassenSegmente(coNetz.getPid(), objekte);
       }
       else
       {
@@ -252,28 +612,8 @@ public class Konfiguration
       }
       /* Rekursive Lösung ab 17.4.2008 - ENDE - */
     }
-
-//    äußereStraßenSegmente = bestimmeObjekte( "typ.äußeresStraßenSegment" );  // Test mit allen äüßeren Straßensegmenten
     
-    Iterator it = aeussereStrassenSegmente.iterator();
-    while (it.hasNext())
-    {
-      SystemObject objekt = (SystemObject) it.next();
-      
-      AeusseresStrassenSegment strassenSegment = new AeusseresStrassenSegment (m_dataModel, objekt);
-      strassenSegment.initialisiere();
-      
-      m_aeusseresStrassenSegment.put( objekt.getPid(), strassenSegment );
-      
-      StrassenKnoten vonKnoten  = strassenSegment.getVonKnoten(); 
-      StrassenKnoten nachKnoten = strassenSegment.getNachKnoten();
-      
-      if (vonKnoten != null)
-        vonKnoten.addAbgehendesAeusseresStrassenSegment (strassenSegment);
-      
-      if (nachKnoten != null)
-        nachKnoten.addHinfuehrendesAeusseresStrassenSegment(strassenSegment);
-    }
+    objekte.addAll( aeussereStrassenSegmente );
   }
 
   /**
@@ -282,56 +622,102 @@ public class Konfiguration
    */
   private void bestimmeInnereStrassenSegmente ()
   {
+    long start = System.currentTimeMillis();
+    
     List<SystemObject> innereStrassenSegmente = bestimmeObjekte( "typ.inneresStraßenSegment" );
     
-    Iterator it = innereStrassenSegmente.iterator();
+    if (m_puffer != null)
+    {
+      m_puffer.lade( "atg.inneresStraßenSegment", innereStrassenSegmente );
+      
+      ladeStrassenSegmente( innereStrassenSegmente );
+      
+      start = phaseBeendet("Innere Straßensegmente vorab laden", start);
+    }
+    
+    // Lesen der Konfigurationsdaten der Straßensegmente (kann parallel erfolgen, die äußeren 
+    // Straßensegmente werden dabei nur noch gelesen)
+    
+    List<Callable<InneresStrassenSegment>> aufgaben = new ArrayList<Callable<InneresStrassenSegment>>();
+    
+    Iterator<SystemObject> it = innereStrassenSegmente.iterator();
     while (it.hasNext())
     {
-      SystemObject objekt = (SystemObject) it.next();
+      final SystemObject objekt = it.next();
       
-      InneresStrassenSegment strassenSegment = new InneresStrassenSegment (m_dataModel, objekt);
+      aufgaben.add( new Callable<InneresStrassenSegment>()
+      {
+        public InneresStrassenSegment call()
+        {
+          InneresStrassenSegment strassenSegment = new InneresStrassenSegment (m_dataModel, objekt, false);
+          strassenSegment.bestimmeStrassenSegmente();
+          
+          // Straßensegmente ohne Anbindung an äußere Straßensegmente werden nicht verwendet
+          
+          if ((strassenSegment.getVonStrassenSegmemt() == null) && (strassenSegment.getNachStrassenSegment() == null))
+            return null;
+          
+          strassenSegment.initialisiere();
+          
+          return strassenSegment;
+        }
+      });
+    }
+    
+    List<InneresStrassenSegment> segmente = fuehreAus( aufgaben );
+    
+    start = phaseBeendet("Innere Straßensegmente lesen", start);
+    
+    verknuepfeInnereStrassenSegmente( segmente );
+    
+    phaseBeendet("Innere Straßensegmente verknüpfen", start);
+  }
+
+  /**
+   * Methode verknüpft die inneren Straßensegmente mit den äußeren Straßensegmenten und den Straßenknoten 
+   * (in der Reihenfolge der Segmente). Die äußeren Straßensegmente der inneren Straßensegmente müssen bereits 
+   * bestimmt sein. 
+   * @param segmente innere Straßensegmente, null Einträge werden übergangen
+   */
+  private void verknuepfeInnereStrassenSegmente (List<InneresStrassenSegment> segmente)
+  {
+    for (InneresStrassenSegment strassenSegment : segmente)
+    {
+      if (strassenSegment == null)
+        continue;
       
-      m_inneresStrassenSegment.put( objekt.getPid(), strassenSegment );
+      m_inneresStrassenSegment.put( strassenSegment.getPid(), strassenSegment );
       
       AeusseresStrassenSegment vonStrassenSegment  = strassenSegment.getVonStrassenSegmemt(); 
       AeusseresStrassenSegment nachStrassenSegment = strassenSegment.getNachStrassenSegment();
 
-      if ((vonStrassenSegment) == null && (nachStrassenSegment == null))
+      if (vonStrassenSegment != null)
       {
-        m_inneresStrassenSegment.remove( objekt.getPid() );        
-      }
-      else
-      {
-        strassenSegment.initialisiere();
+        strassenSegment.setVorgaengerAufStrasse ( vonStrassenSegment  );
         
-        if (vonStrassenSegment != null)
-        {
-          strassenSegment.setVorgaengerAufStrasse ( vonStrassenSegment  );
+        StrassenKnoten sk = m_strassenKnoten.get( vonStrassenSegment.getNachKnoten().getPid());
+        if (sk != null)
+          sk.addInneresStrassenSegment (strassenSegment);
           
-          StrassenKnoten sk = m_strassenKnoten.get( vonStrassenSegment.getNachKnoten().getPid());
-          if (sk != null)
-            sk.addInneresStrassenSegment (strassenSegment);
-            
-          if (vonStrassenSegment.liegtAufSelberStrasse( nachStrassenSegment ))
-            vonStrassenSegment.addNachfolgerAufStrasse( strassenSegment );
-          else
-            vonStrassenSegment.addNachfolger( strassenSegment );
-        }
+        if (vonStrassenSegment.liegtAufSelberStrasse( nachStrassenSegment ))
+          vonStrassenSegment.addNachfolgerAufStrasse( strassenSegment );
+        else
+          vonStrassenSegment.addNachfolger( strassenSegment );
+      }
 
-        if (nachStrassenSegment != null)
-        {
-          strassenSegment.setNachfolgerAufStrase( nachStrassenSegment );
-         
-          StrassenKnoten sk = m_strassenKnoten.get( nachStrassenSegment.getVonKnoten().getPid());
-          if (sk != null)
-            sk.addInneresStrassenSegment (strassenSegment);
-          
-          if (nachStrassenSegment.liegtAufSelberStrasse( vonStrassenSegment ))
-            nachStrassenSegment.addVorgaengerAufStrasse( strassenSegment );
-          else
-            nachStrassenSegment.addVorgaenger( strassenSegment );
-        }
-      }      
+      if (nachStrassenSegment != null)
+      {
+        strassenSegment.setNachfolgerAufStrase( nachStrassenSegment );
+       
+        StrassenKnoten sk = m_strassenKnoten.get( nachStrassenSegment.getVonKnoten().getPid());
+        if (sk != null)
+          sk.addInneresStrassenSegment (strassenSegment);
+        
+        if (nachStrassenSegment.liegtAufSelberStrasse( vonStrassenSegment ))
+          nachStrassenSegment.addVorgaengerAufStrasse( strassenSegment );
+        else
+          nachStrassenSegment.addVorgaenger( strassenSegment );
+      }
     }
   }
 
@@ -395,26 +781,76 @@ public class Konfiguration
    */
   private void bestimmeMessQuerschnitte(String kbMessQuerschnitte)
   {
+    long start = System.currentTimeMillis();
+    
 //    List<SystemObject> elemente = bestimmeObjekte( "typ.messQuerschnittAllgemein" );
 
     List<SystemObject> elemente = objektListeErstellen(m_dataModel, "typ.messQuerschnittAllgemein", kbMessQuerschnitte);
 
-    for (int i = 0; i < elemente.size(); i++)
+    if (m_puffer != null)
     {
-      ConfigurationObject co = (ConfigurationObject)elemente.get(i);
+      m_puffer.lade( "atg.punktLiegtAufLinienObjekt", elemente );
+      m_puffer.lade( "atg.messQuerschnittAllgemein", elemente );
       
-      MessQuerschnitt mq = new MessQuerschnitt (m_connection, co);
-      // m_messQuerschnitt.put( co.getPid(), mq );
+      start = phaseBeendet("Messquerschnitte vorab laden", start);
+    }
+
+    // Lesen der Konfigurationsdaten der Messquerschnitte (kann parallel erfolgen, die Straßensegmente 
+    // werden dabei nur noch gelesen)
+    
+    List<Callable<MessQuerschnitt>> aufgaben = new ArrayList<Callable<MessQuerschnitt>>();
+    
+    for (int i = 0; i < elemente.size(); i++)
+    {
+      final SystemObject co = elemente.get(i);
       
+      aufgaben.add( new Callable<MessQuerschnitt>()
+      {
+        public MessQuerschnitt call()
+        {
+          MessQuerschnitt mq = new MessQuerschnitt (m_connection, co, false);
+          mq.bestimmeReferenz();
+          
+          return mq;
+        }
+      });
+    }
+    
+    List<MessQuerschnitt> messQuerschnitte = fuehreAus( aufgaben );
+
+    start = phaseBeendet("Messquerschnitte lesen", start);
+    
+    ordneMessQuerschnitteZu( messQuerschnitte );
+    
+    phaseBeendet("Messquerschnitte zuordnen", start);
+  }
+
+  /**
+   * Methode ordnet die Messquerschnitte den Straßensegmenten zu, auf denen sie liegen (in der Reihenfolge 
+   * der Messquerschnitte). Messquerschnitte ohne Straßensegment werden nicht übernommen. Anschließend 
+   * wird für jedes Straßensegment der Index der Messquerschnitte erstellt.
+   * @param messQuerschnitte Messquerschnitte mit bestimmter Linienreferenz
+   */
+  private void ordneMessQuerschnitteZu (List<MessQuerschnitt> messQuerschnitte)
+  {
+    for (MessQuerschnitt mq : messQuerschnitte)
+    {
       StrassenSegment linie = mq.getReferenz();
       
       if (linie != null)
       {
-        m_messQuerschnitt.put( co.getPid(), mq );
+        m_messQuerschnitt.put( mq.getPid(), mq );
         linie.addMessQuerschnitt (mq);
       }
-       
     }
+    
+    // Index der Messquerschnitte je Straßensegment einmalig nach dem Zuordnen erstellen
+    
+    for (StrassenSegment segment : m_aeusseresStrassenSegment.values())
+      segment.erstelleMessQuerschnittIndex();
+    
+    for (StrassenSegment segment : m_inneresStrassenSegment.values())
+      segment.erstelleMessQuerschnittIndex();
   }
 
   /**
@@ -731,26 +1167,217 @@ public class Konfiguration
    */
   private void bestimmeNbaMessQuerschnitte()
   {
+    long start = System.currentTimeMillis();
+    
     List<SystemObject> elemente = bestimmeObjekte( "typ.nbaMessQuerschnitt" );
     
+    final AttributeGroup atg = m_dataModel.getAttributeGroup("atg.nbaMessQuerschnitt");
+    
+    if (m_puffer != null)
+      m_puffer.lade( "atg.nbaMessQuerschnitt", elemente );
+    
+    // Lesen der Referenzen auf die realen Messquerschnitte (kann parallel erfolgen)
+    
+    List<Callable<String>> aufgaben = new ArrayList<Callable<String>>();
+
     for (int i = 0; i < elemente.size(); i++)
     {
-      ConfigurationObject co = (ConfigurationObject)elemente.get(i);
+      final SystemObject co = elemente.get(i);
 
-      Data confData = co.getConfigurationData(m_dataModel.getAttributeGroup("atg.nbaMessQuerschnitt"));
+      aufgaben.add( new Callable<String>()
+      {
+        public String call()
+        {
+          Data confData = getKonfigurationsDaten(co, atg);
 
-      if (confData == null)
-        continue;
-      
-      String ref = confData.getReferenceValue("MessQuerschnittReal").getValueText();
+          if (confData == null)
+            return null;
+          
+          return confData.getReferenceValue("MessQuerschnittReal").getValueText();
+        }
+      });
+    }
+    
+    List<String> referenzen = fuehreAus( aufgaben );
+    
+    MqNbaZuordnung.Aufbau zuordnung = new MqNbaZuordnung.Aufbau();
+    
+    for (int i = 0; i < elemente.size(); i++)
+    {
+      String ref = referenzen.get(i);
       
       if (ref != null)
       {
 //        System.out.println("Mq: " + ref + " nbaMQ: " + co.getPid());
         
-        m_zuordnungMqZuNbaMq.put(ref, co.getPid());
+        zuordnung.add(ref, elemente.get(i).getPid());
       }
     }
+    
+    m_zuordnungMqNbaMq = zuordnung.erzeuge();
+    
+    uebernehmeNbaZuordnung();
+    
+    phaseBeendet("NBA Messquerschnitte lesen", start);
+  }
+  
+  /**
+   * Methode lädt für Straßensegmente die Daten der Attributgruppen "atg.straßenSegment" und 
+   * "atg.bestehtAusLinienObjekten" sowie die Daten aller dabei referenzierten Straßenteilsegmente vorab.
+   * @param objekte Straßensegmente
+   */
+  private void ladeStrassenSegmente (Collection<SystemObject> objekte)
+  {
+    m_puffer.lade( "atg.straßenSegment", objekte );
+    m_puffer.lade( "atg.bestehtAusLinienObjekten", objekte );
+    
+    m_puffer.lade( "atg.straßenTeilSegment", m_puffer.getReferenzen( "atg.bestehtAusLinienObjekten", "LinienReferenz", true, objekte ) );
+  }
+  
+  /**
+   * Methode liefert die konfigurierenden Daten eines Objekts. Während des Bestimmens der Objekte werden 
+   * die vorab geladenen Daten verwendet, sonst werden die Daten direkt beim Objekt gelesen.
+   * @param objekt Systemobjekt
+   * @param atg Attributgruppe
+   * @return konfigurierende Daten, null wenn keine Daten vorhanden sind
+   */
+  Data getKonfigurationsDaten (SystemObject objekt, AttributeGroup atg)
+  {
+    KonfigurationsDatenPuffer puffer = m_puffer;
+    
+    if (puffer != null)
+      return puffer.getDaten( objekt, atg );
+    
+    return objekt.getConfigurationData( atg );
+  }
+  
+  /**
+   * Methode legt fest, ob die konfigurierenden Daten beim Bestimmen der Objekte je Attributgruppe vorab
+   * blockweise für alle Objekte geladen werden (Voreinstellung) oder für jedes Objekt einzeln gelesen werden.
+   * @param vorabLaden true: Daten vorab laden, false: Daten einzeln lesen
+   */
+  public void setVorabLaden (boolean vorabLaden)
+  {
+    m_vorabLaden = vorabLaden;
+  }
+  
+  /**
+   * Methode führt die übergebenen Aufgaben aus. Wird parallel gelesen, so werden die Aufgaben auf die 
+   * Threads des Executors verteilt, sonst werden sie nacheinander im aufrufenden Thread ausgeführt. 
+   * Die Reihenfolge der Ergebnisse entspricht in beiden Fällen der Reihenfolge der Aufgaben.
+   * @param aufgaben auszuführende Aufgaben
+   * @return Ergebnisse der Aufgaben
+   */
+  private <T> List<T> fuehreAus (List<Callable<T>> aufgaben)
+  {
+    List<T> ergebnisse = new ArrayList<T>(aufgaben.size());
+    
+    try
+    {
+      if (m_executor == null)
+      {
+        for (Callable<T> aufgabe : aufgaben)
+          ergebnisse.add( aufgabe.call() );
+      }
+      else
+      {
+        for (Future<T> future : m_executor.invokeAll( aufgaben ))
+          ergebnisse.add( future.get() );
+      }
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Bestimmen der Objekte wurde unterbrochen", e);
+    }
+    catch (ExecutionException e)
+    {
+      if (e.getCause() instanceof RuntimeException)
+        throw (RuntimeException) e.getCause();
+      
+      if (e.getCause() instanceof Error)
+        throw (Error) e.getCause();
+      
+      throw new IllegalStateException("Fehler beim Bestimmen der Objekte", e.getCause());
+    }
+    catch (RuntimeException e)
+    {
+      throw e;
+    }
+    catch (Exception e)
+    {
+      throw new IllegalStateException("Fehler beim Bestimmen der Objekte", e);
+    }
+    
+    return ergebnisse;
+  }
+  
+  /**
+   * Methode vermerkt die Dauer einer Phase beim Bestimmen der Objekte
+   * @param phase Name der Phase
+   * @param start Startzeitpunkt der Phase in ms
+   * @return Endezeitpunkt der Phase in ms (Startzeitpunkt der nächsten Phase)
+   */
+  private long phaseBeendet (String phase, long start)
+  {
+    long ende = System.currentTimeMillis();
+    
+    m_phasenDauer.put( phase, ende - start );
+    
+    return ende;
+  }
+  
+  /**
+   * Methode zur Ausgabe der Dauer der einzelnen Phasen beim Bestimmen der Objekte
+   */
+  private void ausgabePhasenDauer ()
+  {
+    long summe = 0;
+    
+    System.out.println("Dauer der Phasen beim Bestimmen der Objekte:");
+    
+    Iterator<Map.Entry<String, Long>> it = m_phasenDauer.entrySet().iterator();
+    while (it.hasNext())
+    {
+      Map.Entry<String, Long> entry = it.next();
+      
+      System.out.println(String.format("  %-35s: %8d ms", entry.getKey(), entry.getValue()));
+      
+      summe += entry.getValue();
+    }
+    
+    System.out.println(String.format("  %-35s: %8d ms", "Gesamt", summe));
+  }
+  
+  /**
+   * Methode liefert die Dauer der einzelnen Phasen beim letzten Bestimmen der Objekte
+   * @return Dauer der Phasen in ms (Key = Name der Phase, Value = Dauer), in der Reihenfolge der Phasen
+   */
+  public Map<String, Long> getPhasenDauer ()
+  {
+    return Collections.unmodifiableMap( m_phasenDauer );
+  }
+  
+  /**
+   * Methode legt fest, mit wievielen Threads die Konfigurationsdaten beim Bestimmen der Objekte gelesen werden.
+   * Die Konfigurationsdaten der einzelnen Objekte werden dann parallel gelesen, das Verknüpfen der Objekte
+   * erfolgt weiterhin in einem Thread und in derselben Reihenfolge wie beim sequentiellen Lesen.
+   * @param parallelitaet Anzahl der Threads (1: kein paralleles Lesen)
+   */
+  public void setParallelitaet (int parallelitaet)
+  {
+    if (parallelitaet < 1)
+      throw new IllegalArgumentException("Parallelität muss mindestens 1 sein: " + parallelitaet);
+    
+    m_parallelitaet = parallelitaet;
+  }
+  
+  /**
+   * @return liefert die Anzahl der Threads zum Lesen der Konfigurationsdaten zurück
+   */
+  public int getParallelitaet ()
+  {
+    return m_parallelitaet;
   }
   
   /**
@@ -761,10 +1388,7 @@ public class Konfiguration
    */
   public String getNbaMqVonMq (String pidMq)
   {
-    if (m_zuordnungMqZuNbaMq.containsKey( pidMq ))
-      return m_zuordnungMqZuNbaMq.get(pidMq);
-    
-    return null;
+    return m_zuordnungMqNbaMq.getNbaMq( pidMq );
   }
 
   /**
@@ -775,20 +1399,28 @@ public class Konfiguration
    */
   public String getMqVonNbaMq (String pidNbaMq)
   {
-    Iterator it = m_zuordnungMqZuNbaMq.entrySet().iterator();
-    
-    while (it.hasNext())
-    {
-      Map.Entry entry = (Map.Entry) it.next();
-      
-      String _pidMq    = (String) entry.getKey();
-      String _pidNbaMq = (String) entry.getValue();
-      
-      if (pidNbaMq.equals( _pidNbaMq ))
-        return _pidMq;
-    }
+    return m_zuordnungMqNbaMq.getMq( pidNbaMq );
+  }
+
+  /**
+   * Methode liefert die bidirektionale Zuordnung der Messquerschnitte zu den NBA Messquerschnitten
+   * @return unveränderliche Zuordnung MessQuerschnitt zu NBA MessQuerschnitt des zuletzt abgeschlossenen Bestimmens
+   * der Objekte
+   */
+  public MqNbaZuordnung getZuordnungMqNbaMq ()
+  {
+    return m_zuordnungMqNbaMq;
+  }
+
+  /**
+   * Methode überträgt die Zuordnung zu den NBA Messquerschnitten in die Messquerschnitte
+   */
+  private void uebernehmeNbaZuordnung ()
+  {
+    MqNbaZuordnung zuordnung = m_zuordnungMqNbaMq;
     
-    return null;
+    for (MessQuerschnitt mq : m_messQuerschnitt.values())
+      mq.setNbaPids( zuordnung.getNbaMqs( mq.getPid() ) );
   }
 
   /**
@@ -960,19 +1592,26 @@ public class Konfiguration
    */
   public Vector<AeusseresStrassenSegment> getAeussereStrassenSegmente ()
   {
-    Vector<AeusseresStrassenSegment> v = new Vector<AeusseresStrassenSegment>();  
-  
-    Iterator it = m_aeusseresStrassenSegment.entrySet().iterator();
-    while (it.hasNext())
-    {
-      Map.Entry entry = (Map.Entry) it.next();
-      
-      AeusseresStrassenSegment s = (AeusseresStrassenSegment) entry.getValue();
-      
-      v.add( s );
-    }
+    List<AeusseresStrassenSegment> liste = m_aeussereStrassenSegmenteListe;
     
-    return v;
+    if (liste != null)
+      return new Vector<AeusseresStrassenSegment>( liste );
+    
+    return new Vector<AeusseresStrassenSegment>( m_aeusseresStrassenSegment.values() );
+  }
+
+  /**
+   * Methode liefert alle äußeren Straßensegmente als nicht veränderbare Liste, im eingefrorenen Zustand ohne Kopie
+   * @return nicht veränderbare Liste der äußeren Straßensegmente
+   */
+  public List<AeusseresStrassenSegment> getAeussereStrassenSegmenteListe ()
+  {
+    List<AeusseresStrassenSegment> liste = m_aeussereStrassenSegmenteListe;
+    
+    if (liste != null)
+      return liste;
+    
+    return Collections.unmodifiableList( new ArrayList<AeusseresStrassenSegment>( m_aeusseresStrassenSegment.values() ) );
   }
   
   /**
@@ -981,19 +1620,26 @@ public class Konfiguration
    */
   public Vector<InneresStrassenSegment> getInnereStrassenSegmente ()
   {
-    Vector<InneresStrassenSegment> v = new Vector<InneresStrassenSegment>();  
-  
-    Iterator it = m_inneresStrassenSegment.entrySet().iterator();
-    while (it.hasNext())
-    {
-      Map.Entry entry = (Map.Entry) it.next();
-      
-      InneresStrassenSegment s = (InneresStrassenSegment) entry.getValue();
-      
-      v.add( s );
-    }
+    List<InneresStrassenSegment> liste = m_innereStrassenSegmenteListe;
+    
+    if (liste != null)
+      return new Vector<InneresStrassenSegment>( liste );
+    
+    return new Vector<InneresStrassenSegment>( m_inneresStrassenSegment.values() );
+  }
+
+  /**
+   * Methode liefert alle inneren Straßensegmente als nicht veränderbare Liste, im eingefrorenen Zustand ohne Kopie
+   * @return nicht veränderbare Liste der inneren Straßensegmente
+   */
+  public List<InneresStrassenSegment> getInnereStrassenSegmenteListe ()
+  {
+    List<InneresStrassenSegment> liste = m_innereStrassenSegmenteListe;
+    
+    if (liste != null)
+      return liste;
     
-    return v;
+    return Collections.unmodifiableList( new ArrayList<InneresStrassenSegment>( m_inneresStrassenSegment.values() ) );
   }
 
   /**
@@ -1002,36 +1648,42 @@ public class Konfiguration
    */
   public Vector<StrassenTeilSegment> getStrassenTeilSegmente ()
   {
-    Vector<StrassenTeilSegment> v = new Vector<StrassenTeilSegment>();
-
-    // äußere Straßensegmente
+    List<StrassenTeilSegment> liste = m_strassenTeilSegmenteListe;
     
-    Iterator<AeusseresStrassenSegment> itÄ = getAeussereStrassenSegmente().iterator();
-    while (itÄ.hasNext())
-    {
-      AeusseresStrassenSegment s = itÄ.next();
-      
-      Iterator<StrassenTeilSegment> itSts = s.getStrassenTeilSegmente().iterator();
-      while (itSts.hasNext())
-      {
-        v.add ( itSts.next() );
-      }
-    }
+    if (liste != null)
+      return new Vector<StrassenTeilSegment>( liste );
+    
+    return sammleStrassenTeilSegmente( new Vector<StrassenTeilSegment>() );
+  }
 
-    // innere Straßensegmente
+  /**
+   * Methode liefert alle Straßenteilsegmente (erst die der äußeren, dann die der inneren Straßensegmente) als 
+   * nicht veränderbare Liste, im eingefrorenen Zustand ohne Kopie
+   * @return nicht veränderbare Liste der Straßenteilsegmente
+   */
+  public List<StrassenTeilSegment> getStrassenTeilSegmenteListe ()
+  {
+    List<StrassenTeilSegment> liste = m_strassenTeilSegmenteListe;
     
-    Iterator<InneresStrassenSegment> itI = getInnereStrassenSegmente().iterator();
-    while (itI.hasNext())
-    {
-      InneresStrassenSegment s = itI.next();
-      
-      Iterator<StrassenTeilSegment> itSts = s.getStrassenTeilSegmente().iterator();
-      while (itSts.hasNext())
-      {
-        v.add ( itSts.next() );
-      }
-    }
+    if (liste != null)
+      return liste;
+    
+    return Collections.unmodifiableList( sammleStrassenTeilSegmente( new ArrayList<StrassenTeilSegment>() ) );
+  }
+
+  /**
+   * Methode sammelt die Straßenteilsegmente der äußeren und inneren Straßensegmente in der übergebenen Liste
+   * @param liste Liste, in die gesammelt wird
+   * @return die übergebene Liste
+   */
+  private <L extends List<StrassenTeilSegment>> L sammleStrassenTeilSegmente (L liste)
+  {
+    for (AeusseresStrassenSegment s : m_aeusseresStrassenSegment.values())
+      liste.addAll( s.getStrassenTeilSegmenteListe() );
+
+    for (InneresStrassenSegment s : m_inneresStrassenSegment.values())
+      liste.addAll( s.getStrassenTeilSegmenteListe() );
 
-    return v;
+    return liste;
   }
 }
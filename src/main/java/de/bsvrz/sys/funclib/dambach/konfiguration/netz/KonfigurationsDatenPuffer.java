@@ -0,0 +1,221 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.konfiguration.netz;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.bsvrz.dav.daf.main.Data;
+import de.bsvrz.dav.daf.main.config.AttributeGroup;
+import de.bsvrz.dav.daf.main.config.DataModel;
+import de.bsvrz.dav.daf.main.config.SystemObject;
+import de.bsvrz.sys.funclib.debug.Debug;
+
+/**
+ * Puffer für konfigurierende Daten, die beim Bestimmen der Objekte der Konfiguration benötigt werden.
+ * Die Daten werden je Attributgruppe für viele Objekte gemeinsam blockweise beim Datenmodell angefragt,
+ * statt für jedes Objekt einzeln. Für Objekte, deren Daten nicht vorab geladen wurden, werden die Daten
+ * wie bisher einzeln gelesen.
+ * @author Dambach Werke GmbH
+ */
+class KonfigurationsDatenPuffer
+{
+  /**
+   * Maximale Anzahl Objekte, deren Daten in einer Anfrage beim Datenmodell gelesen werden
+   */
+  static final int BLOCK_GROESSE = 1000;
+
+  /**
+   * Platzhalter für Objekte, die keine Daten zur Attributgruppe haben
+   */
+  private static final Object KEINE_DATEN = new Object();
+
+  /**
+   * Debug-Logger für Logging-Ausgaben
+   */
+  private static final Debug m_debug = Debug.getLogger();
+
+  /**
+   * Datenmodell des DaV
+   */
+  private DataModel m_dataModel;
+
+  /**
+   * Gepufferte Daten (Key = Attributgruppe, Value = Daten je Objekt)
+   */
+  private Map<AttributeGroup, Map<SystemObject, Object>> m_daten = new ConcurrentHashMap<AttributeGroup, Map<SystemObject, Object>>();
+
+  /**
+   * Konstruktor der Klasse
+   * @param dataModel Datenmodell des DaV
+   */
+  KonfigurationsDatenPuffer (DataModel dataModel)
+  {
+    m_dataModel = dataModel;
+  }
+
+  /**
+   * Methode lädt die konfigurierenden Daten der übergebenen Objekte für eine Attributgruppe. Daten von Objekten,
+   * die bereits geladen wurden, werden nicht erneut angefragt.
+   * @param atgPid Pid der Attributgruppe
+   * @param objekte Objekte, deren Daten geladen werden sollen
+   */
+  void lade (String atgPid, Collection<SystemObject> objekte)
+  {
+    AttributeGroup atg = m_dataModel.getAttributeGroup( atgPid );
+
+    if (atg == null)
+      return;
+
+    Map<SystemObject, Object> daten = m_daten.get( atg );
+    if (daten == null)
+    {
+      daten = new ConcurrentHashMap<SystemObject, Object>();
+      m_daten.put( atg, daten );
+    }
+
+    List<SystemObject> block = new ArrayList<SystemObject>(BLOCK_GROESSE);
+
+    int anzahl = 0;
+
+    for (SystemObject objekt : objekte)
+    {
+      if (objekt == null || daten.containsKey( objekt ))
+        continue;
+
+      block.add( objekt );
+
+      if (block.size() == BLOCK_GROESSE)
+      {
+        anzahl += ladeBlock (atg, block, daten);
+        block.clear();
+      }
+    }
+
+    if (block.size() > 0)
+      anzahl += ladeBlock (atg, block, daten);
+
+    m_debug.fine("Konfigurationsdaten " + atgPid + " für " + anzahl + " Objekte geladen");
+  }
+
+  /**
+   * Methode lädt die konfigurierenden Daten eines Blocks von Objekten mit einer Anfrage
+   * @param atg Attributgruppe
+   * @param block Objekte des Blocks
+   * @param daten Map, in die die Daten eingetragen werden
+   * @return Anzahl der geladenen Objekte
+   */
+  private int ladeBlock (AttributeGroup atg, List<SystemObject> block, Map<SystemObject, Object> daten)
+  {
+    SystemObject[] objekte = block.toArray( new SystemObject[block.size()] );
+
+    Data[] ergebnis = m_dataModel.getConfigurationData( objekte, atg );
+
+    for (int i = 0; i < objekte.length; i++)
+    {
+      Data d = (ergebnis != null && i < ergebnis.length) ? ergebnis[i] : null;
+
+      daten.put( objekte[i], d != null ? d : KEINE_DATEN );
+    }
+
+    return objekte.length;
+  }
+
+  /**
+   * Methode liefert die konfigurierenden Daten eines Objekts. Wurden die Daten nicht vorab geladen,
+   * so werden sie direkt beim Objekt gelesen.
+   * @param objekt Systemobjekt
+   * @param atg Attributgruppe
+   * @return konfigurierende Daten, null wenn keine Daten vorhanden sind
+   */
+  Data getDaten (SystemObject objekt, AttributeGroup atg)
+  {
+    Map<SystemObject, Object> daten = (atg != null) ? m_daten.get( atg ) : null;
+
+    if (daten != null)
+    {
+      Object d = daten.get( objekt );
+
+      if (d == KEINE_DATEN)
+        return null;
+
+      if (d != null)
+        return (Data) d;
+    }
+
+    return objekt.getConfigurationData( atg );
+  }
+
+  /**
+   * Methode liefert die Objekte, die in den gepufferten Daten der Objekte über ein Referenzattribut
+   * referenziert werden (z.B. die Straßenteilsegmente eines Straßensegments).
+   * @param atgPid Pid der Attributgruppe, deren Daten ausgewertet werden
+   * @param attribut Name des Referenzattributs
+   * @param istFeld true: das Attribut ist ein Feld von Referenzen, false: einfache Referenz
+   * @param objekte Objekte, deren Daten ausgewertet werden
+   * @return referenzierte Objekte (ohne null Referenzen, Duplikate sind möglich)
+   */
+  List<SystemObject> getReferenzen (String atgPid, String attribut, boolean istFeld, Collection<SystemObject> objekte)
+  {
+    List<SystemObject> referenzen = new ArrayList<SystemObject>();
+
+    AttributeGroup atg = m_dataModel.getAttributeGroup( atgPid );
+
+    if (atg == null)
+      return referenzen;
+
+    for (SystemObject objekt : objekte)
+    {
+      Data d = getDaten( objekt, atg );
+
+      if (d == null)
+        continue;
+
+      if (istFeld)
+      {
+        Data.ReferenceArray feld = d.getReferenceArray( attribut );
+
+        for (int i = 0; i < feld.getLength(); i++)
+        {
+          SystemObject referenz = feld.getReferenceValue( i ).getSystemObject();
+          if (referenz != null)
+            referenzen.add( referenz );
+        }
+      }
+      else
+      {
+        SystemObject referenz = d.getReferenceValue( attribut ).getSystemObject();
+        if (referenz != null)
+          referenzen.add( referenz );
+      }
+    }
+
+    return referenzen;
+  }
+}
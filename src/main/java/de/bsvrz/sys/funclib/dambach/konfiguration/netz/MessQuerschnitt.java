@@ -25,6 +25,8 @@
 
 package de.bsvrz.sys.funclib.dambach.konfiguration.netz;
 
+import java.util.List;
+
 import de.bsvrz.dav.daf.main.ClientDavInterface;
 import de.bsvrz.dav.daf.main.Data;
 import de.bsvrz.dav.daf.main.config.AttributeGroup;
@@ -52,6 +54,11 @@ public class MessQuerschnitt implements Comparable<MessQuerschnitt>
    */
   private StrassenSegment m_referenz;
 
+  /**
+   * Systemobjekt der Linienreferenz (wird beim Lesen der Konfiguration bestimmt)
+   */
+  private SystemObject m_referenzObjekt;
+
   /**
    * Datenmodell des DaV
    */
@@ -62,12 +69,34 @@ public class MessQuerschnitt implements Comparable<MessQuerschnitt>
    */
   private String m_typ;
 
+  /**
+   * Typ des Messquerschnitts als Aufzählung (wird beim Lesen der Konfiguration bestimmt)
+   */
+  private MessQuerschnittTyp m_messQuerschnittTyp = MessQuerschnittTyp.UNBEKANNT;
+
+  /**
+   * Pids der zugeordneten NBA Messquerschnitte, null solange die Zuordnung nicht übernommen wurde
+   */
+  private volatile List<String> m_nbaPids = null;
+
   /**
    * Konstruktor der Klasse
    * @param connection Verbindung zum DaV
    * @param objekt Systemobjekt vom Typ 'typ.messQuerschnittAllgemein'
    */
   public MessQuerschnitt (ClientDavInterface connection, SystemObject objekt)
+  {
+    this (connection, objekt, true);
+  }
+
+  /**
+   * Konstruktor der Klasse
+   * @param connection Verbindung zum DaV
+   * @param objekt Systemobjekt vom Typ 'typ.messQuerschnittAllgemein'
+   * @param referenzBestimmen true: das Straßensegment der Linienreferenz wird sofort bestimmt,
+   * false: erst beim Aufruf von {@link #bestimmeReferenz()}
+   */
+  MessQuerschnitt (ClientDavInterface connection, SystemObject objekt, boolean referenzBestimmen)
   {
     m_dataModel = connection.getDataModel();
     
@@ -75,15 +104,11 @@ public class MessQuerschnitt implements Comparable<MessQuerschnitt>
     
     AttributeGroup atg = m_dataModel.getAttributeGroup("atg.punktLiegtAufLinienObjekt");
     
-    Data data = objekt.getConfigurationData (atg);
+    Data data = Konfiguration.getInstanz().getKonfigurationsDaten (objekt, atg);
 
     if (data != null)
     {
-      SystemObject linie = data.getReferenceValue("LinienReferenz").getSystemObject();
-      if (linie != null)
-      {
-        m_referenz = Konfiguration.getInstanz().getStrassenSegment( linie.getPid() );
-      }
+      m_referenzObjekt = data.getReferenceValue("LinienReferenz").getSystemObject();
       
       if (data.getScaledValue("Offset").isNumber())
       {
@@ -93,11 +118,49 @@ public class MessQuerschnitt implements Comparable<MessQuerschnitt>
 
     AttributeGroup atg2 = m_dataModel.getAttributeGroup("atg.messQuerschnittAllgemein");
     
-    Data data2 = objekt.getConfigurationData (atg2);
+    Data data2 = Konfiguration.getInstanz().getKonfigurationsDaten (objekt, atg2);
 
     if (data2 != null)
     {
       m_typ = data2.getTextValue( "Typ" ).getValueText();
+      m_messQuerschnittTyp = MessQuerschnittTyp.getTyp( m_typ );
+    }
+    
+    if (referenzBestimmen)
+      bestimmeReferenz();
+  }
+  
+  /**
+   * Konstruktor der Klasse, die Daten werden nicht aus der Konfiguration gelesen sondern übergeben
+   * (z.B. beim Laden eines Netzabbilds). Das Straßensegment wird erst beim Aufruf von {@link #bestimmeReferenz()} 
+   * bestimmt.
+   * @param dataModel Datenmodell des DaV
+   * @param objekt Systemobjekt vom Typ 'typ.messQuerschnittAllgemein'
+   * @param referenzObjekt Systemobjekt der Linienreferenz
+   * @param offset Offset des Messquerschnitts
+   * @param typ Typ des Messquerschnitts
+   */
+  MessQuerschnitt (DataModel dataModel, SystemObject objekt, SystemObject referenzObjekt, long offset, String typ)
+  {
+    m_dataModel = dataModel;
+    
+    m_systemObjekt   = objekt;
+    m_referenzObjekt = referenzObjekt;
+    m_offset         = offset;
+    m_typ            = typ;
+    
+    m_messQuerschnittTyp = MessQuerschnittTyp.getTyp( typ );
+  }
+  
+  /**
+   * Methode bestimmt das Straßensegment, auf dem der Messquerschnitt liegt. Die Straßensegmente
+   * müssen zu diesem Zeitpunkt in der Konfiguration vollständig bestimmt sein.
+   */
+  void bestimmeReferenz ()
+  {
+    if (m_referenzObjekt != null)
+    {
+      m_referenz = Konfiguration.getInstanz().getStrassenSegment( m_referenzObjekt.getPid() );
     }
   }
   
@@ -137,11 +200,38 @@ public class MessQuerschnitt implements Comparable<MessQuerschnitt>
    */
   public String getNbaPid()
   {
+    List<String> nbaPids = m_nbaPids;
+    
+    if (nbaPids != null)
+      return nbaPids.isEmpty() ? null : nbaPids.get( nbaPids.size() - 1 );
+    
     if (getPid() != null)
       return Konfiguration.getInstanz().getNbaMqVonMq( getPid() );
     
     return null;
   }
+
+  /**
+   * Methode liefert die Pids aller zum Messquerschnitt gehörenden NBA Messquerschnitte
+   * @return nicht veränderbare Liste der Pids, leer wenn keine NBA Messquerschnitte zugeordnet sind
+   */
+  public List<String> getNbaPids()
+  {
+    List<String> nbaPids = m_nbaPids;
+    
+    if (nbaPids != null)
+      return nbaPids;
+    
+    return Konfiguration.getInstanz().getZuordnungMqNbaMq().getNbaMqs( getPid() );
+  }
+
+  /**
+   * @param nbaPids setzt die Pids der zugeordneten NBA Messquerschnitte
+   */
+  void setNbaPids( List<String> nbaPids )
+  {
+    m_nbaPids = nbaPids;
+  }
   
   @Override
 	public String toString()
@@ -175,6 +265,14 @@ public class MessQuerschnitt implements Comparable<MessQuerschnitt>
     return 0;
   }
 
+  /**
+   * @return liefert das Systemobjekt der Linienreferenz zurück
+   */
+  SystemObject getReferenzObjekt()
+  {
+    return m_referenzObjekt;
+  }
+
   /**
    * @return liefert die Variable referenz zurück
    */
@@ -191,13 +289,21 @@ public class MessQuerschnitt implements Comparable<MessQuerschnitt>
     return m_typ;
   }	
 
+  /**
+   * @return liefert den Typ des Messquerschnitts als Aufzählung zurück
+   */
+  public MessQuerschnittTyp getMessQuerschnittTyp()
+  {
+    return m_messQuerschnittTyp;
+  }
+
   /**
    * Methode prüft ob es sich bei dem Messquerschnitt um eine Einfahrt handelt
    * @return Einfahrt: true, sonst false
    */
   public boolean isEinfahrt ()
   {
-    return m_typ.equals( "Einfahrt" );
+    return m_messQuerschnittTyp == MessQuerschnittTyp.EINFAHRT;
   }
   
   /**
@@ -206,7 +312,7 @@ public class MessQuerschnitt implements Comparable<MessQuerschnitt>
    */
   public boolean isAusfahrt ()
   {
-    return m_typ.equals( "Ausfahrt" );
+    return m_messQuerschnittTyp == MessQuerschnittTyp.AUSFAHRT;
   }
 
   /**
@@ -215,7 +321,7 @@ public class MessQuerschnitt implements Comparable<MessQuerschnitt>
    */
   public boolean isHauptFahrbahn ()
   {
-    return m_typ.equals( "HauptFahrbahn" );
+    return m_messQuerschnittTyp == MessQuerschnittTyp.HAUPT_FAHRBAHN;
   }
   
   /**
@@ -224,7 +330,7 @@ public class MessQuerschnitt implements Comparable<MessQuerschnitt>
    */
   public boolean isNebenFahrbahn ()
   {
-    return m_typ.equals( "NebenFahrbahn" );
+    return m_messQuerschnittTyp == MessQuerschnittTyp.NEBEN_FAHRBAHN;
   }
  
   /**
@@ -233,6 +339,6 @@ public class MessQuerschnitt implements Comparable<MessQuerschnitt>
    */
   public boolean isSonstigeFahrbahn ()
   {
-    return m_typ.equals( "SonstigeFahrbahn" );
+    return m_messQuerschnittTyp == MessQuerschnittTyp.SONSTIGE_FAHRBAHN;
   }
 }
@@ -0,0 +1,114 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.konfiguration.netz;
+
+/**
+ * Typ eines Messquerschnitts (Attribut "Typ" der Attributgruppe "atg.messQuerschnittAllgemein"). Jeder Typ
+ * besitzt ein eigenes Bit, so dass die in einem Straßensegment vorkommenden Typen als Bitmaske geführt
+ * werden können.
+ * @author Dambach Werke GmbH
+ */
+public enum MessQuerschnittTyp
+{
+  /**
+   * Messquerschnitt auf einer Einfahrt
+   */
+  EINFAHRT ("Einfahrt"),
+
+  /**
+   * Messquerschnitt auf einer Ausfahrt
+   */
+  AUSFAHRT ("Ausfahrt"),
+
+  /**
+   * Messquerschnitt auf der Hauptfahrbahn
+   */
+  HAUPT_FAHRBAHN ("HauptFahrbahn"),
+
+  /**
+   * Messquerschnitt auf einer Nebenfahrbahn
+   */
+  NEBEN_FAHRBAHN ("NebenFahrbahn"),
+
+  /**
+   * Messquerschnitt auf einer sonstigen Fahrbahn
+   */
+  SONSTIGE_FAHRBAHN ("SonstigeFahrbahn"),
+
+  /**
+   * Typ nicht konfiguriert oder nicht bekannt
+   */
+  UNBEKANNT (null);
+
+  /**
+   * Text des Typs in der Konfiguration
+   */
+  private final String m_text;
+
+  /**
+   * Konstruktor
+   * @param text Text des Typs in der Konfiguration
+   */
+  private MessQuerschnittTyp (String text)
+  {
+    m_text = text;
+  }
+
+  /**
+   * @return liefert den Text des Typs in der Konfiguration zurück, null bei {@link #UNBEKANNT}
+   */
+  public String getText()
+  {
+    return m_text;
+  }
+
+  /**
+   * @return liefert das Bit des Typs für Bitmasken zurück
+   */
+  public int getBit()
+  {
+    return 1 << ordinal();
+  }
+
+  /**
+   * Methode bestimmt den Typ zu einem Text aus der Konfiguration
+   * @param text Text des Typs
+   * @return Typ, {@link #UNBEKANNT} wenn der Text keinem Typ entspricht
+   */
+  public static MessQuerschnittTyp getTyp (String text)
+  {
+    if (text != null)
+    {
+      for (MessQuerschnittTyp typ : values())
+      {
+        if (text.equals( typ.m_text ))
+          return typ;
+      }
+    }
+
+    return UNBEKANNT;
+  }
+}
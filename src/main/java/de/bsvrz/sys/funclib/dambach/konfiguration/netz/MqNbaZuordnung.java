@@ -0,0 +1,268 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.konfiguration.netz;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bidirektionale Zuordnung zwischen Messquerschnitten (Pid vom Typ "typ.messQuerschnitt") und NBA Messquerschnitten
+ * (Pid vom Typ "typ.nbaMessQuerschnitt"). Beide Richtungen sind über eine Hashtabelle in konstanter Zeit abfragbar,
+ * in beiden Richtungen sind mehrere Zuordnungen (1:n) möglich. Die Zuordnungen bleiben in der Reihenfolge
+ * erhalten, in der sie eingetragen wurden.<p>
+ *
+ * Eine Zuordnung ist unveränderlich und kann ohne Synchronisation von mehreren Threads gelesen werden. Sie wird
+ * mit einem {@link Aufbau} erstellt. Beim Bestimmen der Objekte wird jeweils eine neue Zuordnung aufgebaut und 
+ * danach gegen die bisherige ausgetauscht, gelieferte Listen bleiben daher auch nach einem erneuten Bestimmen 
+ * der Objekte gültig.
+ * @author Dambach Werke GmbH
+ */
+public final class MqNbaZuordnung
+{
+  /**
+   * Zuordnung Messquerschnitt zu NBA Messquerschnitten (Key = Pid MQ, Value = Pids NBA MQ)
+   */
+  private final Map<String, List<String>> m_mqZuNbaMq;
+
+  /**
+   * Zuordnung NBA Messquerschnitt zu Messquerschnitten (Key = Pid NBA MQ, Value = Pids MQ)
+   */
+  private final Map<String, List<String>> m_nbaMqZuMq;
+
+  /**
+   * Alle Zuordnungen in der Reihenfolge des Eintragens (je Eintrag Pid MQ, Pid NBA MQ)
+   */
+  private final List<String[]> m_paare;
+
+  /**
+   * Konstruktor der Klasse, erzeugt eine leere Zuordnung
+   */
+  public MqNbaZuordnung ()
+  {
+    this( new Aufbau() );
+  }
+
+  /**
+   * Konstruktor der Klasse, übernimmt die Zuordnungen eines Aufbaus als nicht veränderbare Kopien
+   * @param aufbau Aufbau mit den Zuordnungen
+   */
+  private MqNbaZuordnung (Aufbau aufbau)
+  {
+    m_mqZuNbaMq = kopiere( aufbau.m_mqZuNbaMq );
+    m_nbaMqZuMq = kopiere( aufbau.m_nbaMqZuMq );
+    m_paare     = Collections.unmodifiableList( new ArrayList<String[]>( aufbau.m_paare ) );
+  }
+
+  /**
+   * Methode liefert die Pid des NBA Messquerschnitts zu einem Messquerschnitt. Bei mehreren Zuordnungen
+   * wird die zuletzt eingetragene geliefert.
+   * @param pidMq Pid vom Typ "typ.messQuerschnitt"
+   * @return Pid vom Typ "typ.nbaMessQuerschnitt", null wenn keine Zuordnung existiert
+   */
+  public String getNbaMq (String pidMq)
+  {
+    return letzter( m_mqZuNbaMq.get( pidMq ) );
+  }
+
+  /**
+   * Methode liefert die Pids aller NBA Messquerschnitte zu einem Messquerschnitt
+   * @param pidMq Pid vom Typ "typ.messQuerschnitt"
+   * @return nicht veränderbare Liste der Pids vom Typ "typ.nbaMessQuerschnitt", leer wenn keine Zuordnung existiert
+   */
+  public List<String> getNbaMqs (String pidMq)
+  {
+    return sicht( m_mqZuNbaMq.get( pidMq ) );
+  }
+
+  /**
+   * Methode liefert die Pid des Messquerschnitts zu einem NBA Messquerschnitt. Bei mehreren Zuordnungen
+   * wird die zuerst eingetragene geliefert.
+   * @param pidNbaMq Pid vom Typ "typ.nbaMessQuerschnitt"
+   * @return Pid vom Typ "typ.messQuerschnitt", null wenn keine Zuordnung existiert
+   */
+  public String getMq (String pidNbaMq)
+  {
+    List<String> mqs = m_nbaMqZuMq.get( pidNbaMq );
+
+    return (mqs != null) ? mqs.get( 0 ) : null;
+  }
+
+  /**
+   * Methode liefert die Pids aller Messquerschnitte zu einem NBA Messquerschnitt
+   * @param pidNbaMq Pid vom Typ "typ.nbaMessQuerschnitt"
+   * @return nicht veränderbare Liste der Pids vom Typ "typ.messQuerschnitt", leer wenn keine Zuordnung existiert
+   */
+  public List<String> getMqs (String pidNbaMq)
+  {
+    return sicht( m_nbaMqZuMq.get( pidNbaMq ) );
+  }
+
+  /**
+   * @return liefert alle Zuordnungen in der Reihenfolge des Eintragens zurück (je Eintrag Pid MQ, Pid NBA MQ)
+   */
+  List<String[]> getPaare()
+  {
+    return m_paare;
+  }
+
+  /**
+   * @return liefert die Anzahl der Zuordnungen zurück
+   */
+  public int size()
+  {
+    return m_paare.size();
+  }
+
+  /**
+   * @param liste Liste oder null
+   * @return letztes Element der Liste, null wenn die Liste null ist
+   */
+  private static String letzter (List<String> liste)
+  {
+    return (liste != null) ? liste.get( liste.size() - 1 ) : null;
+  }
+
+  /**
+   * @param liste Liste oder null
+   * @return die nicht veränderbare Liste, leere Liste wenn die Liste null ist
+   */
+  private static List<String> sicht (List<String> liste)
+  {
+    if (liste == null)
+      return Collections.emptyList();
+
+    return liste;
+  }
+
+  /**
+   * @param zuordnung veränderbare Zuordnung
+   * @return nicht veränderbare Kopie der Zuordnung mit nicht veränderbaren Listen
+   */
+  private static Map<String, List<String>> kopiere (Map<String, List<String>> zuordnung)
+  {
+    Map<String, List<String>> kopie = new HashMap<String, List<String>>( zuordnung.size() * 4 / 3 + 1 );
+
+    Iterator<Map.Entry<String, List<String>>> it = zuordnung.entrySet().iterator();
+    while (it.hasNext())
+    {
+      Map.Entry<String, List<String>> eintrag = it.next();
+
+      kopie.put( eintrag.getKey(), Collections.unmodifiableList( new ArrayList<String>( eintrag.getValue() ) ) );
+    }
+
+    return Collections.unmodifiableMap( kopie );
+  }
+
+  /**
+   * Aufbau einer {@link MqNbaZuordnung}. Ein Aufbau wird nur von einem Thread verwendet.
+   * @author Dambach Werke GmbH
+   */
+  public static final class Aufbau
+  {
+    /**
+     * Zuordnung Messquerschnitt zu NBA Messquerschnitten (Key = Pid MQ, Value = Pids NBA MQ)
+     */
+    private final Map<String, List<String>> m_mqZuNbaMq = new HashMap<String, List<String>>();
+
+    /**
+     * Zuordnung NBA Messquerschnitt zu Messquerschnitten (Key = Pid NBA MQ, Value = Pids MQ)
+     */
+    private final Map<String, List<String>> m_nbaMqZuMq = new HashMap<String, List<String>>();
+
+    /**
+     * Alle Zuordnungen in der Reihenfolge des Eintragens (je Eintrag Pid MQ, Pid NBA MQ)
+     */
+    private final List<String[]> m_paare = new ArrayList<String[]>();
+
+    /**
+     * Methode trägt eine Zuordnung ein. Bereits vorhandene Zuordnungen werden nicht doppelt eingetragen.
+     * @param pidMq Pid vom Typ "typ.messQuerschnitt"
+     * @param pidNbaMq Pid vom Typ "typ.nbaMessQuerschnitt"
+     * @return dieser Aufbau
+     */
+    public Aufbau add (String pidMq, String pidNbaMq)
+    {
+      List<String> nbaMqs = m_mqZuNbaMq.get( pidMq );
+
+      if (nbaMqs == null)
+      {
+        nbaMqs = new ArrayList<String>( 1 );
+        m_mqZuNbaMq.put( pidMq, nbaMqs );
+      }
+      else if (nbaMqs.contains( pidNbaMq ))
+      {
+        return this;
+      }
+
+      nbaMqs.add( pidNbaMq );
+
+      List<String> mqs = m_nbaMqZuMq.get( pidNbaMq );
+
+      if (mqs == null)
+      {
+        mqs = new ArrayList<String>( 1 );
+        m_nbaMqZuMq.put( pidNbaMq, mqs );
+      }
+
+      mqs.add( pidMq );
+
+      m_paare.add( new String[] { pidMq, pidNbaMq } );
+
+      return this;
+    }
+
+    /**
+     * Methode übernimmt alle Zuordnungen einer bestehenden Zuordnung
+     * @param zuordnung zu übernehmende Zuordnung
+     * @return dieser Aufbau
+     */
+    public Aufbau addAll (MqNbaZuordnung zuordnung)
+    {
+      Iterator<String[]> it = zuordnung.m_paare.iterator();
+      while (it.hasNext())
+      {
+        String[] paar = it.next();
+        add( paar[0], paar[1] );
+      }
+
+      return this;
+    }
+
+    /**
+     * Methode erzeugt die unveränderliche Zuordnung. Der Aufbau kann danach weiter verändert werden, ohne
+     * dass sich die erzeugte Zuordnung ändert.
+     * @return unveränderliche Zuordnung
+     */
+    public MqNbaZuordnung erzeuge ()
+    {
+      return new MqNbaZuordnung( this );
+    }
+  }
+}
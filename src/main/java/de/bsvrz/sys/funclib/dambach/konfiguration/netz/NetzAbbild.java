@@ -0,0 +1,730 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.konfiguration.netz;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.Vector;
+
+import de.bsvrz.dav.daf.main.config.ConfigurationArea;
+import de.bsvrz.dav.daf.main.config.DataModel;
+import de.bsvrz.dav.daf.main.config.SystemObject;
+
+/**
+ * Binäres Abbild des vollständig bestimmten Straßennetzes der {@link Konfiguration}. Das Abbild enthält
+ * die Straßenknoten, die äußeren und inneren Straßensegmente mit ihren Straßenteilsegmenten, die Messquerschnitte
+ * und die Zuordnung der Messquerschnitte zu den NBA Messquerschnitten. Es ist mit den aktiven Versionen aller
+ * Konfigurationsbereiche gekennzeichnet und wird beim Lesen verworfen, sobald sich eine dieser Versionen geändert hat.<p>
+ *
+ * Die Ids aller Objekte stehen in einer Tabelle nach dem Kopf, die Objekte werden im Abbild über ihre Position in 
+ * dieser Tabelle referenziert. Beim Lesen wird die Tabelle mit einem Aufruf des Datenmodells aufgelöst. Die gelesenen
+ * Objekte sind noch nicht miteinander verknüpft, das Verknüpfen übernimmt die {@link Konfiguration}.
+ * @author Dambach Werke GmbH
+ */
+class NetzAbbild
+{
+  /**
+   * Kennung einer Datei mit einem Netzabbild ("DNAB")
+   */
+  private static final int KENNUNG = 0x444E4142;
+
+  /**
+   * Version des Dateiformats, bei Änderungen am Format zu erhöhen
+   */
+  private static final int FORMAT_VERSION = 3;
+
+  /**
+   * Zeichensatz der Zeichenketten im Abbild
+   */
+  private static final Charset UTF8 = Charset.forName( "UTF-8" );
+
+  /**
+   * Gelesene Straßenknoten
+   */
+  private List<StrassenKnoten> m_strassenKnoten = new ArrayList<StrassenKnoten>();
+
+  /**
+   * Gelesene äußere Straßensegmente
+   */
+  private List<AeusseresStrassenSegment> m_aeussereStrassenSegmente = new ArrayList<AeusseresStrassenSegment>();
+
+  /**
+   * Gelesene innere Straßensegmente
+   */
+  private List<InneresStrassenSegment> m_innereStrassenSegmente = new ArrayList<InneresStrassenSegment>();
+
+  /**
+   * Gelesene Messquerschnitte
+   */
+  private List<MessQuerschnitt> m_messQuerschnitte = new ArrayList<MessQuerschnitt>();
+
+  /**
+   * Gelesene Zuordnung Messquerschnitt zu NBA Messquerschnitt
+   */
+  private MqNbaZuordnung m_zuordnungMqNbaMq = new MqNbaZuordnung();
+
+  /**
+   * Aufgelöste Objekte der Objekttabelle, Index = Position in der Tabelle
+   */
+  private SystemObject[] m_objekte = new SystemObject[0];
+
+  /**
+   * Konstruktor der Klasse, Instanzen werden nur über {@link #lese(File, DataModel, String, String)} erzeugt
+   */
+  private NetzAbbild ()
+  {
+  }
+
+  /**
+   * Methode liest ein Netzabbild. Die Datei wird dazu mit einem Aufruf vollständig in einen Puffer gelesen und vor 
+   * dem Auflösen der Objekte wieder geschlossen, so dass sie danach ersetzt werden kann.
+   * @param datei Datei mit dem Netzabbild
+   * @param dataModel Datenmodell des DaV
+   * @param netz Pid des Netzes, für das das Abbild gelten muss
+   * @param kbMessQuerschnitte Konfigurationsbereich(e) der Messquerschnitte, für die das Abbild gelten muss
+   * @return gelesenes Netzabbild, null wenn die Datei nicht existiert, nicht zum Netz passt, sich eine Version eines
+   * Konfigurationsbereichs geändert hat oder ein Objekt des Abbilds nicht mehr existiert
+   * @throws IOException bei Fehlern beim Lesen der Datei
+   */
+  static NetzAbbild lese (File datei, DataModel dataModel, String netz, String kbMessQuerschnitte) throws IOException
+  {
+    if (!datei.isFile())
+      return null;
+
+    ByteBuffer puffer;
+
+    RandomAccessFile raf = new RandomAccessFile( datei, "r" );
+
+    try
+    {
+      FileChannel kanal = raf.getChannel();
+
+      long groesse = kanal.size();
+
+      if (groesse > Integer.MAX_VALUE)
+        throw new IOException( "Netzabbild " + datei + " ist zu groß" );
+
+      puffer = ByteBuffer.allocate( (int) groesse );
+
+      while (puffer.hasRemaining())
+      {
+        if (kanal.read( puffer ) < 0)
+          throw new IOException( "Netzabbild " + datei + " ist unvollständig" );
+      }
+
+      puffer.flip();
+    }
+    finally
+    {
+      raf.close();
+    }
+
+    try
+    {
+      NetzAbbild abbild = new NetzAbbild();
+
+      if (!abbild.leseKopf( puffer, dataModel, netz, kbMessQuerschnitte ))
+        return null;
+
+      if (!abbild.leseObjektTabelle( puffer, dataModel ))
+        return null;
+
+      if (!abbild.leseNetz( puffer, dataModel ))
+        return null;
+
+      return abbild;
+    }
+    catch (BufferUnderflowException e)
+    {
+      throw new IOException( "Netzabbild " + datei + " ist unvollständig" );
+    }
+  }
+
+  /**
+   * Methode liest die Tabelle der Objekt-Ids und löst alle Ids mit einem Aufruf über das Datenmodell auf
+   * @param puffer Inhalt der Datei
+   * @param dataModel Datenmodell des DaV
+   * @return true: Tabelle wurde gelesen, false: die Objekte konnten nicht aufgelöst werden
+   */
+  private boolean leseObjektTabelle (ByteBuffer puffer, DataModel dataModel)
+  {
+    int anzahl = puffer.getInt();
+
+    long[] ids = new long[anzahl];
+
+    for (int i = 0; i < anzahl; i++)
+      ids[i] = puffer.getLong();
+
+    if (anzahl == 0)
+      return true;
+
+    List<SystemObject> objekte = dataModel.getObjects( ids );
+
+    if (objekte == null || objekte.size() != anzahl)
+      return false;
+
+    m_objekte = objekte.toArray( new SystemObject[anzahl] );
+
+    return true;
+  }
+
+  /**
+   * Methode liest den Kopf des Netzabbilds und prüft, ob das Abbild noch gültig ist
+   * @param puffer Inhalt der Datei
+   * @param dataModel Datenmodell des DaV
+   * @param netz Pid des Netzes
+   * @param kbMessQuerschnitte Konfigurationsbereich(e) der Messquerschnitte
+   * @return true: Abbild ist gültig, sonst false
+   */
+  private boolean leseKopf (ByteBuffer puffer, DataModel dataModel, String netz, String kbMessQuerschnitte)
+  {
+    if (puffer.getInt() != KENNUNG || puffer.getInt() != FORMAT_VERSION)
+      return false;
+
+    if (!gleich( leseText( puffer ), netz ) || !gleich( leseText( puffer ), kbMessQuerschnitte ))
+      return false;
+
+    Map<String, Short> versionen = bestimmeVersionen( dataModel );
+
+    int anzahl = puffer.getInt();
+
+    if (anzahl != versionen.size())
+      return false;
+
+    for (int i = 0; i < anzahl; i++)
+    {
+      String kb = leseText( puffer );
+      short version = puffer.getShort();
+
+      Short aktuelleVersion = versionen.get( kb );
+
+      if (aktuelleVersion == null || aktuelleVersion.shortValue() != version)
+        return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Methode liest die Objekte des Netzabbilds
+   * @param puffer Inhalt der Datei
+   * @param dataModel Datenmodell des DaV
+   * @return true: alle Objekte konnten gelesen werden, false: mindestens ein Objekt existiert nicht mehr
+   */
+  private boolean leseNetz (ByteBuffer puffer, DataModel dataModel)
+  {
+    // Straßenknoten
+
+    int anzahl = puffer.getInt();
+
+    for (int i = 0; i < anzahl; i++)
+    {
+      SystemObject objekt = leseObjekt( puffer );
+      String typ = leseText( puffer );
+
+      if (objekt == null)
+        return false;
+
+      m_strassenKnoten.add( new StrassenKnoten( objekt, typ ) );
+    }
+
+    // Äußere Straßensegmente
+
+    anzahl = puffer.getInt();
+
+    for (int i = 0; i < anzahl; i++)
+    {
+      SystemObject objekt     = leseObjekt( puffer );
+      SystemObject vonKnoten  = leseObjekt( puffer );
+      SystemObject nachKnoten = leseObjekt( puffer );
+      String tmcRichtung      = leseText( puffer );
+      String strasse          = leseText( puffer );
+
+      if (objekt == null)
+        return false;
+
+      AeusseresStrassenSegment segment = new AeusseresStrassenSegment( dataModel, objekt, vonKnoten, nachKnoten, tmcRichtung, strasse );
+
+      if (!leseTeilSegmente( puffer, dataModel, segment ))
+        return false;
+
+      m_aeussereStrassenSegmente.add( segment );
+    }
+
+    // Innere Straßensegmente
+
+    anzahl = puffer.getInt();
+
+    for (int i = 0; i < anzahl; i++)
+    {
+      SystemObject objekt      = leseObjekt( puffer );
+      SystemObject vonSegment  = leseObjekt( puffer );
+      SystemObject nachSegment = leseObjekt( puffer );
+
+      if (objekt == null)
+        return false;
+
+      InneresStrassenSegment segment = new InneresStrassenSegment( dataModel, objekt, vonSegment, nachSegment );
+
+      if (!leseTeilSegmente( puffer, dataModel, segment ))
+        return false;
+
+      m_innereStrassenSegmente.add( segment );
+    }
+
+    // Messquerschnitte
+
+    anzahl = puffer.getInt();
+
+    for (int i = 0; i < anzahl; i++)
+    {
+      SystemObject objekt   = leseObjekt( puffer );
+      SystemObject referenz = leseObjekt( puffer );
+      long offset           = puffer.getLong();
+      String typ            = leseText( puffer );
+
+      if (objekt == null)
+        return false;
+
+      m_messQuerschnitte.add( new MessQuerschnitt( dataModel, objekt, referenz, offset, typ ) );
+    }
+
+    // Zuordnung Messquerschnitt zu NBA Messquerschnitt
+
+    anzahl = puffer.getInt();
+
+    MqNbaZuordnung.Aufbau zuordnung = new MqNbaZuordnung.Aufbau();
+
+    for (int i = 0; i < anzahl; i++)
+    {
+      String pidMq    = leseText( puffer );
+      String pidNbaMq = leseText( puffer );
+
+      zuordnung.add( pidMq, pidNbaMq );
+    }
+
+    m_zuordnungMqNbaMq = zuordnung.erzeuge();
+
+    return true;
+  }
+
+  /**
+   * Methode liest die Länge und die Straßenteilsegmente eines Straßensegments
+   * @param puffer Inhalt der Datei
+   * @param dataModel Datenmodell des DaV
+   * @param segment Straßensegment
+   * @return true: alle Straßenteilsegmente konnten gelesen werden, sonst false
+   */
+  private boolean leseTeilSegmente (ByteBuffer puffer, DataModel dataModel, StrassenSegment segment)
+  {
+    long laenge = puffer.getLong();
+
+    int anzahl = puffer.getInt();
+
+    Vector<StrassenTeilSegment> teilSegmente = new Vector<StrassenTeilSegment>( anzahl );
+
+    boolean vollstaendig = true;
+
+    for (int i = 0; i < anzahl; i++)
+    {
+      SystemObject objekt    = leseObjekt( puffer );
+      long laengeSts         = puffer.getLong();
+      int anzahlFahrstreifen = puffer.getInt();
+      String steigung        = leseText( puffer );
+      double steigungWert    = puffer.getDouble();
+
+      if (objekt == null)
+        vollstaendig = false;
+      else
+        teilSegmente.add( new StrassenTeilSegment( dataModel, objekt, laengeSts, anzahlFahrstreifen, steigung, steigungWert ) );
+    }
+
+    segment.setzeTeilSegmente( laenge, teilSegmente );
+
+    return vollstaendig;
+  }
+
+  /**
+   * Methode schreibt ein Netzabbild. Es wird zunächst in eine temporäre Datei geschrieben, die anschließend
+   * umbenannt wird, so dass ein Leser nie ein unvollständiges Abbild sieht.
+   * @param datei Datei des Netzabbilds
+   * @param dataModel Datenmodell des DaV
+   * @param netz Pid des Netzes
+   * @param kbMessQuerschnitte Konfigurationsbereich(e) der Messquerschnitte
+   * @param strassenKnoten Straßenknoten
+   * @param aeussereStrassenSegmente äußere Straßensegmente
+   * @param innereStrassenSegmente innere Straßensegmente
+   * @param messQuerschnitte Messquerschnitte
+   * @param zuordnungMqNbaMq Zuordnung Messquerschnitt zu NBA Messquerschnitt
+   * @throws IOException bei Fehlern beim Schreiben der Datei
+   */
+  static void schreibe (File datei, DataModel dataModel, String netz, String kbMessQuerschnitte,
+      Collection<StrassenKnoten> strassenKnoten, Collection<AeusseresStrassenSegment> aeussereStrassenSegmente,
+      Collection<InneresStrassenSegment> innereStrassenSegmente, Collection<MessQuerschnitt> messQuerschnitte,
+      MqNbaZuordnung zuordnungMqNbaMq) throws IOException
+  {
+    Map<Long, Integer> tabelle = new LinkedHashMap<Long, Integer>();
+
+    ByteArrayOutputStream rumpf = new ByteArrayOutputStream( 1024 * 1024 );
+
+    DataOutputStream netzOut = new DataOutputStream( rumpf );
+
+    schreibeNetz( netzOut, tabelle, strassenKnoten, aeussereStrassenSegmente, innereStrassenSegmente, messQuerschnitte,
+        zuordnungMqNbaMq );
+
+    netzOut.flush();
+
+    File tmp = new File( datei.getPath() + ".tmp" );
+
+    DataOutputStream out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( tmp ), 64 * 1024 ) );
+
+    try
+    {
+      // Kopf
+
+      out.writeInt( KENNUNG );
+      out.writeInt( FORMAT_VERSION );
+
+      schreibeText( out, netz );
+      schreibeText( out, kbMessQuerschnitte );
+
+      Map<String, Short> versionen = bestimmeVersionen( dataModel );
+
+      out.writeInt( versionen.size() );
+
+      Iterator<Map.Entry<String, Short>> itVersion = versionen.entrySet().iterator();
+      while (itVersion.hasNext())
+      {
+        Map.Entry<String, Short> eintrag = itVersion.next();
+
+        schreibeText( out, eintrag.getKey() );
+        out.writeShort( eintrag.getValue().shortValue() );
+      }
+
+      // Objekttabelle
+
+      out.writeInt( tabelle.size() );
+
+      for (Long id : tabelle.keySet())
+        out.writeLong( id.longValue() );
+
+      // Netz
+
+      rumpf.writeTo( out );
+    }
+    finally
+    {
+      out.close();
+    }
+
+    if (datei.exists() && !datei.delete())
+      throw new IOException( "Netzabbild " + datei + " kann nicht ersetzt werden" );
+
+    if (!tmp.renameTo( datei ))
+      throw new IOException( "Netzabbild " + tmp + " kann nicht nach " + datei + " umbenannt werden" );
+  }
+
+  /**
+   * Methode schreibt die Objekte des Netzes. Dabei wird die Objekttabelle aufgebaut, die vor dem Netz in die Datei 
+   * geschrieben wird.
+   * @param out Ausgabestrom
+   * @param tabelle Objekttabelle (Key = Id, Value = Position)
+   * @param strassenKnoten Straßenknoten
+   * @param aeussereStrassenSegmente äußere Straßensegmente
+   * @param innereStrassenSegmente innere Straßensegmente
+   * @param messQuerschnitte Messquerschnitte
+   * @param zuordnungMqNbaMq Zuordnung Messquerschnitt zu NBA Messquerschnitt
+   * @throws IOException bei Fehlern beim Schreiben
+   */
+  private static void schreibeNetz (DataOutputStream out, Map<Long, Integer> tabelle,
+      Collection<StrassenKnoten> strassenKnoten, Collection<AeusseresStrassenSegment> aeussereStrassenSegmente,
+      Collection<InneresStrassenSegment> innereStrassenSegmente, Collection<MessQuerschnitt> messQuerschnitte,
+      MqNbaZuordnung zuordnungMqNbaMq) throws IOException
+  {
+    // Straßenknoten
+
+    out.writeInt( strassenKnoten.size() );
+
+    for (StrassenKnoten knoten : strassenKnoten)
+    {
+      schreibeObjekt( out, knoten.getSystemObject(), tabelle );
+      schreibeText( out, knoten.getTyp() );
+    }
+
+    // Äußere Straßensegmente
+
+    out.writeInt( aeussereStrassenSegmente.size() );
+
+    for (AeusseresStrassenSegment segment : aeussereStrassenSegmente)
+    {
+      schreibeObjekt( out, segment.getSystemObject(), tabelle );
+      schreibeObjekt( out, segment.getVonKnotenObjekt(), tabelle );
+      schreibeObjekt( out, segment.getNachKnotenObjekt(), tabelle );
+      schreibeText( out, segment.getTmcRichtung() );
+      schreibeText( out, segment.getStrasse() );
+
+      schreibeTeilSegmente( out, segment, tabelle );
+    }
+
+    // Innere Straßensegmente
+
+    out.writeInt( innereStrassenSegmente.size() );
+
+    for (InneresStrassenSegment segment : innereStrassenSegmente)
+    {
+      schreibeObjekt( out, segment.getSystemObject(), tabelle );
+      schreibeObjekt( out, segment.getVonStrassenSegmentObjekt(), tabelle );
+      schreibeObjekt( out, segment.getNachStrassenSegmentObjekt(), tabelle );
+
+      schreibeTeilSegmente( out, segment, tabelle );
+    }
+
+    // Messquerschnitte
+
+    out.writeInt( messQuerschnitte.size() );
+
+    for (MessQuerschnitt mq : messQuerschnitte)
+    {
+      schreibeObjekt( out, mq.getSystemObjekt(), tabelle );
+      schreibeObjekt( out, mq.getReferenzObjekt(), tabelle );
+      out.writeLong( mq.getOffset() );
+      schreibeText( out, mq.getTyp() );
+    }
+
+    // Zuordnung Messquerschnitt zu NBA Messquerschnitt
+
+    out.writeInt( zuordnungMqNbaMq.size() );
+
+    Iterator<String[]> itNba = zuordnungMqNbaMq.getPaare().iterator();
+    while (itNba.hasNext())
+    {
+      String[] paar = itNba.next();
+
+      schreibeText( out, paar[0] );
+      schreibeText( out, paar[1] );
+    }
+  }
+
+  /**
+   * Methode schreibt die Länge und die Straßenteilsegmente eines Straßensegments
+   * @param out Ausgabestrom
+   * @param segment Straßensegment
+   * @param tabelle Objekttabelle (Key = Id, Value = Position)
+   * @throws IOException bei Fehlern beim Schreiben
+   */
+  private static void schreibeTeilSegmente (DataOutputStream out, StrassenSegment segment, Map<Long, Integer> tabelle) throws IOException
+  {
+    out.writeLong( segment.getLaenge() );
+
+    Vector<StrassenTeilSegment> teilSegmente = segment.getStrassenTeilSegmente();
+
+    out.writeInt( teilSegmente.size() );
+
+    Iterator<StrassenTeilSegment> it = teilSegmente.iterator();
+    while (it.hasNext())
+    {
+      StrassenTeilSegment sts = it.next();
+
+      schreibeObjekt( out, sts.getSystemObject(), tabelle );
+      out.writeLong( sts.getLaenge() );
+      out.writeInt( sts.getAnzahlFahrstreifen() );
+      schreibeText( out, sts.getSteigungGefaelle() );
+      out.writeDouble( sts.getSteigungGefaelleWert() );
+    }
+  }
+
+  /**
+   * Methode bestimmt die aktiven Versionen aller Konfigurationsbereiche
+   * @param dataModel Datenmodell des DaV
+   * @return aktive Versionen (Key = Pid des Konfigurationsbereichs, Value = Version), nach Pid sortiert
+   */
+  private static Map<String, Short> bestimmeVersionen (DataModel dataModel)
+  {
+    Map<String, Short> versionen = new TreeMap<String, Short>();
+
+    Iterator<ConfigurationArea> it = dataModel.getAllConfigurationAreas().values().iterator();
+    while (it.hasNext())
+    {
+      ConfigurationArea kb = it.next();
+
+      versionen.put( kb.getPid(), Short.valueOf( kb.getActiveVersion() ) );
+    }
+
+    return versionen;
+  }
+
+  /**
+   * Methode schreibt die Position eines Objekts in der Objekttabelle, für null wird -1 geschrieben. Noch nicht 
+   * enthaltene Objekte werden am Ende der Tabelle eingetragen.
+   * @param out Ausgabestrom
+   * @param objekt Systemobjekt oder null
+   * @param tabelle Objekttabelle (Key = Id, Value = Position)
+   * @throws IOException bei Fehlern beim Schreiben
+   */
+  private static void schreibeObjekt (DataOutputStream out, SystemObject objekt, Map<Long, Integer> tabelle) throws IOException
+  {
+    if (objekt == null)
+    {
+      out.writeInt( -1 );
+      return;
+    }
+
+    Long id = Long.valueOf( objekt.getId() );
+
+    Integer position = tabelle.get( id );
+
+    if (position == null)
+    {
+      position = Integer.valueOf( tabelle.size() );
+      tabelle.put( id, position );
+    }
+
+    out.writeInt( position.intValue() );
+  }
+
+  /**
+   * Methode liest die Position eines Objekts in der Objekttabelle und liefert das aufgelöste Objekt
+   * @param puffer Inhalt der Datei
+   * @return Systemobjekt, null bei der Position -1 oder wenn das Objekt nicht existiert
+   */
+  private SystemObject leseObjekt (ByteBuffer puffer)
+  {
+    int position = puffer.getInt();
+
+    if (position < 0)
+      return null;
+
+    if (position >= m_objekte.length)
+      throw new BufferUnderflowException();
+
+    return m_objekte[position];
+  }
+
+  /**
+   * Methode schreibt eine Zeichenkette (Länge in Bytes, -1 für null, gefolgt von den Bytes in UTF-8)
+   * @param out Ausgabestrom
+   * @param text Zeichenkette oder null
+   * @throws IOException bei Fehlern beim Schreiben
+   */
+  private static void schreibeText (DataOutputStream out, String text) throws IOException
+  {
+    if (text == null)
+    {
+      out.writeInt( -1 );
+      return;
+    }
+
+    byte[] bytes = text.getBytes( UTF8 );
+
+    out.writeInt( bytes.length );
+    out.write( bytes );
+  }
+
+  /**
+   * Methode liest eine mit {@link #schreibeText(DataOutputStream, String)} geschriebene Zeichenkette
+   * @param puffer Inhalt der Datei
+   * @return Zeichenkette oder null
+   */
+  private static String leseText (ByteBuffer puffer)
+  {
+    int laenge = puffer.getInt();
+
+    if (laenge < 0)
+      return null;
+
+    byte[] bytes = new byte[laenge];
+    puffer.get( bytes );
+
+    return new String( bytes, UTF8 );
+  }
+
+  /**
+   * Methode vergleicht zwei Zeichenketten, die null sein dürfen
+   * @param s1 erste Zeichenkette
+   * @param s2 zweite Zeichenkette
+   * @return true: beide Zeichenketten sind gleich, sonst false
+   */
+  private static boolean gleich (String s1, String s2)
+  {
+    return (s1 == null) ? s2 == null : s1.equals( s2 );
+  }
+
+  /**
+   * @return liefert die gelesenen Straßenknoten zurück
+   */
+  List<StrassenKnoten> getStrassenKnoten()
+  {
+    return m_strassenKnoten;
+  }
+
+  /**
+   * @return liefert die gelesenen äußeren Straßensegmente zurück
+   */
+  List<AeusseresStrassenSegment> getAeussereStrassenSegmente()
+  {
+    return m_aeussereStrassenSegmente;
+  }
+
+  /**
+   * @return liefert die gelesenen inneren Straßensegmente zurück
+   */
+  List<InneresStrassenSegment> getInnereStrassenSegmente()
+  {
+    return m_innereStrassenSegmente;
+  }
+
+  /**
+   * @return liefert die gelesenen Messquerschnitte zurück
+   */
+  List<MessQuerschnitt> getMessQuerschnitte()
+  {
+    return m_messQuerschnitte;
+  }
+
+  /**
+   * @return liefert die gelesene Zuordnung Messquerschnitt zu NBA Messquerschnitt zurück
+   */
+  MqNbaZuordnung getZuordnungMqNbaMq()
+  {
+    return m_zuordnungMqNbaMq;
+  }
+}
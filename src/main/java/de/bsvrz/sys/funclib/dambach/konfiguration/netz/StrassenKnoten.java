@@ -78,12 +78,25 @@ public class StrassenKnoten
 
     AttributeGroup atg = dataModel.getAttributeGroup("atg.straßenKnoten");
         
-    Data data = systemObject.getConfigurationData (atg);
+    Data data = Konfiguration.getInstanz().getKonfigurationsDaten (systemObject, atg);
 
     if (data != null)
       m_typ = data.getTextValue( "Typ" ).getValueText();
   }
 
+  /**
+   * Konstruktor der Klasse, der Typ wird nicht aus der Konfiguration gelesen sondern übergeben
+   * (z.B. beim Laden eines Netzabbilds)
+   * @param systemObject Objekt vom Typ "typ.straßenKnoten"
+   * @param typ Typ des Straßenknotens
+   */
+  StrassenKnoten (SystemObject systemObject, String typ)
+  {
+    m_systemObject = systemObject;
+    
+    m_typ = typ;
+  }
+
   /**
    * Methode fügt ein abgehendes äußeres Straßensegment zum Knoten hinzu  
    * @param objekt äußeres Straßensegment
@@ -25,9 +25,14 @@
 
 package de.bsvrz.sys.funclib.dambach.konfiguration.netz;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
 import java.util.Vector;
 
 import de.bsvrz.dav.daf.main.Data;
@@ -72,11 +77,31 @@ public class StrassenSegment
    */
   private Vector<StrassenTeilSegment> m_strassenTeilSegment = new Vector<StrassenTeilSegment>();
 
+  /**
+   * Index der Straßenteilsegmente mit den aufsummierten Offsets
+   */
+  private TeilSegmentIndex m_stsIndex = new TeilSegmentIndex( new StrassenTeilSegment[0] );
+
   /**
    * Zum Strassensegment gehörende Messquerschnitte
    */
   private Vector<MessQuerschnitt> m_messquerschnitte = new Vector<MessQuerschnitt>();
 
+  /**
+   * Nicht veränderbare Kopien der Vorgänger und Nachfolger, nur im eingefrorenen Zustand vorhanden
+   */
+  private List<StrassenSegment> m_vorgaengerListe, m_vorgaengerAufStrasseListe, m_nachfolgerListe, m_nachfolgerAufStrasseListe;
+
+  /**
+   * Gibt an, ob das Straßensegment eingefroren ist und nicht mehr verändert werden darf
+   */
+  private volatile boolean m_eingefroren = false;
+
+  /**
+   * Nach Offset sortierter Index der Messquerschnitte, null wenn der Index neu erstellt werden muss
+   */
+  private volatile MessQuerschnittIndex m_mqIndex = null;
+
   /**
    * Datenmodell des DaV
    */
@@ -108,15 +133,17 @@ public class StrassenSegment
   {
     // Bestimmen der Länge des Straßensegments
     
+    long laenge = 0;
+    
     AttributeGroup atg  = m_dataModel.getAttributeGroup("atg.straßenSegment");
     
     if (atg != null)
     {
-      Data confData = m_systemObject.getConfigurationData(atg);
+      Data confData = Konfiguration.getInstanz().getKonfigurationsDaten(m_systemObject, atg);
     
       if (confData != null)
       {
-        m_laenge = confData.getUnscaledValue("Länge").longValue() / 100;
+        laenge = confData.getUnscaledValue("Länge").longValue() / 100;
       }
     }
 
@@ -124,11 +151,11 @@ public class StrassenSegment
    
     atg  = m_dataModel.getAttributeGroup("atg.bestehtAusLinienObjekten");
     
-    long offset = 0;
+    Vector<StrassenTeilSegment> teilSegmente = new Vector<StrassenTeilSegment>();
     
     if (atg != null)
     {
-      Data confData = m_systemObject.getConfigurationData(atg);
+      Data confData = Konfiguration.getInstanz().getKonfigurationsDaten(m_systemObject, atg);
     
       if (confData != null)
       {
@@ -140,19 +167,42 @@ public class StrassenSegment
   
           if (objSts != null)
           {
-            // Anlegen des Objekts und Bestimmen des Offsets des Strassenteilsegments innerhalb des
-            // Strassensegments
-            
-            StrassenTeilSegment sts = new StrassenTeilSegment (m_dataModel, objSts);
-            sts.setOffset( offset );
+            // Anlegen des Objekts
             
-            offset += sts.getLaenge();
-            
-            m_strassenTeilSegment.add( sts );
+            teilSegmente.add( new StrassenTeilSegment (m_dataModel, objSts) );
           }
         }
       }
     }
+    
+    setzeTeilSegmente( laenge, teilSegmente );
+  }
+
+  /**
+   * Methode setzt die Länge und die Straßenteilsegmente des Straßensegments und bestimmt den
+   * Offset der Strassenteilsegmente innerhalb des Strassensegments sowie den Index der Straßenteilsegmente.
+   * @param laenge Länge des Straßensegments
+   * @param teilSegmente Straßenteilsegmente in Fahrtrichtung
+   */
+  void setzeTeilSegmente (long laenge, Vector<StrassenTeilSegment> teilSegmente)
+  {
+    pruefeVeraenderbar();
+    
+    m_laenge = laenge;
+    
+    long offset = 0;
+    
+    Iterator<StrassenTeilSegment> it = teilSegmente.iterator();
+    while (it.hasNext())
+    {
+      StrassenTeilSegment sts = it.next();
+      sts.setOffset( offset );
+      
+      offset += sts.getLaenge();
+    }
+    
+    m_strassenTeilSegment = teilSegmente;
+    m_stsIndex = new TeilSegmentIndex( teilSegmente.toArray( new StrassenTeilSegment[teilSegmente.size()] ) );
   }
 
   /**
@@ -160,12 +210,23 @@ public class StrassenSegment
    */
   public Vector<StrassenSegment> getVorgaenger()
   {
-    Vector<StrassenSegment> v = new Vector<StrassenSegment>();
-    Iterator<StrassenSegment> it = m_vorgaenger.iterator();
-    while (it.hasNext())
-      v.add( it.next() );
+    if (m_eingefroren)
+      return new Vector<StrassenSegment>( m_vorgaengerListe );
     
-    return v;
+    return new Vector<StrassenSegment>( m_vorgaenger );
+  }
+
+  /**
+   * Methode liefert die Vorgänger als nicht veränderbare Liste. Im eingefrorenen Zustand wird die Liste ohne 
+   * Kopie geliefert, sonst eine Momentaufnahme, die spätere Änderungen nicht widerspiegelt.
+   * @return nicht veränderbare Liste der Vorgänger
+   */
+  public List<StrassenSegment> getVorgaengerListe()
+  {
+    if (m_eingefroren)
+      return m_vorgaengerListe;
+    
+    return Collections.unmodifiableList( new ArrayList<StrassenSegment>( m_vorgaenger ) );
   }
 
   /**
@@ -173,6 +234,8 @@ public class StrassenSegment
    */
   public void setVorgaenger( Vector<StrassenSegment> vorgaenger )
   {
+    pruefeVeraenderbar();
+    
     m_vorgaenger = vorgaenger;
   }
 
@@ -181,12 +244,23 @@ public class StrassenSegment
    */
   public Vector<StrassenSegment> getNachfolger()
   {
-    Vector<StrassenSegment> v = new Vector<StrassenSegment>();
-    Iterator<StrassenSegment> it = m_nachfolger.iterator();
-    while (it.hasNext())
-      v.add( it.next() );
+    if (m_eingefroren)
+      return new Vector<StrassenSegment>( m_nachfolgerListe );
     
-    return v;
+    return new Vector<StrassenSegment>( m_nachfolger );
+  }
+
+  /**
+   * Methode liefert die Nachfolger als nicht veränderbare Liste. Im eingefrorenen Zustand wird die Liste ohne 
+   * Kopie geliefert, sonst eine Momentaufnahme, die spätere Änderungen nicht widerspiegelt.
+   * @return nicht veränderbare Liste der Nachfolger
+   */
+  public List<StrassenSegment> getNachfolgerListe()
+  {
+    if (m_eingefroren)
+      return m_nachfolgerListe;
+    
+    return Collections.unmodifiableList( new ArrayList<StrassenSegment>( m_nachfolger ) );
   }
 
   /**
@@ -194,6 +268,8 @@ public class StrassenSegment
    */
   public void setNachfolger( Vector<StrassenSegment> nachfolger )
   {
+    pruefeVeraenderbar();
+    
     m_nachfolger = nachfolger;
   }
 
@@ -202,12 +278,23 @@ public class StrassenSegment
    */
   public Vector<StrassenSegment> getVorgaengerAufStrasse()
   {
-    Vector<StrassenSegment> v = new Vector<StrassenSegment>();
-    Iterator<StrassenSegment> it = m_vorgaengerAufStrasse.iterator();
-    while (it.hasNext())
-      v.add( it.next() );
+    if (m_eingefroren)
+      return new Vector<StrassenSegment>( m_vorgaengerAufStrasseListe );
     
-    return v;
+    return new Vector<StrassenSegment>( m_vorgaengerAufStrasse );
+  }
+
+  /**
+   * Methode liefert die Vorgänger auf der Straße als nicht veränderbare Liste. Im eingefrorenen Zustand wird die Liste ohne 
+   * Kopie geliefert, sonst eine Momentaufnahme, die spätere Änderungen nicht widerspiegelt.
+   * @return nicht veränderbare Liste der Vorgänger auf der Straße
+   */
+  public List<StrassenSegment> getVorgaengerAufStrasseListe()
+  {
+    if (m_eingefroren)
+      return m_vorgaengerAufStrasseListe;
+    
+    return Collections.unmodifiableList( new ArrayList<StrassenSegment>( m_vorgaengerAufStrasse ) );
   }
 
   /**
@@ -243,6 +330,8 @@ public class StrassenSegment
    */
   public void setVorgaengerAufStrasse( Vector<StrassenSegment> vorgaengerAufStrasse )
   {
+    pruefeVeraenderbar();
+    
     m_vorgaengerAufStrasse = vorgaengerAufStrasse;
   }
 
@@ -251,6 +340,8 @@ public class StrassenSegment
    */
   public void setVorgaengerAufStrasse( StrassenSegment vorgaengerAufStrasse )
   {
+    pruefeVeraenderbar();
+    
     m_vorgaengerAufStrasse.clear();
     m_vorgaengerAufStrasse.add( vorgaengerAufStrasse );
   }
@@ -268,12 +359,23 @@ public class StrassenSegment
    */
   public Vector<StrassenSegment> getNachfolgerAufStrasse()
   {
-    Vector<StrassenSegment> v = new Vector<StrassenSegment>();
-    Iterator<StrassenSegment> it = m_nachfolgerAufStrasse.iterator();
-    while (it.hasNext())
-      v.add( it.next() );
+    if (m_eingefroren)
+      return new Vector<StrassenSegment>( m_nachfolgerAufStrasseListe );
     
-    return v;
+    return new Vector<StrassenSegment>( m_nachfolgerAufStrasse );
+  }
+
+  /**
+   * Methode liefert die Nachfolger auf der Straße als nicht veränderbare Liste. Im eingefrorenen Zustand wird die Liste ohne 
+   * Kopie geliefert, sonst eine Momentaufnahme, die spätere Änderungen nicht widerspiegelt.
+   * @return nicht veränderbare Liste der Nachfolger auf der Straße
+   */
+  public List<StrassenSegment> getNachfolgerAufStrasseListe()
+  {
+    if (m_eingefroren)
+      return m_nachfolgerAufStrasseListe;
+    
+    return Collections.unmodifiableList( new ArrayList<StrassenSegment>( m_nachfolgerAufStrasse ) );
   }
 
   /**
@@ -281,6 +383,8 @@ public class StrassenSegment
    */
   public void setNachfolgerAufStrasse( Vector<StrassenSegment> nachfolgerAufStrasse )
   {
+    pruefeVeraenderbar();
+    
     m_nachfolgerAufStrasse = nachfolgerAufStrasse;
   }
   
@@ -289,6 +393,8 @@ public class StrassenSegment
    */
   public void setNachfolgerAufStrase( StrassenSegment nachfolgerAufStrasse )
   {
+    pruefeVeraenderbar();
+    
     m_nachfolgerAufStrasse.clear();
     m_nachfolgerAufStrasse.add( nachfolgerAufStrasse );
   }
@@ -298,20 +404,18 @@ public class StrassenSegment
    */
   public Vector<MessQuerschnitt> getMessquerschnitte()
   {
-    Vector<MessQuerschnitt> v = new Vector<MessQuerschnitt>();
-    Iterator<MessQuerschnitt> it = m_messquerschnitte.iterator();
-    while (it.hasNext())
-      v.add( it.next() );
-    
-    return v;
+    return new Vector<MessQuerschnitt>( getMessQuerschnitteListe() );
   }
 
   /**
    * @param messquerschnitte setzt die Variable messquerschnitte
    */
-  public void setMessquerschnitte( Vector<MessQuerschnitt> messquerschnitte )
+  public synchronized void setMessquerschnitte( Vector<MessQuerschnitt> messquerschnitte )
   {
+    pruefeVeraenderbar();
+    
     m_messquerschnitte = messquerschnitte;
+    m_mqIndex = null;
   }
 
   /**
@@ -321,18 +425,11 @@ public class StrassenSegment
    */
   public MessQuerschnitt getMessQuerschnittVorOffset (long offset)
   {
-    MessQuerschnitt mq = null;
+    MessQuerschnittIndex index = getMessQuerschnittIndex();
     
-    Iterator<MessQuerschnitt> it = m_messquerschnitte.iterator();
-    while (it.hasNext())
-    {
-      MessQuerschnitt m = it.next();
-      
-      if (m.getOffset() < offset)
-        mq = m;
-    }
+    int i = index.ersterAbOffset( offset ) - 1;
     
-    return mq;
+    return (i >= 0) ? index.m_messQuerschnitte[i] : null;
   }
 
   /**
@@ -342,15 +439,28 @@ public class StrassenSegment
    */
   public MessQuerschnitt getMessQuerschnittNachOffset (long offset)
   {
-    Iterator<MessQuerschnitt> it = m_messquerschnitte.iterator();
-    while (it.hasNext())
-    {
-      MessQuerschnitt m = it.next();
-      if (m.getOffset() >= offset)
-        return m;
-    }
+    MessQuerschnittIndex index = getMessQuerschnittIndex();
     
-    return null;
+    int i = index.ersterAbOffset( offset );
+    
+    return (i < index.m_messQuerschnitte.length) ? index.m_messQuerschnitte[i] : null;
+  }
+
+  /**
+   * Methode liefert innerhalb des Straßensegments alle Messquerschnitte, deren Offset im Bereich [von, bis[ liegt,
+   * sortiert nach Offset.
+   * @param von Offset innerhalb des Straßensegments, ab dem die Messquerschnitte geliefert werden (inklusive)
+   * @param bis Offset innerhalb des Straßensegments, bis zu dem die Messquerschnitte geliefert werden (exklusive)
+   * @return nicht veränderbare Liste mit den Messquerschnitten, leer wenn keine Messquerschnitte im Bereich liegen
+   */
+  public List<MessQuerschnitt> getMessQuerschnitte (long von, long bis)
+  {
+    MessQuerschnittIndex index = getMessQuerschnittIndex();
+    
+    int anfang = index.ersterAbOffset( von );
+    int ende   = Math.max( anfang, index.ersterAbOffset( bis ) );
+    
+    return Collections.unmodifiableList( Arrays.asList( index.m_messQuerschnitte ).subList( anfang, ende ) );
   }
 
   /**
@@ -440,6 +550,37 @@ public class StrassenSegment
     return false;  
   }
 
+  /**
+   * Methode prüft ob auf dem Straßensegment ein Messquerschnitt eines Typs liegt (ohne Suche über die 
+   * vorab bestimmte Bitmaske der Typen)
+   * @param typ Typ des Messquerschnitts
+   * @return true: es gibt einen Messquerschnitt des Typs, sonst false
+   */
+  public boolean hatMessQuerschnittTyp (MessQuerschnittTyp typ)
+  {
+    return (getMessQuerschnittIndex().m_typMaske & typ.getBit()) != 0;
+  }
+
+  /**
+   * Methode liefert die Bitmaske der Typen der Messquerschnitte auf dem Straßensegment (siehe
+   * {@link MessQuerschnittTyp#getBit()})
+   * @return Bitmaske der Typen
+   */
+  public int getMessQuerschnittTypMaske ()
+  {
+    return getMessQuerschnittIndex().m_typMaske;
+  }
+
+  /**
+   * Methode liefert die Messquerschnitte eines Typs sortiert nach Offset ohne Kopie als nicht veränderbare Liste
+   * @param typ Typ des Messquerschnitts
+   * @return nicht veränderbare Liste der Messquerschnitte des Typs
+   */
+  public List<MessQuerschnitt> getMessQuerschnitte (MessQuerschnittTyp typ)
+  {
+    return Collections.unmodifiableList( Arrays.asList( getMessQuerschnittIndex().m_proTyp[typ.ordinal()] ) );
+  }
+
   /**
    * Methode prüft ob es sich bei dem Straßensegment um eine Einfahrt handelt. Diese Information wird dadurch gebildet,
    * dass geprüft wird ob es auf diesem Segment einen Messquerschnitt von Typ Einfahrt gibt. 
@@ -447,7 +588,7 @@ public class StrassenSegment
    */
   public boolean isEinfahrt ()
   {
-    return (getMessQuerschnitteTypEinfahrt().size() > 0);
+    return hatMessQuerschnittTyp( MessQuerschnittTyp.EINFAHRT );
   }
 
   /**
@@ -457,7 +598,7 @@ public class StrassenSegment
    */
   public boolean isHauptFahrbahn ()
   {
-    return (getMessQuerschnitteTypHauptFahrbahn().size() > 0);
+    return hatMessQuerschnittTyp( MessQuerschnittTyp.HAUPT_FAHRBAHN );
   }
 
   /**
@@ -467,7 +608,7 @@ public class StrassenSegment
    */
   public boolean isNebenFahrbahn ()
   {
-    return (getMessQuerschnitteTypNebenFahrbahn().size() > 0);
+    return hatMessQuerschnittTyp( MessQuerschnittTyp.NEBEN_FAHRBAHN );
   }
 
   /**
@@ -477,7 +618,7 @@ public class StrassenSegment
    */
   public boolean isSonstigeFahrbahn ()
   {
-    return (getMessQuerschnitteTypSonstigeFahrbahn().size() > 0);
+    return hatMessQuerschnittTyp( MessQuerschnittTyp.SONSTIGE_FAHRBAHN );
   }
 
   /**
@@ -487,7 +628,7 @@ public class StrassenSegment
    */
   public boolean isAusfahrt ()
   {
-    return (getMessQuerschnitteTypAusfahrt().size() > 0);
+    return hatMessQuerschnittTyp( MessQuerschnittTyp.AUSFAHRT );
   }
   
   /**
@@ -563,7 +704,7 @@ public class StrassenSegment
       StrassenSegment s = (StrassenSegment) it.next();
       
       if (s.isEinfahrt())
-        messQuerschnitt.addAll( s.getMessQuerschnitteTypEinfahrt() );
+        messQuerschnitt.addAll( s.getMessQuerschnitte( MessQuerschnittTyp.EINFAHRT ) );
     }
     
     it = m_vorgaengerAufStrasse.iterator();
@@ -572,7 +713,7 @@ public class StrassenSegment
       StrassenSegment s = (StrassenSegment) it.next();
       
       if (s.isEinfahrt())
-        messQuerschnitt.addAll( s.getMessQuerschnitteTypEinfahrt() );
+        messQuerschnitt.addAll( s.getMessQuerschnitte( MessQuerschnittTyp.EINFAHRT ) );
     }
     
     return messQuerschnitt;
@@ -593,7 +734,7 @@ public class StrassenSegment
       StrassenSegment s = (StrassenSegment) it.next();
       
       if (s.isAusfahrt())
-        messQuerschnitt.addAll( s.getMessQuerschnitteTypAusfahrt() );
+        messQuerschnitt.addAll( s.getMessQuerschnitte( MessQuerschnittTyp.AUSFAHRT ) );
     }
     
     it = m_nachfolgerAufStrasse.iterator();
@@ -602,7 +743,7 @@ public class StrassenSegment
       StrassenSegment s = (StrassenSegment) it.next();
       
       if (s.isAusfahrt())
-        messQuerschnitt.addAll( s.getMessQuerschnitteTypAusfahrt() );
+        messQuerschnitt.addAll( s.getMessQuerschnitte( MessQuerschnittTyp.AUSFAHRT ) );
     }
     
     return messQuerschnitt;
@@ -614,16 +755,7 @@ public class StrassenSegment
    */
   public Vector<MessQuerschnitt> getMessQuerschnitteTypEinfahrt ()
   {
-    Vector<MessQuerschnitt> messQuerschnitte = new Vector<MessQuerschnitt>();
-    Iterator<MessQuerschnitt> it = m_messquerschnitte.iterator();
-    while (it.hasNext())
-    {
-      MessQuerschnitt mq = it.next();
-      if (mq.isEinfahrt())
-        messQuerschnitte.add( mq );
-    }
-    
-    return messQuerschnitte;
+    return new Vector<MessQuerschnitt>( getMessQuerschnitte( MessQuerschnittTyp.EINFAHRT ) );
   }
 
   /**
@@ -632,16 +764,7 @@ public class StrassenSegment
    */
   public Vector<MessQuerschnitt> getMessQuerschnitteTypAusfahrt ()
   {
-    Vector<MessQuerschnitt> messQuerschnitte = new Vector<MessQuerschnitt>();
-    Iterator<MessQuerschnitt> it = m_messquerschnitte.iterator();
-    while (it.hasNext())
-    {
-      MessQuerschnitt mq = it.next();
-      if (mq.isAusfahrt())
-        messQuerschnitte.add( mq );
-    }
-    
-    return messQuerschnitte;
+    return new Vector<MessQuerschnitt>( getMessQuerschnitte( MessQuerschnittTyp.AUSFAHRT ) );
   }
 
   /**
@@ -650,16 +773,7 @@ public class StrassenSegment
    */
   public Vector<MessQuerschnitt> getMessQuerschnitteTypHauptFahrbahn ()
   {
-    Vector<MessQuerschnitt> messQuerschnitte = new Vector<MessQuerschnitt>();
-    Iterator<MessQuerschnitt> it = m_messquerschnitte.iterator();
-    while (it.hasNext())
-    {
-      MessQuerschnitt mq = it.next();
-      if (mq.isHauptFahrbahn())
-        messQuerschnitte.add( mq );
-    }
-    
-    return messQuerschnitte;
+    return new Vector<MessQuerschnitt>( getMessQuerschnitte( MessQuerschnittTyp.HAUPT_FAHRBAHN ) );
   }
 
   /**
@@ -668,16 +782,7 @@ public class StrassenSegment
    */
   public Vector<MessQuerschnitt> getMessQuerschnitteTypNebenFahrbahn ()
   {
-    Vector<MessQuerschnitt> messQuerschnitte = new Vector<MessQuerschnitt>();
-    Iterator<MessQuerschnitt> it = m_messquerschnitte.iterator();
-    while (it.hasNext())
-    {
-      MessQuerschnitt mq = it.next();
-      if (mq.isNebenFahrbahn())
-        messQuerschnitte.add( mq );
-    }
-    
-    return messQuerschnitte;
+    return new Vector<MessQuerschnitt>( getMessQuerschnitte( MessQuerschnittTyp.NEBEN_FAHRBAHN ) );
   }
 
   /**
@@ -686,16 +791,7 @@ public class StrassenSegment
    */
   public Vector<MessQuerschnitt> getMessQuerschnitteTypSonstigeFahrbahn ()
   {
-    Vector<MessQuerschnitt> messQuerschnitte = new Vector<MessQuerschnitt>();
-    Iterator<MessQuerschnitt> it = m_messquerschnitte.iterator();
-    while (it.hasNext())
-    {
-      MessQuerschnitt mq = it.next();
-      if (mq.isSonstigeFahrbahn())
-        messQuerschnitte.add( mq );
-    }
-    
-    return messQuerschnitte;
+    return new Vector<MessQuerschnitt>( getMessQuerschnitte( MessQuerschnittTyp.SONSTIGE_FAHRBAHN ) );
   }
 
   /**
@@ -704,10 +800,12 @@ public class StrassenSegment
    */
   public MessQuerschnitt getLetzterMessQuerschnitt()
   {
-    int anzahl = m_messquerschnitte.size();
+    MessQuerschnitt[] messQuerschnitte = getMessQuerschnittIndex().m_messQuerschnitte;
+    
+    int anzahl = messQuerschnitte.length;
     if (anzahl > 0)
     {
-      return m_messquerschnitte.get( anzahl - 1 );
+      return messQuerschnitte[anzahl - 1];
     }
     
     return null;
@@ -719,42 +817,213 @@ public class StrassenSegment
    */
   public MessQuerschnitt getErsterMessQuerschnitt()
   {
-    int anzahl = m_messquerschnitte.size();
-    if (anzahl > 0)
+    MessQuerschnitt[] messQuerschnitte = getMessQuerschnittIndex().m_messQuerschnitte;
+    
+    if (messQuerschnitte.length > 0)
     {
-      return m_messquerschnitte.get( 0 );
+      return messQuerschnitte[0];
     }
     
     return null;
   }
 
   /**
-   * Methode fügt einen Messquerschnitt zum Strassensegment hinzu
+   * Methode fügt einen Messquerschnitt zum Strassensegment hinzu. Die Sortierung nach dem Offset erfolgt
+   * erst beim nächsten Zugriff auf die Messquerschnitte.
    * @param messQuerschnitt
    */
-  public void addMessQuerschnitt( MessQuerschnitt messQuerschnitt )
+  public synchronized void addMessQuerschnitt( MessQuerschnitt messQuerschnitt )
   {
+    pruefeVeraenderbar();
+    
     m_messquerschnitte.add( messQuerschnitt );
+    m_mqIndex = null;
+  }
+
+  /**
+   * Methode erstellt den nach Offset sortierten Index der Messquerschnitte. Der Index wird sonst beim ersten 
+   * Zugriff nach einer Änderung erstellt, die Methode wird nach dem Laden des Netzes aufgerufen, damit dies 
+   * nicht erst während der Berechnungen geschieht.
+   */
+  void erstelleMessQuerschnittIndex ()
+  {
+    getMessQuerschnittIndex();
+  }
+
+  /**
+   * Methode liefert den nach Offset sortierten Index der Messquerschnitte und erstellt ihn bei Bedarf
+   * @return Index der Messquerschnitte
+   */
+  private MessQuerschnittIndex getMessQuerschnittIndex ()
+  {
+    MessQuerschnittIndex index = m_mqIndex;
     
-    Collections.sort (m_messquerschnitte, new MyComparator());
+    if (index != null)
+      return index;
+    
+    synchronized (this)
+    {
+      if (m_mqIndex == null)
+      {
+        // Sortierung ist stabil, Messquerschnitte mit gleichem Offset behalten die Reihenfolge beim Hinzufügen
+        
+        Collections.sort( m_messquerschnitte );
+        
+        m_mqIndex = new MessQuerschnittIndex( m_messquerschnitte.toArray( new MessQuerschnitt[m_messquerschnitte.size()] ) );
+      }
+      
+      return m_mqIndex;
+    }
   }
 
   /**
-   * Klasse zum vergleichen zweier Messquerschnitte anhand des Offsets
+   * Nach Offset sortierte Messquerschnitte eines Straßensegments mit den Offsets als primitivem Feld
+   * für die binäre Suche sowie den Messquerschnitten je Typ und der Bitmaske der vorkommenden Typen
    * @author Dambach Werke GmbH
    */
-  class MyComparator implements Comparator<MessQuerschnitt>
+  private static final class MessQuerschnittIndex
   {
-    public int compare( MessQuerschnitt m1, MessQuerschnitt m2 )
+    /**
+     * Messquerschnitte sortiert nach Offset
+     */
+    private final MessQuerschnitt[] m_messQuerschnitte;
+    
+    /**
+     * Offsets der Messquerschnitte (gleicher Index wie in m_messQuerschnitte)
+     */
+    private final long[] m_offsets;
+    
+    /**
+     * Nach Offset sortierte Messquerschnitte je Typ (Index = Ordinalzahl des Typs)
+     */
+    private final MessQuerschnitt[][] m_proTyp;
+    
+    /**
+     * Bitmaske der vorkommenden Typen
+     */
+    private final int m_typMaske;
+    
+    /**
+     * Konstruktor der Klasse
+     * @param messQuerschnitte nach Offset sortierte Messquerschnitte
+     */
+    private MessQuerschnittIndex (MessQuerschnitt[] messQuerschnitte)
     {
-      if (m1.getOffset() < m2.getOffset())
-        return 0;
-      else
-        return 1;
+      m_messQuerschnitte = messQuerschnitte;
+      m_offsets = new long[messQuerschnitte.length];
+      
+      MessQuerschnittTyp[] typen = MessQuerschnittTyp.values();
+      
+      int[] anzahl = new int[typen.length];
+      int maske = 0;
+      
+      for (int i = 0; i < messQuerschnitte.length; i++)
+      {
+        m_offsets[i] = messQuerschnitte[i].getOffset();
+        
+        MessQuerschnittTyp typ = messQuerschnitte[i].getMessQuerschnittTyp();
+        anzahl[typ.ordinal()]++;
+        maske |= typ.getBit();
+      }
+      
+      m_typMaske = maske;
+      m_proTyp = new MessQuerschnitt[typen.length][];
+      
+      for (int t = 0; t < typen.length; t++)
+        m_proTyp[t] = new MessQuerschnitt[anzahl[t]];
+      
+      Arrays.fill( anzahl, 0 );
+      
+      for (MessQuerschnitt mq : messQuerschnitte)
+      {
+        int t = mq.getMessQuerschnittTyp().ordinal();
+        m_proTyp[t][anzahl[t]++] = mq;
+      }
+    }
+    
+    /**
+     * Methode bestimmt per binärer Suche den Index des ersten Messquerschnitts, dessen Offset größer oder 
+     * gleich dem übergebenen Offset ist
+     * @param offset Offset innerhalb des Straßensegments
+     * @return Index des Messquerschnitts, Anzahl der Messquerschnitte wenn kein solcher existiert
+     */
+    private int ersterAbOffset (long offset)
+    {
+      int links  = 0;
+      int rechts = m_offsets.length;
+      
+      while (links < rechts)
+      {
+        int mitte = (links + rechts) >>> 1;
+        
+        if (m_offsets[mitte] < offset)
+          links = mitte + 1;
+        else
+          rechts = mitte;
+      }
+      
+      return links;
     }
   }
 
  
+  /**
+   * Methode liefert die Messquerschnitte des Straßensegments sortiert nach Offset ohne Kopie als nicht 
+   * veränderbare Liste
+   * @return nicht veränderbare Liste der Messquerschnitte
+   */
+  public List<MessQuerschnitt> getMessQuerschnitteListe()
+  {
+    return Collections.unmodifiableList( Arrays.asList( getMessQuerschnittIndex().m_messQuerschnitte ) );
+  }
+
+  /**
+   * Methode liefert die Straßenteilsegmente des Straßensegments in Fahrtrichtung ohne Kopie als nicht 
+   * veränderbare Liste
+   * @return nicht veränderbare Liste der Straßenteilsegmente
+   */
+  public List<StrassenTeilSegment> getStrassenTeilSegmenteListe()
+  {
+    return Collections.unmodifiableList( Arrays.asList( m_stsIndex.m_teilSegmente ) );
+  }
+
+  /**
+   * Methode friert das Straßensegment ein. Danach liefern die Listenmethoden unveränderliche Listen ohne 
+   * Synchronisation und jeder Versuch, das Straßensegment zu verändern, führt zu einer IllegalStateException.
+   */
+  synchronized void einfrieren ()
+  {
+    if (m_eingefroren)
+      return;
+    
+    getMessQuerschnittIndex();
+    
+    m_vorgaengerListe           = Collections.unmodifiableList( new ArrayList<StrassenSegment>( m_vorgaenger ) );
+    m_vorgaengerAufStrasseListe = Collections.unmodifiableList( new ArrayList<StrassenSegment>( m_vorgaengerAufStrasse ) );
+    m_nachfolgerListe           = Collections.unmodifiableList( new ArrayList<StrassenSegment>( m_nachfolger ) );
+    m_nachfolgerAufStrasseListe = Collections.unmodifiableList( new ArrayList<StrassenSegment>( m_nachfolgerAufStrasse ) );
+    
+    m_eingefroren = true;
+  }
+
+  /**
+   * @return liefert true zurück, wenn das Straßensegment eingefroren ist
+   */
+  public boolean isEingefroren()
+  {
+    return m_eingefroren;
+  }
+
+  /**
+   * Methode prüft, ob das Straßensegment verändert werden darf
+   * @throws IllegalStateException wenn das Straßensegment eingefroren ist
+   */
+  private void pruefeVeraenderbar ()
+  {
+    if (m_eingefroren)
+      throw new IllegalStateException("Straßensegment " + getPid() + " ist eingefroren und kann nicht verändert werden");
+  }
+
   /**
    * Methode liefert die Länge des Straßensegments zurück
    * @return Länge des Straßensegments
@@ -768,47 +1037,48 @@ public class StrassenSegment
    * Methode liefert die Straßenteilsegmente eines Straßensegmente von einem bestimmten Offset ab,
    * bis zu einem bestimmten Abstand (relativ zu diesem Offset. Sollte die Summe von Offset plus Abstand 
    * grösser als die Länge des Straßensegments sein, so wird in den nachfolgenden Straßensegmenten 
-   * weitergesucht. Methode ruft sich rekursiv selber auf.
+   * weitergesucht. Die Nachfolger werden dabei in der Reihenfolge durchlaufen, in der sie früher rekursiv
+   * besucht wurden (Tiefensuche).
    * @param offset Offset im Straßensegment (int Meter)
    * @param abstand Abstand relativ zum Offset (in Meter)
    * @return Liste mit den Straßenteilsegmenten
    */
   public Vector<StrassenTeilSegment> getStrassenTeilSegmente (long offset, long abstand)
   {
-//    System.out.println(this.getPid() + " Länge = " + getLänge() + " Offset = " + offset + " Abstand = " + abstand);
-    
     Vector<StrassenTeilSegment> v = new Vector<StrassenTeilSegment>();
     
-    Iterator<StrassenTeilSegment> it = m_strassenTeilSegment.iterator();
-    while (it.hasNext())
+    // Stapel mit den noch zu durchsuchenden Straßensegmenten und den dazugehörenden Offsets und Abständen
+    
+    ArrayDeque<StrassenSegment> segmente = new ArrayDeque<StrassenSegment>();
+    ArrayDeque<long[]> bereiche = new ArrayDeque<long[]>();
+    
+    segmente.push( this );
+    bereiche.push( new long[] { offset, abstand } );
+    
+    while (!segmente.isEmpty())
     {
-      StrassenTeilSegment sts = it.next();
+      StrassenSegment segment = segmente.pop();
+      long[] bereich = bereiche.pop();
       
-      long anfang = sts.getOffset();
-      long ende   = anfang + sts.getLaenge();
+      long von = bereich[0];
+      long bis = bereich[0] + bereich[1];
       
       // Es werden alle Segmente gesucht deren Ende oder deren Anfang im gesuchten Bereich liegt.
       
-      if ((ende > offset) && (anfang < (offset + abstand)))
-      {
-        if (!v.contains( sts ))
-          v.add( sts );
-//        System.out.println(" - " + sts.getPid() + " Offset: " + sts.getOffset() + " Länge: " + sts.getLänge());
-      }
-    }
-    
-    // Offset geht noch in das nächste Segment hinein
-    
-    long abstandNeu = abstand - (getLaenge() - offset);
-    if ((offset + abstand) > getLaenge())
-    {
-      Iterator<StrassenSegment> itn = getNachfolgerAufStrasse().iterator();
-      while (itn.hasNext())
+      segment.m_stsIndex.fuegeHinzu( v, segment.m_stsIndex.ersterEndeNach( von ), segment.m_stsIndex.ersterAnfangAb( bis ) );
+      
+      // Offset geht noch in das nächste Segment hinein, Nachfolger in umgekehrter Reihenfolge auf den Stapel legen,
+      // damit sie in der ursprünglichen Reihenfolge durchsucht werden
+      
+      if (bis > segment.getLaenge())
       {
-        StrassenSegment s = itn.next();
-
-        Vector<StrassenTeilSegment> stsNachfolger = s.getStrassenTeilSegmente( 0, abstandNeu );
-        v.addAll( stsNachfolger );
+        long abstandNeu = bis - segment.getLaenge();
+        
+        for (int i = segment.m_nachfolgerAufStrasse.size() - 1; i >= 0; i--)
+        {
+          segmente.push( segment.m_nachfolgerAufStrasse.get( i ) );
+          bereiche.push( new long[] { 0, abstandNeu } );
+        }
       }
     }
     
@@ -821,13 +1091,7 @@ public class StrassenSegment
    */
   public Vector<StrassenTeilSegment> getStrassenTeilSegmente ()
   {
-    Vector<StrassenTeilSegment> v = new Vector<StrassenTeilSegment>();
-    
-    Iterator<StrassenTeilSegment> it = m_strassenTeilSegment.iterator();
-    while (it.hasNext())
-      v.add( it.next() );
-    
-    return v;
+    return new Vector<StrassenTeilSegment>( getStrassenTeilSegmenteListe() );
   }
   
   /**
@@ -838,16 +1102,7 @@ public class StrassenSegment
   {
     Vector<StrassenTeilSegment> v = new Vector<StrassenTeilSegment>();
     
-    Iterator<StrassenTeilSegment> it = m_strassenTeilSegment.iterator();
-    while (it.hasNext())
-    {
-      StrassenTeilSegment sts = it.next();
-      if ((sts.getOffset() + sts.getLaenge()) > offset)
-      {
-        if (!v.contains( sts ))
-          v.add( sts );
-      }
-    }
+    m_stsIndex.fuegeHinzu( v, m_stsIndex.ersterEndeNach( offset ), m_stsIndex.getAnzahl() );
     
     return v;
   }
@@ -860,18 +1115,230 @@ public class StrassenSegment
   {
     Vector<StrassenTeilSegment> v = new Vector<StrassenTeilSegment>();
     
-    Iterator<StrassenTeilSegment> it = m_strassenTeilSegment.iterator();
-    while (it.hasNext())
+    m_stsIndex.fuegeHinzu( v, 0, m_stsIndex.ersterAnfangAb( offset ) );
+    
+    return v;
+  }
+
+  /**
+   * Methode bestimmt die Straßenteilsegmente entlang eines Streckenabschnitts beliebiger Länge, der bei einem 
+   * Offset in diesem Straßensegment beginnt. Reicht der Abschnitt über das Ende des Straßensegments hinaus, wird 
+   * im ersten Nachfolger auf der Straße weitergesucht, bis die Länge erreicht ist oder kein Nachfolger existiert.
+   * Jedes Straßensegment wird höchstens einmal durchlaufen, bei einem Ringschluss im Netz endet die Suche vor 
+   * dem ersten bereits besuchten Straßensegment. Die Methode arbeitet ohne Rekursion, die besuchten 
+   * Straßensegmente werden erst beim Übergang in einen Nachfolger festgehalten.
+   * @param offset Offset im Straßensegment, an dem der Abschnitt beginnt (in Meter)
+   * @param laenge Länge des Abschnitts (in Meter)
+   * @param ergebnis Instanz, in die das Ergebnis eingetragen wird (wird vorher geleert), bei null wird eine neue 
+   * Instanz angelegt
+   * @return Streckenabschnitt mit den Straßenteilsegmenten (die übergebene Instanz, sofern nicht null)
+   */
+  public StreckenAbschnitt getStrecke (long offset, long laenge, StreckenAbschnitt ergebnis)
+  {
+    if (ergebnis == null)
+      ergebnis = new StreckenAbschnitt();
+    else
+      ergebnis.leere();
+    
+    StrassenSegment segment = this;
+    
+    Set<StrassenSegment> besucht = null;
+    
+    long von = offset;
+    long rest = laenge;
+    
+    while (segment != null && rest > 0)
     {
-      StrassenTeilSegment sts = it.next();
-      if (sts.getOffset() < offset)
+      TeilSegmentIndex index = segment.m_stsIndex;
+      
+      long bis = von + rest;
+      
+      int ende = index.ersterAnfangAb( bis );
+      
+      for (int i = index.ersterEndeNach( von ); i < ende; i++)
+      {
+        long anfangSts = Math.max( von, index.m_anfang[i] );
+        long endeSts   = Math.min( bis, index.m_anfang[i + 1] );
+        
+        ergebnis.add( segment, index.m_teilSegmente[i], endeSts - anfangSts );
+      }
+      
+      // Liegt der Anfang hinter dem Ende des Straßensegments, beginnt der Abschnitt erst im Nachfolger
+      
+      long verbleibend = segment.getLaenge() - von;
+      
+      if (verbleibend >= 0)
+      {
+        rest -= verbleibend;
+        von = 0;
+      }
+      else
       {
-        if (!v.contains( sts ))
-          v.add( sts );
+        von = -verbleibend;
       }
+      
+      if (segment.m_nachfolgerAufStrasse.isEmpty())
+        break;
+      
+      // Schutz gegen Ringschlüsse im Netz
+      
+      if (besucht == null)
+        besucht = Collections.newSetFromMap( new IdentityHashMap<StrassenSegment, Boolean>() );
+      
+      besucht.add( segment );
+      
+      segment = segment.m_nachfolgerAufStrasse.get( 0 );
+      
+      if (besucht.contains( segment ))
+        break;
     }
     
-    return v;
+    return ergebnis;
+  }
+
+  /**
+   * Liefert die Anzahl Fahrstreifen der Straßenteilsegmente in Fahrtrichtung als primitives Feld (Kopie)
+   * @return Anzahl Fahrstreifen je Straßenteilsegment
+   */
+  public int[] getAnzahlFahrstreifenTeilSegmente ()
+  {
+    return m_stsIndex.m_anzahlFahrstreifen.clone();
+  }
+
+  /**
+   * Liefert Steigung/Gefälle der Straßenteilsegmente in Fahrtrichtung als primitives Feld (Kopie)
+   * @return Steigung/Gefälle je Straßenteilsegment, NaN wenn nicht konfiguriert
+   */
+  public double[] getSteigungGefaelleTeilSegmente ()
+  {
+    return m_stsIndex.m_steigungGefaelle.clone();
+  }
+
+  /**
+   * Liefert die aufsummierten Offsets der Straßenteilsegmente (Kopie). Eintrag i ist der Anfang des i-ten
+   * Straßenteilsegments, der letzte Eintrag das Ende des letzten Straßenteilsegments.
+   * @return Offsets der Straßenteilsegmente, ein Eintrag mehr als Straßenteilsegmente vorhanden sind
+   */
+  public long[] getOffsetsTeilSegmente ()
+  {
+    return m_stsIndex.m_anfang.clone();
+  }
+
+  /**
+   * Index der Straßenteilsegmente eines Straßensegments. Enthält die aufsummierten Offsets (Präfixsummen der 
+   * Längen) sowie Anzahl Fahrstreifen und Steigung/Gefälle als primitive Felder für die binäre Suche.
+   * @author Dambach Werke GmbH
+   */
+  private static final class TeilSegmentIndex
+  {
+    /**
+     * Straßenteilsegmente in Fahrtrichtung
+     */
+    private final StrassenTeilSegment[] m_teilSegmente;
+    
+    /**
+     * Aufsummierte Offsets, m_anfang[i] ist der Anfang, m_anfang[i + 1] das Ende des i-ten Straßenteilsegments
+     */
+    private final long[] m_anfang;
+    
+    /**
+     * Anzahl Fahrstreifen je Straßenteilsegment
+     */
+    private final int[] m_anzahlFahrstreifen;
+    
+    /**
+     * Steigung/Gefälle je Straßenteilsegment
+     */
+    private final double[] m_steigungGefaelle;
+    
+    /**
+     * Konstruktor der Klasse
+     * @param teilSegmente Straßenteilsegmente in Fahrtrichtung
+     */
+    private TeilSegmentIndex (StrassenTeilSegment[] teilSegmente)
+    {
+      int n = teilSegmente.length;
+      
+      m_teilSegmente       = teilSegmente;
+      m_anfang             = new long[n + 1];
+      m_anzahlFahrstreifen = new int[n];
+      m_steigungGefaelle   = new double[n];
+      
+      for (int i = 0; i < n; i++)
+      {
+        m_anfang[i + 1]         = m_anfang[i] + teilSegmente[i].getLaenge();
+        m_anzahlFahrstreifen[i] = teilSegmente[i].getAnzahlFahrstreifen();
+        m_steigungGefaelle[i]   = teilSegmente[i].getSteigungGefaelleWert();
+      }
+    }
+    
+    /**
+     * @return liefert die Anzahl der Straßenteilsegmente zurück
+     */
+    private int getAnzahl ()
+    {
+      return m_teilSegmente.length;
+    }
+    
+    /**
+     * Methode bestimmt den Index des ersten Straßenteilsegments, dessen Ende hinter dem Offset liegt
+     * @param offset Offset im Straßensegment
+     * @return Index des Straßenteilsegments, Anzahl der Straßenteilsegmente wenn kein solches existiert
+     */
+    private int ersterEndeNach (long offset)
+    {
+      // Suche im Bereich der Enden m_anfang[1..n]
+      
+      int links  = 1;
+      int rechts = m_anfang.length;
+      
+      while (links < rechts)
+      {
+        int mitte = (links + rechts) >>> 1;
+        
+        if (m_anfang[mitte] <= offset)
+          links = mitte + 1;
+        else
+          rechts = mitte;
+      }
+      
+      return links - 1;
+    }
+    
+    /**
+     * Methode bestimmt den Index des ersten Straßenteilsegments, dessen Anfang in oder hinter dem Offset liegt
+     * @param offset Offset im Straßensegment
+     * @return Index des Straßenteilsegments, Anzahl der Straßenteilsegmente wenn kein solches existiert
+     */
+    private int ersterAnfangAb (long offset)
+    {
+      int links  = 0;
+      int rechts = m_teilSegmente.length;
+      
+      while (links < rechts)
+      {
+        int mitte = (links + rechts) >>> 1;
+        
+        if (m_anfang[mitte] < offset)
+          links = mitte + 1;
+        else
+          rechts = mitte;
+      }
+      
+      return links;
+    }
+    
+    /**
+     * Methode fügt die Straßenteilsegmente eines Indexbereichs an eine Liste an
+     * @param v Liste
+     * @param von erster Index (inklusive)
+     * @param bis letzter Index (exklusive)
+     */
+    private void fuegeHinzu (Vector<StrassenTeilSegment> v, int von, int bis)
+    {
+      for (int i = von; i < bis; i++)
+        v.add( m_teilSegmente[i] );
+    }
   }
 
   /**
@@ -880,6 +1347,8 @@ public class StrassenSegment
    */
   public void addNachfolger (StrassenSegment segment)
   {
+    pruefeVeraenderbar();
+    
     if (!m_nachfolger.contains( segment ))
       m_nachfolger.add( segment );
   }
@@ -890,6 +1359,8 @@ public class StrassenSegment
    */
   public void addNachfolgerAufStrasse (StrassenSegment segment)
   {
+    pruefeVeraenderbar();
+    
     if (!m_nachfolgerAufStrasse.contains( segment ))
       m_nachfolgerAufStrasse.add( segment );
   }
@@ -900,6 +1371,8 @@ public class StrassenSegment
    */
   public void addVorgaenger (StrassenSegment segment)
   {
+    pruefeVeraenderbar();
+    
     if (!m_vorgaenger.contains( segment ))
       m_vorgaenger.add( segment );
   }
@@ -910,6 +1383,8 @@ public class StrassenSegment
    */
   public void addVorgaengerAufStrasse (StrassenSegment segment)
   {
+    pruefeVeraenderbar();
+    
     if (!m_vorgaengerAufStrasse.contains( segment ))
       m_vorgaengerAufStrasse.add( segment );
   }
@@ -51,6 +51,11 @@ public class StrassenTeilSegment
    * Steigung/Gefälle
    */
   private String m_steigungGefaelle = null;
+
+  /**
+   * Steigung/Gefälle als Zahlenwert, NaN wenn kein Zahlenwert konfiguriert ist
+   */
+  private double m_steigungGefaelleWert = Double.NaN;
   
   /**
    * Offset innethalb des Straßensegments
@@ -77,17 +82,46 @@ public class StrassenTeilSegment
     
     if (atg != null)
     {
-      Data confData = object.getConfigurationData(atg);
+      Data confData = Konfiguration.getInstanz().getKonfigurationsDaten(object, atg);
     
       if (confData != null)
       {
         m_laenge              = confData.getUnscaledValue("Länge").longValue() / 100;
         m_anzahlFahrstreifen = confData.getUnscaledValue("AnzahlFahrStreifen").intValue();
-        m_steigungGefaelle    = confData.getScaledValue  ("SteigungGefälle" ).getValueText();
+        
+        Data.NumberValue steigungGefaelle = confData.getScaledValue("SteigungGefälle");
+        
+        m_steigungGefaelle = steigungGefaelle.getValueText();
+        
+        if (steigungGefaelle.isNumber())
+          m_steigungGefaelleWert = steigungGefaelle.doubleValue();
       }
     }
   }
 
+  /**
+   * Konstruktor der Klasse, die Daten werden nicht aus der Konfiguration gelesen sondern übergeben
+   * (z.B. beim Laden eines Netzabbilds)
+   * @param dataModel Datenmodell des DaV
+   * @param object Systemobjekt vom Typ 'typ.straßenTeilSegment'
+   * @param laenge Länge des Straßenteilsegments
+   * @param anzahlFahrstreifen Anzahl Fahrstreifen
+   * @param steigungGefaelle Steigung/Gefälle
+   * @param steigungGefaelleWert Steigung/Gefälle als Zahlenwert, NaN wenn kein Zahlenwert konfiguriert ist
+   */
+  StrassenTeilSegment (DataModel dataModel, SystemObject object, long laenge, int anzahlFahrstreifen, String steigungGefaelle,
+      double steigungGefaelleWert)
+  {
+    m_systemObject = object;
+    
+    m_dataModel = dataModel;
+    
+    m_laenge             = laenge;
+    m_anzahlFahrstreifen = anzahlFahrstreifen;
+    m_steigungGefaelle   = steigungGefaelle;
+    m_steigungGefaelleWert = steigungGefaelleWert;
+  }
+
   /**
    * @return liefert die Variable systemObject zurück
    */
@@ -132,6 +166,14 @@ public class StrassenTeilSegment
     return m_steigungGefaelle;
   }
 
+  /**
+   * @return liefert Steigung/Gefälle als Zahlenwert zurück, NaN wenn kein Zahlenwert konfiguriert ist
+   */
+  public double getSteigungGefaelleWert()
+  {
+    return m_steigungGefaelleWert;
+  }
+
   /**
    * @return liefert die Variable offset zurück
    */
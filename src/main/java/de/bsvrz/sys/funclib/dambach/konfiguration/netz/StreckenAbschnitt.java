@@ -0,0 +1,214 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.konfiguration.netz;
+
+import java.util.Arrays;
+
+/**
+ * Ergebnis einer Streckenabfrage über {@link StrassenSegment#getStrecke(long, long, StreckenAbschnitt)}. Enthält
+ * die Straßenteilsegmente entlang eines Streckenabschnitts in Fahrtrichtung zusammen mit der Länge, mit der sie im
+ * Abschnitt liegen, sowie Anzahl Fahrstreifen und Steigung/Gefälle als primitive Felder.<p>
+ *
+ * Eine Instanz kann für beliebig viele Abfragen wiederverwendet werden, die Felder werden nur bei Bedarf vergrößert.
+ * Die Felder werden direkt (ohne Kopie) geliefert, gültig sind jeweils nur die ersten {@link #getAnzahl()} Einträge.
+ * Die Klasse ist nicht threadsicher.
+ * @author Dambach Werke GmbH
+ */
+public class StreckenAbschnitt
+{
+  /**
+   * Straßenteilsegmente in Fahrtrichtung
+   */
+  private StrassenTeilSegment[] m_teilSegmente;
+
+  /**
+   * Straßensegmente, zu denen die Straßenteilsegmente gehören
+   */
+  private StrassenSegment[] m_strassenSegmente;
+
+  /**
+   * Anfang der Straßenteilsegmente bezogen auf den Anfang des Abschnitts (in Meter)
+   */
+  private long[] m_anfang;
+
+  /**
+   * Länge, mit der die Straßenteilsegmente im Abschnitt liegen (in Meter)
+   */
+  private long[] m_laenge;
+
+  /**
+   * Anzahl Fahrstreifen der Straßenteilsegmente
+   */
+  private int[] m_anzahlFahrstreifen;
+
+  /**
+   * Steigung/Gefälle der Straßenteilsegmente, NaN wenn nicht konfiguriert
+   */
+  private double[] m_steigungGefaelle;
+
+  /**
+   * Anzahl der gültigen Einträge
+   */
+  private int m_anzahl = 0;
+
+  /**
+   * Gesamtlänge der Straßenteilsegmente im Abschnitt (in Meter)
+   */
+  private long m_gesamtLaenge = 0;
+
+  /**
+   * Konstruktor der Klasse
+   */
+  public StreckenAbschnitt ()
+  {
+    this (16);
+  }
+
+  /**
+   * Konstruktor der Klasse
+   * @param kapazitaet anfängliche Anzahl Einträge
+   */
+  public StreckenAbschnitt (int kapazitaet)
+  {
+    int n = Math.max( 1, kapazitaet );
+
+    m_teilSegmente       = new StrassenTeilSegment[n];
+    m_strassenSegmente   = new StrassenSegment[n];
+    m_anfang             = new long[n];
+    m_laenge             = new long[n];
+    m_anzahlFahrstreifen = new int[n];
+    m_steigungGefaelle   = new double[n];
+  }
+
+  /**
+   * Methode leert den Abschnitt für eine neue Abfrage
+   */
+  public void leere ()
+  {
+    Arrays.fill( m_teilSegmente, 0, m_anzahl, null );
+    Arrays.fill( m_strassenSegmente, 0, m_anzahl, null );
+
+    m_anzahl       = 0;
+    m_gesamtLaenge = 0;
+  }
+
+  /**
+   * Methode fügt ein Straßenteilsegment am Ende des Abschnitts an
+   * @param segment Straßensegment, zu dem das Straßenteilsegment gehört
+   * @param sts Straßenteilsegment
+   * @param laenge Länge, mit der das Straßenteilsegment im Abschnitt liegt
+   */
+  void add (StrassenSegment segment, StrassenTeilSegment sts, long laenge)
+  {
+    if (m_anzahl == m_teilSegmente.length)
+    {
+      int n = m_anzahl * 2;
+
+      m_teilSegmente       = Arrays.copyOf( m_teilSegmente, n );
+      m_strassenSegmente   = Arrays.copyOf( m_strassenSegmente, n );
+      m_anfang             = Arrays.copyOf( m_anfang, n );
+      m_laenge             = Arrays.copyOf( m_laenge, n );
+      m_anzahlFahrstreifen = Arrays.copyOf( m_anzahlFahrstreifen, n );
+      m_steigungGefaelle   = Arrays.copyOf( m_steigungGefaelle, n );
+    }
+
+    m_teilSegmente[m_anzahl]       = sts;
+    m_strassenSegmente[m_anzahl]   = segment;
+    m_anfang[m_anzahl]             = m_gesamtLaenge;
+    m_laenge[m_anzahl]             = laenge;
+    m_anzahlFahrstreifen[m_anzahl] = sts.getAnzahlFahrstreifen();
+    m_steigungGefaelle[m_anzahl]   = sts.getSteigungGefaelleWert();
+
+    m_anzahl++;
+    m_gesamtLaenge += laenge;
+  }
+
+  /**
+   * @return liefert die Anzahl der Straßenteilsegmente im Abschnitt zurück
+   */
+  public int getAnzahl()
+  {
+    return m_anzahl;
+  }
+
+  /**
+   * @return liefert die Gesamtlänge der Straßenteilsegmente im Abschnitt zurück (in Meter)
+   */
+  public long getGesamtLaenge()
+  {
+    return m_gesamtLaenge;
+  }
+
+  /**
+   * @param i Index des Eintrags
+   * @return liefert das Straßenteilsegment zurück
+   */
+  public StrassenTeilSegment getTeilSegment (int i)
+  {
+    return m_teilSegmente[i];
+  }
+
+  /**
+   * @param i Index des Eintrags
+   * @return liefert das Straßensegment des Straßenteilsegments zurück
+   */
+  public StrassenSegment getStrassenSegment (int i)
+  {
+    return m_strassenSegmente[i];
+  }
+
+  /**
+   * @return liefert den Anfang der Straßenteilsegmente bezogen auf den Anfang des Abschnitts zurück
+   */
+  public long[] getAnfang()
+  {
+    return m_anfang;
+  }
+
+  /**
+   * @return liefert die Länge zurück, mit der die Straßenteilsegmente im Abschnitt liegen
+   */
+  public long[] getLaenge()
+  {
+    return m_laenge;
+  }
+
+  /**
+   * @return liefert die Anzahl Fahrstreifen der Straßenteilsegmente zurück
+   */
+  public int[] getAnzahlFahrstreifen()
+  {
+    return m_anzahlFahrstreifen;
+  }
+
+  /**
+   * @return liefert Steigung/Gefälle der Straßenteilsegmente zurück (NaN wenn nicht konfiguriert)
+   */
+  public double[] getSteigungGefaelle()
+  {
+    return m_steigungGefaelle;
+  }
+}
@@ -0,0 +1,371 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.konfiguration.netz;
+
+import java.util.Iterator;
+import java.util.List;
+
+import de.bsvrz.dav.daf.main.Data;
+import de.bsvrz.dav.daf.main.ResultData;
+import de.bsvrz.dav.daf.main.config.Attribute;
+import de.bsvrz.dav.daf.main.config.AttributeGroup;
+import de.bsvrz.dav.daf.main.config.AttributeListDefinition;
+import de.bsvrz.dav.daf.main.config.AttributeType;
+import de.bsvrz.dav.daf.main.config.DataModel;
+
+/**
+ * Dekodierer für Datensätze der Attributgruppen "atg.verkehrsDatenKurzZeitMq" und "atg.verkehrsDatenKurzZeitFs".
+ * Die Attributgruppe wird beim Erzeugen einmal aufgelöst und danach über die Objektidentität (ersatzweise über
+ * die Id) statt über die Pid verglichen. Die Positionen der benötigten Attribute werden beim Erzeugen einmal aus 
+ * der Attributgruppe bestimmt, ein Datensatz wird danach über {@link Data#iterator()} in Definitionsreihenfolge 
+ * gelesen, ohne Attribute je Datensatz über ihren Namen zu suchen. Aus einem Datensatz werden nur Wert und 
+ * Güteindex von QB und QKfz gelesen und in primitive Felder eines wiederverwendbaren {@link Werte}-Objekts 
+ * eingetragen. Der Güteindex wird als skalierter Zahlenwert gelesen, es entsteht kein String je Datensatz.<p>
+ *
+ * Ein Dekodierer ist unveränderlich und kann von mehreren Threads gleichzeitig verwendet werden, ein
+ * {@link Werte}-Objekt dagegen nur von einem Thread.
+ * @author Dambach Werke GmbH
+ */
+public final class VerkehrsDatenDekodierer
+{
+  /**
+   * Name des Attributs "Wert"
+   */
+  private static final String WERT = "Wert";
+
+  /**
+   * Name des Attributs "Güte"
+   */
+  private static final String GUETE = "Güte";
+
+  /**
+   * Name des Attributs "Index"
+   */
+  private static final String INDEX = "Index";
+
+  /**
+   * Attributgruppe der Datensätze
+   */
+  private final AttributeGroup m_atg;
+
+  /**
+   * Id der Attributgruppe
+   */
+  private final long m_atgId;
+
+  /**
+   * Position des Attributs der Verkehrsstärke QB in der Attributgruppe
+   */
+  private final int m_qb;
+
+  /**
+   * Position des Attributs der Verkehrsstärke QKfz in der Attributgruppe
+   */
+  private final int m_qkfz;
+
+  /**
+   * Position des Attributs "Wert" in der Attributliste einer Verkehrsstärke
+   */
+  private final int m_wert;
+
+  /**
+   * Position des Attributs "Güte" in der Attributliste einer Verkehrsstärke
+   */
+  private final int m_guete;
+
+  /**
+   * Position des Attributs "Index" in der Attributliste "Güte"
+   */
+  private final int m_index;
+
+  /**
+   * Methode erzeugt einen Dekodierer für "atg.verkehrsDatenKurzZeitMq"
+   * @param dataModel Datenmodell
+   * @return Dekodierer
+   */
+  public static VerkehrsDatenDekodierer fuerMessQuerschnitt (DataModel dataModel)
+  {
+    return new VerkehrsDatenDekodierer( dataModel.getAttributeGroup( "atg.verkehrsDatenKurzZeitMq" ), "QB", "QKfz" );
+  }
+
+  /**
+   * Methode erzeugt einen Dekodierer für "atg.verkehrsDatenKurzZeitFs"
+   * @param dataModel Datenmodell
+   * @return Dekodierer
+   */
+  public static VerkehrsDatenDekodierer fuerFahrStreifen (DataModel dataModel)
+  {
+    return new VerkehrsDatenDekodierer( dataModel.getAttributeGroup( "atg.verkehrsDatenKurzZeitFs" ), "qB", "qKfz" );
+  }
+
+  /**
+   * Konstruktor der Klasse
+   * @param atg Attributgruppe der Datensätze
+   * @param qb Name des Attributs der Verkehrsstärke QB
+   * @param qkfz Name des Attributs der Verkehrsstärke QKfz
+   */
+  private VerkehrsDatenDekodierer (AttributeGroup atg, String qb, String qkfz)
+  {
+    if (atg == null)
+      throw new IllegalArgumentException("Attributgruppe für Verkehrsdaten nicht gefunden");
+
+    m_atg   = atg;
+    m_atgId = atg.getId();
+    m_qb    = position( atg.getAttributes(), qb );
+    m_qkfz  = position( atg.getAttributes(), qkfz );
+
+    List<Attribute> wert = attributListe( atg.getAttributes().get( m_qb ) );
+
+    m_wert  = position( wert, WERT );
+    m_guete = position( wert, GUETE );
+    m_index = position( attributListe( wert.get( m_guete ) ), INDEX );
+  }
+
+  /**
+   * Methode bestimmt die Position eines Attributs in einer Attributliste
+   * @param attribute Attribute in Definitionsreihenfolge
+   * @param name Name des Attributs
+   * @return Position des Attributs
+   * @throws IllegalArgumentException wenn das Attribut nicht vorhanden ist
+   */
+  private static int position (List<Attribute> attribute, String name)
+  {
+    for (int i = 0; i < attribute.size(); i++)
+    {
+      if (name.equals( attribute.get( i ).getName() ))
+        return i;
+    }
+
+    throw new IllegalArgumentException("Attribut " + name + " für Verkehrsdaten nicht gefunden");
+  }
+
+  /**
+   * @param attribut Attribut vom Typ Attributliste
+   * @return liefert die Attribute der Attributliste in Definitionsreihenfolge zurück
+   * @throws IllegalArgumentException wenn das Attribut keine Attributliste ist
+   */
+  private static List<Attribute> attributListe (Attribute attribut)
+  {
+    AttributeType typ = attribut.getAttributeType();
+
+    if (!(typ instanceof AttributeListDefinition))
+      throw new IllegalArgumentException("Attribut " + attribut.getName() + " ist keine Attributliste");
+
+    return ((AttributeListDefinition) typ).getAttributes();
+  }
+
+  /**
+   * Methode liefert das Element an einer Position einer Attributliste
+   * @param liste Attributliste
+   * @param position Position des Elements
+   * @return Element
+   */
+  private static Data element (Data liste, int position)
+  {
+    Iterator<Data> it = liste.iterator();
+
+    for (int i = 0; i < position; i++)
+      it.next();
+
+    return it.next();
+  }
+
+  /**
+   * @return liefert die Attributgruppe der Datensätze zurück
+   */
+  public AttributeGroup getAttributeGroup()
+  {
+    return m_atg;
+  }
+
+  /**
+   * Methode prüft, ob ein Datensatz zur Attributgruppe des Dekodierers gehört
+   * @param dat Datensatz
+   * @return true, wenn der Datensatz dekodiert werden kann
+   */
+  public boolean istZustaendig (ResultData dat)
+  {
+    AttributeGroup atg = dat.getDataDescription().getAttributeGroup();
+
+    return atg == m_atg || (atg != null && atg.getId() == m_atgId);
+  }
+
+  /**
+   * Methode dekodiert einen Datensatz. Enthält der Datensatz keine Daten, werden wie in der bisherigen
+   * Auswertung nur QB auf -1 und sein Güteindex auf NaN gesetzt, QKfz und sein Güteindex bleiben unverändert.
+   * @param dat Datensatz der Attributgruppe des Dekodierers
+   * @param ziel Werte, in die das Ergebnis eingetragen wird
+   * @return true, wenn der Datensatz Daten enthielt
+   */
+  public boolean dekodiere (ResultData dat, Werte ziel)
+  {
+    ziel.m_zeit = dat.getDataTime();
+
+    if (!dat.hasData())
+    {
+      ziel.m_qb      = -1;
+      ziel.m_qbGuete = Double.NaN;
+      return false;
+    }
+
+    Data qb   = null;
+    Data qkfz = null;
+
+    int letzte = Math.max( m_qb, m_qkfz );
+
+    Iterator<Data> it = dat.getData().iterator();
+
+    for (int i = 0; i <= letzte; i++)
+    {
+      Data d = it.next();
+
+      if (i == m_qb)
+        qb = d;
+      else if (i == m_qkfz)
+        qkfz = d;
+    }
+
+    lese( qb, ziel, true );
+    lese( qkfz, ziel, false );
+
+    return true;
+  }
+
+  /**
+   * Methode liest Wert und Güteindex einer Verkehrsstärke in einem Durchlauf über die Attributliste
+   * @param verkehrsStaerke Attributliste der Verkehrsstärke
+   * @param ziel Werte, in die das Ergebnis eingetragen wird
+   * @param istQb true: QB, false: QKfz
+   */
+  private void lese (Data verkehrsStaerke, Werte ziel, boolean istQb)
+  {
+    long wert    = -1;
+    double guete = Double.NaN;
+
+    int letzte = Math.max( m_wert, m_guete );
+
+    Iterator<Data> it = verkehrsStaerke.iterator();
+
+    for (int i = 0; i <= letzte; i++)
+    {
+      Data d = it.next();
+
+      if (i == m_wert)
+      {
+        wert = d.asUnscaledValue().longValue();
+      }
+      else if (i == m_guete)
+      {
+        Data.NumberValue index = element( d, m_index ).asScaledValue();
+
+        guete = index.isNumber() ? index.doubleValue() : Double.NaN;
+      }
+    }
+
+    if (istQb)
+    {
+      ziel.m_qb      = wert;
+      ziel.m_qbGuete = guete;
+    }
+    else
+    {
+      ziel.m_qkfz      = wert;
+      ziel.m_qkfzGuete = guete;
+    }
+  }
+
+  /**
+   * Wiederverwendbares Ergebnis einer Dekodierung. Nicht threadsicher.
+   * @author Dambach Werke GmbH
+   */
+  public static final class Werte
+  {
+    /**
+     * Zeitstempel des Datensatzes
+     */
+    private long m_zeit = 0;
+
+    /**
+     * Verkehrsstärke QB, -1 wenn nicht bestimmbar
+     */
+    private long m_qb = -1;
+
+    /**
+     * Verkehrsstärke QKfz, -1 wenn nicht bestimmbar
+     */
+    private long m_qkfz = -1;
+
+    /**
+     * Güteindex QB, NaN wenn nicht bestimmbar
+     */
+    private double m_qbGuete = Double.NaN;
+
+    /**
+     * Güteindex QKfz, NaN wenn nicht bestimmbar
+     */
+    private double m_qkfzGuete = Double.NaN;
+
+    /**
+     * @return liefert den Zeitstempel des Datensatzes zurück
+     */
+    public long getZeit()
+    {
+      return m_zeit;
+    }
+
+    /**
+     * @return liefert die Verkehrsstärke QB zurück, -1 wenn nicht bestimmbar
+     */
+    public long getQB()
+    {
+      return m_qb;
+    }
+
+    /**
+     * @return liefert die Verkehrsstärke QKfz zurück, -1 wenn nicht bestimmbar
+     */
+    public long getQKfz()
+    {
+      return m_qkfz;
+    }
+
+    /**
+     * @return liefert den Güteindex QB zurück, NaN wenn nicht bestimmbar
+     */
+    public double getQBGuete()
+    {
+      return m_qbGuete;
+    }
+
+    /**
+     * @return liefert den Güteindex QKfz zurück, NaN wenn nicht bestimmbar
+     */
+    public double getQKfzGuete()
+    {
+      return m_qkfzGuete;
+    }
+  }
+}
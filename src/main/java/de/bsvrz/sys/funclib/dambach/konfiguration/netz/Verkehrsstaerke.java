@@ -25,11 +25,11 @@
 
 package de.bsvrz.sys.funclib.dambach.konfiguration.netz;
 
-import java.util.Vector;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import de.bsvrz.dav.daf.main.ClientDavInterface;
 import de.bsvrz.dav.daf.main.ClientReceiverInterface;
-import de.bsvrz.dav.daf.main.Data;
 import de.bsvrz.dav.daf.main.DataDescription;
 import de.bsvrz.dav.daf.main.ReceiveOptions;
 import de.bsvrz.dav.daf.main.ReceiverRole;
@@ -37,6 +37,7 @@ import de.bsvrz.dav.daf.main.ResultData;
 import de.bsvrz.dav.daf.main.config.Aspect;
 import de.bsvrz.dav.daf.main.config.AttributeGroup;
 import de.bsvrz.dav.daf.main.config.SystemObject;
+import de.bsvrz.sys.funclib.dambach.util.EingangsPuffer;
 import de.bsvrz.sys.funclib.debug.Debug;
 
 /**
@@ -73,34 +74,59 @@ public class Verkehrsstaerke implements ClientReceiverInterface
   private String m_asp = "asp.analyse";
 
   /**
-   * Aktuelle Verkehrsstärke (QB)
+   * Aktueller Stand der Verkehrsstärke (QB, QKfz und Güteindizes aus demselben Datensatz)
    */
-  long m_qb = -1;
+  private volatile VerkehrsstaerkeWert m_wert = VerkehrsstaerkeWert.UNBEKANNT;
+
+  /**
+   * Pid des Messquerschnitts
+   */
+  private String m_pidMessQuerschnitt = null;
   
   /**
-   * Aktuelle Verkehrsstärke (QKfz)
+   * Kapazität des Eingangspuffers
    */
-  long m_qkfz = -1;
+  private static final int KAPAZITAET_EINGANG = 256;
 
   /**
-   * Aktueller Güteindex QB
+   * Puffer mit empfangenen Daten
    */
-  String m_qbGueteIndex = null;
-  
+  private final EingangsPuffer<ResultData> m_resultInput = new EingangsPuffer<ResultData>( KAPAZITAET_EINGANG );
+
   /**
-   * Aktueller Güteindex QKfz
+   * Feld zur blockweisen Entnahme aus dem Eingangspuffer (nur während der Verarbeitung verwendet)
    */
-  String m_qkfzGueteIndex = null;
+  private final ResultData[] m_entnahme = new ResultData[KAPAZITAET_EINGANG];
 
   /**
-   * Pid des Messquerschnitts
+   * Dekodierer für "atg.verkehrsDatenKurzZeitMq"
    */
-  private String m_pidMessQuerschnitt = null;
-  
+  private final VerkehrsDatenDekodierer m_dekodierer;
+
   /**
-   * Vector mit empfangenen Daten
+   * Ergebnis der Dekodierung (nur während der Verarbeitung verwendet)
    */
-  private Vector<ResultData> m_resultInput = new Vector<ResultData>();
+  private final VerkehrsDatenDekodierer.Werte m_werte = new VerkehrsDatenDekodierer.Werte();
+
+  /**
+   * Verlauf der letzten Intervalle, null wenn nicht aktiviert
+   */
+  private volatile VerkehrsstaerkeVerlauf m_verlauf = null;
+
+  /**
+   * Kennung, ob gerade ein Thread den Eingangspuffer verarbeitet (es darf immer nur einer entnehmen)
+   */
+  private final AtomicBoolean m_verarbeitung = new AtomicBoolean();
+
+  /**
+   * Monitor, an dem Threads bei vollem Eingangspuffer auf das Ende der laufenden Verarbeitung warten
+   */
+  private final Object m_platz = new Object();
+
+  /**
+   * Anzahl der Threads, die am Monitor {@link #m_platz} warten (nur unter dessen Sperre verändert)
+   */
+  private volatile int m_wartende = 0;
 
   /**
    * Konstruktor der Klasse. Konstruktor meldet sich beim DaV zum Empfang der Daten an
@@ -112,6 +138,8 @@ public class Verkehrsstaerke implements ClientReceiverInterface
     m_connection = connection;
     
     m_pidMessQuerschnitt = pidMessQuerschnitt;
+
+    m_dekodierer = VerkehrsDatenDekodierer.fuerMessQuerschnitt( connection.getDataModel() );
     
     anmeldeLeseDaV ( pidMessQuerschnitt, m_atg, m_asp, ReceiverRole.receiver());
   }
@@ -127,9 +155,13 @@ public class Verkehrsstaerke implements ClientReceiverInterface
       {
         ResultData result = results[resultIndex];
         
-        synchronized (m_resultInput)
+        // Puffer voll: erst verarbeiten, dann erneut eintragen. Verarbeitet bereits ein anderer Thread, wird 
+        // gewartet, bis er den Puffer geleert und die Verarbeitung abgegeben hat
+        
+        while (!m_resultInput.offer( result ))
         {
-          m_resultInput.add(result);
+          if (!verarbeite())
+            warteAufVerarbeitung();
         }
       }
       
@@ -142,89 +174,136 @@ public class Verkehrsstaerke implements ClientReceiverInterface
   }
     
   /**
-   * Methode zum eigentlichen Verarbeiten der empfangenen Daten des DaV. 
+   * Methode zum eigentlichen Verarbeiten der empfangenen Daten des DaV. Der Eingangspuffer wird blockweise 
+   * geleert, für den aktuellen Stand wird nur der jeweils neueste Datensatz dekodiert, ältere Datensätze sind 
+   * durch ihn überholt. Ist der Verlauf aktiviert, werden zusätzlich alle Datensätze in den Verlauf eingetragen. 
+   * Ist bereits ein anderer Thread mit der Verarbeitung beschäftigt, kehrt die Methode sofort zurück.
    */
   protected void verarbeiten() 
   {
-    ResultData[] results = null;
-    
-    int anzahl;
+    verarbeite();
+  }
 
-    while (true)
+  /**
+   * Methode verarbeitet den Eingangspuffer wie {@link #verarbeiten()}. Nach Abgabe der Verarbeitung wird erneut 
+   * geprüft, ob inzwischen Datensätze eingetragen wurden, und diese gegebenenfalls ebenfalls verarbeitet.
+   * @return true, wenn dieser Thread den Puffer verarbeitet hat, false wenn ein anderer Thread verarbeitet
+   */
+  private boolean verarbeite ()
+  {
+    boolean verarbeitet = false;
+    
+    do
     {
-      anzahl = 0;
+      if (!m_verarbeitung.compareAndSet( false, true ))
+        return verarbeitet;
 
-      // Daten aus Eingangsqueue holen      
-      
-      synchronized (m_resultInput)
+      verarbeitet = true;
+
+      try
       {
-        if (m_resultInput.size() > 0)
+        ResultData neuester = null;
+
+        VerkehrsstaerkeVerlauf verlauf = m_verlauf;
+
+        int anzahl;
+
+        // Daten aus Eingangspuffer holen, für den aktuellen Stand wird nur der neueste Datensatz der 
+        // Attributgruppe benötigt, in den Verlauf (falls aktiviert) gehen alle Datensätze ein
+
+        while ((anzahl = m_resultInput.entnehme( m_entnahme )) > 0)
         {
-          anzahl = m_resultInput.size();
-          
-          results = new ResultData[anzahl];
-          
           for (int i = 0; i < anzahl; i++)
-            results[i] = m_resultInput.remove(0);
+          {
+            if (m_dekodierer.istZustaendig( m_entnahme[i] ))
+            {
+              neuester = m_entnahme[i];
+
+              if (verlauf != null)
+              {
+                m_dekodierer.dekodiere( neuester, m_werte );
+                verlauf.add( m_werte );
+              }
+            }
+          }
+
+          Arrays.fill( m_entnahme, 0, anzahl, null );
         }
+
+        if (neuester != null)
+          m_wert = dekodiere( neuester );
       }
-      
-      if (anzahl == 0)
-        break;
-          
-      // Daten aus Eingangsqueue bearbeiten      
-      
-      for (int i = 0; i < anzahl; i++)
+      finally
       {
-        ResultData dat = results[i];
+        m_verarbeitung.set( false );
+        
+        if (m_wartende > 0)
+        {
+          synchronized (m_platz)
+          {
+            m_platz.notifyAll();
+          }
+        }
+      }
+    }
+    while (!m_resultInput.isLeer());
     
-        //----------------------------------------------------------------------
-        // Auslesen der "atg.verkehrsDatenKurzZeitMq"
-        //----------------------------------------------------------------------
-  
-        if (dat.getDataDescription().getAttributeGroup().getPid().equals(m_atg))
+    return verarbeitet;
+  }
+
+  /**
+   * Methode wartet, bis der Thread, der gerade den Eingangspuffer verarbeitet, die Verarbeitung abgegeben hat
+   */
+  private void warteAufVerarbeitung ()
+  {
+    boolean unterbrochen = false;
+    
+    synchronized (m_platz)
+    {
+      m_wartende++;
+      
+      try
+      {
+        while (m_verarbeitung.get())
         {
-          // Absender feststellen
-          
-          String absenderPid = dat.getObject().getPid();
-  
-          if (dat.hasData())
+          try
           {
-            if (_debug)
-              System.out.println("Daten für " + absenderPid + " empfangen");
-            
-            Data d = dat.getData().getItem( "QB" );
-            
-            m_qb  = d.getUnscaledValue("Wert").longValue();
-  
-            Data d1 = d.getItem( "Güte" );
-            
-            m_qbGueteIndex = d1.getTextValue( "Index" ).getValueText();
-            
-            d = dat.getData().getItem( "QKfz" );
-            
-            m_qkfz  = d.getUnscaledValue("Wert").longValue();
-  
-            d1 = d.getItem( "Güte" );
-            
-            m_qkfzGueteIndex = d1.getTextValue( "Index" ).getValueText();
-            
-            if (_debug)
-              System.out.println("QB = " + m_qb + " GüteIndex = " + m_qbGueteIndex);
-            
-          } // if (dat.hasData())
-          else
+            m_platz.wait();
+          }
+          catch (InterruptedException e)
           {
-            if (_debug)
-              System.out.println("Keine Daten für " + absenderPid + " definiert");
-  
-            m_qb         = -1;
-            m_qbGueteIndex = "";
+            unterbrochen = true;
           }
         }
-        
-      } // for (int i = 0; i < arg0.length; i++)
+      }
+      finally
+      {
+        m_wartende--;
+      }
+    }
+    
+    if (unterbrochen)
+      Thread.currentThread().interrupt();
+  }
+
+  /**
+   * Methode dekodiert einen Datensatz der Attributgruppe "atg.verkehrsDatenKurzZeitMq"
+   * @param dat Datensatz
+   * @return Stand der Verkehrsstärke
+   */
+  private VerkehrsstaerkeWert dekodiere (ResultData dat)
+  {
+    boolean daten = m_dekodierer.dekodiere( dat, m_werte );
+
+    if (_debug)
+    {
+      if (daten)
+        System.out.println("Daten für " + dat.getObject().getPid() + " empfangen, QB = " + m_werte.getQB() + " GüteIndex = " + m_werte.getQBGuete());
+      else
+        System.out.println("Keine Daten für " + dat.getObject().getPid() + " definiert");
     }
+
+    return new VerkehrsstaerkeWert( m_werte.getZeit(), m_werte.getQB(), m_werte.getQKfz(), m_werte.getQBGuete(), m_werte.getQKfzGuete() );
   }
 
   /**
@@ -286,7 +365,7 @@ public class Verkehrsstaerke implements ClientReceiverInterface
    */
   public long getVerkehrsstaerke()
   {
-    return m_qb;
+    return m_wert.getQB();
   }
 
   /**
@@ -295,7 +374,7 @@ public class Verkehrsstaerke implements ClientReceiverInterface
    */
   public long getVerkehrsstaerkeQB()
   {
-    return m_qb;
+    return m_wert.getQB();
   }
 
   /**
@@ -304,16 +383,50 @@ public class Verkehrsstaerke implements ClientReceiverInterface
    */
   public long getVerkehrsstaerkeQKfz()
   {
-    return m_qkfz;
+    return m_wert.getQKfz();
+  }
+
+  /**
+   * Methode liefert den aktuellen Stand der Verkehrsstärke zurück. QB, QKfz und Güteindizes stammen aus 
+   * demselben Datensatz.
+   * @return aktueller Stand, {@link VerkehrsstaerkeWert#UNBEKANNT} solange noch kein Datensatz empfangen wurde
+   */
+  public VerkehrsstaerkeWert getWert()
+  {
+    return m_wert;
   }
   
+  /**
+   * Methode aktiviert den Verlauf der Verkehrsstärke über die letzten Intervalle. Ab dem Aufruf wird jeder
+   * empfangene Datensatz in den Verlauf eingetragen.
+   * @param anzahlIntervalle Anzahl der Intervalle im Verlauf
+   * @param glaettungsFaktor Faktor der exponentiellen Glättung (0 &lt; alpha &lt;= 1)
+   * @return Verlauf
+   */
+  public VerkehrsstaerkeVerlauf aktiviereVerlauf (int anzahlIntervalle, double glaettungsFaktor)
+  {
+    VerkehrsstaerkeVerlauf verlauf = new VerkehrsstaerkeVerlauf( anzahlIntervalle, glaettungsFaktor );
+
+    m_verlauf = verlauf;
+
+    return verlauf;
+  }
+
+  /**
+   * @return liefert den Verlauf der Verkehrsstärke zurück, null wenn er nicht aktiviert ist
+   */
+  public VerkehrsstaerkeVerlauf getVerlauf()
+  {
+    return m_verlauf;
+  }
+
   /**
    * Methode prüft ob der QB Wert plausibel ist
    * @return plausibel: true, sonst false
    */
   public boolean isQBPlausibel ()
   {
-    return m_qb >= 0;
+    return m_wert.getQB() >= 0;
   }
   
   /**
@@ -322,7 +435,7 @@ public class Verkehrsstaerke implements ClientReceiverInterface
    */
   public boolean isQkfzPlausibel ()
   {
-    return m_qkfz >= 0;
+    return m_wert.getQKfz() >= 0;
   }
   
   //----------------------------------------------------------------------------------------------
@@ -2,13 +2,11 @@ package de.bsvrz.sys.funclib.dambach.konfiguration.netz;
 
 import de.bsvrz.dav.daf.main.ClientDavInterface;
 import de.bsvrz.dav.daf.main.ClientReceiverInterface;
-import de.bsvrz.dav.daf.main.Data;
 import de.bsvrz.dav.daf.main.DataDescription;
 import de.bsvrz.dav.daf.main.ReceiveOptions;
 import de.bsvrz.dav.daf.main.ReceiverRole;
 import de.bsvrz.dav.daf.main.ResultData;
 import de.bsvrz.dav.daf.main.config.Aspect;
-import de.bsvrz.dav.daf.main.config.AttributeGroup;
 import de.bsvrz.dav.daf.main.config.SystemObject;
 import de.bsvrz.sys.funclib.debug.Debug;
 
@@ -41,6 +39,26 @@ public class VerkehrsstaerkeFs implements ClientReceiverInterface
    */
   private DataDescription _datenBeschreibung;
   
+  /**
+   * Dekodierer für "atg.verkehrsDatenKurzZeitFs"
+   */
+  private VerkehrsDatenDekodierer _dekodierer;
+
+  /**
+   * Ergebnis der Dekodierung
+   */
+  private VerkehrsDatenDekodierer.Werte _werte = new VerkehrsDatenDekodierer.Werte();
+
+  /**
+   * Der Aspekt der Datenbeschreibung
+   */
+  private Aspect _aspekt;
+
+  /**
+   * Der Verlauf der letzten Intervalle, null wenn nicht aktiviert
+   */
+  private volatile VerkehrsstaerkeVerlauf _verlauf = null;
+
   /**
    * Die Verkehrsstärke QB auf dem referenzierten Fahrstreifen in Fzg/h
    */
@@ -64,9 +82,9 @@ public class VerkehrsstaerkeFs implements ClientReceiverInterface
     _connection = connection;
     _fahrStreifen = connection.getDataModel().getObject(fsPid);
     
-    AttributeGroup atg = connection.getDataModel().getAttributeGroup("atg.verkehrsDatenKurzZeitFs");
-    Aspect asp = connection.getDataModel().getAspect("asp.analyse");
-    _datenBeschreibung = new DataDescription(atg, asp);
+    _dekodierer = VerkehrsDatenDekodierer.fuerFahrStreifen(connection.getDataModel());
+    _aspekt = connection.getDataModel().getAspect("asp.analyse");
+    _datenBeschreibung = new DataDescription(_dekodierer.getAttributeGroup(), _aspekt);
     
     connection.subscribeReceiver(this, _fahrStreifen, _datenBeschreibung, 
         ReceiveOptions.normal(), ReceiverRole.receiver());
@@ -123,6 +141,31 @@ public class VerkehrsstaerkeFs implements ClientReceiverInterface
     return (_qkfz >= 0);
   }
   
+  /**
+   * Aktiviert den Verlauf der Verkehrsstärke über die letzten Intervalle. Ab dem Aufruf wird jeder
+   * empfangene Datensatz in den Verlauf eingetragen.
+   * 
+   * @param anzahlIntervalle Anzahl der Intervalle im Verlauf
+   * @param glaettungsFaktor Faktor der exponentiellen Glättung (0 &lt; alpha &lt;= 1)
+   * @return der Verlauf
+   */
+  public VerkehrsstaerkeVerlauf aktiviereVerlauf(int anzahlIntervalle, double glaettungsFaktor)
+  {
+    VerkehrsstaerkeVerlauf verlauf = new VerkehrsstaerkeVerlauf(anzahlIntervalle, glaettungsFaktor);
+    _verlauf = verlauf;
+    return verlauf;
+  }
+  
+  /**
+   * Liefert den Verlauf der Verkehrsstärke
+   * 
+   * @return der Verlauf, null wenn er nicht aktiviert ist
+   */
+  public VerkehrsstaerkeVerlauf getVerlauf()
+  {
+    return _verlauf;
+  }
+  
   /**
    * Methode mit der eine Instanz dieser Klasse veranlasst wird, ihre Objekte am DaV abzumelden
    * und die angemeldeten Listener abzumelden.
@@ -138,29 +181,22 @@ public class VerkehrsstaerkeFs implements ClientReceiverInterface
     for (ResultData data : resultData)
     {
       Aspect asp = data.getDataDescription().getAspect();
-      AttributeGroup atg = data.getDataDescription().getAttributeGroup();
       
-      if (atg.getPid().equals(_datenBeschreibung.getAttributeGroup().getPid()) && 
-          asp.getPid().equals(_datenBeschreibung.getAspect().getPid()))
+      if (_dekodierer.istZustaendig(data) && (asp == _aspekt || asp.getId() == _aspekt.getId()))
       {
         long qbAlt = _qb;
-        long qkfzAlt = _qb;
-        if (data.hasData())
-        {
-          Data datenSatz = data.getData().getItem("qB");
-          
-          _qb = datenSatz.getUnscaledValue("Wert").longValue();
-          
-          datenSatz = data.getData().getItem("qKfz");
-          
-          _qkfz = datenSatz.getUnscaledValue("Wert").longValue();
-         
-        }
-        else
-        {
-          _qb = -1;
-          _qkfz = -1;
-        }
+        long qkfzAlt = _qkfz;
+        
+        boolean daten = _dekodierer.dekodiere(data, _werte);
+        
+        _qb = _werte.getQB();
+        /* ohne Daten ist hier im Gegensatz zum Messquerschnitt auch QKfz nicht bestimmbar */
+        _qkfz = daten ? _werte.getQKfz() : -1;
+        
+        VerkehrsstaerkeVerlauf verlauf = _verlauf;
+        if (verlauf != null)
+          verlauf.add(_werte.getZeit(), _qb, _qkfz, _werte.getQBGuete(), daten ? _werte.getQKfzGuete() : Double.NaN);
+        
         if (qbAlt != _qb)
         {
           _debug.config("Verkehrstärke qB ändert sich von " + qbAlt + " auf " +
@@ -168,7 +204,7 @@ public class VerkehrsstaerkeFs implements ClientReceiverInterface
         }
         if (qkfzAlt != _qkfz)
         {
-          _debug.config("Verkehrstärke qKfz ändert sich von " + qbAlt + " auf " +
+          _debug.config("Verkehrstärke qKfz ändert sich von " + qkfzAlt + " auf " +
               _qkfz + "Fzg/s für " + _fahrStreifen);
         }
       }
@@ -0,0 +1,435 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.konfiguration.netz;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import de.bsvrz.dav.daf.main.ClientDavInterface;
+import de.bsvrz.dav.daf.main.ClientReceiverInterface;
+import de.bsvrz.dav.daf.main.DataDescription;
+import de.bsvrz.dav.daf.main.ReceiveOptions;
+import de.bsvrz.dav.daf.main.ReceiverRole;
+import de.bsvrz.dav.daf.main.ResultData;
+import de.bsvrz.dav.daf.main.config.Aspect;
+import de.bsvrz.dav.daf.main.config.SystemObject;
+import de.bsvrz.sys.funclib.debug.Debug;
+
+/**
+ * Klasse bestimmt die aktuelle Verkehrsstärke vieler Messquerschnitte über eine einzige Anmeldung beim DaV.
+ * Alle Messquerschnitte werden mit einer Feldanmeldung auf "atg.verkehrsDatenKurzZeitMq"/"asp.analyse"
+ * angemeldet, jeder empfangene Datensatz wird über den Index des Messquerschnitts als unveränderliches
+ * {@link MessQuerschnittWerte} abgelegt. Die Werte eines Messquerschnitts können daher ohne Sperre aus beliebigen
+ * Threads gelesen werden und gehören immer zum selben Datensatz.<p>
+ *
+ * Der Index eines Messquerschnitts entspricht seiner Position in der beim Erzeugen übergebenen Liste. Die
+ * Lesemethoden entsprechen denen der Klasse {@link Verkehrsstaerke}, ohne dass je Messquerschnitt ein eigener
+ * Empfänger angemeldet werden muss.
+ * @author Dambach Werke GmbH
+ */
+public class VerkehrsstaerkeSammler implements ClientReceiverInterface
+{
+  /**
+   * Comment for <code>debug</code>
+   */
+  private static final Debug m_debug = Debug.getLogger();
+
+  /**
+   * Verbindung zum DaV
+   */
+  private ClientDavInterface m_connection;
+
+  /**
+   * Datenbeschreibung der Anmeldung ("atg.verkehrsDatenKurzZeitMq"/"asp.analyse")
+   */
+  private DataDescription m_datenBeschreibung;
+
+  /**
+   * Dekodierer für "atg.verkehrsDatenKurzZeitMq"
+   */
+  private VerkehrsDatenDekodierer m_dekodierer;
+
+  /**
+   * Angemeldete Messquerschnitte (Index = MQ-Index)
+   */
+  private SystemObject[] m_messQuerschnitte;
+
+  /**
+   * Index der Messquerschnitte über das Objekt
+   */
+  private Map<SystemObject, Integer> m_index;
+
+  /**
+   * Index der Messquerschnitte über die Pid
+   */
+  private Map<String, Integer> m_pidIndex;
+
+  /**
+   * Aktuelle Werte je Messquerschnitt (Index = MQ-Index)
+   */
+  private AtomicReferenceArray<MessQuerschnittWerte> m_werte;
+
+  /**
+   * Verlauf der letzten Intervalle je Messquerschnitt, null wenn nicht aktiviert
+   */
+  private volatile VerkehrsstaerkeVerlauf[] m_verlauf = null;
+
+  /**
+   * Angemeldete Listener
+   */
+  private final List<VerkehrsstaerkeListener> m_listener = new CopyOnWriteArrayList<VerkehrsstaerkeListener>();
+
+  /**
+   * Konstruktor der Klasse. Meldet alle Messquerschnitte der Konfiguration beim DaV an.
+   * @param connection Verbindung zum DaV
+   * @param konfiguration Konfiguration mit bestimmten Objekten
+   */
+  public VerkehrsstaerkeSammler (ClientDavInterface connection, Konfiguration konfiguration)
+  {
+    this (connection, konfiguration.getMessQuerschnitte());
+  }
+
+  /**
+   * Konstruktor der Klasse. Meldet die übergebenen Messquerschnitte mit einer Anmeldung beim DaV an.
+   * @param connection Verbindung zum DaV
+   * @param messQuerschnitte Objekte vom Typ "typ.messQuerschnitt"
+   */
+  public VerkehrsstaerkeSammler (ClientDavInterface connection, List<SystemObject> messQuerschnitte)
+  {
+    m_connection = connection;
+
+    int n = messQuerschnitte.size();
+
+    m_messQuerschnitte = messQuerschnitte.toArray( new SystemObject[n] );
+    m_index            = new HashMap<SystemObject, Integer>( n * 2 );
+    m_pidIndex         = new HashMap<String, Integer>( n * 2 );
+
+    for (int i = 0; i < n; i++)
+    {
+      m_index.put( m_messQuerschnitte[i], Integer.valueOf( i ) );
+      m_pidIndex.put( m_messQuerschnitte[i].getPid(), Integer.valueOf( i ) );
+    }
+
+    m_werte = new AtomicReferenceArray<MessQuerschnittWerte>( n );
+
+    for (int i = 0; i < n; i++)
+      m_werte.set( i, MessQuerschnittWerte.KEINE );
+
+    m_dekodierer = VerkehrsDatenDekodierer.fuerMessQuerschnitt( connection.getDataModel() );
+
+    Aspect asp = connection.getDataModel().getAspect( "asp.analyse" );
+
+    m_datenBeschreibung = new DataDescription( m_dekodierer.getAttributeGroup(), asp );
+
+    if (n > 0)
+      m_connection.subscribeReceiver( this, m_messQuerschnitte, m_datenBeschreibung, ReceiveOptions.normal(), ReceiverRole.receiver() );
+  }
+
+  /**
+   * Update Methode des ClientReceiverInterface
+   */
+  public void update (ResultData[] results)
+  {
+    VerkehrsDatenDekodierer.Werte werte = new VerkehrsDatenDekodierer.Werte();
+
+    int[] geaendert = new int[results.length];
+    int anzahl = 0;
+
+    for (int i = 0; i < results.length; i++)
+    {
+      ResultData dat = results[i];
+
+      if (!m_dekodierer.istZustaendig( dat ))
+        continue;
+
+      Integer index = m_index.get( dat.getObject() );
+
+      if (index == null)
+        continue;
+
+      try
+      {
+        verarbeite( index.intValue(), dat, werte );
+
+        geaendert[anzahl++] = index.intValue();
+      }
+      catch (Exception e)
+      {
+        m_debug.error("Fehler beim Verarbeiten der Verkehrsdaten von " + dat.getObject().getPid() + ": " + e);
+      }
+    }
+
+    if (anzahl == 0)
+      return;
+
+    if (anzahl < geaendert.length)
+      geaendert = Arrays.copyOf( geaendert, anzahl );
+
+    for (VerkehrsstaerkeListener listener : m_listener)
+    {
+      try
+      {
+        listener.verkehrsstaerkeAktualisiert( this, geaendert.clone() );
+      }
+      catch (Exception e)
+      {
+        m_debug.error("Fehler beim Benachrichtigen eines Listeners: " + e);
+      }
+    }
+  }
+
+  /**
+   * Methode legt die Werte eines empfangenen Datensatzes ab. Enthält der Datensatz keine Daten, bleiben QKfz und
+   * sein Güteindex des Messquerschnitts unverändert (siehe {@link VerkehrsDatenDekodierer#dekodiere}).
+   * @param i Index des Messquerschnitts
+   * @param dat empfangener Datensatz
+   * @param werte Puffer für das Ergebnis der Dekodierung
+   */
+  private void verarbeite (int i, ResultData dat, VerkehrsDatenDekodierer.Werte werte)
+  {
+    MessQuerschnittWerte neu;
+
+    if (m_dekodierer.dekodiere( dat, werte ))
+    {
+      neu = new MessQuerschnittWerte( werte );
+    }
+    else
+    {
+      MessQuerschnittWerte alt = m_werte.get( i );
+
+      neu = new MessQuerschnittWerte( werte.getZeit(), werte.getQB(), alt.getQKfz(), werte.getQBGuete(), alt.getQKfzGuete() );
+    }
+
+    m_werte.set( i, neu );
+
+    VerkehrsstaerkeVerlauf[] verlauf = m_verlauf;
+    if (verlauf != null)
+      verlauf[i].add( neu.getZeit(), neu.getQB(), neu.getQKfz(), neu.getQBGuete(), neu.getQKfzGuete() );
+  }
+
+  /**
+   * @return liefert die Anzahl der angemeldeten Messquerschnitte zurück
+   */
+  public int getAnzahl()
+  {
+    return m_messQuerschnitte.length;
+  }
+
+  /**
+   * @param i Index des Messquerschnitts
+   * @return liefert den Messquerschnitt zum Index zurück
+   */
+  public SystemObject getMessQuerschnitt (int i)
+  {
+    return m_messQuerschnitte[i];
+  }
+
+  /**
+   * @param pidMessQuerschnitt Pid des Messquerschnitts
+   * @return liefert den Index des Messquerschnitts zurück, -1 wenn der Messquerschnitt nicht angemeldet ist
+   */
+  public int getIndex (String pidMessQuerschnitt)
+  {
+    Integer i = m_pidIndex.get( pidMessQuerschnitt );
+
+    return (i != null) ? i.intValue() : -1;
+  }
+
+  /**
+   * @param messQuerschnitt Messquerschnitt
+   * @return liefert den Index des Messquerschnitts zurück, -1 wenn der Messquerschnitt nicht angemeldet ist
+   */
+  public int getIndex (SystemObject messQuerschnitt)
+  {
+    Integer i = m_index.get( messQuerschnitt );
+
+    return (i != null) ? i.intValue() : -1;
+  }
+
+  /**
+   * Methode liefert die Werte des letzten Datensatzes eines Messquerschnitts zurück. Alle Werte des Objekts gehören
+   * zum selben Datensatz.
+   * @param i Index des Messquerschnitts
+   * @return aktuelle Werte, {@link MessQuerschnittWerte#KEINE} wenn noch kein Datensatz empfangen wurde
+   */
+  public MessQuerschnittWerte getWerte (int i)
+  {
+    return m_werte.get( i );
+  }
+
+  /**
+   * Methode liefert die aktuelle Verkehrsstärke QB eines Messquerschnitts zurück.
+   * @param i Index des Messquerschnitts
+   * @return aktuelle Verkehrsstärke QB in Fzg/h, falls nicht bestimmbar wird -1 zurückgeliefert.
+   */
+  public long getVerkehrsstaerkeQB (int i)
+  {
+    return m_werte.get( i ).getQB();
+  }
+
+  /**
+   * Methode liefert die aktuelle Verkehrsstärke QB eines Messquerschnitts zurück.
+   * @param pidMessQuerschnitt Pid des Messquerschnitts
+   * @return aktuelle Verkehrsstärke QB in Fzg/h, falls nicht bestimmbar oder nicht angemeldet wird -1 zurückgeliefert.
+   */
+  public long getVerkehrsstaerkeQB (String pidMessQuerschnitt)
+  {
+    int i = getIndex( pidMessQuerschnitt );
+
+    return (i >= 0) ? getVerkehrsstaerkeQB( i ) : -1;
+  }
+
+  /**
+   * Methode liefert die aktuelle Verkehrsstärke QKfz eines Messquerschnitts zurück.
+   * @param i Index des Messquerschnitts
+   * @return aktuelle Verkehrsstärke QKfz in Fzg/h, falls nicht bestimmbar wird -1 zurückgeliefert.
+   */
+  public long getVerkehrsstaerkeQKfz (int i)
+  {
+    return m_werte.get( i ).getQKfz();
+  }
+
+  /**
+   * Methode liefert die aktuelle Verkehrsstärke QKfz eines Messquerschnitts zurück.
+   * @param pidMessQuerschnitt Pid des Messquerschnitts
+   * @return aktuelle Verkehrsstärke QKfz in Fzg/h, falls nicht bestimmbar oder nicht angemeldet wird -1 zurückgeliefert.
+   */
+  public long getVerkehrsstaerkeQKfz (String pidMessQuerschnitt)
+  {
+    int i = getIndex( pidMessQuerschnitt );
+
+    return (i >= 0) ? getVerkehrsstaerkeQKfz( i ) : -1;
+  }
+
+  /**
+   * @param i Index des Messquerschnitts
+   * @return liefert den aktuellen Güteindex QB zurück, NaN wenn nicht bestimmbar
+   */
+  public double getGueteQB (int i)
+  {
+    return m_werte.get( i ).getQBGuete();
+  }
+
+  /**
+   * @param i Index des Messquerschnitts
+   * @return liefert den aktuellen Güteindex QKfz zurück, NaN wenn nicht bestimmbar
+   */
+  public double getGueteQKfz (int i)
+  {
+    return m_werte.get( i ).getQKfzGuete();
+  }
+
+  /**
+   * @param i Index des Messquerschnitts
+   * @return liefert den Zeitstempel des letzten Datensatzes zurück, 0 wenn noch kein Datensatz empfangen wurde
+   */
+  public long getZeitstempel (int i)
+  {
+    return m_werte.get( i ).getZeit();
+  }
+
+  /**
+   * Methode aktiviert den Verlauf der Verkehrsstärke über die letzten Intervalle für alle Messquerschnitte.
+   * Ab dem Aufruf wird jeder empfangene Datensatz in den Verlauf seines Messquerschnitts eingetragen.
+   * @param anzahlIntervalle Anzahl der Intervalle im Verlauf
+   * @param glaettungsFaktor Faktor der exponentiellen Glättung (0 &lt; alpha &lt;= 1)
+   */
+  public void aktiviereVerlauf (int anzahlIntervalle, double glaettungsFaktor)
+  {
+    VerkehrsstaerkeVerlauf[] verlauf = new VerkehrsstaerkeVerlauf[m_messQuerschnitte.length];
+
+    for (int i = 0; i < verlauf.length; i++)
+      verlauf[i] = new VerkehrsstaerkeVerlauf( anzahlIntervalle, glaettungsFaktor );
+
+    m_verlauf = verlauf;
+  }
+
+  /**
+   * @param i Index des Messquerschnitts
+   * @return liefert den Verlauf der Verkehrsstärke des Messquerschnitts zurück, null wenn er nicht aktiviert ist
+   */
+  public VerkehrsstaerkeVerlauf getVerlauf (int i)
+  {
+    VerkehrsstaerkeVerlauf[] verlauf = m_verlauf;
+
+    return (verlauf != null) ? verlauf[i] : null;
+  }
+
+  /**
+   * Methode prüft ob der QB Wert eines Messquerschnitts plausibel ist
+   * @param i Index des Messquerschnitts
+   * @return plausibel: true, sonst false
+   */
+  public boolean isQBPlausibel (int i)
+  {
+    return getVerkehrsstaerkeQB( i ) >= 0;
+  }
+
+  /**
+   * Methode prüft ob der QKfz Wert eines Messquerschnitts plausibel ist
+   * @param i Index des Messquerschnitts
+   * @return plausibel: true, sonst false
+   */
+  public boolean isQkfzPlausibel (int i)
+  {
+    return getVerkehrsstaerkeQKfz( i ) >= 0;
+  }
+
+  /**
+   * Methode meldet einen Listener an, der nach jedem empfangenen Block benachrichtigt wird
+   * @param listener Listener
+   */
+  public void addListener (VerkehrsstaerkeListener listener)
+  {
+    m_listener.add( listener );
+  }
+
+  /**
+   * Methode meldet einen Listener ab
+   * @param listener Listener
+   */
+  public void removeListener (VerkehrsstaerkeListener listener)
+  {
+    m_listener.remove( listener );
+  }
+
+  //----------------------------------------------------------------------------------------------
+  // Klasse aufräumen
+  //----------------------------------------------------------------------------------------------
+
+  /**
+   * Methode mit der die Klasse veranlasst wird, ihre Messquerschnitte am DaV abzumelden.
+   */
+  public void dispose ()
+  {
+    if (m_messQuerschnitte.length > 0)
+      m_connection.unsubscribeReceiver( this, m_messQuerschnitte, m_datenBeschreibung );
+  }
+}
@@ -0,0 +1,294 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.konfiguration.netz;
+
+/**
+ * Verlauf der Verkehrsstärke eines Messquerschnitts oder Fahrstreifens über die letzten N Intervalle. Zeitstempel,
+ * QB, QKfz und Güte werden in primitiven Ringpuffern fester Länge gehalten (long, int, short). Mittelwert,
+ * exponentiell geglätteter Wert, Minimum, Maximum und Anzahl fehlender Werte über das Fenster werden bei jedem
+ * Eintrag inkrementell nachgeführt, Eintragen und Abfragen erzeugen keine Objekte.<p>
+ *
+ * Alle Methoden sind über das Objekt synchronisiert, so dass der Verlauf aus anderen Threads gelesen werden kann,
+ * während er im Thread des Empfängers fortgeschrieben wird.
+ * @author Dambach Werke GmbH
+ */
+public class VerkehrsstaerkeVerlauf
+{
+  /**
+   * Faktor, mit dem der Güteindex als Ganzzahl abgelegt wird (Auflösung 0,0001)
+   */
+  private static final double GUETE_FAKTOR = 10000.0;
+
+  /**
+   * Zeitstempel der Intervalle
+   */
+  private final long[] m_zeit;
+
+  /**
+   * Güteindex QB je Intervall (mit GUETE_FAKTOR skaliert), -1 wenn nicht ermittelbar
+   */
+  private final short[] m_qbGuete;
+
+  /**
+   * Güteindex QKfz je Intervall (mit GUETE_FAKTOR skaliert), -1 wenn nicht ermittelbar
+   */
+  private final short[] m_qkfzGuete;
+
+  /**
+   * Verlauf QB
+   */
+  private final VerlaufsReihe m_qb;
+
+  /**
+   * Verlauf QKfz
+   */
+  private final VerlaufsReihe m_qkfz;
+
+  /**
+   * Anzahl der bisher eingetragenen Intervalle
+   */
+  private long m_position = 0;
+
+  /**
+   * Konstruktor der Klasse
+   * @param anzahlIntervalle Anzahl der Intervalle im Verlauf
+   * @param glaettungsFaktor Faktor der exponentiellen Glättung (0 &lt; alpha &lt;= 1)
+   */
+  public VerkehrsstaerkeVerlauf (int anzahlIntervalle, double glaettungsFaktor)
+  {
+    if (anzahlIntervalle < 1)
+      throw new IllegalArgumentException("Anzahl Intervalle muss größer 0 sein: " + anzahlIntervalle);
+
+    if (!(glaettungsFaktor > 0.0 && glaettungsFaktor <= 1.0))
+      throw new IllegalArgumentException("Glättungsfaktor muss im Bereich (0, 1] liegen: " + glaettungsFaktor);
+
+    m_zeit      = new long[anzahlIntervalle];
+    m_qbGuete   = new short[anzahlIntervalle];
+    m_qkfzGuete = new short[anzahlIntervalle];
+    m_qb        = new VerlaufsReihe( anzahlIntervalle, glaettungsFaktor );
+    m_qkfz      = new VerlaufsReihe( anzahlIntervalle, glaettungsFaktor );
+  }
+
+  /**
+   * Methode trägt das Ergebnis einer Dekodierung als neues Intervall ein
+   * @param werte dekodierte Werte
+   */
+  public synchronized void add (VerkehrsDatenDekodierer.Werte werte)
+  {
+    add( werte.getZeit(), werte.getQB(), werte.getQKfz(), werte.getQBGuete(), werte.getQKfzGuete() );
+  }
+
+  /**
+   * Methode trägt ein neues Intervall ein, bei vollem Verlauf fällt das älteste heraus
+   * @param zeit Zeitstempel
+   * @param qb Verkehrsstärke QB, -1 wenn nicht bestimmbar
+   * @param qkfz Verkehrsstärke QKfz, -1 wenn nicht bestimmbar
+   * @param qbGuete Güteindex QB, NaN wenn nicht ermittelbar
+   * @param qkfzGuete Güteindex QKfz, NaN wenn nicht ermittelbar
+   */
+  public synchronized void add (long zeit, long qb, long qkfz, double qbGuete, double qkfzGuete)
+  {
+    int platz = (int) (m_position % m_zeit.length);
+
+    m_zeit[platz]      = zeit;
+    m_qbGuete[platz]   = guete( qbGuete );
+    m_qkfzGuete[platz] = guete( qkfzGuete );
+
+    m_qb.add( (int) Math.min( qb, Integer.MAX_VALUE ) );
+    m_qkfz.add( (int) Math.min( qkfz, Integer.MAX_VALUE ) );
+
+    m_position++;
+  }
+
+  /**
+   * @param guete Güteindex, NaN wenn nicht ermittelbar
+   * @return liefert den Güteindex skaliert als short zurück, -1 wenn nicht ermittelbar
+   */
+  private static short guete (double guete)
+  {
+    if (Double.isNaN( guete ) || guete < 0)
+      return -1;
+
+    return (short) Math.min( Math.round( guete * GUETE_FAKTOR ), Short.MAX_VALUE );
+  }
+
+  /**
+   * @param alter 0 für das neueste Intervall, 1 für das davor usw.
+   * @return liefert den Platz des Intervalls im Ring zurück
+   */
+  private int platz (int alter)
+  {
+    if (alter < 0 || alter >= getAnzahl())
+      throw new IndexOutOfBoundsException("Alter " + alter + ", Anzahl " + getAnzahl());
+
+    return (int) ((m_position - 1 - alter) % m_zeit.length);
+  }
+
+  /**
+   * @return liefert die Anzahl der Intervalle im Verlauf zurück
+   */
+  public synchronized int getAnzahl()
+  {
+    return (int) Math.min( m_position, m_zeit.length );
+  }
+
+  /**
+   * @return liefert die maximale Anzahl der Intervalle im Verlauf zurück
+   */
+  public int getKapazitaet()
+  {
+    return m_zeit.length;
+  }
+
+  /**
+   * @param alter 0 für das neueste Intervall, 1 für das davor usw.
+   * @return liefert den Zeitstempel des Intervalls zurück
+   */
+  public synchronized long getZeit (int alter)
+  {
+    return m_zeit[platz( alter )];
+  }
+
+  /**
+   * @param alter 0 für das neueste Intervall, 1 für das davor usw.
+   * @return liefert die Verkehrsstärke QB des Intervalls zurück, -1 wenn nicht bestimmbar
+   */
+  public synchronized int getQB (int alter)
+  {
+    return m_qb.getWert( alter );
+  }
+
+  /**
+   * @param alter 0 für das neueste Intervall, 1 für das davor usw.
+   * @return liefert die Verkehrsstärke QKfz des Intervalls zurück, -1 wenn nicht bestimmbar
+   */
+  public synchronized int getQKfz (int alter)
+  {
+    return m_qkfz.getWert( alter );
+  }
+
+  /**
+   * @param alter 0 für das neueste Intervall, 1 für das davor usw.
+   * @return liefert den Güteindex QB des Intervalls zurück, NaN wenn nicht ermittelbar
+   */
+  public synchronized double getQBGuete (int alter)
+  {
+    short guete = m_qbGuete[platz( alter )];
+
+    return (guete >= 0) ? guete / GUETE_FAKTOR : Double.NaN;
+  }
+
+  /**
+   * @param alter 0 für das neueste Intervall, 1 für das davor usw.
+   * @return liefert den Güteindex QKfz des Intervalls zurück, NaN wenn nicht ermittelbar
+   */
+  public synchronized double getQKfzGuete (int alter)
+  {
+    short guete = m_qkfzGuete[platz( alter )];
+
+    return (guete >= 0) ? guete / GUETE_FAKTOR : Double.NaN;
+  }
+
+  /**
+   * @return liefert den Mittelwert QB über den Verlauf zurück, NaN wenn kein gültiger Wert vorhanden ist
+   */
+  public synchronized double getMittelwertQB()
+  {
+    return m_qb.getMittelwert();
+  }
+
+  /**
+   * @return liefert den exponentiell geglätteten Wert QB zurück, NaN solange noch kein gültiger Wert vorliegt
+   */
+  public synchronized double getGeglaettetQB()
+  {
+    return m_qb.getGeglaettet();
+  }
+
+  /**
+   * @return liefert das Minimum QB über den Verlauf zurück, -1 wenn kein gültiger Wert vorhanden ist
+   */
+  public synchronized int getMinimumQB()
+  {
+    return m_qb.getMinimum();
+  }
+
+  /**
+   * @return liefert das Maximum QB über den Verlauf zurück, -1 wenn kein gültiger Wert vorhanden ist
+   */
+  public synchronized int getMaximumQB()
+  {
+    return m_qb.getMaximum();
+  }
+
+  /**
+   * @return liefert die Anzahl der Intervalle ohne gültigen Wert QB zurück
+   */
+  public synchronized int getAnzahlFehlendQB()
+  {
+    return m_qb.getAnzahlFehlend();
+  }
+
+  /**
+   * @return liefert den Mittelwert QKfz über den Verlauf zurück, NaN wenn kein gültiger Wert vorhanden ist
+   */
+  public synchronized double getMittelwertQKfz()
+  {
+    return m_qkfz.getMittelwert();
+  }
+
+  /**
+   * @return liefert den exponentiell geglätteten Wert QKfz zurück, NaN solange noch kein gültiger Wert vorliegt
+   */
+  public synchronized double getGeglaettetQKfz()
+  {
+    return m_qkfz.getGeglaettet();
+  }
+
+  /**
+   * @return liefert das Minimum QKfz über den Verlauf zurück, -1 wenn kein gültiger Wert vorhanden ist
+   */
+  public synchronized int getMinimumQKfz()
+  {
+    return m_qkfz.getMinimum();
+  }
+
+  /**
+   * @return liefert das Maximum QKfz über den Verlauf zurück, -1 wenn kein gültiger Wert vorhanden ist
+   */
+  public synchronized int getMaximumQKfz()
+  {
+    return m_qkfz.getMaximum();
+  }
+
+  /**
+   * @return liefert die Anzahl der Intervalle ohne gültigen Wert QKfz zurück
+   */
+  public synchronized int getAnzahlFehlendQKfz()
+  {
+    return m_qkfz.getAnzahlFehlend();
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.konfiguration.netz;
+
+/**
+ * Unveränderlicher Stand der Verkehrsstärke eines Messquerschnitts. QB, QKfz und die zugehörigen Güteindizes
+ * stammen immer aus demselben Datensatz, so dass ein Leser aus einem anderen Thread stets zusammengehörige Werte
+ * erhält.
+ * @author Dambach Werke GmbH
+ */
+public final class VerkehrsstaerkeWert
+{
+  /**
+   * Stand, solange noch kein Datensatz empfangen wurde
+   */
+  public static final VerkehrsstaerkeWert UNBEKANNT = new VerkehrsstaerkeWert( 0, -1, -1, Double.NaN, Double.NaN );
+
+  /**
+   * Zeitstempel des Datensatzes
+   */
+  private final long m_zeit;
+
+  /**
+   * Verkehrsstärke QB in Fzg/h, -1 wenn nicht bestimmbar
+   */
+  private final long m_qb;
+
+  /**
+   * Verkehrsstärke QKfz in Fzg/h, -1 wenn nicht bestimmbar
+   */
+  private final long m_qkfz;
+
+  /**
+   * Güteindex QB (skaliert), NaN wenn nicht bestimmbar
+   */
+  private final double m_qbGuete;
+
+  /**
+   * Güteindex QKfz (skaliert), NaN wenn nicht bestimmbar
+   */
+  private final double m_qkfzGuete;
+
+  /**
+   * Konstruktor der Klasse
+   * @param zeit Zeitstempel des Datensatzes
+   * @param qb Verkehrsstärke QB in Fzg/h, -1 wenn nicht bestimmbar
+   * @param qkfz Verkehrsstärke QKfz in Fzg/h, -1 wenn nicht bestimmbar
+   * @param qbGuete Güteindex QB (skaliert), NaN wenn nicht bestimmbar
+   * @param qkfzGuete Güteindex QKfz (skaliert), NaN wenn nicht bestimmbar
+   */
+  public VerkehrsstaerkeWert (long zeit, long qb, long qkfz, double qbGuete, double qkfzGuete)
+  {
+    m_zeit           = zeit;
+    m_qb             = qb;
+    m_qkfz           = qkfz;
+    m_qbGuete        = qbGuete;
+    m_qkfzGuete      = qkfzGuete;
+  }
+
+  /**
+   * @return liefert den Zeitstempel des Datensatzes zurück
+   */
+  public long getZeit()
+  {
+    return m_zeit;
+  }
+
+  /**
+   * @return liefert die Verkehrsstärke QB in Fzg/h zurück, -1 wenn nicht bestimmbar
+   */
+  public long getQB()
+  {
+    return m_qb;
+  }
+
+  /**
+   * @return liefert die Verkehrsstärke QKfz in Fzg/h zurück, -1 wenn nicht bestimmbar
+   */
+  public long getQKfz()
+  {
+    return m_qkfz;
+  }
+
+  /**
+   * @return liefert den Güteindex QB (skaliert) zurück, NaN wenn nicht bestimmbar
+   */
+  public double getQBGuete()
+  {
+    return m_qbGuete;
+  }
+
+  /**
+   * @return liefert den Güteindex QKfz (skaliert) zurück, NaN wenn nicht bestimmbar
+   */
+  public double getQKfzGuete()
+  {
+    return m_qkfzGuete;
+  }
+}
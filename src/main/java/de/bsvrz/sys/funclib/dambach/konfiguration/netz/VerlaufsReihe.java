@@ -0,0 +1,224 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.konfiguration.netz;
+
+/**
+ * Zeitreihe ganzzahliger Werte fester Länge als Ringpuffer mit inkrementell geführten Kennwerten über das
+ * Fenster der letzten Werte: Mittelwert, exponentiell geglätteter Wert, Minimum, Maximum und Anzahl fehlender
+ * Werte. Negative Werte gelten als fehlend. Minimum und Maximum werden über monotone Warteschlangen von Positionen
+ * bestimmt, so dass jeder Eintrag ohne Durchlauf über das Fenster und ohne Objekterzeugung auskommt.<p>
+ *
+ * Die Klasse ist nicht threadsicher.
+ * @author Dambach Werke GmbH
+ */
+final class VerlaufsReihe
+{
+  /**
+   * Werte des Rings, Platz = Position modulo Kapazität
+   */
+  private final int[] m_werte;
+
+  /**
+   * Faktor der exponentiellen Glättung (0 &lt; alpha &lt;= 1)
+   */
+  private final double m_alpha;
+
+  /**
+   * Anzahl der bisher eingetragenen Werte (Position des nächsten Werts)
+   */
+  private long m_position = 0;
+
+  /**
+   * Summe der gültigen Werte im Fenster
+   */
+  private long m_summe = 0;
+
+  /**
+   * Anzahl der gültigen Werte im Fenster
+   */
+  private int m_gueltig = 0;
+
+  /**
+   * Exponentiell geglätteter Wert, NaN solange noch kein gültiger Wert eingetragen wurde
+   */
+  private double m_geglaettet = Double.NaN;
+
+  /**
+   * Positionen der Minimum-Kandidaten (Werte aufsteigend)
+   */
+  private final long[] m_minimum;
+
+  /**
+   * Anfang und Ende der Minimum-Warteschlange
+   */
+  private long m_minimumAnfang = 0, m_minimumEnde = 0;
+
+  /**
+   * Positionen der Maximum-Kandidaten (Werte absteigend)
+   */
+  private final long[] m_maximum;
+
+  /**
+   * Anfang und Ende der Maximum-Warteschlange
+   */
+  private long m_maximumAnfang = 0, m_maximumEnde = 0;
+
+  /**
+   * Konstruktor der Klasse
+   * @param kapazitaet Anzahl der Werte im Fenster
+   * @param alpha Faktor der exponentiellen Glättung (0 &lt; alpha &lt;= 1)
+   */
+  VerlaufsReihe (int kapazitaet, double alpha)
+  {
+    m_werte   = new int[kapazitaet];
+    m_minimum = new long[kapazitaet];
+    m_maximum = new long[kapazitaet];
+    m_alpha   = alpha;
+  }
+
+  /**
+   * Methode trägt einen neuen Wert ein, der älteste Wert fällt bei vollem Fenster heraus
+   * @param wert neuer Wert, negativ wenn fehlend
+   */
+  void add (int wert)
+  {
+    int n = m_werte.length;
+    int platz = (int) (m_position % n);
+
+    // ältesten Wert aus dem Fenster nehmen
+
+    if (m_position >= n)
+    {
+      int alt = m_werte[platz];
+
+      if (alt >= 0)
+      {
+        m_summe -= alt;
+        m_gueltig--;
+      }
+
+      long grenze = m_position - n;
+
+      if (m_minimumAnfang < m_minimumEnde && m_minimum[(int) (m_minimumAnfang % n)] <= grenze)
+        m_minimumAnfang++;
+
+      if (m_maximumAnfang < m_maximumEnde && m_maximum[(int) (m_maximumAnfang % n)] <= grenze)
+        m_maximumAnfang++;
+    }
+
+    m_werte[platz] = wert;
+
+    if (wert >= 0)
+    {
+      m_summe += wert;
+      m_gueltig++;
+
+      m_geglaettet = Double.isNaN( m_geglaettet ) ? wert : m_geglaettet + m_alpha * (wert - m_geglaettet);
+
+      while (m_minimumAnfang < m_minimumEnde && wertAn( m_minimum[(int) ((m_minimumEnde - 1) % n)] ) >= wert)
+        m_minimumEnde--;
+
+      m_minimum[(int) (m_minimumEnde++ % n)] = m_position;
+
+      while (m_maximumAnfang < m_maximumEnde && wertAn( m_maximum[(int) ((m_maximumEnde - 1) % n)] ) <= wert)
+        m_maximumEnde--;
+
+      m_maximum[(int) (m_maximumEnde++ % n)] = m_position;
+    }
+
+    m_position++;
+  }
+
+  /**
+   * @param position Position innerhalb des Fensters
+   * @return liefert den Wert an der Position zurück
+   */
+  private int wertAn (long position)
+  {
+    return m_werte[(int) (position % m_werte.length)];
+  }
+
+  /**
+   * @return liefert die Anzahl der Werte im Fenster zurück
+   */
+  int getAnzahl()
+  {
+    return (int) Math.min( m_position, m_werte.length );
+  }
+
+  /**
+   * @param alter 0 für den neuesten Wert, 1 für den davor usw.
+   * @return liefert den Wert zurück, negativ wenn fehlend
+   * @throws IndexOutOfBoundsException wenn alter nicht kleiner als {@link #getAnzahl()} ist
+   */
+  int getWert (int alter)
+  {
+    if (alter < 0 || alter >= getAnzahl())
+      throw new IndexOutOfBoundsException("Alter " + alter + ", Anzahl " + getAnzahl());
+
+    return wertAn( m_position - 1 - alter );
+  }
+
+  /**
+   * @return liefert den Mittelwert der gültigen Werte im Fenster zurück, NaN wenn kein gültiger Wert vorhanden ist
+   */
+  double getMittelwert()
+  {
+    return (m_gueltig > 0) ? (double) m_summe / m_gueltig : Double.NaN;
+  }
+
+  /**
+   * @return liefert den exponentiell geglätteten Wert zurück, NaN solange noch kein gültiger Wert eingetragen wurde
+   */
+  double getGeglaettet()
+  {
+    return m_geglaettet;
+  }
+
+  /**
+   * @return liefert das Minimum der gültigen Werte im Fenster zurück, -1 wenn kein gültiger Wert vorhanden ist
+   */
+  int getMinimum()
+  {
+    return (m_minimumAnfang < m_minimumEnde) ? wertAn( m_minimum[(int) (m_minimumAnfang % m_werte.length)] ) : -1;
+  }
+
+  /**
+   * @return liefert das Maximum der gültigen Werte im Fenster zurück, -1 wenn kein gültiger Wert vorhanden ist
+   */
+  int getMaximum()
+  {
+    return (m_maximumAnfang < m_maximumEnde) ? wertAn( m_maximum[(int) (m_maximumAnfang % m_werte.length)] ) : -1;
+  }
+
+  /**
+   * @return liefert die Anzahl der fehlenden Werte im Fenster zurück
+   */
+  int getAnzahlFehlend()
+  {
+    return getAnzahl() - m_gueltig;
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.konfiguration.netz.graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import de.bsvrz.sys.funclib.dambach.konfiguration.netz.StrassenSegment;
+
+/**
+ * Ergebnis einer Suche nach den stromauf- oder stromabwärts erreichbaren Straßensegmenten in {@link WegSuche}.
+ * Die Straßensegmente sind aufsteigend nach ihrer Entfernung sortiert. Die Entfernung ist die Summe der Längen
+ * der Straßensegmente, die zwischen dem Startsegment und dem erreichten Segment liegen (ohne die Längen dieser
+ * beiden Segmente).
+ * @author Dambach Werke GmbH
+ */
+public final class Erreichbarkeit
+{
+  /**
+   * Graph, auf den sich die Segmentindizes beziehen
+   */
+  private final SegmentGraph m_graph;
+
+  /**
+   * Segmentindizes der erreichten Segmente
+   */
+  private final int[] m_segmente;
+
+  /**
+   * Entfernung der erreichten Segmente (in Meter)
+   */
+  private final long[] m_entfernung;
+
+  /**
+   * Konstruktor der Klasse
+   * @param graph Graph, auf den sich die Segmentindizes beziehen
+   * @param segmente Segmentindizes der erreichten Segmente
+   * @param entfernung Entfernung der erreichten Segmente
+   */
+  Erreichbarkeit (SegmentGraph graph, int[] segmente, long[] entfernung)
+  {
+    m_graph      = graph;
+    m_segmente   = segmente;
+    m_entfernung = entfernung;
+  }
+
+  /**
+   * @return liefert die Anzahl der erreichten Straßensegmente zurück (ohne das Startsegment)
+   */
+  public int getAnzahl()
+  {
+    return m_segmente.length;
+  }
+
+  /**
+   * @param i Position im Ergebnis
+   * @return liefert den Segmentindex an der Position zurück
+   */
+  public int getSegmentIndex (int i)
+  {
+    return m_segmente[i];
+  }
+
+  /**
+   * @param i Position im Ergebnis
+   * @return liefert die Entfernung des Segments an der Position zurück (in Meter)
+   */
+  public long getEntfernung (int i)
+  {
+    return m_entfernung[i];
+  }
+
+  /**
+   * @return liefert die erreichten Straßensegmente aufsteigend nach Entfernung zurück
+   */
+  public List<StrassenSegment> getStrassenSegmente()
+  {
+    List<StrassenSegment> segmente = new ArrayList<StrassenSegment>( m_segmente.length );
+
+    for (int i : m_segmente)
+      segmente.add( m_graph.getSegment( i ) );
+
+    return Collections.unmodifiableList( segmente );
+  }
+}
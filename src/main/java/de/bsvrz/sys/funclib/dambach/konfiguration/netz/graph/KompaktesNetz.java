@@ -0,0 +1,1027 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.konfiguration.netz.graph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import de.bsvrz.sys.funclib.dambach.konfiguration.netz.AeusseresStrassenSegment;
+import de.bsvrz.sys.funclib.dambach.konfiguration.netz.InneresStrassenSegment;
+import de.bsvrz.sys.funclib.dambach.konfiguration.netz.Konfiguration;
+import de.bsvrz.sys.funclib.dambach.konfiguration.netz.MessQuerschnitt;
+import de.bsvrz.sys.funclib.dambach.konfiguration.netz.MessQuerschnittTyp;
+import de.bsvrz.sys.funclib.dambach.konfiguration.netz.StrassenKnoten;
+import de.bsvrz.sys.funclib.dambach.konfiguration.netz.StrassenSegment;
+import de.bsvrz.sys.funclib.dambach.konfiguration.netz.StrassenTeilSegment;
+
+/**
+ * Kompakte Darstellung des Straßennetzes über dichte int-Ids. Straßensegmente, Straßenknoten, Straßenteilsegmente
+ * und Messquerschnitte erhalten jeweils eine Id 0..n-1, alle Beziehungen werden im CSR-Format (Compressed Sparse
+ * Row) in int-Feldern abgelegt, Längen und Offsets in long-Feldern. Die Ids der Straßensegmente entsprechen den
+ * Indizes des {@link SegmentGraph}, aus dem die Nachfolger- und Vorgängerbeziehungen übernommen werden.<p>
+ *
+ * Die Darstellung hält außer den Pids keine Referenzen auf die Objekte der {@link Konfiguration}. Die Objekte werden
+ * erst bei Bedarf über die Pid-Verzeichnisse aus der Konfiguration geholt und danach je Id zwischengespeichert.<p>
+ *
+ * Das Netz ist nach der Erzeugung unveränderlich und kann von mehreren Threads gleichzeitig gelesen werden.
+ * Die Auflösung der Objekte ist ebenfalls threadsicher: die aufgelösten Objekte werden in {@link AtomicReferenceArray}s
+ * abgelegt und damit sicher an andere Threads veröffentlicht, im ungünstigsten Fall wird dasselbe Objekt mehrfach 
+ * geholt.
+ * @author Dambach Werke GmbH
+ */
+public final class KompaktesNetz
+{
+  /**
+   * Konfiguration, aus der die Objekte bei Bedarf geholt werden
+   */
+  private final Konfiguration m_konfiguration;
+
+  // Straßensegmente
+
+  /**
+   * Pids der Straßensegmente (Index = Segment-Id)
+   */
+  private final String[] m_segmentPid;
+
+  /**
+   * Länge der Straßensegmente
+   */
+  private final long[] m_segmentLaenge;
+
+  /**
+   * Kennung, ob es sich um ein inneres Straßensegment handelt
+   */
+  private final boolean[] m_segmentInneres;
+
+  /**
+   * Id des Straßenknotens am Anfang des Segments (bei inneren Segmenten der Knoten, in dem sie liegen), -1 wenn unbekannt
+   */
+  private final int[] m_segmentVonKnoten;
+
+  /**
+   * Id des Straßenknotens am Ende des Segments (bei inneren Segmenten der Knoten, in dem sie liegen), -1 wenn unbekannt
+   */
+  private final int[] m_segmentNachKnoten;
+
+  /**
+   * Beginn der Nachfolger eines Segments in m_nachfolger (n + 1 Einträge)
+   */
+  private final int[] m_nachfolgerAnfang;
+
+  /**
+   * Nachfolger aller Segmente
+   */
+  private final int[] m_nachfolger;
+
+  /**
+   * Kennung je Eintrag in m_nachfolger, ob die Kante auf derselben Straße verläuft
+   */
+  private final boolean[] m_nachfolgerAufStrasse;
+
+  /**
+   * Beginn der Vorgänger eines Segments in m_vorgaenger (n + 1 Einträge)
+   */
+  private final int[] m_vorgaengerAnfang;
+
+  /**
+   * Vorgänger aller Segmente
+   */
+  private final int[] m_vorgaenger;
+
+  /**
+   * Kennung je Eintrag in m_vorgaenger, ob die Kante auf derselben Straße verläuft
+   */
+  private final boolean[] m_vorgaengerAufStrasse;
+
+  // Straßenknoten
+
+  /**
+   * Pids der Straßenknoten (Index = Knoten-Id)
+   */
+  private final String[] m_knotenPid;
+
+  /**
+   * Typ der Straßenknoten
+   */
+  private final String[] m_knotenTyp;
+
+  /**
+   * Beginn der im Knoten beginnenden Segmente in m_knotenAbgehend (Anzahl Knoten + 1 Einträge)
+   */
+  private final int[] m_knotenAbgehendAnfang;
+
+  /**
+   * Im Knoten beginnende Segmente aller Knoten
+   */
+  private final int[] m_knotenAbgehend;
+
+  /**
+   * Beginn der im Knoten endenden Segmente in m_knotenHinfuehrend (Anzahl Knoten + 1 Einträge)
+   */
+  private final int[] m_knotenHinfuehrendAnfang;
+
+  /**
+   * Im Knoten endende Segmente aller Knoten
+   */
+  private final int[] m_knotenHinfuehrend;
+
+  // Straßenteilsegmente
+
+  /**
+   * Beginn der Straßenteilsegmente eines Segments in m_segmentTeilSegment (Anzahl Segmente + 1 Einträge)
+   */
+  private final int[] m_segmentTeilSegmentAnfang;
+
+  /**
+   * Ids der Straßenteilsegmente aller Segmente in Fahrtrichtung
+   */
+  private final int[] m_segmentTeilSegment;
+
+  /**
+   * Offset der Straßenteilsegmente im jeweiligen Segment (parallel zu m_segmentTeilSegment)
+   */
+  private final long[] m_segmentTeilSegmentOffset;
+
+  /**
+   * Pids der Straßenteilsegmente (Index = Teilsegment-Id)
+   */
+  private final String[] m_teilSegmentPid;
+
+  /**
+   * Länge der Straßenteilsegmente
+   */
+  private final long[] m_teilSegmentLaenge;
+
+  /**
+   * Anzahl Fahrstreifen der Straßenteilsegmente
+   */
+  private final int[] m_teilSegmentFahrstreifen;
+
+  /**
+   * Steigung/Gefälle der Straßenteilsegmente, NaN wenn nicht konfiguriert
+   */
+  private final double[] m_teilSegmentSteigungGefaelle;
+
+  /**
+   * Position des ersten Vorkommens eines Straßenteilsegments in m_segmentTeilSegment
+   */
+  private final int[] m_teilSegmentPosition;
+
+  /**
+   * Segment des ersten Vorkommens eines Straßenteilsegments
+   */
+  private final int[] m_teilSegmentSegment;
+
+  // Messquerschnitte
+
+  /**
+   * Beginn der Messquerschnitte eines Segments (Anzahl Segmente + 1 Einträge). Die Messquerschnitte eines
+   * Segments haben aufeinanderfolgende Ids und sind nach Offset sortiert.
+   */
+  private final int[] m_segmentMqAnfang;
+
+  /**
+   * Pids der Messquerschnitte (Index = MQ-Id)
+   */
+  private final String[] m_mqPid;
+
+  /**
+   * Segment der Messquerschnitte
+   */
+  private final int[] m_mqSegment;
+
+  /**
+   * Offset der Messquerschnitte im Segment
+   */
+  private final long[] m_mqOffset;
+
+  /**
+   * Typ der Messquerschnitte als Ordinalzahl von {@link MessQuerschnittTyp}
+   */
+  private final byte[] m_mqTyp;
+
+  // Verzeichnisse Pid -> Id
+
+  /**
+   * Id der Straßensegmente über die Pid
+   */
+  private final Map<String, Integer> m_segmentId;
+
+  /**
+   * Id der Straßenknoten über die Pid
+   */
+  private final Map<String, Integer> m_knotenId;
+
+  /**
+   * Id der Straßenteilsegmente über die Pid
+   */
+  private final Map<String, Integer> m_teilSegmentId;
+
+  /**
+   * Id der Messquerschnitte über die Pid
+   */
+  private final Map<String, Integer> m_mqId;
+
+  // Bei Bedarf aufgelöste Objekte
+
+  /**
+   * Bereits aufgelöste Straßensegmente
+   */
+  private final AtomicReferenceArray<StrassenSegment> m_segmentObjekt;
+
+  /**
+   * Bereits aufgelöste Straßenknoten
+   */
+  private final AtomicReferenceArray<StrassenKnoten> m_knotenObjekt;
+
+  /**
+   * Bereits aufgelöste Straßenteilsegmente
+   */
+  private final AtomicReferenceArray<StrassenTeilSegment> m_teilSegmentObjekt;
+
+  /**
+   * Bereits aufgelöste Messquerschnitte
+   */
+  private final AtomicReferenceArray<MessQuerschnitt> m_mqObjekt;
+
+  /**
+   * Methode erzeugt das kompakte Netz aller äußeren und inneren Straßensegmente der Konfiguration
+   * @param konfiguration Konfiguration mit bestimmten Objekten
+   * @return kompaktes Netz
+   */
+  public static KompaktesNetz erzeuge (Konfiguration konfiguration)
+  {
+    return new KompaktesNetz( konfiguration, SegmentGraph.erzeuge( konfiguration ) );
+  }
+
+  /**
+   * Konstruktor der Klasse
+   * @param konfiguration Konfiguration, aus der die Objekte bei Bedarf geholt werden
+   * @param graph Graph der Straßensegmente, dessen Indizes als Segment-Ids übernommen werden
+   */
+  public KompaktesNetz (Konfiguration konfiguration, SegmentGraph graph)
+  {
+    m_konfiguration = konfiguration;
+
+    int n = graph.getAnzahlSegmente();
+
+    m_nachfolgerAnfang     = graph.getNachfolgerAnfangFeld();
+    m_nachfolger           = graph.getNachfolgerFeld();
+    m_nachfolgerAufStrasse = graph.getNachfolgerAufStrasseFeld();
+    m_vorgaengerAnfang     = graph.getVorgaengerAnfangFeld();
+    m_vorgaenger           = graph.getVorgaengerFeld();
+    m_vorgaengerAufStrasse = graph.getVorgaengerAufStrasseFeld();
+
+    m_segmentPid        = new String[n];
+    m_segmentLaenge     = new long[n];
+    m_segmentInneres    = new boolean[n];
+    m_segmentVonKnoten  = new int[n];
+    m_segmentNachKnoten = new int[n];
+    m_segmentId         = new HashMap<String, Integer>( n * 2 );
+
+    m_segmentTeilSegmentAnfang = new int[n + 1];
+    m_segmentMqAnfang          = new int[n + 1];
+
+    List<String> knotenPid = new ArrayList<String>();
+    List<String> knotenTyp = new ArrayList<String>();
+    m_knotenId = new HashMap<String, Integer>();
+
+    List<StrassenTeilSegment> teilSegmente = new ArrayList<StrassenTeilSegment>();
+    m_teilSegmentId = new HashMap<String, Integer>();
+
+    int anzahlVorkommen = 0;
+    int anzahlMq = 0;
+
+    // Segmente, Knoten und Anzahlen
+
+    for (int i = 0; i < n; i++)
+    {
+      StrassenSegment segment = graph.getSegment( i );
+
+      m_segmentPid[i]     = segment.getPid();
+      m_segmentLaenge[i]  = segment.getLaenge();
+      m_segmentInneres[i] = segment.isInneresStrassenSegment();
+
+      if (m_segmentPid[i] != null)
+        m_segmentId.put( m_segmentPid[i], Integer.valueOf( i ) );
+
+      StrassenKnoten von  = null;
+      StrassenKnoten nach = null;
+
+      if (segment instanceof AeusseresStrassenSegment)
+      {
+        von  = ((AeusseresStrassenSegment) segment).getVonKnoten();
+        nach = ((AeusseresStrassenSegment) segment).getNachKnoten();
+      }
+      else if (segment instanceof InneresStrassenSegment)
+      {
+        InneresStrassenSegment inneres = (InneresStrassenSegment) segment;
+
+        if (inneres.getVonStrassenSegmemt() != null)
+          von = inneres.getVonStrassenSegmemt().getNachKnoten();
+        else if (inneres.getNachStrassenSegment() != null)
+          von = inneres.getNachStrassenSegment().getVonKnoten();
+
+        nach = von;
+      }
+
+      m_segmentVonKnoten[i]  = knotenId( von, knotenPid, knotenTyp );
+      m_segmentNachKnoten[i] = knotenId( nach, knotenPid, knotenTyp );
+
+      anzahlVorkommen += segment.getStrassenTeilSegmenteListe().size();
+      m_segmentTeilSegmentAnfang[i + 1] = anzahlVorkommen;
+
+      anzahlMq += segment.getMessQuerschnitteListe().size();
+      m_segmentMqAnfang[i + 1] = anzahlMq;
+    }
+
+    // Straßenteilsegmente (ein Straßenteilsegment kann in mehreren Segmenten vorkommen)
+
+    m_segmentTeilSegment       = new int[anzahlVorkommen];
+    m_segmentTeilSegmentOffset = new long[anzahlVorkommen];
+
+    List<Integer> position = new ArrayList<Integer>();
+    List<Integer> positionSegment = new ArrayList<Integer>();
+
+    for (int i = 0; i < n; i++)
+    {
+      StrassenSegment segment = graph.getSegment( i );
+
+      List<StrassenTeilSegment> liste = segment.getStrassenTeilSegmenteListe();
+      long[] offsets = segment.getOffsetsTeilSegmente();
+
+      int p = m_segmentTeilSegmentAnfang[i];
+
+      for (int j = 0; j < liste.size(); j++, p++)
+      {
+        StrassenTeilSegment sts = liste.get( j );
+
+        Integer id = m_teilSegmentId.get( sts.getPid() );
+
+        if (id == null)
+        {
+          id = Integer.valueOf( teilSegmente.size() );
+          teilSegmente.add( sts );
+          position.add( Integer.valueOf( p ) );
+          positionSegment.add( Integer.valueOf( i ) );
+
+          if (sts.getPid() != null)
+            m_teilSegmentId.put( sts.getPid(), id );
+        }
+
+        m_segmentTeilSegment[p]       = id.intValue();
+        m_segmentTeilSegmentOffset[p] = offsets[j];
+      }
+    }
+
+    int anzahlSts = teilSegmente.size();
+
+    m_teilSegmentPid              = new String[anzahlSts];
+    m_teilSegmentLaenge           = new long[anzahlSts];
+    m_teilSegmentFahrstreifen     = new int[anzahlSts];
+    m_teilSegmentSteigungGefaelle = new double[anzahlSts];
+    m_teilSegmentPosition         = new int[anzahlSts];
+    m_teilSegmentSegment          = new int[anzahlSts];
+
+    for (int t = 0; t < anzahlSts; t++)
+    {
+      StrassenTeilSegment sts = teilSegmente.get( t );
+
+      m_teilSegmentPid[t]              = sts.getPid();
+      m_teilSegmentLaenge[t]           = sts.getLaenge();
+      m_teilSegmentFahrstreifen[t]     = sts.getAnzahlFahrstreifen();
+      m_teilSegmentSteigungGefaelle[t] = sts.getSteigungGefaelleWert();
+      m_teilSegmentPosition[t]         = position.get( t ).intValue();
+      m_teilSegmentSegment[t]          = positionSegment.get( t ).intValue();
+    }
+
+    // Messquerschnitte (Ids je Segment aufeinanderfolgend, nach Offset sortiert)
+
+    m_mqPid     = new String[anzahlMq];
+    m_mqSegment = new int[anzahlMq];
+    m_mqOffset  = new long[anzahlMq];
+    m_mqTyp     = new byte[anzahlMq];
+    m_mqId      = new HashMap<String, Integer>( anzahlMq * 2 );
+
+    for (int i = 0; i < n; i++)
+    {
+      int q = m_segmentMqAnfang[i];
+
+      for (MessQuerschnitt mq : graph.getSegment( i ).getMessQuerschnitteListe())
+      {
+        m_mqPid[q]     = mq.getPid();
+        m_mqSegment[q] = i;
+        m_mqOffset[q]  = mq.getOffset();
+        m_mqTyp[q]     = (byte) mq.getMessQuerschnittTyp().ordinal();
+
+        if (m_mqPid[q] != null)
+          m_mqId.put( m_mqPid[q], Integer.valueOf( q ) );
+
+        q++;
+      }
+    }
+
+    // Knoten -> Segmente
+
+    int anzahlKnoten = knotenPid.size();
+
+    m_knotenPid = knotenPid.toArray( new String[anzahlKnoten] );
+    m_knotenTyp = knotenTyp.toArray( new String[anzahlKnoten] );
+
+    m_knotenAbgehendAnfang = new int[anzahlKnoten + 1];
+    m_knotenAbgehend       = baueKnotenCsr( anzahlKnoten, m_segmentVonKnoten, m_knotenAbgehendAnfang );
+
+    m_knotenHinfuehrendAnfang = new int[anzahlKnoten + 1];
+    m_knotenHinfuehrend       = baueKnotenCsr( anzahlKnoten, m_segmentNachKnoten, m_knotenHinfuehrendAnfang );
+
+    m_segmentObjekt     = new AtomicReferenceArray<StrassenSegment>( n );
+    m_knotenObjekt      = new AtomicReferenceArray<StrassenKnoten>( anzahlKnoten );
+    m_teilSegmentObjekt = new AtomicReferenceArray<StrassenTeilSegment>( anzahlSts );
+    m_mqObjekt          = new AtomicReferenceArray<MessQuerschnitt>( anzahlMq );
+  }
+
+  /**
+   * Methode bestimmt die Id eines Straßenknotens, unbekannte Knoten erhalten die nächste freie Id
+   * @param knoten Straßenknoten oder null
+   * @param knotenPid bisher vergebene Pids
+   * @param knotenTyp Typen der bisher vergebenen Knoten
+   * @return Id des Knotens, -1 wenn knoten null ist
+   */
+  private int knotenId (StrassenKnoten knoten, List<String> knotenPid, List<String> knotenTyp)
+  {
+    if (knoten == null)
+      return -1;
+
+    Integer id = m_knotenId.get( knoten.getPid() );
+
+    if (id == null)
+    {
+      id = Integer.valueOf( knotenPid.size() );
+      knotenPid.add( knoten.getPid() );
+      knotenTyp.add( knoten.getTyp() );
+      m_knotenId.put( knoten.getPid(), id );
+    }
+
+    return id.intValue();
+  }
+
+  /**
+   * Methode baut die Zuordnung Knoten -&gt; Segmente im CSR-Format auf
+   * @param anzahlKnoten Anzahl Knoten
+   * @param segmentKnoten Knoten-Id je Segment (-1 wird übergangen)
+   * @param anfang Ergebnis: Beginn der Segmente je Knoten (Anzahl Knoten + 1 Einträge)
+   * @return Segment-Ids aller Knoten
+   */
+  private static int[] baueKnotenCsr (int anzahlKnoten, int[] segmentKnoten, int[] anfang)
+  {
+    int m = 0;
+    for (int i = 0; i < segmentKnoten.length; i++)
+      if (segmentKnoten[i] >= 0)
+        m++;
+
+    int[] knoten  = new int[m];
+    int[] segment = new int[m];
+
+    int k = 0;
+    for (int i = 0; i < segmentKnoten.length; i++)
+    {
+      if (segmentKnoten[i] >= 0)
+      {
+        knoten[k]  = segmentKnoten[i];
+        segment[k] = i;
+        k++;
+      }
+    }
+
+    int[] nachbarn = new int[m];
+
+    SegmentGraph.baueCsr( anzahlKnoten, knoten, segment, null, anfang, nachbarn, null );
+
+    return nachbarn;
+  }
+
+  /**
+   * @param id Id oder null
+   * @return liefert die Id zurück, -1 bei null
+   */
+  private static int id (Integer id)
+  {
+    return (id != null) ? id.intValue() : -1;
+  }
+
+  // ---------------------------------------------------------------- Straßensegmente
+
+  /**
+   * @return liefert die Anzahl der Straßensegmente zurück
+   */
+  public int getAnzahlSegmente()
+  {
+    return m_segmentPid.length;
+  }
+
+  /**
+   * @param pid Pid des Straßensegments
+   * @return liefert die Id des Straßensegments zurück, -1 wenn das Segment nicht enthalten ist
+   */
+  public int getSegmentId (String pid)
+  {
+    return id( m_segmentId.get( pid ) );
+  }
+
+  /**
+   * @param segment Segment-Id
+   * @return liefert die Pid des Straßensegments zurück
+   */
+  public String getSegmentPid (int segment)
+  {
+    return m_segmentPid[segment];
+  }
+
+  /**
+   * @param segment Segment-Id
+   * @return liefert die Länge des Straßensegments zurück
+   */
+  public long getSegmentLaenge (int segment)
+  {
+    return m_segmentLaenge[segment];
+  }
+
+  /**
+   * @param segment Segment-Id
+   * @return liefert true zurück, wenn es sich um ein inneres Straßensegment handelt
+   */
+  public boolean isInneresSegment (int segment)
+  {
+    return m_segmentInneres[segment];
+  }
+
+  /**
+   * @param segment Segment-Id
+   * @return liefert die Id des Straßenknotens am Anfang des Segments zurück (bei inneren Segmenten der Knoten,
+   * in dem sie liegen), -1 wenn unbekannt
+   */
+  public int getSegmentVonKnoten (int segment)
+  {
+    return m_segmentVonKnoten[segment];
+  }
+
+  /**
+   * @param segment Segment-Id
+   * @return liefert die Id des Straßenknotens am Ende des Segments zurück (bei inneren Segmenten der Knoten,
+   * in dem sie liegen), -1 wenn unbekannt
+   */
+  public int getSegmentNachKnoten (int segment)
+  {
+    return m_segmentNachKnoten[segment];
+  }
+
+  /**
+   * @param segment Segment-Id
+   * @return liefert die erste Position der Nachfolger des Segments zurück (für {@link #getNachfolger(int)})
+   */
+  public int getNachfolgerAnfang (int segment)
+  {
+    return m_nachfolgerAnfang[segment];
+  }
+
+  /**
+   * @param segment Segment-Id
+   * @return liefert die Position hinter dem letzten Nachfolger des Segments zurück
+   */
+  public int getNachfolgerEnde (int segment)
+  {
+    return m_nachfolgerAnfang[segment + 1];
+  }
+
+  /**
+   * @param k Position zwischen {@link #getNachfolgerAnfang(int)} und {@link #getNachfolgerEnde(int)}
+   * @return liefert die Segment-Id des Nachfolgers zurück
+   */
+  public int getNachfolger (int k)
+  {
+    return m_nachfolger[k];
+  }
+
+  /**
+   * @param k Position zwischen {@link #getNachfolgerAnfang(int)} und {@link #getNachfolgerEnde(int)}
+   * @return liefert true zurück, wenn der Nachfolger auf derselben Straße liegt
+   */
+  public boolean isNachfolgerAufStrasse (int k)
+  {
+    return m_nachfolgerAufStrasse[k];
+  }
+
+  /**
+   * @param segment Segment-Id
+   * @return liefert die erste Position der Vorgänger des Segments zurück (für {@link #getVorgaenger(int)})
+   */
+  public int getVorgaengerAnfang (int segment)
+  {
+    return m_vorgaengerAnfang[segment];
+  }
+
+  /**
+   * @param segment Segment-Id
+   * @return liefert die Position hinter dem letzten Vorgänger des Segments zurück
+   */
+  public int getVorgaengerEnde (int segment)
+  {
+    return m_vorgaengerAnfang[segment + 1];
+  }
+
+  /**
+   * @param k Position zwischen {@link #getVorgaengerAnfang(int)} und {@link #getVorgaengerEnde(int)}
+   * @return liefert die Segment-Id des Vorgängers zurück
+   */
+  public int getVorgaenger (int k)
+  {
+    return m_vorgaenger[k];
+  }
+
+  /**
+   * @param k Position zwischen {@link #getVorgaengerAnfang(int)} und {@link #getVorgaengerEnde(int)}
+   * @return liefert true zurück, wenn der Vorgänger auf derselben Straße liegt
+   */
+  public boolean isVorgaengerAufStrasse (int k)
+  {
+    return m_vorgaengerAufStrasse[k];
+  }
+
+  /**
+   * Methode liefert das Straßensegment zu einer Id. Das Objekt wird beim ersten Zugriff aus der Konfiguration geholt.
+   * @param segment Segment-Id
+   * @return Straßensegment, null wenn es in der Konfiguration nicht (mehr) existiert
+   */
+  public StrassenSegment getSegment (int segment)
+  {
+    StrassenSegment objekt = m_segmentObjekt.get( segment );
+
+    if (objekt == null)
+    {
+      objekt = m_konfiguration.getStrassenSegment( m_segmentPid[segment] );
+      m_segmentObjekt.set( segment, objekt );
+    }
+
+    return objekt;
+  }
+
+  // ---------------------------------------------------------------- Straßenknoten
+
+  /**
+   * @return liefert die Anzahl der Straßenknoten zurück
+   */
+  public int getAnzahlKnoten()
+  {
+    return m_knotenPid.length;
+  }
+
+  /**
+   * @param pid Pid des Straßenknotens
+   * @return liefert die Id des Straßenknotens zurück, -1 wenn der Knoten nicht enthalten ist
+   */
+  public int getKnotenId (String pid)
+  {
+    return id( m_knotenId.get( pid ) );
+  }
+
+  /**
+   * @param knoten Knoten-Id
+   * @return liefert die Pid des Straßenknotens zurück
+   */
+  public String getKnotenPid (int knoten)
+  {
+    return m_knotenPid[knoten];
+  }
+
+  /**
+   * @param knoten Knoten-Id
+   * @return liefert den Typ des Straßenknotens zurück
+   */
+  public String getKnotenTyp (int knoten)
+  {
+    return m_knotenTyp[knoten];
+  }
+
+  /**
+   * @param knoten Knoten-Id
+   * @return liefert die erste Position der im Knoten beginnenden Segmente zurück (für {@link #getAbgehendesSegment(int)})
+   */
+  public int getAbgehendeSegmenteAnfang (int knoten)
+  {
+    return m_knotenAbgehendAnfang[knoten];
+  }
+
+  /**
+   * @param knoten Knoten-Id
+   * @return liefert die Position hinter dem letzten im Knoten beginnenden Segment zurück
+   */
+  public int getAbgehendeSegmenteEnde (int knoten)
+  {
+    return m_knotenAbgehendAnfang[knoten + 1];
+  }
+
+  /**
+   * @param k Position zwischen {@link #getAbgehendeSegmenteAnfang(int)} und {@link #getAbgehendeSegmenteEnde(int)}
+   * @return liefert die Segment-Id zurück
+   */
+  public int getAbgehendesSegment (int k)
+  {
+    return m_knotenAbgehend[k];
+  }
+
+  /**
+   * @param knoten Knoten-Id
+   * @return liefert die erste Position der im Knoten endenden Segmente zurück (für {@link #getHinfuehrendesSegment(int)})
+   */
+  public int getHinfuehrendeSegmenteAnfang (int knoten)
+  {
+    return m_knotenHinfuehrendAnfang[knoten];
+  }
+
+  /**
+   * @param knoten Knoten-Id
+   * @return liefert die Position hinter dem letzten im Knoten endenden Segment zurück
+   */
+  public int getHinfuehrendeSegmenteEnde (int knoten)
+  {
+    return m_knotenHinfuehrendAnfang[knoten + 1];
+  }
+
+  /**
+   * @param k Position zwischen {@link #getHinfuehrendeSegmenteAnfang(int)} und {@link #getHinfuehrendeSegmenteEnde(int)}
+   * @return liefert die Segment-Id zurück
+   */
+  public int getHinfuehrendesSegment (int k)
+  {
+    return m_knotenHinfuehrend[k];
+  }
+
+  /**
+   * Methode liefert den Straßenknoten zu einer Id. Das Objekt wird beim ersten Zugriff aus der Konfiguration geholt.
+   * @param knoten Knoten-Id
+   * @return Straßenknoten, null im Fehlerfall
+   */
+  public StrassenKnoten getKnoten (int knoten)
+  {
+    StrassenKnoten objekt = m_knotenObjekt.get( knoten );
+
+    if (objekt == null)
+    {
+      objekt = m_konfiguration.getStrassenKnoten( m_knotenPid[knoten] );
+      m_knotenObjekt.set( knoten, objekt );
+    }
+
+    return objekt;
+  }
+
+  // ---------------------------------------------------------------- Straßenteilsegmente
+
+  /**
+   * @return liefert die Anzahl der (verschiedenen) Straßenteilsegmente zurück
+   */
+  public int getAnzahlTeilSegmente()
+  {
+    return m_teilSegmentPid.length;
+  }
+
+  /**
+   * @param pid Pid des Straßenteilsegments
+   * @return liefert die Id des Straßenteilsegments zurück, -1 wenn das Teilsegment nicht enthalten ist
+   */
+  public int getTeilSegmentId (String pid)
+  {
+    return id( m_teilSegmentId.get( pid ) );
+  }
+
+  /**
+   * @param teilSegment Teilsegment-Id
+   * @return liefert die Pid des Straßenteilsegments zurück
+   */
+  public String getTeilSegmentPid (int teilSegment)
+  {
+    return m_teilSegmentPid[teilSegment];
+  }
+
+  /**
+   * @param teilSegment Teilsegment-Id
+   * @return liefert die Länge des Straßenteilsegments zurück
+   */
+  public long getTeilSegmentLaenge (int teilSegment)
+  {
+    return m_teilSegmentLaenge[teilSegment];
+  }
+
+  /**
+   * @param teilSegment Teilsegment-Id
+   * @return liefert die Anzahl Fahrstreifen des Straßenteilsegments zurück
+   */
+  public int getTeilSegmentAnzahlFahrstreifen (int teilSegment)
+  {
+    return m_teilSegmentFahrstreifen[teilSegment];
+  }
+
+  /**
+   * @param teilSegment Teilsegment-Id
+   * @return liefert Steigung/Gefälle des Straßenteilsegments zurück, NaN wenn nicht konfiguriert
+   */
+  public double getTeilSegmentSteigungGefaelle (int teilSegment)
+  {
+    return m_teilSegmentSteigungGefaelle[teilSegment];
+  }
+
+  /**
+   * @param segment Segment-Id
+   * @return liefert die erste Position der Straßenteilsegmente des Segments zurück (für {@link #getTeilSegment(int)})
+   */
+  public int getTeilSegmenteAnfang (int segment)
+  {
+    return m_segmentTeilSegmentAnfang[segment];
+  }
+
+  /**
+   * @param segment Segment-Id
+   * @return liefert die Position hinter dem letzten Straßenteilsegment des Segments zurück
+   */
+  public int getTeilSegmenteEnde (int segment)
+  {
+    return m_segmentTeilSegmentAnfang[segment + 1];
+  }
+
+  /**
+   * @param k Position zwischen {@link #getTeilSegmenteAnfang(int)} und {@link #getTeilSegmenteEnde(int)}
+   * @return liefert die Teilsegment-Id zurück
+   */
+  public int getTeilSegment (int k)
+  {
+    return m_segmentTeilSegment[k];
+  }
+
+  /**
+   * @param k Position zwischen {@link #getTeilSegmenteAnfang(int)} und {@link #getTeilSegmenteEnde(int)}
+   * @return liefert den Offset des Straßenteilsegments im Segment zurück
+   */
+  public long getTeilSegmentOffset (int k)
+  {
+    return m_segmentTeilSegmentOffset[k];
+  }
+
+  /**
+   * Methode liefert das Straßenteilsegment zu einer Id. Das Objekt wird beim ersten Zugriff über das Segment
+   * des ersten Vorkommens geholt.
+   * @param teilSegment Teilsegment-Id
+   * @return Straßenteilsegment, null wenn das Segment in der Konfiguration nicht (mehr) existiert
+   */
+  public StrassenTeilSegment getTeilSegmentObjekt (int teilSegment)
+  {
+    StrassenTeilSegment objekt = m_teilSegmentObjekt.get( teilSegment );
+
+    if (objekt == null)
+    {
+      int segment = m_teilSegmentSegment[teilSegment];
+
+      StrassenSegment s = getSegment( segment );
+      if (s == null)
+        return null;
+
+      List<StrassenTeilSegment> liste = s.getStrassenTeilSegmenteListe();
+      int j = m_teilSegmentPosition[teilSegment] - m_segmentTeilSegmentAnfang[segment];
+
+      if (j < liste.size())
+      {
+        objekt = liste.get( j );
+        m_teilSegmentObjekt.set( teilSegment, objekt );
+      }
+    }
+
+    return objekt;
+  }
+
+  // ---------------------------------------------------------------- Messquerschnitte
+
+  /**
+   * @return liefert die Anzahl der Messquerschnitte zurück
+   */
+  public int getAnzahlMessQuerschnitte()
+  {
+    return m_mqPid.length;
+  }
+
+  /**
+   * @param pid Pid des Messquerschnitts
+   * @return liefert die Id des Messquerschnitts zurück, -1 wenn der Messquerschnitt nicht enthalten ist
+   */
+  public int getMessQuerschnittId (String pid)
+  {
+    return id( m_mqId.get( pid ) );
+  }
+
+  /**
+   * @param mq MQ-Id
+   * @return liefert die Pid des Messquerschnitts zurück
+   */
+  public String getMessQuerschnittPid (int mq)
+  {
+    return m_mqPid[mq];
+  }
+
+  /**
+   * @param mq MQ-Id
+   * @return liefert die Segment-Id des Messquerschnitts zurück
+   */
+  public int getMessQuerschnittSegment (int mq)
+  {
+    return m_mqSegment[mq];
+  }
+
+  /**
+   * @param mq MQ-Id
+   * @return liefert den Offset des Messquerschnitts im Segment zurück
+   */
+  public long getMessQuerschnittOffset (int mq)
+  {
+    return m_mqOffset[mq];
+  }
+
+  /**
+   * @param mq MQ-Id
+   * @return liefert den Typ des Messquerschnitts zurück
+   */
+  public MessQuerschnittTyp getMessQuerschnittTyp (int mq)
+  {
+    return MessQuerschnittTyp.values()[m_mqTyp[mq]];
+  }
+
+  /**
+   * @param segment Segment-Id
+   * @return liefert die kleinste MQ-Id der Messquerschnitte des Segments zurück
+   */
+  public int getMessQuerschnitteAnfang (int segment)
+  {
+    return m_segmentMqAnfang[segment];
+  }
+
+  /**
+   * @param segment Segment-Id
+   * @return liefert die MQ-Id hinter dem letzten Messquerschnitt des Segments zurück
+   */
+  public int getMessQuerschnitteEnde (int segment)
+  {
+    return m_segmentMqAnfang[segment + 1];
+  }
+
+  /**
+   * Methode liefert den Messquerschnitt zu einer Id. Das Objekt wird beim ersten Zugriff über sein Segment geholt.
+   * @param mq MQ-Id
+   * @return Messquerschnitt, null wenn das Segment in der Konfiguration nicht (mehr) existiert
+   */
+  public MessQuerschnitt getMessQuerschnitt (int mq)
+  {
+    MessQuerschnitt objekt = m_mqObjekt.get( mq );
+
+    if (objekt == null)
+    {
+      int segment = m_mqSegment[mq];
+
+      StrassenSegment s = getSegment( segment );
+      if (s == null)
+        return null;
+
+      List<MessQuerschnitt> liste = s.getMessQuerschnitteListe();
+      int j = mq - m_segmentMqAnfang[segment];
+
+      if (j < liste.size())
+      {
+        objekt = liste.get( j );
+        m_mqObjekt.set( mq, objekt );
+      }
+    }
+
+    return objekt;
+  }
+}
@@ -0,0 +1,426 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.konfiguration.netz.graph;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.bsvrz.sys.funclib.dambach.konfiguration.netz.Konfiguration;
+import de.bsvrz.sys.funclib.dambach.konfiguration.netz.StrassenSegment;
+
+/**
+ * Kompakte, über int-Indizes adressierte Darstellung des Graphen der Straßensegmente. Jedes Straßensegment erhält
+ * einen Index 0..n-1, die Nachfolger- und Vorgängerbeziehungen werden im CSR-Format (Compressed Sparse Row) in
+ * int-Feldern abgelegt, die Längen der Straßensegmente in einem long-Feld.<p>
+ *
+ * Eine Kante u -&gt; v existiert, wenn v ein Nachfolger (auf der Straße oder sonstiger) von u ist oder u ein Vorgänger
+ * von v. Für jede Kante wird vermerkt, ob sie auf derselben Straße verläuft.<p>
+ *
+ * Der Graph ist nach der Erzeugung unveränderlich und kann von mehreren Threads gleichzeitig gelesen werden.
+ * @author Dambach Werke GmbH
+ */
+public final class SegmentGraph
+{
+  /**
+   * Straßensegmente (Index = Segmentindex)
+   */
+  private final StrassenSegment[] m_segmente;
+
+  /**
+   * Länge der Straßensegmente
+   */
+  private final long[] m_laenge;
+
+  /**
+   * Beginn der Nachfolger eines Segments in m_nachfolger (n + 1 Einträge)
+   */
+  private final int[] m_nachfolgerAnfang;
+
+  /**
+   * Nachfolger aller Segmente
+   */
+  private final int[] m_nachfolger;
+
+  /**
+   * Kennung je Eintrag in m_nachfolger, ob die Kante auf derselben Straße verläuft
+   */
+  private final boolean[] m_nachfolgerAufStrasse;
+
+  /**
+   * Beginn der Vorgänger eines Segments in m_vorgaenger (n + 1 Einträge)
+   */
+  private final int[] m_vorgaengerAnfang;
+
+  /**
+   * Vorgänger aller Segmente
+   */
+  private final int[] m_vorgaenger;
+
+  /**
+   * Kennung je Eintrag in m_vorgaenger, ob die Kante auf derselben Straße verläuft
+   */
+  private final boolean[] m_vorgaengerAufStrasse;
+
+  /**
+   * Index der Straßensegmente
+   */
+  private final Map<StrassenSegment, Integer> m_index;
+
+  /**
+   * Index der Straßensegmente über die Pid
+   */
+  private final Map<String, Integer> m_pidIndex;
+
+  /**
+   * Methode erzeugt den Graphen aller äußeren und inneren Straßensegmente der Konfiguration
+   * @param konfiguration Konfiguration mit bestimmten Objekten
+   * @return Graph der Straßensegmente
+   */
+  public static SegmentGraph erzeuge (Konfiguration konfiguration)
+  {
+    List<StrassenSegment> segmente = new ArrayList<StrassenSegment>();
+
+    segmente.addAll( konfiguration.getAeussereStrassenSegmenteListe() );
+    segmente.addAll( konfiguration.getInnereStrassenSegmenteListe() );
+
+    return new SegmentGraph( segmente );
+  }
+
+  /**
+   * Konstruktor der Klasse. Beziehungen zu Straßensegmenten, die nicht in der übergebenen Menge enthalten sind,
+   * werden nicht übernommen.
+   * @param segmente Straßensegmente des Graphen
+   */
+  public SegmentGraph (Collection<? extends StrassenSegment> segmente)
+  {
+    int n = segmente.size();
+
+    m_segmente = segmente.toArray( new StrassenSegment[n] );
+    m_laenge   = new long[n];
+    m_index    = new IdentityHashMap<StrassenSegment, Integer>( n );
+    m_pidIndex = new HashMap<String, Integer>( n * 2 );
+
+    for (int i = 0; i < n; i++)
+    {
+      m_laenge[i] = m_segmente[i].getLaenge();
+
+      m_index.put( m_segmente[i], Integer.valueOf( i ) );
+
+      String pid = m_segmente[i].getPid();
+      if (pid != null)
+        m_pidIndex.put( pid, Integer.valueOf( i ) );
+    }
+
+    // Kanten sammeln (u -> v), jede Kante nur einmal, "auf Straße" wenn sie in einer der Beziehungen so geführt ist
+
+    Map<Long, Boolean> kanten = new LinkedHashMap<Long, Boolean>();
+
+    for (int u = 0; u < n; u++)
+    {
+      StrassenSegment s = m_segmente[u];
+
+      for (StrassenSegment nachfolger : s.getNachfolgerAufStrasseListe())
+        trageKanteEin( kanten, u, nachfolger, true, false );
+
+      for (StrassenSegment nachfolger : s.getNachfolgerListe())
+        trageKanteEin( kanten, u, nachfolger, false, false );
+
+      for (StrassenSegment vorgaenger : s.getVorgaengerAufStrasseListe())
+        trageKanteEin( kanten, u, vorgaenger, true, true );
+
+      for (StrassenSegment vorgaenger : s.getVorgaengerListe())
+        trageKanteEin( kanten, u, vorgaenger, false, true );
+    }
+
+    int m = kanten.size();
+
+    int[] von = new int[m];
+    int[] nach = new int[m];
+    boolean[] aufStrasse = new boolean[m];
+
+    int k = 0;
+    for (Map.Entry<Long, Boolean> kante : kanten.entrySet())
+    {
+      long schluessel = kante.getKey().longValue();
+
+      von[k]        = (int) (schluessel >>> 32);
+      nach[k]       = (int) schluessel;
+      aufStrasse[k] = kante.getValue().booleanValue();
+      k++;
+    }
+
+    m_nachfolgerAnfang     = new int[n + 1];
+    m_nachfolger           = new int[m];
+    m_nachfolgerAufStrasse = new boolean[m];
+
+    baueCsr( n, von, nach, aufStrasse, m_nachfolgerAnfang, m_nachfolger, m_nachfolgerAufStrasse );
+
+    m_vorgaengerAnfang     = new int[n + 1];
+    m_vorgaenger           = new int[m];
+    m_vorgaengerAufStrasse = new boolean[m];
+
+    baueCsr( n, nach, von, aufStrasse, m_vorgaengerAnfang, m_vorgaenger, m_vorgaengerAufStrasse );
+  }
+
+  /**
+   * Methode trägt eine Kante in die Kantenmenge ein
+   * @param kanten Kantenmenge (Key = von &lt;&lt; 32 | nach, Value = auf derselben Straße)
+   * @param u Index des Segments, dessen Beziehung ausgewertet wird
+   * @param nachbar Straßensegment der Beziehung
+   * @param aufStrasse true: Beziehung auf derselben Straße
+   * @param rueckwaerts true: nachbar ist Vorgänger von u, false: nachbar ist Nachfolger von u
+   */
+  private void trageKanteEin (Map<Long, Boolean> kanten, int u, StrassenSegment nachbar, boolean aufStrasse, boolean rueckwaerts)
+  {
+    Integer v = m_index.get( nachbar );
+
+    if (v == null)
+      return;
+
+    int von  = rueckwaerts ? v.intValue() : u;
+    int nach = rueckwaerts ? u : v.intValue();
+
+    Long schluessel = Long.valueOf( ((long) von << 32) | (nach & 0xFFFFFFFFL) );
+
+    Boolean bisher = kanten.get( schluessel );
+
+    if (bisher == null || (!bisher.booleanValue() && aufStrasse))
+      kanten.put( schluessel, Boolean.valueOf( aufStrasse ) );
+  }
+
+  /**
+   * Methode baut aus einer Kantenliste die CSR-Darstellung auf. Die Reihenfolge der Kanten eines Knotens bleibt erhalten.
+   * @param n Anzahl Knoten
+   * @param quelle Quellknoten der Kanten
+   * @param ziel Zielknoten der Kanten
+   * @param markierung Markierung der Kanten
+   * @param anfang Ergebnis: Beginn der Kanten je Knoten (n + 1 Einträge)
+   * @param nachbarn Ergebnis: Zielknoten
+   * @param nachbarMarkierung Ergebnis: Markierung je Zielknoten
+   */
+  static void baueCsr (int n, int[] quelle, int[] ziel, boolean[] markierung, int[] anfang, int[] nachbarn, boolean[] nachbarMarkierung)
+  {
+    for (int k = 0; k < quelle.length; k++)
+      anfang[quelle[k] + 1]++;
+
+    for (int i = 0; i < n; i++)
+      anfang[i + 1] += anfang[i];
+
+    int[] position = new int[n];
+    System.arraycopy( anfang, 0, position, 0, n );
+
+    for (int k = 0; k < quelle.length; k++)
+    {
+      int p = position[quelle[k]]++;
+
+      nachbarn[p] = ziel[k];
+
+      if (markierung != null)
+        nachbarMarkierung[p] = markierung[k];
+    }
+  }
+
+  /**
+   * @return liefert die Anzahl der Straßensegmente zurück
+   */
+  public int getAnzahlSegmente()
+  {
+    return m_segmente.length;
+  }
+
+  /**
+   * @return liefert die Anzahl der Kanten zurück
+   */
+  public int getAnzahlKanten()
+  {
+    return m_nachfolger.length;
+  }
+
+  /**
+   * @param i Segmentindex
+   * @return liefert das Straßensegment zum Index zurück
+   */
+  public StrassenSegment getSegment (int i)
+  {
+    return m_segmente[i];
+  }
+
+  /**
+   * @param segment Straßensegment
+   * @return liefert den Index des Straßensegments zurück, -1 wenn das Segment nicht im Graphen enthalten ist
+   */
+  public int getIndex (StrassenSegment segment)
+  {
+    Integer i = m_index.get( segment );
+
+    return (i != null) ? i.intValue() : -1;
+  }
+
+  /**
+   * @param pid Pid des Straßensegments
+   * @return liefert den Index des Straßensegments zurück, -1 wenn das Segment nicht im Graphen enthalten ist
+   */
+  public int getIndex (String pid)
+  {
+    Integer i = m_pidIndex.get( pid );
+
+    return (i != null) ? i.intValue() : -1;
+  }
+
+  /**
+   * @param i Segmentindex
+   * @return liefert die Länge des Straßensegments zurück
+   */
+  public long getLaenge (int i)
+  {
+    return m_laenge[i];
+  }
+
+  /**
+   * @param i Segmentindex
+   * @return liefert die erste Position der Nachfolger des Segments zurück (für {@link #getNachfolger(int)})
+   */
+  public int getNachfolgerAnfang (int i)
+  {
+    return m_nachfolgerAnfang[i];
+  }
+
+  /**
+   * @param i Segmentindex
+   * @return liefert die Position hinter dem letzten Nachfolger des Segments zurück
+   */
+  public int getNachfolgerEnde (int i)
+  {
+    return m_nachfolgerAnfang[i + 1];
+  }
+
+  /**
+   * @param k Position zwischen {@link #getNachfolgerAnfang(int)} und {@link #getNachfolgerEnde(int)}
+   * @return liefert den Segmentindex des Nachfolgers zurück
+   */
+  public int getNachfolger (int k)
+  {
+    return m_nachfolger[k];
+  }
+
+  /**
+   * @param k Position zwischen {@link #getNachfolgerAnfang(int)} und {@link #getNachfolgerEnde(int)}
+   * @return liefert true zurück, wenn der Nachfolger auf derselben Straße liegt
+   */
+  public boolean isNachfolgerAufStrasse (int k)
+  {
+    return m_nachfolgerAufStrasse[k];
+  }
+
+  /**
+   * @param i Segmentindex
+   * @return liefert die erste Position der Vorgänger des Segments zurück (für {@link #getVorgaenger(int)})
+   */
+  public int getVorgaengerAnfang (int i)
+  {
+    return m_vorgaengerAnfang[i];
+  }
+
+  /**
+   * @param i Segmentindex
+   * @return liefert die Position hinter dem letzten Vorgänger des Segments zurück
+   */
+  public int getVorgaengerEnde (int i)
+  {
+    return m_vorgaengerAnfang[i + 1];
+  }
+
+  /**
+   * @param k Position zwischen {@link #getVorgaengerAnfang(int)} und {@link #getVorgaengerEnde(int)}
+   * @return liefert den Segmentindex des Vorgängers zurück
+   */
+  public int getVorgaenger (int k)
+  {
+    return m_vorgaenger[k];
+  }
+
+  /**
+   * @param k Position zwischen {@link #getVorgaengerAnfang(int)} und {@link #getVorgaengerEnde(int)}
+   * @return liefert true zurück, wenn der Vorgänger auf derselben Straße liegt
+   */
+  public boolean isVorgaengerAufStrasse (int k)
+  {
+    return m_vorgaengerAufStrasse[k];
+  }
+
+  /**
+   * @return liefert das Feld mit dem Beginn der Nachfolger je Segment ohne Kopie zurück
+   */
+  int[] getNachfolgerAnfangFeld()
+  {
+    return m_nachfolgerAnfang;
+  }
+
+  /**
+   * @return liefert das Feld der Nachfolger ohne Kopie zurück
+   */
+  int[] getNachfolgerFeld()
+  {
+    return m_nachfolger;
+  }
+
+  /**
+   * @return liefert das Feld der Kennungen "Nachfolger auf Straße" ohne Kopie zurück
+   */
+  boolean[] getNachfolgerAufStrasseFeld()
+  {
+    return m_nachfolgerAufStrasse;
+  }
+
+  /**
+   * @return liefert das Feld mit dem Beginn der Vorgänger je Segment ohne Kopie zurück
+   */
+  int[] getVorgaengerAnfangFeld()
+  {
+    return m_vorgaengerAnfang;
+  }
+
+  /**
+   * @return liefert das Feld der Vorgänger ohne Kopie zurück
+   */
+  int[] getVorgaengerFeld()
+  {
+    return m_vorgaenger;
+  }
+
+  /**
+   * @return liefert das Feld der Kennungen "Vorgänger auf Straße" ohne Kopie zurück
+   */
+  boolean[] getVorgaengerAufStrasseFeld()
+  {
+    return m_vorgaengerAufStrasse;
+  }
+}
@@ -0,0 +1,460 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.konfiguration.netz.graph;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import de.bsvrz.sys.funclib.dambach.konfiguration.netz.MessQuerschnittWerte;
+import de.bsvrz.sys.funclib.dambach.konfiguration.netz.VerkehrsstaerkeListener;
+import de.bsvrz.sys.funclib.dambach.konfiguration.netz.VerkehrsstaerkeSammler;
+
+/**
+ * Inkrementelle Aggregation der Verkehrsstärken von Fahrstreifen zu Messquerschnitten und von Messquerschnitten zu
+ * Straßensegmenten auf Basis eines {@link KompaktesNetz}. Bei jeder neuen Verkehrsstärke eines Messquerschnitts
+ * (oder Fahrstreifens) wird nur der Zustand des Segments neu berechnet, zu dem der Messquerschnitt gehört.<p>
+ *
+ * Jeder Messquerschnitt vertritt den Abschnitt des Segments zwischen den Mitten zu seinen Nachbarn in der nach
+ * Offset sortierten Reihenfolge (der erste ab Segmentanfang, der letzte bis Segmentende). Die Länge dieses
+ * Abschnitts ist sein Gewicht im Mittel über das Segment, es wird nur über Messquerschnitte mit gültigem Wert
+ * gemittelt. QB je Fahrstreifen bezieht sich auf die über die Länge gemittelte Anzahl Fahrstreifen der
+ * Straßenteilsegmente. Gewichte und Fahrstreifen werden beim Erzeugen einmal berechnet.<p>
+ *
+ * Mit einem {@link VerkehrsstaerkeSammler} verbunden, wird die Aggregation als {@link VerkehrsstaerkeListener} im
+ * Thread des Empfängers fortgeschrieben. Die Zustände der Segmente sind unveränderliche Objekte und können ohne
+ * Sperre aus beliebigen Threads gelesen werden.<p>
+ *
+ * Der Sammler liefert nur Werte je Messquerschnitt. Werte je Fahrstreifen, z.B. aus
+ * {@link de.bsvrz.sys.funclib.dambach.konfiguration.netz.VerkehrsstaerkeFs}, werden nicht automatisch übernommen,
+ * der Aufrufer muss sie selbst über {@link #aktualisiereFahrStreifen(int, int, int, long, long, long)} eintragen.
+ * @author Dambach Werke GmbH
+ */
+public class SegmentVerkehrsLage implements VerkehrsstaerkeListener
+{
+  /**
+   * Kompaktes Netz mit Segmenten und Messquerschnitten
+   */
+  private final KompaktesNetz m_netz;
+
+  /**
+   * Sammler, an dem die Aggregation als Listener angemeldet ist, null wenn ohne Sammler
+   */
+  private final VerkehrsstaerkeSammler m_sammler;
+
+  /**
+   * MQ-Id zum Index des Sammlers, -1 wenn der Messquerschnitt nicht im Netz liegt
+   */
+  private final int[] m_sammlerZuMq;
+
+  /**
+   * Gewicht (vertretene Länge) je Messquerschnitt
+   */
+  private final double[] m_gewicht;
+
+  /**
+   * Über die Länge gemittelte Anzahl Fahrstreifen je Segment, NaN wenn unbekannt
+   */
+  private final double[] m_fahrstreifen;
+
+  /**
+   * Aktuelle Verkehrsstärke QB je Messquerschnitt, -1 wenn nicht bestimmbar
+   */
+  private final long[] m_qb;
+
+  /**
+   * Aktuelle Verkehrsstärke QKfz je Messquerschnitt, -1 wenn nicht bestimmbar
+   */
+  private final long[] m_qkfz;
+
+  /**
+   * Zeitstempel des letzten Werts je Messquerschnitt
+   */
+  private final long[] m_zeit;
+
+  /**
+   * Verkehrsstärke QB je Messquerschnitt und Fahrstreifen (nur für Messquerschnitte, die über Fahrstreifen versorgt werden)
+   */
+  private final long[][] m_fsQb;
+
+  /**
+   * Verkehrsstärke QKfz je Messquerschnitt und Fahrstreifen
+   */
+  private final long[][] m_fsQkfz;
+
+  /**
+   * Zustände der Segmente (Index = Segment-Id)
+   */
+  private final AtomicReferenceArray<SegmentVerkehrsZustand> m_zustand;
+
+  /**
+   * Markierung der im aktuellen Block zu berechnenden Segmente (Wert = Laufnummer)
+   */
+  private final int[] m_markiert;
+
+  /**
+   * Segmente, die im aktuellen Block neu berechnet werden
+   */
+  private final int[] m_geaendert;
+
+  /**
+   * Laufnummer des aktuellen Blocks
+   */
+  private int m_lauf = 0;
+
+  /**
+   * Konstruktor der Klasse. Die Werte werden über {@link #aktualisiereMessQuerschnitt(int, long, long, long)} bzw.
+   * {@link #aktualisiereFahrStreifen(int, int, int, long, long, long)} eingetragen.
+   * @param netz kompaktes Netz
+   */
+  public SegmentVerkehrsLage (KompaktesNetz netz)
+  {
+    this (netz, null);
+  }
+
+  /**
+   * Konstruktor der Klasse. Die Aggregation meldet sich als Listener am Sammler an und wird mit jedem empfangenen
+   * Block fortgeschrieben.
+   * @param netz kompaktes Netz
+   * @param sammler Sammler der Verkehrsstärken der Messquerschnitte, null wenn die Werte direkt eingetragen werden
+   */
+  public SegmentVerkehrsLage (KompaktesNetz netz, VerkehrsstaerkeSammler sammler)
+  {
+    m_netz    = netz;
+    m_sammler = sammler;
+
+    int anzahlMq      = netz.getAnzahlMessQuerschnitte();
+    int anzahlSegmente = netz.getAnzahlSegmente();
+
+    m_qb     = new long[anzahlMq];
+    m_qkfz   = new long[anzahlMq];
+    m_zeit   = new long[anzahlMq];
+    m_fsQb   = new long[anzahlMq][];
+    m_fsQkfz = new long[anzahlMq][];
+
+    Arrays.fill( m_qb, -1 );
+    Arrays.fill( m_qkfz, -1 );
+
+    m_gewicht      = new double[anzahlMq];
+    m_fahrstreifen = new double[anzahlSegmente];
+    m_zustand      = new AtomicReferenceArray<SegmentVerkehrsZustand>( anzahlSegmente );
+    m_markiert     = new int[anzahlSegmente];
+    m_geaendert    = new int[anzahlSegmente];
+
+    for (int s = 0; s < anzahlSegmente; s++)
+    {
+      berechneGewichte( s );
+      m_fahrstreifen[s] = mittlereFahrstreifen( s );
+      m_zustand.set( s, SegmentVerkehrsZustand.UNBEKANNT );
+    }
+
+    if (sammler != null)
+    {
+      m_sammlerZuMq = new int[sammler.getAnzahl()];
+
+      for (int i = 0; i < m_sammlerZuMq.length; i++)
+        m_sammlerZuMq[i] = netz.getMessQuerschnittId( sammler.getMessQuerschnitt( i ).getPid() );
+
+      sammler.addListener( this );
+    }
+    else
+    {
+      m_sammlerZuMq = new int[0];
+    }
+  }
+
+  /**
+   * Methode berechnet die Gewichte der Messquerschnitte eines Segments
+   * @param s Segment-Id
+   */
+  private void berechneGewichte (int s)
+  {
+    int anfang = m_netz.getMessQuerschnitteAnfang( s );
+    int ende   = m_netz.getMessQuerschnitteEnde( s );
+
+    if (anfang == ende)
+      return;
+
+    long laenge = m_netz.getSegmentLaenge( s );
+    double summe = 0;
+
+    for (int q = anfang; q < ende; q++)
+    {
+      double links  = (q == anfang) ? 0 : (m_netz.getMessQuerschnittOffset( q - 1 ) + m_netz.getMessQuerschnittOffset( q )) / 2.0;
+      double rechts = (q == ende - 1) ? laenge : (m_netz.getMessQuerschnittOffset( q ) + m_netz.getMessQuerschnittOffset( q + 1 )) / 2.0;
+
+      m_gewicht[q] = Math.max( rechts - links, 0.0 );
+      summe += m_gewicht[q];
+    }
+
+    // Segment ohne verwertbare Länge: alle Messquerschnitte gleich gewichten
+
+    if (summe <= 0)
+      Arrays.fill( m_gewicht, anfang, ende, 1.0 );
+  }
+
+  /**
+   * @param s Segment-Id
+   * @return liefert die über die Länge gemittelte Anzahl Fahrstreifen des Segments zurück, NaN wenn unbekannt
+   */
+  private double mittlereFahrstreifen (int s)
+  {
+    double summe = 0;
+    long laenge = 0;
+
+    for (int k = m_netz.getTeilSegmenteAnfang( s ); k < m_netz.getTeilSegmenteEnde( s ); k++)
+    {
+      int t = m_netz.getTeilSegment( k );
+      int fahrstreifen = m_netz.getTeilSegmentAnzahlFahrstreifen( t );
+
+      if (fahrstreifen <= 0)
+        continue;
+
+      summe  += (double) fahrstreifen * m_netz.getTeilSegmentLaenge( t );
+      laenge += m_netz.getTeilSegmentLaenge( t );
+    }
+
+    return (laenge > 0) ? summe / laenge : Double.NaN;
+  }
+
+  /**
+   * Methode des VerkehrsstaerkeListener, übernimmt die neuen Werte des Sammlers und berechnet die betroffenen
+   * Segmente neu
+   */
+  public synchronized void verkehrsstaerkeAktualisiert (VerkehrsstaerkeSammler sammler, int[] indizes)
+  {
+    int geaendert = beginneBlock();
+
+    for (int i = 0; i < indizes.length; i++)
+    {
+      int index = indizes[i];
+
+      if (index >= m_sammlerZuMq.length)
+        continue;
+
+      int mq = m_sammlerZuMq[index];
+
+      if (mq < 0)
+        continue;
+
+      MessQuerschnittWerte werte = sammler.getWerte( index );
+
+      m_qb[mq]   = werte.getQB();
+      m_qkfz[mq] = werte.getQKfz();
+      m_zeit[mq] = werte.getZeit();
+
+      geaendert = markiere( m_netz.getMessQuerschnittSegment( mq ), geaendert );
+    }
+
+    for (int i = 0; i < geaendert; i++)
+      berechneSegment( m_geaendert[i] );
+  }
+
+  /**
+   * Methode trägt neue Werte eines Messquerschnitts ein und berechnet sein Segment neu
+   * @param mq MQ-Id des kompakten Netzes
+   * @param zeit Zeitstempel
+   * @param qb Verkehrsstärke QB, -1 wenn nicht bestimmbar
+   * @param qkfz Verkehrsstärke QKfz, -1 wenn nicht bestimmbar
+   */
+  public synchronized void aktualisiereMessQuerschnitt (int mq, long zeit, long qb, long qkfz)
+  {
+    m_qb[mq]   = qb;
+    m_qkfz[mq] = qkfz;
+    m_zeit[mq] = zeit;
+
+    berechneSegment( m_netz.getMessQuerschnittSegment( mq ) );
+  }
+
+  /**
+   * Methode trägt neue Werte eines Fahrstreifens ein. Der Wert des Messquerschnitts ist die Summe über seine
+   * Fahrstreifen und nur bestimmbar, wenn für alle Fahrstreifen ein gültiger Wert vorliegt. Anschließend wird das
+   * Segment des Messquerschnitts neu berechnet.
+   * @param mq MQ-Id des kompakten Netzes
+   * @param fahrStreifen Index des Fahrstreifens im Messquerschnitt (0..anzahlFahrStreifen-1)
+   * @param anzahlFahrStreifen Anzahl Fahrstreifen des Messquerschnitts
+   * @param zeit Zeitstempel
+   * @param qb Verkehrsstärke QB des Fahrstreifens, -1 wenn nicht bestimmbar
+   * @param qkfz Verkehrsstärke QKfz des Fahrstreifens, -1 wenn nicht bestimmbar
+   * @throws IllegalArgumentException wenn der Index des Fahrstreifens nicht im Bereich 0..anzahlFahrStreifen-1 liegt
+   */
+  public synchronized void aktualisiereFahrStreifen (int mq, int fahrStreifen, int anzahlFahrStreifen, long zeit, long qb, long qkfz)
+  {
+    if (fahrStreifen < 0 || fahrStreifen >= anzahlFahrStreifen)
+      throw new IllegalArgumentException( "Fahrstreifen " + fahrStreifen + " ungültig für Messquerschnitt " + mq + " mit "
+          + anzahlFahrStreifen + " Fahrstreifen" );
+
+    if (m_fsQb[mq] == null || m_fsQb[mq].length != anzahlFahrStreifen)
+    {
+      m_fsQb[mq]   = new long[anzahlFahrStreifen];
+      m_fsQkfz[mq] = new long[anzahlFahrStreifen];
+
+      Arrays.fill( m_fsQb[mq], -1 );
+      Arrays.fill( m_fsQkfz[mq], -1 );
+    }
+
+    m_fsQb[mq][fahrStreifen]   = qb;
+    m_fsQkfz[mq][fahrStreifen] = qkfz;
+
+    aktualisiereMessQuerschnitt( mq, zeit, summe( m_fsQb[mq] ), summe( m_fsQkfz[mq] ) );
+  }
+
+  /**
+   * @param werte Werte der Fahrstreifen
+   * @return liefert die Summe der Werte zurück, -1 wenn ein Wert nicht bestimmbar ist
+   */
+  private static long summe (long[] werte)
+  {
+    long summe = 0;
+
+    for (int i = 0; i < werte.length; i++)
+    {
+      if (werte[i] < 0)
+        return -1;
+
+      summe += werte[i];
+    }
+
+    return summe;
+  }
+
+  /**
+   * Methode beginnt einen neuen Block der Segmentmarkierung
+   * @return Anzahl markierter Segmente (0)
+   */
+  private int beginneBlock ()
+  {
+    if (++m_lauf == Integer.MAX_VALUE)
+    {
+      Arrays.fill( m_markiert, 0 );
+      m_lauf = 1;
+    }
+
+    return 0;
+  }
+
+  /**
+   * Methode markiert ein Segment zur Neuberechnung, jedes Segment wird je Block nur einmal eingetragen
+   * @param s Segment-Id
+   * @param anzahl bisher markierte Segmente
+   * @return neue Anzahl markierter Segmente
+   */
+  private int markiere (int s, int anzahl)
+  {
+    if (m_markiert[s] == m_lauf)
+      return anzahl;
+
+    m_markiert[s] = m_lauf;
+    m_geaendert[anzahl] = s;
+
+    return anzahl + 1;
+  }
+
+  /**
+   * Methode berechnet den Zustand eines Segments aus den Werten seiner Messquerschnitte
+   * @param s Segment-Id
+   */
+  private void berechneSegment (int s)
+  {
+    double summeGewicht = 0, gewichtQb = 0, summeQb = 0, gewichtQkfz = 0, summeQkfz = 0;
+    long zeit = 0;
+    int gueltig = 0;
+
+    for (int q = m_netz.getMessQuerschnitteAnfang( s ); q < m_netz.getMessQuerschnitteEnde( s ); q++)
+    {
+      double w = m_gewicht[q];
+
+      summeGewicht += w;
+      zeit = Math.max( zeit, m_zeit[q] );
+
+      if (m_qb[q] >= 0)
+      {
+        gewichtQb += w;
+        summeQb   += w * m_qb[q];
+        gueltig++;
+      }
+
+      if (m_qkfz[q] >= 0)
+      {
+        gewichtQkfz += w;
+        summeQkfz   += w * m_qkfz[q];
+      }
+    }
+
+    double qb   = (gewichtQb > 0) ? summeQb / gewichtQb : Double.NaN;
+    double qkfz = (gewichtQkfz > 0) ? summeQkfz / gewichtQkfz : Double.NaN;
+
+    double qbJeFahrstreifen = (m_fahrstreifen[s] > 0) ? qb / m_fahrstreifen[s] : Double.NaN;
+    double abdeckung = (summeGewicht > 0) ? gewichtQb / summeGewicht : 0.0;
+
+    m_zustand.set( s, new SegmentVerkehrsZustand( zeit, qb, qkfz, qbJeFahrstreifen, abdeckung, gueltig ) );
+  }
+
+  /**
+   * @param segment Segment-Id des kompakten Netzes
+   * @return liefert den aktuellen Verkehrszustand des Segments zurück
+   */
+  public SegmentVerkehrsZustand getZustand (int segment)
+  {
+    return m_zustand.get( segment );
+  }
+
+  /**
+   * @param pidSegment Pid des Straßensegments
+   * @return liefert den aktuellen Verkehrszustand des Segments zurück, null wenn das Segment nicht im Netz liegt
+   */
+  public SegmentVerkehrsZustand getZustand (String pidSegment)
+  {
+    int s = m_netz.getSegmentId( pidSegment );
+
+    return (s >= 0) ? m_zustand.get( s ) : null;
+  }
+
+  /**
+   * @param segment Segment-Id des kompakten Netzes
+   * @return liefert die über die Länge gemittelte Anzahl Fahrstreifen des Segments zurück, NaN wenn unbekannt
+   */
+  public double getMittlereAnzahlFahrstreifen (int segment)
+  {
+    return m_fahrstreifen[segment];
+  }
+
+  /**
+   * @return liefert das kompakte Netz zurück
+   */
+  public KompaktesNetz getNetz()
+  {
+    return m_netz;
+  }
+
+  /**
+   * Methode meldet die Aggregation vom Sammler ab
+   */
+  public void dispose ()
+  {
+    if (m_sammler != null)
+      m_sammler.removeListener( this );
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.konfiguration.netz.graph;
+
+/**
+ * Unveränderlicher Verkehrszustand eines Straßensegments, aggregiert aus den Verkehrsstärken seiner
+ * Messquerschnitte (siehe {@link SegmentVerkehrsLage}).
+ * @author Dambach Werke GmbH
+ */
+public final class SegmentVerkehrsZustand
+{
+  /**
+   * Zustand eines Segments, für das noch keine Werte vorliegen
+   */
+  public static final SegmentVerkehrsZustand UNBEKANNT = new SegmentVerkehrsZustand( 0, Double.NaN, Double.NaN, Double.NaN, 0.0, 0 );
+
+  /**
+   * Zeitstempel des neuesten eingegangenen Werts
+   */
+  private final long m_zeit;
+
+  /**
+   * Gewichtetes Mittel QB in Fzg/h
+   */
+  private final double m_qb;
+
+  /**
+   * Gewichtetes Mittel QKfz in Fzg/h
+   */
+  private final double m_qkfz;
+
+  /**
+   * QB je Fahrstreifen in Fzg/h
+   */
+  private final double m_qbJeFahrstreifen;
+
+  /**
+   * Anteil der Segmentlänge, der durch Messquerschnitte mit gültigem Wert abgedeckt ist (0..1)
+   */
+  private final double m_abdeckung;
+
+  /**
+   * Anzahl der Messquerschnitte mit gültigem Wert
+   */
+  private final int m_anzahlMessQuerschnitte;
+
+  /**
+   * Konstruktor der Klasse
+   * @param zeit Zeitstempel des neuesten eingegangenen Werts
+   * @param qb gewichtetes Mittel QB, NaN wenn nicht bestimmbar
+   * @param qkfz gewichtetes Mittel QKfz, NaN wenn nicht bestimmbar
+   * @param qbJeFahrstreifen QB je Fahrstreifen, NaN wenn nicht bestimmbar
+   * @param abdeckung abgedeckter Anteil der Segmentlänge (0..1)
+   * @param anzahlMessQuerschnitte Anzahl der Messquerschnitte mit gültigem Wert
+   */
+  SegmentVerkehrsZustand (long zeit, double qb, double qkfz, double qbJeFahrstreifen, double abdeckung, int anzahlMessQuerschnitte)
+  {
+    m_zeit                   = zeit;
+    m_qb                     = qb;
+    m_qkfz                   = qkfz;
+    m_qbJeFahrstreifen       = qbJeFahrstreifen;
+    m_abdeckung              = abdeckung;
+    m_anzahlMessQuerschnitte = anzahlMessQuerschnitte;
+  }
+
+  /**
+   * @return liefert den Zeitstempel des neuesten eingegangenen Werts zurück
+   */
+  public long getZeit()
+  {
+    return m_zeit;
+  }
+
+  /**
+   * @return liefert das nach Lage der Messquerschnitte gewichtete Mittel QB in Fzg/h zurück, NaN wenn nicht bestimmbar
+   */
+  public double getQB()
+  {
+    return m_qb;
+  }
+
+  /**
+   * @return liefert das nach Lage der Messquerschnitte gewichtete Mittel QKfz in Fzg/h zurück, NaN wenn nicht bestimmbar
+   */
+  public double getQKfz()
+  {
+    return m_qkfz;
+  }
+
+  /**
+   * @return liefert QB bezogen auf die mittlere Anzahl Fahrstreifen des Segments zurück, NaN wenn nicht bestimmbar
+   */
+  public double getQBJeFahrstreifen()
+  {
+    return m_qbJeFahrstreifen;
+  }
+
+  /**
+   * @return liefert den Anteil der Segmentlänge zurück, der durch Messquerschnitte mit gültigem Wert abgedeckt ist
+   */
+  public double getAbdeckung()
+  {
+    return m_abdeckung;
+  }
+
+  /**
+   * @return liefert die Anzahl der Messquerschnitte mit gültigem Wert zurück
+   */
+  public int getAnzahlMessQuerschnitte()
+  {
+    return m_anzahlMessQuerschnitte;
+  }
+
+  /**
+   * @return liefert true zurück, wenn ein Wert QB bestimmt werden konnte
+   */
+  public boolean isQBPlausibel()
+  {
+    return !Double.isNaN( m_qb );
+  }
+}
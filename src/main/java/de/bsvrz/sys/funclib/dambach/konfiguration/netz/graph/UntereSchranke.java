@@ -0,0 +1,57 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.konfiguration.netz.graph;
+
+/**
+ * Untere Schranke für die Entfernung zwischen zwei Straßensegmenten für die A*-Suche in {@link WegSuche}.
+ * Die Schranke darf die tatsächliche Entfernung nie überschreiten und muss konsistent sein (die Schranke eines
+ * Segments ist höchstens so groß wie die Länge des Segments plus die Schranke seines Nachfolgers), sonst ist der
+ * gefundene Weg nicht notwendigerweise der kürzeste. Liegen keine Informationen vor (z.B. Koordinaten), wird {@link #KEINE}
+ * verwendet, die Suche entspricht dann dem Verfahren von Dijkstra.
+ * @author Dambach Werke GmbH
+ */
+public interface UntereSchranke
+{
+  /**
+   * Schranke, die immer 0 liefert (Suche nach Dijkstra)
+   */
+  UntereSchranke KEINE = new UntereSchranke()
+  {
+    public long getUntereSchranke( int segment, int ziel )
+    {
+      return 0;
+    }
+  };
+
+  /**
+   * Methode liefert eine untere Schranke für die Entfernung vom Anfang eines Straßensegments bis zum Anfang
+   * des Zielsegments
+   * @param segment Segmentindex
+   * @param ziel Segmentindex des Ziels
+   * @return untere Schranke der Entfernung (in Meter), nicht negativ
+   */
+  long getUntereSchranke (int segment, int ziel);
+}
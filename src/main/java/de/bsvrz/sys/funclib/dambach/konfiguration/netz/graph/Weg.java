@@ -0,0 +1,106 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.konfiguration.netz.graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import de.bsvrz.sys.funclib.dambach.konfiguration.netz.StrassenSegment;
+
+/**
+ * Ergebnis einer Wegsuche in {@link WegSuche}: Folge von Straßensegmenten vom Start- bis zum Zielsegment
+ * und die Länge des Wegs vom Anfang des Startsegments bis zum Ende des Zielsegments.
+ * @author Dambach Werke GmbH
+ */
+public final class Weg
+{
+  /**
+   * Graph, auf den sich die Segmentindizes beziehen
+   */
+  private final SegmentGraph m_graph;
+
+  /**
+   * Segmentindizes vom Start bis zum Ziel
+   */
+  private final int[] m_segmente;
+
+  /**
+   * Länge des Wegs (in Meter)
+   */
+  private final long m_laenge;
+
+  /**
+   * Konstruktor der Klasse
+   * @param graph Graph, auf den sich die Segmentindizes beziehen
+   * @param segmente Segmentindizes vom Start bis zum Ziel
+   * @param laenge Länge des Wegs
+   */
+  Weg (SegmentGraph graph, int[] segmente, long laenge)
+  {
+    m_graph    = graph;
+    m_segmente = segmente;
+    m_laenge   = laenge;
+  }
+
+  /**
+   * @return liefert die Länge des Wegs vom Anfang des Startsegments bis zum Ende des Zielsegments zurück (in Meter)
+   */
+  public long getLaenge()
+  {
+    return m_laenge;
+  }
+
+  /**
+   * @return liefert die Anzahl der Straßensegmente des Wegs zurück
+   */
+  public int getAnzahl()
+  {
+    return m_segmente.length;
+  }
+
+  /**
+   * @param i Position im Weg
+   * @return liefert den Segmentindex an der Position zurück
+   */
+  public int getSegmentIndex (int i)
+  {
+    return m_segmente[i];
+  }
+
+  /**
+   * @return liefert die Straßensegmente des Wegs vom Start bis zum Ziel zurück
+   */
+  public List<StrassenSegment> getStrassenSegmente()
+  {
+    List<StrassenSegment> segmente = new ArrayList<StrassenSegment>( m_segmente.length );
+
+    for (int i : m_segmente)
+      segmente.add( m_graph.getSegment( i ) );
+
+    return Collections.unmodifiableList( segmente );
+  }
+}
@@ -0,0 +1,443 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.konfiguration.netz.graph;
+
+import java.util.Arrays;
+
+import de.bsvrz.sys.funclib.dambach.konfiguration.netz.StrassenSegment;
+
+/**
+ * Wegsuche auf einem {@link SegmentGraph}. Bestimmt kürzeste Wege zwischen Straßensegmenten (Dijkstra bzw. A* mit
+ * einer {@link UntereSchranke}) sowie die stromauf- und stromabwärts bis zu einer maximalen Entfernung erreichbaren
+ * Straßensegmente. Gewichtet wird mit den Längen der Straßensegmente.<p>
+ *
+ * Eine Instanz hält die Arbeitsfelder der Suche und verwendet sie für alle Suchen wieder, sie ist daher nicht
+ * threadsicher. Für parallele Suchen auf demselben Graphen wird je Thread eine eigene Instanz angelegt.
+ * @author Dambach Werke GmbH
+ */
+public class WegSuche
+{
+  /**
+   * Markierung für "kein Vorgänger"
+   */
+  private static final int KEIN_SEGMENT = -1;
+
+  /**
+   * Graph, auf dem gesucht wird
+   */
+  private final SegmentGraph m_graph;
+
+  /**
+   * Bisher kürzeste Entfernung je Segment, gültig wenn m_lauf[i] == m_aktuellerLauf
+   */
+  private final long[] m_entfernung;
+
+  /**
+   * Vorgänger je Segment auf dem bisher kürzesten Weg
+   */
+  private final int[] m_vorgaenger;
+
+  /**
+   * Nummer der Suche, in der die Einträge eines Segments zuletzt gesetzt wurden
+   */
+  private final int[] m_lauf;
+
+  /**
+   * Kennung, ob ein Segment in der aktuellen Suche bereits abschließend bearbeitet wurde
+   */
+  private final int[] m_erledigt;
+
+  /**
+   * Nummer der aktuellen Suche, erspart das Zurücksetzen der Felder vor jeder Suche
+   */
+  private int m_aktuellerLauf = 0;
+
+  /**
+   * Vorrangwarteschlange der Suche
+   */
+  private final Halde m_halde = new Halde();
+
+  /**
+   * Konstruktor der Klasse
+   * @param graph Graph, auf dem gesucht wird
+   */
+  public WegSuche (SegmentGraph graph)
+  {
+    int n = graph.getAnzahlSegmente();
+
+    m_graph      = graph;
+    m_entfernung = new long[n];
+    m_vorgaenger = new int[n];
+    m_lauf       = new int[n];
+    m_erledigt   = new int[n];
+  }
+
+  /**
+   * Methode sucht den kürzesten Weg zwischen zwei Straßensegmenten (Dijkstra)
+   * @param start Startsegment
+   * @param ziel Zielsegment
+   * @param nurAufStrasse true: nur Kanten auf derselben Straße verwenden
+   * @return kürzester Weg, null wenn kein Weg existiert oder ein Segment nicht im Graphen enthalten ist
+   */
+  public Weg sucheWeg (StrassenSegment start, StrassenSegment ziel, boolean nurAufStrasse)
+  {
+    int s = m_graph.getIndex( start );
+    int z = m_graph.getIndex( ziel );
+
+    if (s < 0 || z < 0)
+      return null;
+
+    return sucheWeg( s, z, nurAufStrasse, UntereSchranke.KEINE );
+  }
+
+  /**
+   * Methode sucht den kürzesten Weg zwischen zwei Straßensegmenten. Mit einer {@link UntereSchranke} ungleich
+   * {@link UntereSchranke#KEINE} wird die Suche als A* durchgeführt.
+   * @param start Segmentindex des Starts
+   * @param ziel Segmentindex des Ziels
+   * @param nurAufStrasse true: nur Kanten auf derselben Straße verwenden
+   * @param schranke untere Schranke der Entfernung zum Ziel
+   * @return kürzester Weg vom Anfang des Start- bis zum Ende des Zielsegments, null wenn kein Weg existiert
+   */
+  public Weg sucheWeg (int start, int ziel, boolean nurAufStrasse, UntereSchranke schranke)
+  {
+    int lauf = neuerLauf();
+
+    // Entfernung eines Segments = Entfernung vom Anfang des Startsegments bis zum Anfang des Segments
+
+    setze( start, 0, KEIN_SEGMENT, lauf );
+    m_halde.leere();
+    m_halde.einfuegen( schranke.getUntereSchranke( start, ziel ), start );
+
+    while (!m_halde.isLeer())
+    {
+      int u = m_halde.entferneMinimum();
+
+      if (m_erledigt[u] == lauf)
+        continue;
+
+      m_erledigt[u] = lauf;
+
+      if (u == ziel)
+        return erzeugeWeg( start, ziel );
+
+      long entfernung = m_entfernung[u] + m_graph.getLaenge( u );
+
+      for (int k = m_graph.getNachfolgerAnfang( u ), ende = m_graph.getNachfolgerEnde( u ); k < ende; k++)
+      {
+        if (nurAufStrasse && !m_graph.isNachfolgerAufStrasse( k ))
+          continue;
+
+        int v = m_graph.getNachfolger( k );
+
+        if (m_erledigt[v] == lauf)
+          continue;
+
+        if (m_lauf[v] != lauf || entfernung < m_entfernung[v])
+        {
+          setze( v, entfernung, u, lauf );
+          m_halde.einfuegen( entfernung + schranke.getUntereSchranke( v, ziel ), v );
+        }
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Methode bestimmt alle stromabwärts (in Fahrtrichtung) erreichbaren Straßensegmente bis zu einer maximalen Entfernung
+   * @param start Startsegment
+   * @param maxEntfernung maximale Entfernung (in Meter), gemessen vom Ende des Startsegments bis zum Anfang des
+   * erreichten Segments
+   * @param nurAufStrasse true: nur Kanten auf derselben Straße verwenden
+   * @return erreichbare Segmente, null wenn das Startsegment nicht im Graphen enthalten ist
+   */
+  public Erreichbarkeit stromabwaerts (StrassenSegment start, long maxEntfernung, boolean nurAufStrasse)
+  {
+    int s = m_graph.getIndex( start );
+
+    return (s < 0) ? null : sucheErreichbar( s, maxEntfernung, nurAufStrasse, true );
+  }
+
+  /**
+   * Methode bestimmt alle stromaufwärts (gegen die Fahrtrichtung) erreichbaren Straßensegmente bis zu einer maximalen
+   * Entfernung
+   * @param start Startsegment
+   * @param maxEntfernung maximale Entfernung (in Meter), gemessen vom Anfang des Startsegments bis zum Ende des
+   * erreichten Segments
+   * @param nurAufStrasse true: nur Kanten auf derselben Straße verwenden
+   * @return erreichbare Segmente, null wenn das Startsegment nicht im Graphen enthalten ist
+   */
+  public Erreichbarkeit stromaufwaerts (StrassenSegment start, long maxEntfernung, boolean nurAufStrasse)
+  {
+    int s = m_graph.getIndex( start );
+
+    return (s < 0) ? null : sucheErreichbar( s, maxEntfernung, nurAufStrasse, false );
+  }
+
+  /**
+   * Methode bestimmt alle erreichbaren Straßensegmente bis zu einer maximalen Entfernung. Die Entfernung eines Segments
+   * ist die Summe der Längen der Segmente, die zwischen Start- und erreichtem Segment liegen.
+   * @param start Segmentindex des Starts
+   * @param maxEntfernung maximale Entfernung (in Meter, inklusive)
+   * @param nurAufStrasse true: nur Kanten auf derselben Straße verwenden
+   * @param stromabwaerts true: in Fahrtrichtung, false: gegen die Fahrtrichtung
+   * @return erreichbare Segmente ohne das Startsegment, aufsteigend nach Entfernung
+   */
+  public Erreichbarkeit sucheErreichbar (int start, long maxEntfernung, boolean nurAufStrasse, boolean stromabwaerts)
+  {
+    int lauf = neuerLauf();
+
+    int[] segmente = new int[16];
+    long[] entfernungen = new long[16];
+    int anzahl = 0;
+
+    setze( start, 0, KEIN_SEGMENT, lauf );
+    m_halde.leere();
+    m_halde.einfuegen( 0, start );
+
+    while (!m_halde.isLeer())
+    {
+      int u = m_halde.entferneMinimum();
+
+      if (m_erledigt[u] == lauf)
+        continue;
+
+      m_erledigt[u] = lauf;
+
+      if (u != start)
+      {
+        if (anzahl == segmente.length)
+        {
+          segmente     = Arrays.copyOf( segmente, anzahl * 2 );
+          entfernungen = Arrays.copyOf( entfernungen, anzahl * 2 );
+        }
+
+        segmente[anzahl]     = u;
+        entfernungen[anzahl] = m_entfernung[u];
+        anzahl++;
+      }
+
+      // Das Startsegment selbst zählt nicht zur Entfernung
+
+      long entfernung = m_entfernung[u] + ((u == start) ? 0 : m_graph.getLaenge( u ));
+
+      if (entfernung > maxEntfernung)
+        continue;
+
+      int anfang = stromabwaerts ? m_graph.getNachfolgerAnfang( u ) : m_graph.getVorgaengerAnfang( u );
+      int ende   = stromabwaerts ? m_graph.getNachfolgerEnde( u )   : m_graph.getVorgaengerEnde( u );
+
+      for (int k = anfang; k < ende; k++)
+      {
+        boolean aufStrasse = stromabwaerts ? m_graph.isNachfolgerAufStrasse( k ) : m_graph.isVorgaengerAufStrasse( k );
+
+        if (nurAufStrasse && !aufStrasse)
+          continue;
+
+        int v = stromabwaerts ? m_graph.getNachfolger( k ) : m_graph.getVorgaenger( k );
+
+        if (m_erledigt[v] == lauf)
+          continue;
+
+        if (m_lauf[v] != lauf || entfernung < m_entfernung[v])
+        {
+          setze( v, entfernung, u, lauf );
+          m_halde.einfuegen( entfernung, v );
+        }
+      }
+    }
+
+    return new Erreichbarkeit( m_graph, Arrays.copyOf( segmente, anzahl ), Arrays.copyOf( entfernungen, anzahl ) );
+  }
+
+  /**
+   * Methode beginnt eine neue Suche
+   * @return Nummer der Suche
+   */
+  private int neuerLauf ()
+  {
+    m_aktuellerLauf++;
+
+    if (m_aktuellerLauf == Integer.MAX_VALUE)
+    {
+      // Überlauf der Nummer, Felder einmalig zurücksetzen
+
+      Arrays.fill( m_lauf, 0 );
+      Arrays.fill( m_erledigt, 0 );
+      m_aktuellerLauf = 1;
+    }
+
+    return m_aktuellerLauf;
+  }
+
+  /**
+   * Methode setzt Entfernung und Vorgänger eines Segments
+   * @param segment Segmentindex
+   * @param entfernung Entfernung
+   * @param vorgaenger Segmentindex des Vorgängers
+   * @param lauf Nummer der Suche
+   */
+  private void setze (int segment, long entfernung, int vorgaenger, int lauf)
+  {
+    m_entfernung[segment] = entfernung;
+    m_vorgaenger[segment] = vorgaenger;
+    m_lauf[segment]       = lauf;
+  }
+
+  /**
+   * Methode erzeugt den Weg anhand der Vorgänger
+   * @param start Segmentindex des Starts
+   * @param ziel Segmentindex des Ziels
+   * @return Weg
+   */
+  private Weg erzeugeWeg (int start, int ziel)
+  {
+    int anzahl = 1;
+    for (int i = ziel; i != start; i = m_vorgaenger[i])
+      anzahl++;
+
+    int[] segmente = new int[anzahl];
+
+    int i = ziel;
+    for (int p = anzahl - 1; p >= 0; p--)
+    {
+      segmente[p] = i;
+      i = m_vorgaenger[i];
+    }
+
+    return new Weg( m_graph, segmente, m_entfernung[ziel] + m_graph.getLaenge( ziel ) );
+  }
+
+  /**
+   * Binäre Halde (Min-Heap) mit long-Schlüsseln und int-Werten ohne Objekterzeugung je Eintrag. Veraltete Einträge
+   * werden nicht entfernt, sondern beim Entnehmen übergangen.
+   * @author Dambach Werke GmbH
+   */
+  private static final class Halde
+  {
+    /**
+     * Schlüssel der Einträge
+     */
+    private long[] m_schluessel = new long[64];
+
+    /**
+     * Werte der Einträge
+     */
+    private int[] m_werte = new int[64];
+
+    /**
+     * Anzahl der Einträge
+     */
+    private int m_anzahl = 0;
+
+    /**
+     * Methode entfernt alle Einträge
+     */
+    private void leere ()
+    {
+      m_anzahl = 0;
+    }
+
+    /**
+     * @return liefert true zurück, wenn die Halde leer ist
+     */
+    private boolean isLeer ()
+    {
+      return m_anzahl == 0;
+    }
+
+    /**
+     * Methode fügt einen Eintrag ein
+     * @param schluessel Schlüssel
+     * @param wert Wert
+     */
+    private void einfuegen (long schluessel, int wert)
+    {
+      if (m_anzahl == m_schluessel.length)
+      {
+        m_schluessel = Arrays.copyOf( m_schluessel, m_anzahl * 2 );
+        m_werte      = Arrays.copyOf( m_werte, m_anzahl * 2 );
+      }
+
+      int i = m_anzahl++;
+
+      while (i > 0)
+      {
+        int eltern = (i - 1) >>> 1;
+
+        if (m_schluessel[eltern] <= schluessel)
+          break;
+
+        m_schluessel[i] = m_schluessel[eltern];
+        m_werte[i]      = m_werte[eltern];
+        i = eltern;
+      }
+
+      m_schluessel[i] = schluessel;
+      m_werte[i]      = wert;
+    }
+
+    /**
+     * Methode entfernt den Eintrag mit dem kleinsten Schlüssel
+     * @return Wert des Eintrags
+     */
+    private int entferneMinimum ()
+    {
+      int ergebnis = m_werte[0];
+
+      m_anzahl--;
+
+      long schluessel = m_schluessel[m_anzahl];
+      int wert        = m_werte[m_anzahl];
+
+      int i = 0;
+
+      while (true)
+      {
+        int kind = 2 * i + 1;
+
+        if (kind >= m_anzahl)
+          break;
+
+        if (kind + 1 < m_anzahl && m_schluessel[kind + 1] < m_schluessel[kind])
+          kind++;
+
+        if (schluessel <= m_schluessel[kind])
+          break;
+
+        m_schluessel[i] = m_schluessel[kind];
+        m_werte[i]      = m_werte[kind];
+        i = kind;
+      }
+
+      m_schluessel[i] = schluessel;
+      m_werte[i]      = wert;
+
+      return ergebnis;
+    }
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.parameter;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Erzeugt benannte Daemon-Threads, damit die Threads der Parameterdienste
+ * das Beenden der Anwendung nicht verhindern.
+ *
+ * @author Dambach Werke GmbH
+ */
+final class DaemonThreads implements ThreadFactory
+{
+  /**
+   * Präfix der Thread-Namen
+   */
+  private final String _name;
+
+  /**
+   * Laufende Nummer des nächsten Threads
+   */
+  private final AtomicInteger _nummer = new AtomicInteger();
+
+  /**
+   * @param name Präfix der Thread-Namen
+   */
+  DaemonThreads(String name)
+  {
+    _name = name;
+  }
+
+  /*
+   * (Kein Javadoc)
+   * @see java.util.concurrent.ThreadFactory#newThread(java.lang.Runnable)
+   */
+  public Thread newThread(Runnable r)
+  {
+    Thread t = new Thread(r, _name + "-" + _nummer.incrementAndGet());
+    t.setDaemon(true);
+    return t;
+  }
+}
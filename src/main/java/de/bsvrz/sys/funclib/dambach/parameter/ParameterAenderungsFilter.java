@@ -0,0 +1,181 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.parameter;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.bsvrz.dav.daf.main.Data;
+import de.bsvrz.dav.daf.main.config.AttributeGroup;
+import de.bsvrz.dav.daf.main.config.SystemObject;
+import de.bsvrz.sys.funclib.dambach.util.DatenTools;
+
+/**
+ * Modus "nur bei Änderung senden" für {@link ParameterSender} und
+ * {@link ParameterSendeDienst}.<br>
+ * Vor dem Versand wird ein Datensatz mit dem aktuellen Stand unter
+ * asp.parameterSoll aus einem {@link ParameterCache} strukturell verglichen
+ * (siehe {@link DatenTools#gleich(AttributeGroup, Data, Data)}). Stimmt er
+ * überein, wird er nicht gesendet. Ist noch kein Stand bekannt, wird
+ * gesendet.<br>
+ * Der Filter zählt die unterdrückten und die gesendeten Datensätze und kann
+ * von mehreren Sendern gleichzeitig verwendet werden.
+ *
+ * @author Dambach Werke GmbH
+ */
+public class ParameterAenderungsFilter
+{
+  /**
+   * Cache mit den aktuellen Ständen unter asp.parameterSoll
+   */
+  private final ParameterCache _cache;
+
+  /**
+   * Anzahl der nicht gesendeten, unveränderten Datensätze
+   */
+  private final AtomicLong _unterdrueckt = new AtomicLong();
+
+  /**
+   * Anzahl der gesendeten Datensätze
+   */
+  private final AtomicLong _gesendet = new AtomicLong();
+
+  /**
+   * @param cache Cache mit den aktuellen Ständen, wird vom Filter nicht beendet
+   */
+  public ParameterAenderungsFilter(ParameterCache cache)
+  {
+    _cache = cache;
+  }
+
+  /**
+   * @return der Cache mit den aktuellen Ständen
+   */
+  public ParameterCache getCache()
+  {
+    return _cache;
+  }
+
+  /**
+   * Prüft, ob ein Datensatz mit dem aktuellen Stand übereinstimmt, und wartet
+   * dazu beim ersten Zugriff höchstens die angegebene Zeit auf den Stand.
+   * Unveränderte Datensätze werden als unterdrückt gezählt.
+   *
+   * @param obj das Objekt
+   * @param atg die Parameter-ATG des Datensatzes
+   * @param daten der Datensatz
+   * @param wartezeit Zeit in ms, die max. auf den ersten Stand gewartet wird
+   * @return true, wenn der Datensatz nicht gesendet werden muss
+   */
+  public boolean istUnveraendert(SystemObject obj, AttributeGroup atg, Data daten, long wartezeit)
+  {
+    ParameterStand stand = _cache.getStand(obj, atg.getPid());
+
+    if (stand == null && wartezeit > 0)
+    {
+      CompletableFuture<ParameterStand> erster = _cache.erwarteStand(obj, atg.getPid());
+      try
+      {
+        stand = erster.get(wartezeit, TimeUnit.MILLISECONDS);
+      }
+      catch (TimeoutException e)
+      {
+        // ohne Stand senden
+      }
+      catch (ExecutionException e)
+      {
+        // ohne Stand senden
+      }
+      catch (InterruptedException e)
+      {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    return istUnveraendert(stand, atg, daten);
+  }
+
+  /**
+   * Prüft, ob ein Datensatz mit einem Stand übereinstimmt. Unveränderte
+   * Datensätze werden als unterdrückt gezählt.
+   *
+   * @param stand der aktuelle Stand, kann <code>null</code> sein
+   * @param atg die Parameter-ATG des Datensatzes
+   * @param daten der Datensatz
+   * @return true, wenn der Datensatz nicht gesendet werden muss
+   */
+  boolean istUnveraendert(ParameterStand stand, AttributeGroup atg, Data daten)
+  {
+    if (stand == null || !stand.hasData() || !stand.getAttributeGroup().equals(atg))
+    {
+      return false;
+    }
+
+    if (!DatenTools.gleich(atg, stand.getDaten(), daten))
+    {
+      return false;
+    }
+
+    _unterdrueckt.incrementAndGet();
+    return true;
+  }
+
+  /**
+   * Zählt einen gesendeten Datensatz
+   */
+  void gesendet()
+  {
+    _gesendet.incrementAndGet();
+  }
+
+  /**
+   * @return Anzahl der nicht gesendeten, unveränderten Datensätze
+   */
+  public long getAnzahlUnterdrueckt()
+  {
+    return _unterdrueckt.get();
+  }
+
+  /**
+   * @return Anzahl der gesendeten Datensätze
+   */
+  public long getAnzahlGesendet()
+  {
+    return _gesendet.get();
+  }
+
+  /**
+   * Setzt beide Zähler auf 0 zurück
+   */
+  public void zuruecksetzen()
+  {
+    _unterdrueckt.set(0);
+    _gesendet.set(0);
+  }
+}
@@ -0,0 +1,490 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.parameter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import de.bsvrz.dav.daf.main.ClientDavInterface;
+import de.bsvrz.dav.daf.main.ClientReceiverInterface;
+import de.bsvrz.dav.daf.main.Data;
+import de.bsvrz.dav.daf.main.DataDescription;
+import de.bsvrz.dav.daf.main.ReceiveOptions;
+import de.bsvrz.dav.daf.main.ReceiverRole;
+import de.bsvrz.dav.daf.main.ResultData;
+import de.bsvrz.dav.daf.main.config.Aspect;
+import de.bsvrz.dav.daf.main.config.AttributeGroup;
+import de.bsvrz.dav.daf.main.config.SystemObject;
+import de.bsvrz.sys.funclib.dambach.util.DatenTools;
+import de.bsvrz.sys.funclib.debug.Debug;
+
+/**
+ * Laufend aktualisierter Cache für Parameterdatensätze unter asp.parameterSoll.
+ * Im Gegensatz zum {@link ParameterEmpfaenger} bleibt die Empfangsanmeldung je
+ * Objekt und Parameter-ATG nach dem ersten Zugriff bestehen, jeder empfangene
+ * Datensatz wird mit {@link DatenTools#tiefeKopie(AttributeGroup, Data, AttributeGroup, Data)} kopiert und als
+ * nicht veränderbare Kopie in einem neuen {@link ParameterStand} mit fortlaufender Versionsnummer abgelegt.
+ * Änderungen werden an registrierte {@link ParameterCacheListener} gemeldet.<br>
+ * Die Anzahl der Einträge ist begrenzt: wird die Grenze überschritten, wird
+ * der am längsten nicht abgefragte Eintrag entfernt und abgemeldet.<br>
+ * Der Cache ist threadsicher und muss mit {@link #dispose()} beendet werden.
+ *
+ * @author Dambach Werke GmbH
+ */
+public class ParameterCache implements ClientReceiverInterface
+{
+  /**
+   * Debug-Logger für Logging-Ausgaben
+   */
+  private final static Debug _debug = Debug.getLogger();
+
+  /**
+   * Die Datenverteilerverbindung
+   */
+  private final ClientDavInterface _connection;
+
+  /**
+   * Aspekt asp.parameterSoll
+   */
+  private final Aspect _aspSoll;
+
+  /**
+   * Maximale Anzahl der Einträge
+   */
+  private final int _maxEintraege;
+
+  /**
+   * Einträge für den Zugriff beim Empfang (ohne Einfluss auf die Reihenfolge der Nutzung)
+   */
+  private final ConcurrentHashMap<Schluessel, Eintrag> _eintraege = new ConcurrentHashMap<Schluessel, Eintrag>();
+
+  /**
+   * Einträge in der Reihenfolge der letzten Abfrage, Zugriff nur unter der Sperre des Caches
+   */
+  private final LinkedHashMap<Schluessel, Eintrag> _nutzung = new LinkedHashMap<Schluessel, Eintrag>(16, 0.75f, true);
+
+  /**
+   * Registrierte Listener
+   */
+  private final CopyOnWriteArrayList<ParameterCacheListener> _listener = new CopyOnWriteArrayList<ParameterCacheListener>();
+
+  /**
+   * Konstruiert einen Cache.
+   *
+   * @param con die Datenverteilerverbindung
+   * @param maxEintraege maximale Anzahl der Einträge (Objekt und Parameter-ATG)
+   */
+  public ParameterCache(ClientDavInterface con, int maxEintraege)
+  {
+    if (maxEintraege < 1)
+    {
+      throw new IllegalArgumentException("Maximale Anzahl Einträge muss größer 0 sein: " + maxEintraege);
+    }
+
+    _connection = con;
+    _maxEintraege = maxEintraege;
+    _aspSoll = con.getDataModel().getAspect("asp.parameterSoll");
+  }
+
+  /**
+   * Liefert den aktuellen Stand der Parameter eines Objekts. Beim ersten
+   * Zugriff wird das Objekt zum Empfang angemeldet, bis zum Eintreffen des
+   * ersten Datensatzes wird <code>null</code> geliefert.
+   *
+   * @param obj das Objekt
+   * @param atgPid die PID der Parameter-ATG
+   * @return der aktuelle Stand oder <code>null</code>, solange noch kein Datensatz empfangen wurde
+   */
+  public ParameterStand getStand(SystemObject obj, String atgPid)
+  {
+    return eintrag(obj, atgPid).stand;
+  }
+
+  /**
+   * Liefert ein Future mit dem aktuellen Stand der Parameter eines Objekts,
+   * das beim ersten Zugriff mit dem ersten empfangenen Datensatz und sonst
+   * sofort abgeschlossen wird.
+   *
+   * @param obj das Objekt
+   * @param atgPid die PID der Parameter-ATG
+   * @return Future mit dem aktuellen Stand
+   */
+  public CompletableFuture<ParameterStand> erwarteStand(SystemObject obj, String atgPid)
+  {
+    Eintrag eintrag = eintrag(obj, atgPid);
+    ParameterStand stand = eintrag.stand;
+
+    return (stand != null) ? CompletableFuture.completedFuture(stand) : eintrag.erster;
+  }
+
+  /**
+   * Meldet die Parameter mehrerer Objekte mit einem Aufruf zum Empfang an,
+   * sofern sie noch nicht im Cache sind.
+   *
+   * @param objekte die Objekte
+   * @param atgPid die PID der Parameter-ATG
+   */
+  public void vorladen(Collection<SystemObject> objekte, String atgPid)
+  {
+    AttributeGroup atg = _connection.getDataModel().getAttributeGroup(atgPid);
+    List<Eintrag> neu = new ArrayList<Eintrag>();
+    List<Eintrag> entfernt = new ArrayList<Eintrag>();
+
+    synchronized(this)
+    {
+      for (SystemObject obj: objekte)
+      {
+        Schluessel schluessel = new Schluessel(obj, atg);
+        if (_nutzung.get(schluessel) == null)
+        {
+          Eintrag eintrag = new Eintrag(obj, new DataDescription(atg, _aspSoll));
+          _nutzung.put(schluessel, eintrag);
+          _eintraege.put(schluessel, eintrag);
+          neu.add(eintrag);
+        }
+      }
+      verdraengen(entfernt);
+    }
+
+    abmelden(entfernt);
+
+    List<SystemObject> anmelden = new ArrayList<SystemObject>(neu.size());
+    for (Eintrag eintrag: neu)
+    {
+      synchronized(eintrag)
+      {
+        if (!eintrag.entfernt)
+        {
+          eintrag.anmeldend = true;
+          anmelden.add(eintrag.objekt);
+        }
+      }
+    }
+
+    if (!anmelden.isEmpty())
+    {
+      _connection.subscribeReceiver(this, anmelden, new DataDescription(atg, _aspSoll),
+          ReceiveOptions.normal(), ReceiverRole.receiver());
+      _debug.finest(atg.getPid() + " zum Empfang angemeldet für " + anmelden.size() + " Objekte");
+
+      /* Während der Anmeldung verdrängte Einträge konnten noch nicht abgemeldet werden */
+      for (Eintrag eintrag: neu)
+      {
+        synchronized(eintrag)
+        {
+          if (!eintrag.anmeldend)
+          {
+            continue;
+          }
+          eintrag.anmeldend = false;
+          if (eintrag.entfernt)
+          {
+            _connection.unsubscribeReceiver(this, eintrag.objekt, eintrag.datenBeschreibung);
+          }
+          else
+          {
+            eintrag.angemeldet = true;
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Entfernt die Parameter eines Objekts aus dem Cache und meldet den Empfang ab.
+   *
+   * @param obj das Objekt
+   * @param atgPid die PID der Parameter-ATG
+   */
+  public void entferne(SystemObject obj, String atgPid)
+  {
+    Schluessel schluessel = new Schluessel(obj, _connection.getDataModel().getAttributeGroup(atgPid));
+    Eintrag eintrag;
+
+    synchronized(this)
+    {
+      eintrag = _nutzung.remove(schluessel);
+      _eintraege.remove(schluessel);
+    }
+
+    if (eintrag != null)
+    {
+      abmelden(eintrag);
+    }
+  }
+
+  /**
+   * @return Anzahl der Einträge im Cache
+   */
+  public synchronized int getAnzahl()
+  {
+    return _nutzung.size();
+  }
+
+  /**
+   * @param listener Listener, der über geänderte Parameter informiert wird
+   */
+  public void addListener(ParameterCacheListener listener)
+  {
+    _listener.add(listener);
+  }
+
+  /**
+   * @param listener zu entfernender Listener
+   */
+  public void removeListener(ParameterCacheListener listener)
+  {
+    _listener.remove(listener);
+  }
+
+  /**
+   * Entfernt alle Einträge und meldet den Empfang ab.
+   */
+  public void dispose()
+  {
+    List<Eintrag> alle;
+
+    synchronized(this)
+    {
+      alle = new ArrayList<Eintrag>(_nutzung.values());
+      _nutzung.clear();
+      _eintraege.clear();
+    }
+
+    abmelden(alle);
+    _listener.clear();
+  }
+
+  /**
+   * Bestimmt den Eintrag für Objekt und Parameter-ATG, legt ihn bei Bedarf an
+   * und meldet ihn zum Empfang an. Der Eintrag wird als zuletzt genutzt markiert.
+   */
+  private Eintrag eintrag(SystemObject obj, String atgPid)
+  {
+    AttributeGroup atg = _connection.getDataModel().getAttributeGroup(atgPid);
+    Schluessel schluessel = new Schluessel(obj, atg);
+    List<Eintrag> entfernt = new ArrayList<Eintrag>();
+    Eintrag eintrag;
+
+    synchronized(this)
+    {
+      eintrag = _nutzung.get(schluessel);
+      if (eintrag == null)
+      {
+        eintrag = new Eintrag(obj, new DataDescription(atg, _aspSoll));
+        _nutzung.put(schluessel, eintrag);
+        _eintraege.put(schluessel, eintrag);
+        verdraengen(entfernt);
+      }
+    }
+
+    abmelden(entfernt);
+
+    synchronized(eintrag)
+    {
+      if (!eintrag.angemeldet && !eintrag.anmeldend && !eintrag.entfernt)
+      {
+        _connection.subscribeReceiver(this, obj, eintrag.datenBeschreibung,
+            ReceiveOptions.normal(), ReceiverRole.receiver());
+        eintrag.angemeldet = true;
+        _debug.finest(eintrag.datenBeschreibung + " zum Empfang angemeldet für " + obj);
+      }
+    }
+
+    return eintrag;
+  }
+
+  /**
+   * Entfernt die am längsten nicht genutzten Einträge, bis die maximale Anzahl
+   * eingehalten ist. Nur unter der Sperre des Caches aufzurufen.
+   *
+   * @param entfernt nimmt die entfernten Einträge zum Abmelden auf
+   */
+  private void verdraengen(List<Eintrag> entfernt)
+  {
+    Iterator<Map.Entry<Schluessel, Eintrag>> it = _nutzung.entrySet().iterator();
+
+    while (_nutzung.size() > _maxEintraege && it.hasNext())
+    {
+      Map.Entry<Schluessel, Eintrag> aeltester = it.next();
+      it.remove();
+      _eintraege.remove(aeltester.getKey());
+      entfernt.add(aeltester.getValue());
+    }
+  }
+
+  /**
+   * Meldet entfernte Einträge ab, außerhalb der Sperre des Caches
+   */
+  private void abmelden(List<Eintrag> eintraege)
+  {
+    for (Eintrag eintrag: eintraege)
+    {
+      abmelden(eintrag);
+    }
+  }
+
+  /**
+   * Meldet einen entfernten Eintrag ab
+   */
+  private void abmelden(Eintrag eintrag)
+  {
+    synchronized(eintrag)
+    {
+      eintrag.entfernt = true;
+      if (eintrag.angemeldet)
+      {
+        _connection.unsubscribeReceiver(this, eintrag.objekt, eintrag.datenBeschreibung);
+        eintrag.angemeldet = false;
+        _debug.finest("Empfang abgemeldet von " + eintrag.datenBeschreibung + " für " + eintrag.objekt);
+      }
+    }
+    eintrag.erster.complete(null);
+  }
+
+  /*
+   * (Kein Javadoc)
+   * @see de.bsvrz.dav.daf.main.ClientReceiverInterface#update(de.bsvrz.dav.daf.main.ResultData[])
+   */
+  public void update(ResultData[] resultData)
+  {
+    for (ResultData data: resultData)
+    {
+      if (!data.getDataDescription().getAspect().equals(_aspSoll))
+      {
+        continue;
+      }
+
+      AttributeGroup atg = data.getDataDescription().getAttributeGroup();
+      Eintrag eintrag = _eintraege.get(new Schluessel(data.getObject(), atg));
+      if (eintrag == null)
+      {
+        continue;
+      }
+
+      Data kopie = null;
+      if (data.hasData())
+      {
+        Data puffer = _connection.createData(atg);
+        DatenTools.tiefeKopie(atg, data.getData(), atg, puffer);
+        kopie = puffer.createUnmodifiableCopy();
+      }
+
+      ParameterStand alt = eintrag.stand;
+      ParameterStand neu = new ParameterStand(data.getObject(), atg, data.getDataTime(), kopie,
+          (alt != null) ? alt.getVersion() + 1 : 1);
+      eintrag.stand = neu;
+      eintrag.erster.complete(neu);
+
+      _debug.finer("Parameter-Daten empfangen von " + atg.getPid() + " für " + data.getObject().getPid() +
+          ", Version " + neu.getVersion());
+
+      for (ParameterCacheListener listener: _listener)
+      {
+        try
+        {
+          listener.parameterGeaendert(alt, neu);
+        }
+        catch (RuntimeException e)
+        {
+          _debug.error("Fehler im ParameterCacheListener " + listener, e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Schlüssel eines Eintrags aus Objekt und Parameter-ATG
+   */
+  private static final class Schluessel
+  {
+    private final long objekt;
+    private final long atg;
+
+    Schluessel(SystemObject obj, AttributeGroup a)
+    {
+      objekt = obj.getId();
+      atg = a.getId();
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+      if (!(o instanceof Schluessel))
+      {
+        return false;
+      }
+      Schluessel s = (Schluessel)o;
+      return objekt == s.objekt && atg == s.atg;
+    }
+
+    @Override
+    public int hashCode()
+    {
+      long h = objekt * 31 + atg;
+      return (int)(h ^ (h >>> 32));
+    }
+  }
+
+  /**
+   * Eintrag des Caches für ein Objekt und eine Parameter-ATG. Die Felder
+   * anmeldend, angemeldet und entfernt werden unter der Sperre des Eintrags gelesen und
+   * geschrieben, der Stand wird nur im Empfangsthread geschrieben.
+   */
+  private static final class Eintrag
+  {
+    final SystemObject objekt;
+    final DataDescription datenBeschreibung;
+
+    /** Aktueller Stand, null solange noch kein Datensatz empfangen wurde */
+    volatile ParameterStand stand = null;
+
+    /** Wird mit dem ersten Stand abgeschlossen, mit null wenn der Eintrag vorher entfernt wird */
+    final CompletableFuture<ParameterStand> erster = new CompletableFuture<ParameterStand>();
+
+    /** Ist auf true gesetzt, solange die Anmeldung mit {@link ParameterCache#vorladen(Collection, String)} läuft */
+    boolean anmeldend = false;
+
+    /** Ist auf true gesetzt, solange der Empfang angemeldet ist */
+    boolean angemeldet = false;
+
+    /** Ist auf true gesetzt, nachdem der Eintrag aus dem Cache entfernt wurde */
+    boolean entfernt = false;
+
+    Eintrag(SystemObject obj, DataDescription dd)
+    {
+      objekt = obj;
+      datenBeschreibung = dd;
+    }
+  }
+}
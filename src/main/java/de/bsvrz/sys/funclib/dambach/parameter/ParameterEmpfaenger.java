@@ -44,7 +44,9 @@ import de.bsvrz.sys.funclib.debug.Debug;
  * einer Ziel-ATG. Der Datensatz der Ziel-ATG wird mit
  * {@link de.bsvrz.dav.daf.main.ClientDavInterface#createData(AttributeGroup)}
  * erzeugt und muss die Struktur des Quelldatensatzes exakt enthalten. muss, aber eine unterschiedliche ATG haben
- * Die Empfangs-Anmeldung -und Abmeldung erfolgt im Konstruktor.
+ * Die Empfangs-Anmeldung -und Abmeldung erfolgt im Konstruktor.<br>
+ * Zum Lesen der Parameter vieler Objekte ohne Blockieren sollte statt dessen
+ * {@link ParameterEmpfaengerAsynchron} verwendet werden.
  * 
  * @author Dambach Werke GmbH
  * @author Stefan Sans
@@ -176,7 +178,7 @@ public class ParameterEmpfaenger implements ClientReceiverInterface
         if (data.hasData())
         {
             Data datenSatz = connection.createData(datenBeschreibungZiel.getAttributeGroup());
-            DatenTools.tiefeKopie(data.getData(), datenSatz);
+            DatenTools.tiefeKopie(atg, data.getData(), datenBeschreibungZiel.getAttributeGroup(), datenSatz);
             _data = new ResultData(davObjekt, datenBeschreibungZiel, data.getDataTime(), datenSatz);
             _debug.fine("Bestehende Parameter-Daten empfangen von " + 
                 atg.getPid() +  " für " + davObjekt.getPid());
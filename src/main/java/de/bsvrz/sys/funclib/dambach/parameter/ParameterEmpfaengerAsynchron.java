@@ -0,0 +1,348 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.parameter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import de.bsvrz.dav.daf.main.ClientDavInterface;
+import de.bsvrz.dav.daf.main.ClientReceiverInterface;
+import de.bsvrz.dav.daf.main.Data;
+import de.bsvrz.dav.daf.main.DataDescription;
+import de.bsvrz.dav.daf.main.ReceiveOptions;
+import de.bsvrz.dav.daf.main.ReceiverRole;
+import de.bsvrz.dav.daf.main.ResultData;
+import de.bsvrz.dav.daf.main.config.Aspect;
+import de.bsvrz.dav.daf.main.config.AttributeGroup;
+import de.bsvrz.dav.daf.main.config.SystemObject;
+import de.bsvrz.sys.funclib.dambach.util.DatenTools;
+import de.bsvrz.sys.funclib.debug.Debug;
+
+/**
+ * Asynchrones Empfangen der Parameterdatensätze vieler Objekte.
+ * Wie {@link ParameterEmpfaenger} wird ein Datensatz einer Quell-ATG unter
+ * asp.parameterSoll empfangen und in einen Datensatz der Ziel-ATG kopiert.
+ * Alle Objekte werden im Konstruktor mit einem Aufruf angemeldet, der
+ * Konstruktor kehrt sofort zurück. Für jedes Objekt liefert
+ * {@link #getErgebnis(SystemObject)} ein Future, das mit dem ersten
+ * empfangenen Datensatz abgeschlossen wird. Für alle Objekte gilt eine
+ * gemeinsame Wartezeit, nach deren Ablauf die noch offenen Futures mit
+ * <code>null</code> abgeschlossen werden (wie {@link ParameterEmpfaenger#getData()}).
+ * Sobald alle Futures abgeschlossen sind, werden alle Objekte mit einem Aufruf
+ * abgemeldet.<br>
+ * Die Futures werden im Empfangsthread des Datenverteilers abgeschlossen,
+ * aufwändige Folgeaktionen sollten daher asynchron angehängt werden.
+ *
+ * @author Dambach Werke GmbH
+ */
+public class ParameterEmpfaengerAsynchron implements ClientReceiverInterface
+{
+  /**
+   * Debug-Logger für Logging-Ausgaben
+   */
+  private final static Debug _debug = Debug.getLogger();
+
+  /**
+   * Thread für die Wartezeiten und das Abmelden aller asynchronen Empfänger
+   */
+  private final static ScheduledExecutorService _zeitgeber = erzeugeZeitgeber();
+
+  /**
+   * Die Datenverteilerverbindung
+   */
+  private final ClientDavInterface _connection;
+
+  /**
+   * Datenbeschreibung der Daten, die aus der Parametrierung gelesen werden
+   */
+  private final DataDescription _datenBeschreibungQuell;
+
+  /**
+   * Datenbeschreibung unter der die Daten zurückgegeben werden
+   */
+  private final DataDescription _datenBeschreibungZiel;
+
+  /**
+   * Angemeldete Objekte
+   */
+  private final SystemObject[] _objekte;
+
+  /**
+   * Ergebnis je Objekt
+   */
+  private final Map<SystemObject, CompletableFuture<ResultData>> _ergebnisse;
+
+  /**
+   * Anzahl der noch offenen Ergebnisse
+   */
+  private final AtomicInteger _offen;
+
+  /**
+   * Ist auf true gesetzt, sobald die Abmeldung veranlasst wurde
+   */
+  private final AtomicBoolean _abgemeldet = new AtomicBoolean(false);
+
+  /**
+   * Ablauf der gemeinsamen Wartezeit
+   */
+  private volatile ScheduledFuture<?> _timeout = null;
+
+  /**
+   * Meldet die Objekte zum Empfang an und wartet max. {@link ParameterEmpfaenger#TIMEOUT} ms.
+   *
+   * @param con die Datenverteilerverbindung
+   * @param objekte die Objekte, deren Parameter gelesen werden
+   * @param atgQuellPid die PID der Parameter-ATG, die unter asp.parameterSoll gelesen wird
+   * @param datenBeschreibungZiel Datenbeschreibung unter der die Daten zurückgegeben werden
+   */
+  public ParameterEmpfaengerAsynchron(ClientDavInterface con, Collection<SystemObject> objekte,
+      String atgQuellPid, DataDescription datenBeschreibungZiel)
+  {
+    this(con, objekte, atgQuellPid, datenBeschreibungZiel, ParameterEmpfaenger.TIMEOUT);
+  }
+
+  /**
+   * Meldet die Objekte zum Empfang an.
+   *
+   * @param con die Datenverteilerverbindung
+   * @param objekte die Objekte, deren Parameter gelesen werden
+   * @param atgQuellPid die PID der Parameter-ATG, die unter asp.parameterSoll gelesen wird
+   * @param datenBeschreibungZiel Datenbeschreibung unter der die Daten zurückgegeben werden
+   * @param timeout gemeinsame Wartezeit in ms für alle Objekte
+   */
+  public ParameterEmpfaengerAsynchron(ClientDavInterface con, Collection<SystemObject> objekte,
+      String atgQuellPid, DataDescription datenBeschreibungZiel, long timeout)
+  {
+    _connection = con;
+
+    AttributeGroup atg = _connection.getDataModel().getAttributeGroup(atgQuellPid);
+    Aspect asp = _connection.getDataModel().getAspect("asp.parameterSoll");
+    _datenBeschreibungQuell = new DataDescription(atg, asp);
+    _datenBeschreibungZiel = datenBeschreibungZiel;
+
+    _ergebnisse = new LinkedHashMap<SystemObject, CompletableFuture<ResultData>>();
+    for (SystemObject objekt: objekte)
+    {
+      _ergebnisse.put(objekt, new CompletableFuture<ResultData>());
+    }
+    _objekte = _ergebnisse.keySet().toArray(new SystemObject[_ergebnisse.size()]);
+    _offen = new AtomicInteger(_objekte.length);
+
+    if (_objekte.length == 0)
+    {
+      _abgemeldet.set(true);
+      return;
+    }
+
+    _connection.subscribeReceiver(this, _objekte, _datenBeschreibungQuell,
+        ReceiveOptions.normal(), ReceiverRole.receiver());
+    _debug.finest(_datenBeschreibungQuell + " zum Empfang angemeldet für " + _objekte.length + " Objekte");
+
+    /* Die Wartezeit beginnt erst nach der Anmeldung, damit nicht vor der Anmeldung abgemeldet wird */
+    _timeout = _zeitgeber.schedule(new Runnable()
+    {
+      public void run()
+      {
+        zeitAbgelaufen();
+      }
+    }, timeout, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * @param objekt ein angemeldetes Objekt
+   * @return Future mit den empfangenen Daten, abgeschlossen mit <code>null</code>
+   * wenn innerhalb der Wartezeit keine Daten empfangen wurden
+   * @throws IllegalArgumentException wenn das Objekt nicht angemeldet wurde
+   */
+  public CompletableFuture<ResultData> getErgebnis(SystemObject objekt)
+  {
+    CompletableFuture<ResultData> ergebnis = _ergebnisse.get(objekt);
+    if (ergebnis == null)
+    {
+      throw new IllegalArgumentException("Objekt nicht angemeldet: " + objekt);
+    }
+    return ergebnis;
+  }
+
+  /**
+   * @return die Futures aller Objekte in der Reihenfolge der Anmeldung
+   */
+  public Map<SystemObject, CompletableFuture<ResultData>> getErgebnisse()
+  {
+    return Collections.unmodifiableMap(_ergebnisse);
+  }
+
+  /**
+   * @return Future, das abgeschlossen wird, sobald für alle Objekte Daten
+   * empfangen wurden oder die Wartezeit abgelaufen ist. Objekte ohne Daten
+   * sind mit <code>null</code> enthalten.
+   */
+  public CompletableFuture<Map<SystemObject, ResultData>> getAlle()
+  {
+    CompletableFuture<?>[] alle = _ergebnisse.values().toArray(new CompletableFuture<?>[_ergebnisse.size()]);
+
+    return CompletableFuture.allOf(alle).thenApply(new Function<Void, Map<SystemObject, ResultData>>()
+    {
+      public Map<SystemObject, ResultData> apply(Void v)
+      {
+        Map<SystemObject, ResultData> ergebnis = new LinkedHashMap<SystemObject, ResultData>();
+        for (Map.Entry<SystemObject, CompletableFuture<ResultData>> eintrag: _ergebnisse.entrySet())
+        {
+          ergebnis.put(eintrag.getKey(), eintrag.getValue().join());
+        }
+        return ergebnis;
+      }
+    });
+  }
+
+  /**
+   * Bricht den Empfang ab. Noch offene Futures werden mit <code>null</code>
+   * abgeschlossen, alle Objekte werden abgemeldet.
+   */
+  public void abbrechen()
+  {
+    zeitAbgelaufen();
+  }
+
+  /**
+   * Schließt alle offenen Futures mit <code>null</code> ab und meldet ab
+   */
+  private void zeitAbgelaufen()
+  {
+    List<SystemObject> ohneDaten = new ArrayList<SystemObject>();
+
+    for (Map.Entry<SystemObject, CompletableFuture<ResultData>> eintrag: _ergebnisse.entrySet())
+    {
+      if (eintrag.getValue().complete(null))
+      {
+        ohneDaten.add(eintrag.getKey());
+        _offen.decrementAndGet();
+      }
+    }
+
+    if (!ohneDaten.isEmpty())
+    {
+      _debug.warning("Keine Parameter-Daten empfangen von " +
+          _datenBeschreibungQuell.getAttributeGroup().getPid() + " für " + ohneDaten.size() +
+          " von " + _objekte.length + " Objekten, z. B. " + ohneDaten.get(0).getPid());
+    }
+
+    abmelden();
+  }
+
+  /**
+   * Meldet alle Objekte mit einem Aufruf ab, höchstens einmal
+   */
+  private void abmelden()
+  {
+    if (!_abgemeldet.compareAndSet(false, true))
+    {
+      return;
+    }
+
+    ScheduledFuture<?> timeout = _timeout;
+    if (timeout != null)
+    {
+      timeout.cancel(false);
+    }
+
+    _connection.unsubscribeReceiver(this, _objekte, _datenBeschreibungQuell);
+    _debug.finest("Empfang abgemeldet von " + _datenBeschreibungQuell + " für " + _objekte.length + " Objekte");
+  }
+
+  /*
+   * (Kein Javadoc)
+   * @see de.bsvrz.dav.daf.main.ClientReceiverInterface#update(de.bsvrz.dav.daf.main.ResultData[])
+   */
+  public void update(ResultData[] resultData)
+  {
+    for (ResultData data: resultData)
+    {
+      Aspect asp = data.getDataDescription().getAspect();
+      AttributeGroup atg = data.getDataDescription().getAttributeGroup();
+
+      if (!atg.equals(_datenBeschreibungQuell.getAttributeGroup()) ||
+          !asp.equals(_datenBeschreibungQuell.getAspect()))
+      {
+        continue;
+      }
+
+      CompletableFuture<ResultData> ergebnis = _ergebnisse.get(data.getObject());
+      if (ergebnis == null || ergebnis.isDone())
+      {
+        continue;
+      }
+
+      ResultData ziel;
+      if (data.hasData())
+      {
+        Data datenSatz = _connection.createData(_datenBeschreibungZiel.getAttributeGroup());
+        DatenTools.tiefeKopie(atg, data.getData(), _datenBeschreibungZiel.getAttributeGroup(), datenSatz);
+        ziel = new ResultData(data.getObject(), _datenBeschreibungZiel, data.getDataTime(), datenSatz);
+        _debug.fine("Bestehende Parameter-Daten empfangen von " +
+            atg.getPid() +  " für " + data.getObject().getPid());
+      }
+      else
+      {
+        ziel = new ResultData(data.getObject(), _datenBeschreibungZiel, data.getDataTime(), null);
+      }
+
+      if (ergebnis.complete(ziel) && _offen.decrementAndGet() == 0)
+      {
+        /* Abmeldung nicht im Empfangsthread des Datenverteilers */
+        _zeitgeber.execute(new Runnable()
+        {
+          public void run()
+          {
+            abmelden();
+          }
+        });
+      }
+    }
+  }
+
+  /**
+   * @return Thread für Wartezeiten und Abmeldungen
+   */
+  private static ScheduledExecutorService erzeugeZeitgeber()
+  {
+    ScheduledThreadPoolExecutor zeitgeber = new ScheduledThreadPoolExecutor(1, new DaemonThreads("ParameterEmpfaengerAsynchron"));
+    zeitgeber.setRemoveOnCancelPolicy(true);
+    return zeitgeber;
+  }
+}
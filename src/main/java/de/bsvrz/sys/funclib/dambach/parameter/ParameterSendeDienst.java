@@ -0,0 +1,800 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.parameter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import de.bsvrz.dav.daf.main.ClientDavInterface;
+import de.bsvrz.dav.daf.main.Data;
+import de.bsvrz.dav.daf.main.DataNotSubscribedException;
+import de.bsvrz.dav.daf.main.DataDescription;
+import de.bsvrz.dav.daf.main.ResultData;
+import de.bsvrz.dav.daf.main.SendSubscriptionNotConfirmed;
+import de.bsvrz.dav.daf.main.config.Aspect;
+import de.bsvrz.dav.daf.main.config.AttributeGroup;
+import de.bsvrz.dav.daf.main.config.SystemObject;
+import de.bsvrz.sys.funclib.dambach.dav.daf.SendeErgebnis;
+import de.bsvrz.sys.funclib.dambach.dav.daf.SenderRegister;
+import de.bsvrz.sys.funclib.dambach.util.DatenTools;
+import de.bsvrz.sys.funclib.debug.Debug;
+
+/**
+ * Dienst zum Versenden von Parameterdatensätzen unter asp.parameterVorgabe.
+ * Im Gegensatz zum {@link ParameterSender} wird nicht je Datensatz ein Thread
+ * erzeugt: Anmeldung und Versand laufen auf einer festen Anzahl von Threads,
+ * das Warten auf die Sendesteuerung belegt keinen Thread. Die Sendeanmeldungen
+ * werden über ein {@link SenderRegister} verwaltet und von weiteren Aufträgen
+ * wiederverwendet, bis sie länger als dessen Leerlaufzeit unbenutzt waren.<br>
+ * Mit {@link #sendeAlle(Collection)} werden die Datensätze vieler Objekte einer
+ * Attributgruppe mit einer Anmeldung und einem Sendeaufruf übertragen.<br>
+ * Mit {@link #setAenderungsFilter(ParameterAenderungsFilter)} werden Parameter,
+ * die mit dem aktuellen Stand unter asp.parameterSoll übereinstimmen, nicht gesendet.<br>
+ * Das Ergebnis jedes Auftrags wird über ein {@link CompletableFuture}
+ * gemeldet (siehe {@link ParameterSendeErgebnis}).<br>
+ * Der Dienst ist threadsicher und muss mit {@link #dispose()} beendet werden.
+ *
+ * @author Dambach Werke GmbH
+ */
+public class ParameterSendeDienst
+{
+  /**
+   * Debug-Logger für Logging-Ausgaben
+   */
+  private final static Debug _debug = Debug.getLogger();
+
+  /**
+   * Voreinstellung der Zeit in ms, nach der eine unbenutzte Sendeanmeldung abgemeldet wird
+   */
+  public static final long LEERLAUF = SenderRegister.LEERLAUF;
+
+  /**
+   * Die Datenverteilerverbindung
+   */
+  private final ClientDavInterface _connection;
+
+  /**
+   * Zeit in ms, die max. auf Sendesteuerung gewartet wird
+   */
+  private final long _timeout;
+
+  /**
+   * Threads für Anmeldung und Versand
+   */
+  private final ExecutorService _executor;
+
+  /**
+   * Thread für Timeouts
+   */
+  private final ScheduledExecutorService _zeitgeber;
+
+  /**
+   * Register der Sendeanmeldungen
+   */
+  private final SenderRegister _register;
+
+  /**
+   * Ist auf true gesetzt, wenn das Register mit dem Dienst beendet wird
+   */
+  private final boolean _eigenesRegister;
+
+  /**
+   * Nicht abgeschlossene Aufträge
+   */
+  private final Set<Auftrag> _offen = Collections.newSetFromMap(new ConcurrentHashMap<Auftrag, Boolean>());
+
+  /**
+   * Aspekt asp.parameterVorgabe
+   */
+  private final Aspect _aspVorgabe;
+
+  /**
+   * Filter für den Modus "nur bei Änderung senden", null wenn immer gesendet wird
+   */
+  private volatile ParameterAenderungsFilter _filter = null;
+
+  /**
+   * Konstruiert einen Dienst mit der Wartezeit {@link ParameterSender#TIMEOUT},
+   * der das gemeinsame {@link SenderRegister} der Verbindung verwendet.
+   *
+   * @param con die Datenverteilerverbindung
+   * @param anzahlThreads Anzahl der Threads für Anmeldung und Versand
+   */
+  public ParameterSendeDienst(ClientDavInterface con, int anzahlThreads)
+  {
+    this(con, anzahlThreads, ParameterSender.TIMEOUT, SenderRegister.getInstanz(con), false);
+  }
+
+  /**
+   * Konstruiert einen Dienst mit einem eigenen {@link SenderRegister}, das mit
+   * dem Dienst beendet wird.
+   *
+   * @param con die Datenverteilerverbindung
+   * @param anzahlThreads Anzahl der Threads für Anmeldung und Versand
+   * @param timeout Zeit in ms, die max. auf Sendesteuerung gewartet wird
+   * @param leerlauf Zeit in ms, nach der eine unbenutzte Sendeanmeldung abgemeldet wird
+   */
+  public ParameterSendeDienst(ClientDavInterface con, int anzahlThreads, long timeout, long leerlauf)
+  {
+    this(con, anzahlThreads, timeout, new SenderRegister(con, leerlauf), true);
+  }
+
+  /**
+   * Konstruiert einen Dienst, der das angegebene Register verwendet.
+   *
+   * @param con die Datenverteilerverbindung
+   * @param anzahlThreads Anzahl der Threads für Anmeldung und Versand
+   * @param timeout Zeit in ms, die max. auf Sendesteuerung gewartet wird
+   * @param register das Register der Sendeanmeldungen, wird von {@link #dispose()} nicht beendet
+   */
+  public ParameterSendeDienst(ClientDavInterface con, int anzahlThreads, long timeout, SenderRegister register)
+  {
+    this(con, anzahlThreads, timeout, register, false);
+  }
+
+  private ParameterSendeDienst(ClientDavInterface con, int anzahlThreads, long timeout, SenderRegister register,
+      boolean eigenesRegister)
+  {
+    if (anzahlThreads < 1)
+    {
+      if (eigenesRegister)
+      {
+        register.dispose();
+      }
+      throw new IllegalArgumentException("Anzahl Threads muss größer 0 sein: " + anzahlThreads);
+    }
+
+    _connection = con;
+    _timeout = timeout;
+    _register = register;
+    _eigenesRegister = eigenesRegister;
+    _aspVorgabe = con.getDataModel().getAspect("asp.parameterVorgabe");
+
+    _executor = new ThreadPoolExecutor(anzahlThreads, anzahlThreads, 0L, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<Runnable>(), new DaemonThreads("ParameterSendeDienst"));
+
+    ScheduledThreadPoolExecutor zeitgeber = new ScheduledThreadPoolExecutor(1, new DaemonThreads("ParameterSendeDienst-Zeitgeber"));
+    zeitgeber.setRemoveOnCancelPolicy(true);
+    _zeitgeber = zeitgeber;
+  }
+
+  /**
+   * Kopiert die Daten auf die angegebene Parameter-ATG und sendet sie unter
+   * asp.parameterVorgabe (wie {@link ParameterSender}).
+   *
+   * @param obj das Objekt, für das gesendet wird
+   * @param data die Daten, die gesendet werden sollen
+   * @param atgPid die PID der Parameter-ATG, auf die die Daten kopiert werden sollen
+   * @return Ergebnis des Versands
+   */
+  public CompletableFuture<ParameterSendeErgebnis> sende(SystemObject obj, ResultData data, String atgPid)
+  {
+    AttributeGroup atg = _connection.getDataModel().getAttributeGroup(atgPid);
+    DataDescription datenBeschreibung = new DataDescription(atg, _aspVorgabe);
+
+    Data datenSatz = _connection.createData(atg);
+    DatenTools.tiefeKopie(data.getDataDescription().getAttributeGroup(), data.getData(), atg, datenSatz);
+
+    return sende(new ResultData(obj, datenBeschreibung, data.getDataTime(), datenSatz));
+  }
+
+  /**
+   * Sendet einen Datensatz unverändert. Objekt und Datenbeschreibung werden
+   * dem Datensatz entnommen. Wartet bereits ein Datensatz für dieselbe
+   * Datenidentifikation auf die Sendesteuerung, wird dieser ersetzt (siehe
+   * {@link ParameterSendeErgebnis#ERSETZT}). Ist ein {@link ParameterAenderungsFilter}
+   * gesetzt, werden Datensätze unter asp.parameterVorgabe, die mit dem aktuellen
+   * Stand übereinstimmen, nicht gesendet (siehe {@link ParameterSendeErgebnis#UNVERAENDERT}).
+   *
+   * @param daten die Daten, die gesendet werden sollen
+   * @return Ergebnis des Versands
+   */
+  public CompletableFuture<ParameterSendeErgebnis> sende(final ResultData daten)
+  {
+    final ParameterAenderungsFilter filter = _filter;
+    if (filter == null || !daten.getDataDescription().getAspect().equals(_aspVorgabe))
+    {
+      return sendeOhnePruefung(daten);
+    }
+
+    final AttributeGroup atg = daten.getDataDescription().getAttributeGroup();
+
+    return erwarteStand(filter, daten.getObject(), atg).thenCompose(
+        new Function<ParameterStand, CompletableFuture<ParameterSendeErgebnis>>()
+    {
+      public CompletableFuture<ParameterSendeErgebnis> apply(ParameterStand stand)
+      {
+        if (filter.istUnveraendert(stand, atg, daten.getData()))
+        {
+          return CompletableFuture.completedFuture(ParameterSendeErgebnis.UNVERAENDERT);
+        }
+
+        return sendeOhnePruefung(daten).thenApply(new Function<ParameterSendeErgebnis, ParameterSendeErgebnis>()
+        {
+          public ParameterSendeErgebnis apply(ParameterSendeErgebnis ergebnis)
+          {
+            if (ergebnis == ParameterSendeErgebnis.GESENDET)
+            {
+              filter.gesendet();
+            }
+            return ergebnis;
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * Kopiert die Daten mehrerer Objekte auf die angegebene Parameter-ATG und
+   * sendet sie unter asp.parameterVorgabe (siehe {@link #sendeAlle(Collection)}).
+   *
+   * @param daten die Daten, die gesendet werden sollen, je Objekt
+   * @param atgPid die PID der Parameter-ATG, auf die die Daten kopiert werden sollen
+   * @return Ergebnis des Versands je Objekt
+   */
+  public CompletableFuture<Map<SystemObject, ParameterSendeErgebnis>> sendeAlle(Map<SystemObject, ResultData> daten, String atgPid)
+  {
+    AttributeGroup atg = _connection.getDataModel().getAttributeGroup(atgPid);
+    DataDescription datenBeschreibung = new DataDescription(atg, _aspVorgabe);
+
+    List<ResultData> kopien = new ArrayList<ResultData>(daten.size());
+    for (Map.Entry<SystemObject, ResultData> eintrag: daten.entrySet())
+    {
+      Data datenSatz = _connection.createData(atg);
+      DatenTools.tiefeKopie(eintrag.getValue().getDataDescription().getAttributeGroup(),
+          eintrag.getValue().getData(), atg, datenSatz);
+      kopien.add(new ResultData(eintrag.getKey(), datenBeschreibung, eintrag.getValue().getDataTime(), datenSatz));
+    }
+
+    return sendeAlle(kopien);
+  }
+
+  /**
+   * Sendet die Datensätze mehrerer Objekte mit derselben Datenbeschreibung.
+   * Alle noch nicht angemeldeten Objekte werden mit einem Aufruf angemeldet,
+   * die Datensätze aller Objekte mit positiver Sendesteuerung werden mit einem
+   * Aufruf als Feld gesendet. Die übrigen warten gleichzeitig mit derselben
+   * Wartezeit auf ihre Sendesteuerung und werden einzeln gesendet, sobald sie
+   * eintrifft.
+   *
+   * @param daten die Daten, die gesendet werden sollen (höchstens ein Datensatz je Objekt)
+   * @return Ergebnis des Versands je Objekt
+   * @throws IllegalArgumentException wenn die Datensätze unterschiedliche Datenbeschreibungen haben
+   * oder ein Objekt mehrfach enthalten ist
+   */
+  public CompletableFuture<Map<SystemObject, ParameterSendeErgebnis>> sendeAlle(Collection<ResultData> daten)
+  {
+    if (daten.isEmpty())
+    {
+      return CompletableFuture.completedFuture(Collections.<SystemObject, ParameterSendeErgebnis>emptyMap());
+    }
+
+    final DataDescription datenBeschreibung = daten.iterator().next().getDataDescription();
+    Set<SystemObject> objekte = new HashSet<SystemObject>();
+
+    for (ResultData datenSatz: daten)
+    {
+      if (!gleicheDatenBeschreibung(datenBeschreibung, datenSatz.getDataDescription()))
+      {
+        throw new IllegalArgumentException("Unterschiedliche Datenbeschreibungen: " +
+            datenBeschreibung + ", " + datenSatz.getDataDescription());
+      }
+      if (!objekte.add(datenSatz.getObject()))
+      {
+        throw new IllegalArgumentException("Mehrere Datensätze für " + datenSatz.getObject().getPid());
+      }
+    }
+
+    final ParameterAenderungsFilter filter = _filter;
+    if (filter == null || !datenBeschreibung.getAspect().equals(_aspVorgabe))
+    {
+      return sendeAlleOhnePruefung(daten, datenBeschreibung);
+    }
+
+    final AttributeGroup atg = datenBeschreibung.getAttributeGroup();
+    final List<ResultData> liste = new ArrayList<ResultData>(daten);
+
+    filter.getCache().vorladen(objekte, atg.getPid());
+
+    final List<CompletableFuture<ParameterStand>> staende = new ArrayList<CompletableFuture<ParameterStand>>(liste.size());
+    for (ResultData datenSatz: liste)
+    {
+      staende.add(erwarteStand(filter, datenSatz.getObject(), atg));
+    }
+
+    return CompletableFuture.allOf(staende.toArray(new CompletableFuture<?>[staende.size()])).thenCompose(
+        new Function<Void, CompletableFuture<Map<SystemObject, ParameterSendeErgebnis>>>()
+    {
+      public CompletableFuture<Map<SystemObject, ParameterSendeErgebnis>> apply(Void v)
+      {
+        final boolean[] unveraendert = new boolean[liste.size()];
+        List<ResultData> geaendert = new ArrayList<ResultData>(liste.size());
+
+        for (int i = 0; i < unveraendert.length; i++)
+        {
+          unveraendert[i] = filter.istUnveraendert(staende.get(i).join(), atg, liste.get(i).getData());
+          if (!unveraendert[i])
+          {
+            geaendert.add(liste.get(i));
+          }
+        }
+
+        return sendeAlleOhnePruefung(geaendert, datenBeschreibung).thenApply(
+            new Function<Map<SystemObject, ParameterSendeErgebnis>, Map<SystemObject, ParameterSendeErgebnis>>()
+        {
+          public Map<SystemObject, ParameterSendeErgebnis> apply(Map<SystemObject, ParameterSendeErgebnis> gesendet)
+          {
+            Map<SystemObject, ParameterSendeErgebnis> ergebnis = new LinkedHashMap<SystemObject, ParameterSendeErgebnis>();
+            for (int i = 0; i < unveraendert.length; i++)
+            {
+              SystemObject obj = liste.get(i).getObject();
+              if (unveraendert[i])
+              {
+                ergebnis.put(obj, ParameterSendeErgebnis.UNVERAENDERT);
+              }
+              else
+              {
+                ParameterSendeErgebnis e = gesendet.get(obj);
+                if (e == ParameterSendeErgebnis.GESENDET)
+                {
+                  filter.gesendet();
+                }
+                ergebnis.put(obj, e);
+              }
+            }
+            return ergebnis;
+          }
+        });
+      }
+    });
+  }
+
+  /**
+   * Setzt den Modus "nur bei Änderung senden": Datensätze unter
+   * asp.parameterVorgabe werden vor dem Versand mit dem aktuellen Stand des
+   * Filters verglichen und bei Übereinstimmung nicht gesendet. Auf den ersten
+   * Stand eines Objekts wird höchstens die Wartezeit auf Sendesteuerung gewartet.
+   *
+   * @param filter der Filter, null wenn immer gesendet werden soll
+   */
+  public void setAenderungsFilter(ParameterAenderungsFilter filter)
+  {
+    _filter = filter;
+  }
+
+  /**
+   * @return der Filter für den Modus "nur bei Änderung senden" oder null
+   */
+  public ParameterAenderungsFilter getAenderungsFilter()
+  {
+    return _filter;
+  }
+
+  /**
+   * Sendet einen Datensatz ohne Vergleich mit dem aktuellen Stand
+   */
+  private CompletableFuture<ParameterSendeErgebnis> sendeOhnePruefung(ResultData daten)
+  {
+    Auftrag auftrag = new Auftrag(daten);
+    starten(Collections.singletonList(auftrag), daten.getDataDescription());
+    return auftrag.ergebnis;
+  }
+
+  /**
+   * Sendet Datensätze derselben Datenbeschreibung ohne Vergleich mit dem aktuellen Stand
+   */
+  private CompletableFuture<Map<SystemObject, ParameterSendeErgebnis>> sendeAlleOhnePruefung(Collection<ResultData> daten,
+      DataDescription datenBeschreibung)
+  {
+    if (daten.isEmpty())
+    {
+      return CompletableFuture.completedFuture(Collections.<SystemObject, ParameterSendeErgebnis>emptyMap());
+    }
+
+    final List<Auftrag> auftraege = new ArrayList<Auftrag>(daten.size());
+    for (ResultData datenSatz: daten)
+    {
+      auftraege.add(new Auftrag(datenSatz));
+    }
+
+    starten(auftraege, datenBeschreibung);
+
+    CompletableFuture<?>[] ergebnisse = new CompletableFuture<?>[auftraege.size()];
+    for (int i = 0; i < ergebnisse.length; i++)
+    {
+      ergebnisse[i] = auftraege.get(i).ergebnis;
+    }
+
+    return CompletableFuture.allOf(ergebnisse).thenApply(new Function<Void, Map<SystemObject, ParameterSendeErgebnis>>()
+    {
+      public Map<SystemObject, ParameterSendeErgebnis> apply(Void v)
+      {
+        Map<SystemObject, ParameterSendeErgebnis> ergebnis = new LinkedHashMap<SystemObject, ParameterSendeErgebnis>();
+        for (Auftrag auftrag: auftraege)
+        {
+          ergebnis.put(auftrag.daten.getObject(), auftrag.ergebnis.join());
+        }
+        return ergebnis;
+      }
+    });
+  }
+
+  /**
+   * @return Anzahl der bestehenden Sendeanmeldungen im Register des Dienstes
+   */
+  public int getAnzahlAnmeldungen()
+  {
+    return _register.getAnzahlAnmeldungen();
+  }
+
+  /**
+   * Beendet den Dienst. Noch nicht abgeschlossene Aufträge werden mit
+   * {@link ParameterSendeErgebnis#FEHLER} beendet, ein eigenes Register wird
+   * beendet und meldet alle Sendeanmeldungen ab.
+   */
+  public void dispose()
+  {
+    _executor.shutdownNow();
+    _zeitgeber.shutdownNow();
+
+    for (Auftrag auftrag: new ArrayList<Auftrag>(_offen))
+    {
+      abschliessen(auftrag, ParameterSendeErgebnis.FEHLER);
+
+      CompletableFuture<SendeErgebnis> versand = auftrag.versand;
+      if (versand != null)
+      {
+        versand.cancel(false);
+      }
+    }
+
+    if (_eigenesRegister)
+    {
+      _register.dispose();
+    }
+  }
+
+  /**
+   * Liefert den aktuellen Stand eines Objekts aus dem Cache des Filters. Auf den
+   * ersten Stand wird höchstens die Wartezeit auf Sendesteuerung gewartet,
+   * danach wird das Future mit <code>null</code> abgeschlossen.
+   */
+  private CompletableFuture<ParameterStand> erwarteStand(ParameterAenderungsFilter filter, SystemObject obj,
+      AttributeGroup atg)
+  {
+    CompletableFuture<ParameterStand> erster = filter.getCache().erwarteStand(obj, atg.getPid());
+    if (erster.isDone())
+    {
+      return erster;
+    }
+
+    final CompletableFuture<ParameterStand> stand = new CompletableFuture<ParameterStand>();
+
+    erster.whenComplete(new BiConsumer<ParameterStand, Throwable>()
+    {
+      public void accept(ParameterStand s, Throwable t)
+      {
+        stand.complete(s);
+      }
+    });
+
+    try
+    {
+      _zeitgeber.schedule(new Runnable()
+      {
+        public void run()
+        {
+          stand.complete(null);
+        }
+      }, Math.max(_timeout, 0), TimeUnit.MILLISECONDS);
+    }
+    catch (RejectedExecutionException e)
+    {
+      stand.complete(null);
+    }
+
+    return stand;
+  }
+
+  /**
+   * Übergibt Aufträge mit derselben Datenbeschreibung an die Threads des Dienstes
+   */
+  private void starten(final List<Auftrag> auftraege, final DataDescription dd)
+  {
+    _offen.addAll(auftraege);
+
+    try
+    {
+      _executor.execute(new Runnable()
+      {
+        public void run()
+        {
+          ausfuehren(auftraege, dd);
+        }
+      });
+    }
+    catch (RejectedExecutionException e)
+    {
+      for (Auftrag auftrag: auftraege)
+      {
+        abschliessen(auftrag, ParameterSendeErgebnis.FEHLER);
+      }
+    }
+  }
+
+  /**
+   * Meldet die Objekte der Aufträge gemeinsam im Register an und übergibt die
+   * Datensätze gemeinsam zum Versand
+   */
+  private void ausfuehren(List<Auftrag> auftraege, DataDescription dd)
+  {
+    List<SystemObject> objekte = new ArrayList<SystemObject>(auftraege.size());
+    for (Auftrag auftrag: auftraege)
+    {
+      objekte.add(auftrag.daten.getObject());
+    }
+
+    try
+    {
+      _register.anmelden(objekte, dd);
+    }
+    catch (RuntimeException e)
+    {
+      _debug.error("Fehler beim Anmelden der Parameter mit " + dd.getAttributeGroup(), e);
+      for (Auftrag auftrag: auftraege)
+      {
+        abschliessen(auftrag, ParameterSendeErgebnis.FEHLER);
+      }
+      return;
+    }
+
+    List<Auftrag> offen = new ArrayList<Auftrag>(auftraege.size());
+    List<ResultData> daten = new ArrayList<ResultData>(auftraege.size());
+
+    for (Auftrag auftrag: auftraege)
+    {
+      synchronized(auftrag)
+      {
+        auftrag.angemeldet = true;
+      }
+
+      if (auftrag.ergebnis.isDone())
+      {
+        /* inzwischen durch dispose abgeschlossen */
+        freigeben(auftrag);
+      }
+      else
+      {
+        offen.add(auftrag);
+        daten.add(auftrag.daten);
+      }
+    }
+
+    if (offen.isEmpty())
+    {
+      return;
+    }
+
+    List<CompletableFuture<SendeErgebnis>> versand = _register.sende(daten);
+    for (int i = 0; i < offen.size(); i++)
+    {
+      verfolgen(offen.get(i), versand.get(i));
+    }
+  }
+
+  /**
+   * Überträgt das Ergebnis des Versands auf den Auftrag und bricht den Versand
+   * ab, wenn nicht innerhalb der Wartezeit gesendet wurde. Nach dem Abbruch
+   * wird ein letztes Mal direkt gesendet.
+   */
+  private void verfolgen(final Auftrag auftrag, final CompletableFuture<SendeErgebnis> versand)
+  {
+    auftrag.versand = versand;
+
+    versand.whenComplete(new BiConsumer<SendeErgebnis, Throwable>()
+    {
+      public void accept(SendeErgebnis ergebnis, Throwable t)
+      {
+        if (t != null)
+        {
+          /* Wartezeit abgelaufen, Versand im Register abgebrochen */
+          letzterVersuch(auftrag);
+        }
+        else
+        {
+          abschliessen(auftrag, uebersetzen(ergebnis));
+        }
+      }
+    });
+
+    if (versand.isDone())
+    {
+      return;
+    }
+
+    if (_timeout <= 0)
+    {
+      versand.cancel(false);
+      return;
+    }
+
+    _debug.finer("Warte max. " + _timeout + "ms auf Sendesteuerung für " + auftrag.daten.getObject().getPid());
+
+    try
+    {
+      auftrag.timeout = _zeitgeber.schedule(new Runnable()
+      {
+        public void run()
+        {
+          versand.cancel(false);
+        }
+      }, _timeout, TimeUnit.MILLISECONDS);
+    }
+    catch (RejectedExecutionException e)
+    {
+      versand.cancel(false);
+    }
+  }
+
+  /**
+   * Sendet den Datensatz eines Auftrags nach Ablauf der Wartezeit ein letztes
+   * Mal direkt (wie {@link ParameterSender}) und schließt den Auftrag mit dem
+   * Ergebnis dieses Versuchs ab. Die Anmeldung im Register wird erst danach
+   * freigegeben.
+   */
+  private void letzterVersuch(Auftrag auftrag)
+  {
+    if (auftrag.ergebnis.isDone())
+    {
+      /* bereits durch dispose abgeschlossen */
+      return;
+    }
+
+    SystemObject obj = auftrag.daten.getObject();
+    try
+    {
+      _connection.sendData(auftrag.daten);
+      _debug.finer("Parameter nach Ablauf der Wartezeit direkt gesendet für " + obj.getPid());
+      abschliessen(auftrag, ParameterSendeErgebnis.GESENDET);
+    }
+    catch (SendSubscriptionNotConfirmed e)
+    {
+      _debug.warning("Keine Sendesteuerung für " + obj.getPid());
+      abschliessen(auftrag, ParameterSendeErgebnis.TIMEOUT);
+    }
+    catch (DataNotSubscribedException e)
+    {
+      _debug.error("Keine Sendeanmeldung bzw. Sendeanmeldung ungültig für " + obj.getPid(), e);
+      abschliessen(auftrag, ParameterSendeErgebnis.FEHLER);
+    }
+  }
+
+  /**
+   * Schließt einen Auftrag ab und gibt seine Anmeldung im Register frei
+   */
+  private void abschliessen(Auftrag auftrag, ParameterSendeErgebnis ergebnis)
+  {
+    ScheduledFuture<?> timeout = auftrag.timeout;
+    if (timeout != null)
+    {
+      timeout.cancel(false);
+    }
+
+    if (auftrag.ergebnis.complete(ergebnis))
+    {
+      _offen.remove(auftrag);
+      freigeben(auftrag);
+    }
+  }
+
+  /**
+   * Gibt die Anmeldung eines Auftrags im Register einmalig frei
+   */
+  private void freigeben(Auftrag auftrag)
+  {
+    synchronized(auftrag)
+    {
+      if (!auftrag.angemeldet || auftrag.freigegeben)
+      {
+        return;
+      }
+      auftrag.freigegeben = true;
+    }
+    _register.abmelden(auftrag.daten.getObject(), auftrag.daten.getDataDescription());
+  }
+
+  /**
+   * @return das Ergebnis des Registers als Ergebnis des Dienstes
+   */
+  private static ParameterSendeErgebnis uebersetzen(SendeErgebnis ergebnis)
+  {
+    switch (ergebnis)
+    {
+      case GESENDET:
+        return ParameterSendeErgebnis.GESENDET;
+      case ERSETZT:
+        return ParameterSendeErgebnis.ERSETZT;
+      case KEINE_SENDESTEUERUNG:
+        return ParameterSendeErgebnis.KEINE_SENDESTEUERUNG;
+      default:
+        return ParameterSendeErgebnis.FEHLER;
+    }
+  }
+
+  /**
+   * @return true, wenn beide Datenbeschreibungen dieselbe Datenidentifikation beschreiben
+   */
+  private static boolean gleicheDatenBeschreibung(DataDescription a, DataDescription b)
+  {
+    return a.getAttributeGroup().getId() == b.getAttributeGroup().getId()
+        && a.getAspect().getId() == b.getAspect().getId()
+        && a.getSimulationVariant() == b.getSimulationVariant();
+  }
+
+  /**
+   * Ein zu sendender Datensatz mit seinem Ergebnis
+   */
+  private static final class Auftrag
+  {
+    final ResultData daten;
+    final CompletableFuture<ParameterSendeErgebnis> ergebnis = new CompletableFuture<ParameterSendeErgebnis>();
+
+    /** Versand im Register, null solange der Datensatz nicht übergeben wurde */
+    volatile CompletableFuture<SendeErgebnis> versand = null;
+
+    /** Timeout des Wartens auf Sendesteuerung, null solange nicht gewartet wurde */
+    volatile ScheduledFuture<?> timeout = null;
+
+    /** Ist auf true gesetzt, nachdem das Objekt im Register angemeldet wurde (Sperre der Instanz) */
+    boolean angemeldet = false;
+
+    /** Ist auf true gesetzt, nachdem die Anmeldung im Register freigegeben wurde (Sperre der Instanz) */
+    boolean freigegeben = false;
+
+    Auftrag(ResultData d)
+    {
+      daten = d;
+    }
+  }
+}
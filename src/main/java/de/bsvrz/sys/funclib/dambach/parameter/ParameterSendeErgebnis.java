@@ -0,0 +1,67 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.parameter;
+
+/**
+ * Ergebnis des Versendens eines Parameterdatensatzes über den {@link ParameterSendeDienst}.
+ *
+ * @author Dambach Werke GmbH
+ */
+public enum ParameterSendeErgebnis
+{
+  /**
+   * Der Datensatz wurde an den Datenverteiler übergeben
+   */
+  GESENDET,
+
+  /**
+   * Der Datensatz wartete auf die Sendesteuerung und wurde durch einen später
+   * übergebenen Datensatz für dasselbe Objekt ersetzt, er wird nicht gesendet
+   */
+  ERSETZT,
+
+  /**
+   * Der Datensatz stimmt mit dem aktuellen Stand unter asp.parameterSoll überein
+   * und wurde nicht gesendet (siehe {@link ParameterAenderungsFilter})
+   */
+  UNVERAENDERT,
+
+  /**
+   * Innerhalb der Wartezeit ist keine positive Sendesteuerung eingetroffen, auch
+   * der letzte direkte Versuch nach Ablauf der Wartezeit war nicht erfolgreich
+   */
+  TIMEOUT,
+
+  /**
+   * Der Datenverteiler hat das Senden abgelehnt (keine Rechte oder ungültige Anmeldung)
+   */
+  KEINE_SENDESTEUERUNG,
+
+  /**
+   * Fehler bei Anmeldung oder Versand, z. B. ungültige Sendeanmeldung oder beendeter Dienst
+   */
+  FEHLER
+}
@@ -25,18 +25,22 @@
 
 package de.bsvrz.sys.funclib.dambach.parameter;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 import de.bsvrz.dav.daf.main.ClientDavInterface;
-import de.bsvrz.dav.daf.main.ClientSenderInterface;
 import de.bsvrz.dav.daf.main.Data;
 import de.bsvrz.dav.daf.main.DataDescription;
 import de.bsvrz.dav.daf.main.DataNotSubscribedException;
-import de.bsvrz.dav.daf.main.OneSubscriptionPerSendData;
 import de.bsvrz.dav.daf.main.ResultData;
 import de.bsvrz.dav.daf.main.SendSubscriptionNotConfirmed;
-import de.bsvrz.dav.daf.main.SenderRole;
 import de.bsvrz.dav.daf.main.config.Aspect;
 import de.bsvrz.dav.daf.main.config.AttributeGroup;
 import de.bsvrz.dav.daf.main.config.SystemObject;
+import de.bsvrz.sys.funclib.dambach.dav.daf.SendeErgebnis;
+import de.bsvrz.sys.funclib.dambach.dav.daf.SenderRegister;
 import de.bsvrz.sys.funclib.dambach.util.DatenTools;
 import de.bsvrz.sys.funclib.debug.Debug;
 
@@ -46,13 +50,17 @@ import de.bsvrz.sys.funclib.debug.Debug;
  * Quelldatensatzes exakt enthalten muss, aber eine unterschiedliche ATG haben
  * kann, und bietet Funktionalität zum Versenden der Daten.<br>
  * Das Senden der Daten unter asp.parameterVorgabe erfolgt nach dem Starten des 
- * Threads, der eine Instanz dieser Klasse verkörpert.
+ * Threads, der eine Instanz dieser Klasse verkörpert. Die Sendeanmeldung erfolgt
+ * über das gemeinsame {@link SenderRegister} der Verbindung.<br>
+ * Zum Versenden vieler Datensätze sollte statt dessen der {@link ParameterSendeDienst}
+ * verwendet werden, der keinen Thread je Datensatz erzeugt und Sendeanmeldungen
+ * wiederverwendet.
  * 
  * @author Dambach Werke GmbH
  * @author Stefan Sans
  * @version $Revision: 1.1 $ / $Date: 2008/09/29 11:20:38 $ / ($Author: Sans $)
  */
-public class ParameterSender extends Thread implements ClientSenderInterface
+public class ParameterSender extends Thread
 {
   /**
    * Debug-Logger für Logging-Ausgaben
@@ -85,10 +93,10 @@ public class ParameterSender extends Thread implements ClientSenderInterface
   final ResultData daten;
   
   /**
-   * Ist auf true gesetzt, solange auf Sendesteuerung gewartet wird
+   * Filter für den Modus "nur bei Änderung senden", null wenn immer gesendet wird
    */
-  private boolean _warten = false;
-    
+  final ParameterAenderungsFilter filter;
+  
   /**
    * Konstruiert eine neue Instanz vom Typ <code>ParameterSender</code>.
    * Die übergebenen Daten werden auf die angegebene Parameter-ATG kopiert
@@ -100,18 +108,34 @@ public class ParameterSender extends Thread implements ClientSenderInterface
    */
   public ParameterSender(ClientDavInterface con, SystemObject obj, ResultData data,
       String atgPid)
+  {
+    this(con, obj, data, atgPid, null);
+  }
+  
+  /**
+   * Konstruiert eine neue Instanz vom Typ <code>ParameterSender</code> im Modus
+   * "nur bei Änderung senden": stimmen die kopierten Daten mit dem aktuellen
+   * Stand unter asp.parameterSoll überein, wird nicht gesendet.
+   * 
+   * @param data die Daten, die gesendet werden sollen
+   * @param atgPid die PID der Parameter-ATG, auf die die Daten kopiert werden sollen 
+   * @param filter der Filter mit dem aktuellen Stand, null wenn immer gesendet werden soll
+   */
+  public ParameterSender(ClientDavInterface con, SystemObject obj, ResultData data,
+      String atgPid, ParameterAenderungsFilter filter)
   {
     super();
     
     connection = con;
     davObjekt = obj;
+    this.filter = filter;
     
     AttributeGroup atg = connection.getDataModel().getAttributeGroup(atgPid);
     Aspect asp = connection.getDataModel().getAspect("asp.parameterVorgabe");
     datenBeschreibung = new DataDescription(atg, asp);
     
     Data datenSatz = connection.createData(atg);
-    DatenTools.tiefeKopie(data.getData(), datenSatz);
+    DatenTools.tiefeKopie(data.getDataDescription().getAttributeGroup(), data.getData(), atg, datenSatz);
         
     daten = new ResultData(davObjekt, datenBeschreibung, data.getDataTime(), datenSatz); 
   }
@@ -119,95 +143,106 @@ public class ParameterSender extends Thread implements ClientSenderInterface
   @Override
   public void run()
   {
-    boolean angemeldet = false;
-    
+    if (filter != null && filter.istUnveraendert(davObjekt, datenBeschreibung.getAttributeGroup(), daten.getData(), TIMEOUT))
+    {
+      _debug.finer("Parameter unverändert für " + davObjekt.getPid() + ", kein Versand");
+      return;
+    }
+
+    SenderRegister register = SenderRegister.getInstanz(connection);
+
     try
     {
-      try
-      {
-        connection.subscribeSender(this, davObjekt, datenBeschreibung, SenderRole.sender());
-        angemeldet = true;
-      }
-      catch(OneSubscriptionPerSendData e)
-      {
-        // angemeldet bleibt false
-      }
-      
-      try
+      register.anmelden(davObjekt, datenBeschreibung);
+    }
+    catch (RuntimeException e)
+    {
+      _debug.error("Fehler bei der Sendeanmeldung für " + davObjekt.getPid(), e);
+      return;
+    }
+
+    CompletableFuture<SendeErgebnis> versand = null;
+
+    try
+    {
+      versand = register.sende(daten);
+
+      if (!versand.isDone())
       {
-        connection.sendData(daten);
-        _debug.finer("Parameter erfolgreich aktualisiert mit " + 
-            datenBeschreibung.getAttributeGroup() + " für " + davObjekt); 
+        _debug.finer("Warte max. " + TIMEOUT + "ms auf Sendesteuerung für " + davObjekt.getPid());
       }
-      catch(SendSubscriptionNotConfirmed e)
+
+      SendeErgebnis ergebnis = versand.get(TIMEOUT, TimeUnit.MILLISECONDS);
+
+      if (ergebnis == SendeErgebnis.GESENDET)
       {
-        if (TIMEOUT > 0)
-        {  
-          _debug.finer("Warte max. " + TIMEOUT + "ms auf Sendesteuerung für " + davObjekt.getPid());
-          synchronized(this)
-          {
-            _warten = true;
-            try
-            {
-              wait(TIMEOUT);
-            }
-            catch(InterruptedException ex)
-            {
-              // tue nichts
-            }
-            _warten = false;
-          }
-          try
-          {
-            connection.sendData(daten);
-          }
-          catch (SendSubscriptionNotConfirmed ex)
-          {
-            _debug.warning("Keine Sendesteuerung für " + davObjekt.getPid(), ex);
-          }
-        }
-        else
+        if (filter != null)
         {
-          _debug.warning("Keine Sendesteuerung für " + davObjekt.getPid(), e);
+          filter.gesendet();
         }
+        _debug.finer("Parameter erfolgreich aktualisiert mit " +
+            datenBeschreibung.getAttributeGroup() + " für " + davObjekt);
       }
-      catch (DataNotSubscribedException e)
+      else
       {
-        _debug.error("Keine Sendeanmeldung bzw. Sendeanmeldung ungültig für " + davObjekt.getPid(), e);
+        _debug.warning("Parameter nicht gesendet für " + davObjekt.getPid() + ": " + ergebnis);
       }
     }
-    finally
+    catch (TimeoutException e)
     {
-      if (angemeldet)
-      {  
-        connection.unsubscribeSender(this, davObjekt, datenBeschreibung);
-      }  
-    }  
-  }
-  
-  /*
-   * (Kein Javadoc)
-   * @see de.bsvrz.dav.daf.main.ClientSenderInterface#dataRequest(de.bsvrz.dav.daf.main.config.SystemObject, de.bsvrz.dav.daf.main.DataDescription, byte)
-   */
-  public void dataRequest(SystemObject object, DataDescription dataDescription, byte state)
-  {
-    _debug.finest("dataRequest() für " + davObjekt.getPid() + " - Sender state: " + state);
-    if (_warten && state == ClientSenderInterface.START_SENDING)
+      /* wie bisher nach Ablauf der Wartezeit ein letzter direkter Sendeversuch,
+       * sofern der zurückgestellte Datensatz noch nicht versendet wurde */
+      if (versand.cancel(false))
+      {
+        letzterVersuch(e);
+      }
+    }
+    catch (InterruptedException e)
+    {
+      // tue nichts
+    }
+    catch (ExecutionException e)
     {
-      synchronized(this)
+      _debug.error("Fehler beim Senden der Parameter für " + davObjekt.getPid(), e);
+    }
+    finally
+    {
+      if (versand != null)
       {
-        notify();
+        /* ohne Sendesteuerung zurückgestellten Datensatz nicht mehr senden */
+        versand.cancel(false);
       }
+      register.abmelden(davObjekt, datenBeschreibung);
     }
   }
 
-  /*
-   * (Kein Javadoc)
-   * @see de.bsvrz.dav.daf.main.ClientSenderInterface#isRequestSupported(de.bsvrz.dav.daf.main.config.SystemObject, de.bsvrz.dav.daf.main.DataDescription)
+  /**
+   * Sendet den Datensatz nach Ablauf der Wartezeit ein letztes Mal direkt.
+   * Das ist z. B. erfolgreich, wenn die Sendeanmeldung von einer anderen
+   * Anmeldung mitbenutzt wird, deren Sendesteuerung dem Register nicht
+   * gemeldet wird.
+   *
+   * @param timeout die Ausnahme beim Warten auf die Sendesteuerung
    */
-  public boolean isRequestSupported(SystemObject so, DataDescription dd)
+  private void letzterVersuch(TimeoutException timeout)
   {
-    return true;
+    try
+    {
+      connection.sendData(daten);
+      if (filter != null)
+      {
+        filter.gesendet();
+      }
+      _debug.finer("Parameter erfolgreich aktualisiert mit " +
+          datenBeschreibung.getAttributeGroup() + " für " + davObjekt);
+    }
+    catch (SendSubscriptionNotConfirmed e)
+    {
+      _debug.warning("Keine Sendesteuerung für " + davObjekt.getPid(), timeout);
+    }
+    catch (DataNotSubscribedException e)
+    {
+      _debug.error("Keine Sendeanmeldung bzw. Sendeanmeldung ungültig für " + davObjekt.getPid(), e);
+    }
   }
-  
 }
\ No newline at end of file
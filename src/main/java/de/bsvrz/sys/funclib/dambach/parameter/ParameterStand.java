@@ -0,0 +1,140 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.parameter;
+
+import de.bsvrz.dav.daf.main.Data;
+import de.bsvrz.dav.daf.main.config.AttributeGroup;
+import de.bsvrz.dav.daf.main.config.SystemObject;
+
+/**
+ * Stand eines Parameterdatensatzes im {@link ParameterCache}.
+ * Ein Stand wird nach dem Empfang nicht mehr verändert, bei jedem neuen
+ * Datensatz wird ein neuer Stand mit der nächsthöheren Versionsnummer
+ * erzeugt. Die Daten sind eine tiefe Kopie des empfangenen Datensatzes
+ * und dürfen vom Aufrufer nicht verändert werden.
+ *
+ * @author Dambach Werke GmbH
+ */
+public final class ParameterStand
+{
+  /**
+   * Das Objekt, dessen Parameter der Stand enthält
+   */
+  private final SystemObject _objekt;
+
+  /**
+   * Die Parameter-ATG
+   */
+  private final AttributeGroup _atg;
+
+  /**
+   * Zeitstempel des empfangenen Datensatzes
+   */
+  private final long _zeit;
+
+  /**
+   * Kopie der Daten, <code>null</code> wenn der Datensatz keine Daten enthielt
+   */
+  private final Data _daten;
+
+  /**
+   * Versionsnummer, beginnend mit 1 für den ersten empfangenen Datensatz
+   */
+  private final long _version;
+
+  /**
+   * Konstruiert einen Stand.
+   *
+   * @param objekt das Objekt
+   * @param atg die Parameter-ATG
+   * @param zeit Zeitstempel des empfangenen Datensatzes
+   * @param daten Kopie der Daten oder <code>null</code>
+   * @param version Versionsnummer
+   */
+  ParameterStand(SystemObject objekt, AttributeGroup atg, long zeit, Data daten, long version)
+  {
+    _objekt = objekt;
+    _atg = atg;
+    _zeit = zeit;
+    _daten = daten;
+    _version = version;
+  }
+
+  /**
+   * @return das Objekt, dessen Parameter der Stand enthält
+   */
+  public SystemObject getObjekt()
+  {
+    return _objekt;
+  }
+
+  /**
+   * @return die Parameter-ATG
+   */
+  public AttributeGroup getAttributeGroup()
+  {
+    return _atg;
+  }
+
+  /**
+   * @return Zeitstempel des empfangenen Datensatzes
+   */
+  public long getZeit()
+  {
+    return _zeit;
+  }
+
+  /**
+   * @return die Daten, vom {@link ParameterCache} als nicht veränderbare Kopie abgelegt,
+   * <code>null</code> wenn keine Parameter vorliegen
+   */
+  public Data getDaten()
+  {
+    return _daten;
+  }
+
+  /**
+   * @return true, wenn Parameter vorliegen
+   */
+  public boolean hasData()
+  {
+    return _daten != null;
+  }
+
+  /**
+   * @return Versionsnummer des Stands, beginnend mit 1
+   */
+  public long getVersion()
+  {
+    return _version;
+  }
+
+  @Override
+  public String toString()
+  {
+    return "ParameterStand[" + _objekt.getPid() + ", " + _atg.getPid() + ", Version " + _version + "]";
+  }
+}
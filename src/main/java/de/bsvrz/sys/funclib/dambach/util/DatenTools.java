@@ -168,4 +168,56 @@ public class DatenTools
     }
   }
   
+  /**
+   * Fertigt eine tiefe Kopie eines vollständigen Datensatzes der Attributgruppe
+   * quellAtg in einem Datensatz der Attributgruppe zielAtg an. Das Ergebnis ist
+   * dasselbe wie bei {@link #tiefeKopie(Data, Data)}, die Kopie erfolgt aber über
+   * einen je Paar von Attributgruppen einmal erzeugten {@link KopierPlan}, so dass
+   * wiederholte Kopien ohne Namenssuche und Typprüfungen auskommen.
+   * 
+   * @param quellAtg die Attributgruppe von quelle
+   * @param quelle der Datensatz, dessen Daten kopiert werden sollen
+   * @param zielAtg die Attributgruppe von ziel
+   * @param ziel der Datensatz, in den die Daten kopiert werden. Er muss die Struktur von 
+   * Quelle enthalten
+   * 
+   * @throws IllegalArgumentException wenn die Struktur von quellAtg nicht in zielAtg enthalten ist
+   * @throws UnsupportedOperationException wenn ein Attributtyp nicht unterstützt wird
+   */
+  public static void tiefeKopie (AttributeGroup quellAtg, Data quelle, AttributeGroup zielAtg, Data ziel)
+  {
+    KopierPlan.fuer(quellAtg, zielAtg).kopiere(quelle, ziel);
+  }
+  
+  /**
+   * Vergleicht zwei vollständige Datensätze einer Attributgruppe strukturell über
+   * einen je Attributgruppe einmal erzeugten {@link DatenVergleich}.
+   * 
+   * @param atg die Attributgruppe beider Datensätze
+   * @param a der erste Datensatz
+   * @param b der zweite Datensatz
+   * @return true, wenn alle Attribute gleich sind
+   * 
+   * @throws UnsupportedOperationException wenn ein Attributtyp nicht unterstützt wird
+   */
+  public static boolean gleich (AttributeGroup atg, Data a, Data b)
+  {
+    return DatenVergleich.fuer(atg).gleich(a, b);
+  }
+  
+  /**
+   * Bestimmt den zu {@link #gleich(AttributeGroup, Data, Data)} passenden Hashwert
+   * eines vollständigen Datensatzes.
+   * 
+   * @param atg die Attributgruppe des Datensatzes
+   * @param daten der Datensatz
+   * @return der Hashwert
+   * 
+   * @throws UnsupportedOperationException wenn ein Attributtyp nicht unterstützt wird
+   */
+  public static int hashCode (AttributeGroup atg, Data daten)
+  {
+    return DatenVergleich.fuer(atg).hashCode(daten);
+  }
+  
 }
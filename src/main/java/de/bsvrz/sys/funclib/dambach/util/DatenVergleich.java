@@ -0,0 +1,508 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.util;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.bsvrz.dav.daf.main.Data;
+import de.bsvrz.dav.daf.main.config.Attribute;
+import de.bsvrz.dav.daf.main.config.AttributeGroup;
+import de.bsvrz.dav.daf.main.config.AttributeListDefinition;
+import de.bsvrz.dav.daf.main.config.AttributeType;
+import de.bsvrz.dav.daf.main.config.DoubleAttributeType;
+import de.bsvrz.dav.daf.main.config.IntegerAttributeType;
+import de.bsvrz.dav.daf.main.config.ReferenceAttributeType;
+import de.bsvrz.dav.daf.main.config.StringAttributeType;
+import de.bsvrz.dav.daf.main.config.TimeAttributeType;
+
+/**
+ * Vorab übersetzter Plan für den strukturellen Vergleich von Datensätzen einer
+ * Attributgruppe (siehe {@link DatenTools#gleich(AttributeGroup, Data, Data)}).
+ * Wie beim {@link KopierPlan} wird der Plan einmal je Attributgruppe aus deren
+ * Attributen erzeugt und zwischengespeichert. Zwei Datensätze sind gleich, wenn
+ * alle Attribute denselben Wert haben: Ganzzahlen werden unskaliert, Kommazahlen
+ * bitweise, Zeiten in ms und Referenzen über die Id des Objekts verglichen,
+ * Arrays zusätzlich über ihre Länge. Der Hashwert ist mit dem Vergleich
+ * verträglich.<br>
+ * Ein Plan ist unveränderlich und kann von mehreren Threads verwendet werden.
+ *
+ * @author Dambach Werke GmbH
+ */
+public final class DatenVergleich
+{
+  /**
+   * Operation für Text
+   */
+  private static final int TEXT = 0;
+
+  /**
+   * Operation für Ganzzahl (unskaliert)
+   */
+  private static final int GANZZAHL = 1;
+
+  /**
+   * Operation für Kommazahl (skaliert)
+   */
+  private static final int KOMMAZAHL = 2;
+
+  /**
+   * Operation für Zeit
+   */
+  private static final int ZEIT = 3;
+
+  /**
+   * Operation für Referenz
+   */
+  private static final int REFERENZ = 4;
+
+  /**
+   * Zwischengespeicherte Pläne je Attributgruppe (Id)
+   */
+  private static final ConcurrentHashMap<Long, DatenVergleich> m_plaene = new ConcurrentHashMap<Long, DatenVergleich>();
+
+  /**
+   * Plan für die oberste Ebene des Datensatzes
+   */
+  private final Liste m_wurzel;
+
+  /**
+   * Methode liefert den Plan für eine Attributgruppe, beim ersten Aufruf wird er erzeugt
+   * @param atg Attributgruppe der Datensätze
+   * @return Vergleichsplan
+   * @throws UnsupportedOperationException wenn ein Attributtyp nicht unterstützt wird
+   */
+  public static DatenVergleich fuer (AttributeGroup atg)
+  {
+    Long id = Long.valueOf( atg.getId() );
+    DatenVergleich plan = m_plaene.get( id );
+
+    if (plan == null)
+    {
+      plan = new DatenVergleich( atg );
+
+      DatenVergleich vorhanden = m_plaene.putIfAbsent( id, plan );
+      if (vorhanden != null)
+        plan = vorhanden;
+    }
+
+    return plan;
+  }
+
+  /**
+   * Konstruktor der Klasse
+   * @param atg Attributgruppe der Datensätze
+   */
+  private DatenVergleich (AttributeGroup atg)
+  {
+    m_wurzel = new Liste( atg.getAttributes() );
+  }
+
+  /**
+   * Methode vergleicht zwei Datensätze der Attributgruppe des Plans
+   * @param a erster Datensatz
+   * @param b zweiter Datensatz
+   * @return true, wenn alle Attribute gleich sind
+   */
+  public boolean gleich (Data a, Data b)
+  {
+    if (a == b)
+      return true;
+
+    if (a == null || b == null)
+      return false;
+
+    return m_wurzel.gleich( a, b );
+  }
+
+  /**
+   * Methode bestimmt den Hashwert eines Datensatzes der Attributgruppe des Plans
+   * @param daten Datensatz
+   * @return Hashwert, gleich für gleiche Datensätze
+   */
+  public int hashCode (Data daten)
+  {
+    if (daten == null)
+      return 0;
+
+    return m_wurzel.hash( daten );
+  }
+
+  /**
+   * Methode bestimmt die Operation für einen einfachen Attributtyp
+   * @param typ Attributtyp
+   * @param name Name des Attributs für Fehlermeldungen
+   * @return Operation
+   */
+  private static int operation (AttributeType typ, String name)
+  {
+    if (typ instanceof StringAttributeType)
+      return TEXT;
+
+    if (typ instanceof IntegerAttributeType)
+      return GANZZAHL;
+
+    if (typ instanceof DoubleAttributeType)
+      return KOMMAZAHL;
+
+    if (typ instanceof TimeAttributeType)
+      return ZEIT;
+
+    if (typ instanceof ReferenceAttributeType)
+      return REFERENZ;
+
+    /* Nicht unterstützter Attributtyp */
+    throw new UnsupportedOperationException("Vergleich nicht definiert für Datum \"" +
+        name + "\" und Attributtyp" + typ);
+  }
+
+  /**
+   * Methode erzeugt den Schritt für ein Attribut
+   * @param attribut Attribut der ATG
+   * @return Schritt
+   */
+  private static Schritt schritt (Attribute attribut)
+  {
+    AttributeType typ = attribut.getAttributeType();
+    Schritt element;
+
+    if (typ instanceof AttributeListDefinition)
+      element = new Liste( ((AttributeListDefinition) typ).getAttributes() );
+    else
+      element = new Einfach( operation( typ, attribut.getName() ) );
+
+    if (!attribut.isArray())
+      return element;
+
+    if (element instanceof Einfach)
+      return new EinfachesFeld( ((Einfach) element).m_operation );
+
+    return new Feld( element );
+  }
+
+  /**
+   * Vergleichsschritt für ein (Sub-)Datum
+   */
+  private static abstract class Schritt
+  {
+    /**
+     * Methode vergleicht ein (Sub-)Datum
+     * @param a erstes Datum
+     * @param b zweites Datum
+     * @return true, wenn beide gleich sind
+     */
+    abstract boolean gleich (Data a, Data b);
+
+    /**
+     * Methode bestimmt den Hashwert eines (Sub-)Datums
+     * @param d Datum
+     * @return Hashwert
+     */
+    abstract int hash (Data d);
+  }
+
+  /**
+   * Vergleichsschritt für eine Attributliste (oder die oberste Ebene eines Datensatzes)
+   */
+  private static final class Liste extends Schritt
+  {
+    /**
+     * Schritte der Attribute in der Reihenfolge der ATG
+     */
+    private final Schritt[] m_schritte;
+
+    /**
+     * Konstruktor der Klasse
+     * @param attribute Attribute der Liste
+     */
+    Liste (List<Attribute> attribute)
+    {
+      m_schritte = new Schritt[attribute.size()];
+
+      for (int i = 0; i < m_schritte.length; i++)
+        m_schritte[i] = schritt( attribute.get( i ) );
+    }
+
+    @Override
+    boolean gleich (Data a, Data b)
+    {
+      Iterator<Data> itA = a.iterator();
+      Iterator<Data> itB = b.iterator();
+
+      for (int i = 0; i < m_schritte.length; i++)
+      {
+        if (!m_schritte[i].gleich( itA.next(), itB.next() ))
+          return false;
+      }
+
+      return true;
+    }
+
+    @Override
+    int hash (Data d)
+    {
+      Iterator<Data> it = d.iterator();
+      int h = 1;
+
+      for (int i = 0; i < m_schritte.length; i++)
+        h = 31 * h + m_schritte[i].hash( it.next() );
+
+      return h;
+    }
+  }
+
+  /**
+   * Vergleichsschritt für ein einfaches Attribut
+   */
+  private static final class Einfach extends Schritt
+  {
+    /**
+     * Operation je nach Attributtyp
+     */
+    private final int m_operation;
+
+    /**
+     * Konstruktor der Klasse
+     * @param operation Operation je nach Attributtyp
+     */
+    Einfach (int operation)
+    {
+      m_operation = operation;
+    }
+
+    @Override
+    boolean gleich (Data a, Data b)
+    {
+      switch (m_operation)
+      {
+        case TEXT:
+          return Objects.equals( a.asTextValue().getText(), b.asTextValue().getText() );
+
+        case GANZZAHL:
+          return a.asUnscaledValue().longValue() == b.asUnscaledValue().longValue();
+
+        case KOMMAZAHL:
+          return Double.doubleToLongBits( a.asScaledValue().doubleValue() ) ==
+              Double.doubleToLongBits( b.asScaledValue().doubleValue() );
+
+        case ZEIT:
+          return a.asTimeValue().getMillis() == b.asTimeValue().getMillis();
+
+        default:
+          return a.asReferenceValue().getId() == b.asReferenceValue().getId();
+      }
+    }
+
+    @Override
+    int hash (Data d)
+    {
+      switch (m_operation)
+      {
+        case TEXT:
+          return Objects.hashCode( d.asTextValue().getText() );
+
+        case GANZZAHL:
+          return Long.hashCode( d.asUnscaledValue().longValue() );
+
+        case KOMMAZAHL:
+          return Double.hashCode( d.asScaledValue().doubleValue() );
+
+        case ZEIT:
+          return Long.hashCode( d.asTimeValue().getMillis() );
+
+        default:
+          return Long.hashCode( d.asReferenceValue().getId() );
+      }
+    }
+  }
+
+  /**
+   * Vergleichsschritt für ein Array einfacher Attribute, das als Ganzes gelesen wird
+   */
+  private static final class EinfachesFeld extends Schritt
+  {
+    /**
+     * Operation je nach Attributtyp
+     */
+    private final int m_operation;
+
+    /**
+     * Konstruktor der Klasse
+     * @param operation Operation je nach Attributtyp
+     */
+    EinfachesFeld (int operation)
+    {
+      m_operation = operation;
+    }
+
+    @Override
+    boolean gleich (Data a, Data b)
+    {
+      switch (m_operation)
+      {
+        case TEXT:
+          return Arrays.equals( texte( a ), texte( b ) );
+
+        case GANZZAHL:
+          return Arrays.equals( a.asUnscaledArray().getLongArray(), b.asUnscaledArray().getLongArray() );
+
+        case KOMMAZAHL:
+          return Arrays.equals( a.asScaledArray().getDoubleArray(), b.asScaledArray().getDoubleArray() );
+
+        case ZEIT:
+          return Arrays.equals( zeiten( a ), zeiten( b ) );
+
+        default:
+          return Arrays.equals( ids( a ), ids( b ) );
+      }
+    }
+
+    @Override
+    int hash (Data d)
+    {
+      switch (m_operation)
+      {
+        case TEXT:
+          return Arrays.hashCode( texte( d ) );
+
+        case GANZZAHL:
+          return Arrays.hashCode( d.asUnscaledArray().getLongArray() );
+
+        case KOMMAZAHL:
+          return Arrays.hashCode( d.asScaledArray().getDoubleArray() );
+
+        case ZEIT:
+          return Arrays.hashCode( zeiten( d ) );
+
+        default:
+          return Arrays.hashCode( ids( d ) );
+      }
+    }
+
+    /**
+     * Methode liest ein Text-Array
+     * @param d Datum
+     * @return Texte
+     */
+    private static String[] texte (Data d)
+    {
+      Data.TextArray arr = d.asTextArray();
+      String[] werte = new String[arr.getLength()];
+
+      for (int i = 0; i < werte.length; i++)
+        werte[i] = arr.getText( i );
+
+      return werte;
+    }
+
+    /**
+     * Methode liest ein Zeit-Array
+     * @param d Datum
+     * @return Zeiten in ms
+     */
+    private static long[] zeiten (Data d)
+    {
+      Data.TimeArray arr = d.asTimeArray();
+      long[] werte = new long[arr.getLength()];
+
+      for (int i = 0; i < werte.length; i++)
+        werte[i] = arr.getMillis( i );
+
+      return werte;
+    }
+
+    /**
+     * Methode liest die Ids eines Referenz-Arrays
+     * @param d Datum
+     * @return Ids der referenzierten Objekte
+     */
+    private static long[] ids (Data d)
+    {
+      Data.ReferenceArray arr = d.asReferenceArray();
+      long[] werte = new long[arr.getLength()];
+
+      for (int i = 0; i < werte.length; i++)
+        werte[i] = arr.getReferenceValue( i ).getId();
+
+      return werte;
+    }
+  }
+
+  /**
+   * Vergleichsschritt für ein Array von Attributlisten
+   */
+  private static final class Feld extends Schritt
+  {
+    /**
+     * Schritt für jedes Element
+     */
+    private final Schritt m_element;
+
+    /**
+     * Konstruktor der Klasse
+     * @param element Schritt für jedes Element
+     */
+    Feld (Schritt element)
+    {
+      m_element = element;
+    }
+
+    @Override
+    boolean gleich (Data a, Data b)
+    {
+      Data.Array arrA = a.asArray();
+      Data.Array arrB = b.asArray();
+      int laenge = arrA.getLength();
+
+      if (laenge != arrB.getLength())
+        return false;
+
+      for (int i = 0; i < laenge; i++)
+      {
+        if (!m_element.gleich( arrA.getItem( i ), arrB.getItem( i ) ))
+          return false;
+      }
+
+      return true;
+    }
+
+    @Override
+    int hash (Data d)
+    {
+      Data.Array arr = d.asArray();
+      int laenge = arr.getLength();
+      int h = laenge;
+
+      for (int i = 0; i < laenge; i++)
+        h = 31 * h + m_element.hash( arr.getItem( i ) );
+
+      return h;
+    }
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Begrenzter, sperrfreier Ringpuffer für viele Erzeuger und einen Verbraucher (MPSC). Beliebig viele Threads
+ * können gleichzeitig mit {@link #offer(Object)} Elemente eintragen, ohne sich gegenseitig zu blockieren. Entnommen
+ * wird mit {@link #poll()} oder blockweise mit {@link #entnehme(Object[])}, jeweils nur von einem Thread zur
+ * gleichen Zeit. Den Ausschluss mehrerer Verbraucher muss der Aufrufer sicherstellen.<p>
+ *
+ * Jeder Platz des Rings trägt eine Sequenznummer, über die Erzeuger und Verbraucher erkennen, ob der Platz frei
+ * bzw. belegt ist. Erzeuger reservieren einen Platz über eine CAS-Operation auf die Schreibposition.
+ * @param <T> Typ der Elemente
+ * @author Dambach Werke GmbH
+ */
+public class EingangsPuffer<T>
+{
+  /**
+   * Elemente des Rings
+   */
+  private final AtomicReferenceArray<T> m_elemente;
+
+  /**
+   * Sequenznummern der Plätze des Rings
+   */
+  private final AtomicLongArray m_sequenz;
+
+  /**
+   * Maske für die Umrechnung einer Position in einen Platz (Kapazität - 1)
+   */
+  private final int m_maske;
+
+  /**
+   * Nächste Schreibposition (von allen Erzeugern gemeinsam genutzt)
+   */
+  private final AtomicLong m_schreibPosition = new AtomicLong();
+
+  /**
+   * Nächste Leseposition (nur vom Verbraucher verwendet)
+   */
+  private volatile long m_lesePosition = 0;
+
+  /**
+   * Konstruktor der Klasse
+   * @param kapazitaet Mindestkapazität, wird auf die nächste Zweierpotenz aufgerundet
+   */
+  public EingangsPuffer (int kapazitaet)
+  {
+    if (kapazitaet < 1 || kapazitaet > (1 << 30))
+      throw new IllegalArgumentException("Ungültige Kapazität: " + kapazitaet);
+
+    int n = Integer.highestOneBit( kapazitaet );
+    if (n < kapazitaet)
+      n <<= 1;
+
+    m_elemente = new AtomicReferenceArray<T>( n );
+    m_sequenz  = new AtomicLongArray( n );
+    m_maske    = n - 1;
+
+    for (int i = 0; i < n; i++)
+      m_sequenz.set( i, i );
+  }
+
+  /**
+   * Methode trägt ein Element ein. Kann von beliebig vielen Threads gleichzeitig aufgerufen werden.
+   * @param element einzutragendes Element (nicht null)
+   * @return true, wenn das Element eingetragen wurde, false wenn der Puffer voll ist
+   */
+  public boolean offer (T element)
+  {
+    if (element == null)
+      throw new NullPointerException("Element ist null");
+
+    while (true)
+    {
+      long position = m_schreibPosition.get();
+      int platz = (int) (position & m_maske);
+      long differenz = m_sequenz.get( platz ) - position;
+
+      if (differenz == 0)
+      {
+        if (m_schreibPosition.compareAndSet( position, position + 1 ))
+        {
+          m_elemente.lazySet( platz, element );
+          m_sequenz.set( platz, position + 1 );
+          return true;
+        }
+      }
+      else if (differenz < 0)
+      {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Methode entnimmt das älteste Element. Darf nur von einem Thread zur gleichen Zeit aufgerufen werden.
+   * @return ältestes Element, null wenn der Puffer leer ist
+   */
+  public T poll ()
+  {
+    long position = m_lesePosition;
+    int platz = (int) (position & m_maske);
+
+    if (m_sequenz.get( platz ) != position + 1)
+      return null;
+
+    T element = m_elemente.get( platz );
+
+    m_elemente.lazySet( platz, null );
+    m_sequenz.set( platz, position + m_maske + 1 );
+    m_lesePosition = position + 1;
+
+    return element;
+  }
+
+  /**
+   * Methode entnimmt die ältesten Elemente in ein Feld. Darf nur von einem Thread zur gleichen Zeit
+   * aufgerufen werden.
+   * @param ziel Feld, in das die Elemente ab Index 0 eingetragen werden
+   * @return Anzahl der entnommenen Elemente, 0 wenn der Puffer leer ist
+   */
+  public int entnehme (T[] ziel)
+  {
+    int anzahl = 0;
+
+    while (anzahl < ziel.length)
+    {
+      T element = poll();
+
+      if (element == null)
+        break;
+
+      ziel[anzahl++] = element;
+    }
+
+    return anzahl;
+  }
+
+  /**
+   * @return liefert true zurück, wenn der Puffer zum Zeitpunkt des Aufrufs leer ist
+   */
+  public boolean isLeer ()
+  {
+    long position = m_lesePosition;
+
+    return m_sequenz.get( (int) (position & m_maske) ) != position + 1;
+  }
+
+  /**
+   * @return liefert die Kapazität des Puffers zurück
+   */
+  public int getKapazitaet ()
+  {
+    return m_maske + 1;
+  }
+}
@@ -0,0 +1,504 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.util;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.bsvrz.dav.daf.main.Data;
+import de.bsvrz.dav.daf.main.config.Attribute;
+import de.bsvrz.dav.daf.main.config.AttributeGroup;
+import de.bsvrz.dav.daf.main.config.AttributeListDefinition;
+import de.bsvrz.dav.daf.main.config.AttributeType;
+import de.bsvrz.dav.daf.main.config.DoubleAttributeType;
+import de.bsvrz.dav.daf.main.config.IntegerAttributeType;
+import de.bsvrz.dav.daf.main.config.ReferenceAttributeType;
+import de.bsvrz.dav.daf.main.config.StringAttributeType;
+import de.bsvrz.dav.daf.main.config.TimeAttributeType;
+
+/**
+ * Vorab übersetzter Plan für die tiefe Kopie von Datensätzen einer Quell-ATG in
+ * Datensätze einer Ziel-ATG (siehe {@link DatenTools#tiefeKopie(Data, Data)}).
+ * Der Plan wird einmal je Paar von Attributgruppen aus deren Attributen erzeugt
+ * und zwischengespeichert. Dabei werden die Prüfungen von Attributtyp und Name,
+ * die Zuordnung der Attribute über ihre Namen und die Auswahl der Kopieroperation
+ * je Attributtyp vorweggenommen. Eine Kopie durchläuft danach beide Datensätze
+ * nur noch parallel über ihre Iteratoren, Arrays einfacher Attribute werden als
+ * Ganzes kopiert.<br>
+ * Ein Plan ist unveränderlich und kann von mehreren Threads verwendet werden.
+ *
+ * @author Dambach Werke GmbH
+ */
+public final class KopierPlan
+{
+  /**
+   * Operation für Text
+   */
+  private static final int TEXT = 0;
+
+  /**
+   * Operation für Ganzzahl (unskaliert)
+   */
+  private static final int GANZZAHL = 1;
+
+  /**
+   * Operation für Kommazahl (skaliert)
+   */
+  private static final int KOMMAZAHL = 2;
+
+  /**
+   * Operation für Zeit
+   */
+  private static final int ZEIT = 3;
+
+  /**
+   * Operation für Referenz
+   */
+  private static final int REFERENZ = 4;
+
+  /**
+   * Zwischengespeicherte Pläne je Paar von Attributgruppen (Ids)
+   */
+  private static final ConcurrentHashMap<Paar, KopierPlan> m_plaene = new ConcurrentHashMap<Paar, KopierPlan>();
+
+  /**
+   * Plan für die oberste Ebene des Datensatzes
+   */
+  private final Liste m_wurzel;
+
+  /**
+   * Methode liefert den Plan für ein Paar von Attributgruppen, beim ersten Aufruf wird er erzeugt
+   * @param quelle Attributgruppe der Quelldatensätze
+   * @param ziel Attributgruppe der Zieldatensätze
+   * @return Kopierplan
+   * @throws IllegalArgumentException wenn die Struktur von quelle nicht in ziel enthalten ist
+   * @throws UnsupportedOperationException wenn ein Attributtyp nicht unterstützt wird
+   */
+  public static KopierPlan fuer (AttributeGroup quelle, AttributeGroup ziel)
+  {
+    Paar paar = new Paar( quelle.getId(), ziel.getId() );
+    KopierPlan plan = m_plaene.get( paar );
+
+    if (plan == null)
+    {
+      plan = new KopierPlan( quelle, ziel );
+
+      KopierPlan vorhanden = m_plaene.putIfAbsent( paar, plan );
+      if (vorhanden != null)
+        plan = vorhanden;
+    }
+
+    return plan;
+  }
+
+  /**
+   * Konstruktor der Klasse
+   * @param quelle Attributgruppe der Quelldatensätze
+   * @param ziel Attributgruppe der Zieldatensätze
+   */
+  private KopierPlan (AttributeGroup quelle, AttributeGroup ziel)
+  {
+    m_wurzel = new Liste( quelle.getAttributes(), ziel.getAttributes() );
+  }
+
+  /**
+   * Methode kopiert einen Datensatz der Quell-ATG in einen Datensatz der Ziel-ATG. Der Zieldatensatz muss
+   * vollständig vorhanden sein (wie z. B. mit ClientDavInterface.createData(AttributeGroup) erzeugt).
+   * @param quelle Datensatz der Quell-ATG
+   * @param ziel Datensatz der Ziel-ATG
+   */
+  public void kopiere (Data quelle, Data ziel)
+  {
+    m_wurzel.kopiere( quelle, ziel );
+  }
+
+  /**
+   * Methode bestimmt die Operation für einen einfachen Attributtyp
+   * @param typ Attributtyp
+   * @param name Name des Attributs für Fehlermeldungen
+   * @return Operation
+   */
+  private static int operation (AttributeType typ, String name)
+  {
+    if (typ instanceof StringAttributeType)
+      return TEXT;
+
+    if (typ instanceof IntegerAttributeType)
+      return GANZZAHL;
+
+    if (typ instanceof DoubleAttributeType)
+      return KOMMAZAHL;
+
+    if (typ instanceof TimeAttributeType)
+      return ZEIT;
+
+    if (typ instanceof ReferenceAttributeType)
+      return REFERENZ;
+
+    /* Nicht unterstützter Attributtyp */
+    throw new UnsupportedOperationException("Operation nicht definiert für Datum \"" +
+        name + "\" und Attributtyp" + typ);
+  }
+
+  /**
+   * Methode erzeugt den Schritt für ein Attribut
+   * @param quelle Attribut der Quell-ATG
+   * @param ziel gleichnamiges Attribut der Ziel-ATG
+   * @return Schritt
+   */
+  private static Schritt schritt (Attribute quelle, Attribute ziel)
+  {
+    AttributeType typ = quelle.getAttributeType();
+
+    if (!typ.equals( ziel.getAttributeType() ) || quelle.isArray() != ziel.isArray())
+    {
+      /* Attribut-Typen auf diesem Sub-Level sind unterschiedlich */
+      throw new IllegalArgumentException("Attributtypen des Datums \"" +
+          quelle.getName() + "\" sind nicht gleich für Quelle und Ziel");
+    }
+
+    Schritt element;
+
+    if (typ instanceof AttributeListDefinition)
+    {
+      List<Attribute> attribute = ((AttributeListDefinition) typ).getAttributes();
+      element = new Liste( attribute, ((AttributeListDefinition) ziel.getAttributeType()).getAttributes() );
+    }
+    else
+    {
+      element = new Einfach( operation( typ, quelle.getName() ) );
+    }
+
+    if (!quelle.isArray())
+      return element;
+
+    if (element instanceof Einfach)
+      return new EinfachesFeld( ((Einfach) element).m_operation );
+
+    return new Feld( element );
+  }
+
+  /**
+   * Kopierschritt für ein (Sub-)Datum
+   */
+  private static abstract class Schritt
+  {
+    /**
+     * Methode kopiert ein (Sub-)Datum
+     * @param quelle Quelldatum
+     * @param ziel Zieldatum
+     */
+    abstract void kopiere (Data quelle, Data ziel);
+  }
+
+  /**
+   * Kopierschritt für eine Attributliste (oder die oberste Ebene eines Datensatzes)
+   */
+  private static final class Liste extends Schritt
+  {
+    /**
+     * Schritte der Attribute der Quelle in der Reihenfolge der Quelle
+     */
+    private final Schritt[] m_schritte;
+
+    /**
+     * Position des zugeordneten Attributs in der Ziel-Liste je Attribut der Quelle
+     */
+    private final int[] m_zielPosition;
+
+    /**
+     * Namen der Attribute der Quelle für den Zugriff über den Namen
+     */
+    private final String[] m_namen;
+
+    /**
+     * Ist true, wenn die Zielpositionen aufsteigend sind und parallel iteriert werden kann
+     */
+    private final boolean m_parallel;
+
+    /**
+     * Konstruktor der Klasse
+     * @param quelle Attribute der Quelle
+     * @param ziel Attribute des Ziels
+     */
+    Liste (List<Attribute> quelle, List<Attribute> ziel)
+    {
+      m_schritte     = new Schritt[quelle.size()];
+      m_zielPosition = new int[quelle.size()];
+      m_namen        = new String[quelle.size()];
+
+      boolean parallel = true;
+
+      for (int i = 0; i < m_schritte.length; i++)
+      {
+        Attribute attribut = quelle.get( i );
+        int position = -1;
+
+        for (int j = 0; j < ziel.size() && position < 0; j++)
+        {
+          if (ziel.get( j ).getName().equals( attribut.getName() ))
+            position = j;
+        }
+
+        if (position < 0)
+        {
+          /* Ziel-Attribut mit diesem  Namen existiert nicht */
+          throw new IllegalArgumentException("Ziel-Datensatz hat kein Sub-Datum \"" +
+              attribut.getName() + "\"");
+        }
+
+        m_schritte[i]     = schritt( attribut, ziel.get( position ) );
+        m_zielPosition[i] = position;
+        m_namen[i]        = attribut.getName();
+
+        if (i > 0 && position <= m_zielPosition[i - 1])
+          parallel = false;
+      }
+
+      m_parallel = parallel;
+    }
+
+    @Override
+    void kopiere (Data quelle, Data ziel)
+    {
+      if (!m_parallel)
+      {
+        for (int i = 0; i < m_schritte.length; i++)
+          m_schritte[i].kopiere( quelle.getItem( m_namen[i] ), ziel.getItem( m_namen[i] ) );
+
+        return;
+      }
+
+      Iterator<Data> q = quelle.iterator();
+      Iterator<Data> z = ziel.iterator();
+      int position = -1;
+
+      for (int i = 0; i < m_schritte.length; i++)
+      {
+        Data subZiel = null;
+
+        // im Ziel zusätzlich vorhandene Attribute überspringen
+        while (position < m_zielPosition[i])
+        {
+          subZiel = z.next();
+          position++;
+        }
+
+        m_schritte[i].kopiere( q.next(), subZiel );
+      }
+    }
+  }
+
+  /**
+   * Kopierschritt für ein einfaches Attribut
+   */
+  private static final class Einfach extends Schritt
+  {
+    /**
+     * Operation je nach Attributtyp
+     */
+    private final int m_operation;
+
+    /**
+     * Konstruktor der Klasse
+     * @param operation Operation je nach Attributtyp
+     */
+    Einfach (int operation)
+    {
+      m_operation = operation;
+    }
+
+    @Override
+    void kopiere (Data quelle, Data ziel)
+    {
+      switch (m_operation)
+      {
+        case TEXT:
+          ziel.asTextValue().setText( quelle.asTextValue().getText() );
+          break;
+
+        case GANZZAHL:
+          ziel.asUnscaledValue().set( quelle.asUnscaledValue().longValue() );
+          break;
+
+        case KOMMAZAHL:
+          ziel.asScaledValue().set( quelle.asScaledValue().doubleValue() );
+          break;
+
+        case ZEIT:
+          ziel.asTimeValue().setMillis( quelle.asTimeValue().getMillis() );
+          break;
+
+        default:
+          ziel.asReferenceValue().setSystemObject( quelle.asReferenceValue().getSystemObject() );
+          break;
+      }
+    }
+  }
+
+  /**
+   * Kopierschritt für ein Array einfacher Attribute, das als Ganzes kopiert wird
+   */
+  private static final class EinfachesFeld extends Schritt
+  {
+    /**
+     * Operation je nach Attributtyp
+     */
+    private final int m_operation;
+
+    /**
+     * Konstruktor der Klasse
+     * @param operation Operation je nach Attributtyp
+     */
+    EinfachesFeld (int operation)
+    {
+      m_operation = operation;
+    }
+
+    @Override
+    void kopiere (Data quelle, Data ziel)
+    {
+      switch (m_operation)
+      {
+        case TEXT:
+        {
+          Data.TextArray q = quelle.asTextArray();
+          String[] werte = new String[q.getLength()];
+
+          for (int i = 0; i < werte.length; i++)
+            werte[i] = q.getText( i );
+
+          ziel.asTextArray().set( werte );
+          break;
+        }
+
+        case GANZZAHL:
+          ziel.asUnscaledArray().set( quelle.asUnscaledArray().getLongArray() );
+          break;
+
+        case KOMMAZAHL:
+          ziel.asScaledArray().set( quelle.asScaledArray().getDoubleArray() );
+          break;
+
+        case ZEIT:
+        {
+          Data.TimeArray q = quelle.asTimeArray();
+          long[] werte = new long[q.getLength()];
+
+          for (int i = 0; i < werte.length; i++)
+            werte[i] = q.getMillis( i );
+
+          ziel.asTimeArray().setMillis( werte );
+          break;
+        }
+
+        default:
+          ziel.asReferenceArray().set( quelle.asReferenceArray().getSystemObjectArray() );
+          break;
+      }
+    }
+  }
+
+  /**
+   * Kopierschritt für ein Array von Attributlisten
+   */
+  private static final class Feld extends Schritt
+  {
+    /**
+     * Schritt für jedes Element
+     */
+    private final Schritt m_element;
+
+    /**
+     * Konstruktor der Klasse
+     * @param element Schritt für jedes Element
+     */
+    Feld (Schritt element)
+    {
+      m_element = element;
+    }
+
+    @Override
+    void kopiere (Data quelle, Data ziel)
+    {
+      Data.Array arrQuelle = quelle.asArray();
+      Data.Array arrZiel   = ziel.asArray();
+      int laenge = arrQuelle.getLength();
+
+      arrZiel.setLength( laenge );
+
+      for (int i = 0; i < laenge; i++)
+        m_element.kopiere( arrQuelle.getItem( i ), arrZiel.getItem( i ) );
+    }
+  }
+
+  /**
+   * Schlüssel eines Plans aus den Ids von Quell- und Ziel-ATG
+   */
+  private static final class Paar
+  {
+    /**
+     * Id der Quell-ATG
+     */
+    private final long m_quelle;
+
+    /**
+     * Id der Ziel-ATG
+     */
+    private final long m_ziel;
+
+    /**
+     * Konstruktor der Klasse
+     * @param quelle Id der Quell-ATG
+     * @param ziel Id der Ziel-ATG
+     */
+    Paar (long quelle, long ziel)
+    {
+      m_quelle = quelle;
+      m_ziel   = ziel;
+    }
+
+    @Override
+    public boolean equals (Object o)
+    {
+      if (!(o instanceof Paar))
+        return false;
+
+      Paar p = (Paar) o;
+
+      return m_quelle == p.m_quelle && m_ziel == p.m_ziel;
+    }
+
+    @Override
+    public int hashCode ()
+    {
+      long h = m_quelle * 31 + m_ziel;
+
+      return (int) (h ^ (h >>> 32));
+    }
+  }
+}
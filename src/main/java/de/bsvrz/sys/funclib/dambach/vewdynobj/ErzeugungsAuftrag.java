@@ -0,0 +1,58 @@
+package de.bsvrz.sys.funclib.dambach.vewdynobj;
+
+import de.bsvrz.dav.daf.main.Data;
+
+/**
+ * Beschreibung eines dynamischen Objekts, das mit
+ * {@link VerwaltungStapel#erzeuge(java.util.Collection, String)} erzeugt werden soll
+ * 
+ * @author Dambach-Werke GmbH
+ * 
+ */
+public class ErzeugungsAuftrag
+{
+  private final String _pid;
+
+  private final String _name;
+
+  private final Data[] _data;
+
+  /**
+   * @param pid
+   *        die Pid
+   * @param name
+   *        der Name
+   * @param data
+   *        ein Feld von konfigurierenden Datensätzen, null wenn keine
+   */
+  public ErzeugungsAuftrag(String pid, String name, Data[] data)
+  {
+    _pid = pid;
+    _name = name;
+    _data = data;
+  }
+
+  /**
+   * @return die Pid
+   */
+  public String getPid()
+  {
+    return _pid;
+  }
+
+  /**
+   * @return der Name
+   */
+  public String getName()
+  {
+    return _name;
+  }
+
+  /**
+   * @return die konfigurierenden Datensätze, null wenn keine
+   */
+  public Data[] getData()
+  {
+    return _data;
+  }
+}
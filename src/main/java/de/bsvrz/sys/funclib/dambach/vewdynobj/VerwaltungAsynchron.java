@@ -0,0 +1,81 @@
+package de.bsvrz.sys.funclib.dambach.vewdynobj;
+
+import java.util.concurrent.CompletionStage;
+
+import de.bsvrz.dav.daf.main.Data;
+import de.bsvrz.dav.daf.main.config.SystemObject;
+
+/**
+ * Asynchrone Variante der {@link Verwaltung}. Alle Operationen kehren sofort
+ * zurück und liefern eine CompletionStage, die nach Abschluss der Operation
+ * mit ihrem Ergebnis oder ihrem Fehler abgeschlossen wird. Operationen für
+ * verschiedene Objekte laufen nebenläufig, Operationen für dasselbe Objekt
+ * (gleiche Pid) werden in der Reihenfolge des Aufrufs ausgeführt.
+ * 
+ * @author Dambach-Werke GmbH
+ * 
+ */
+public interface VerwaltungAsynchron
+{
+  /**
+   * Erzeugt ein dynamisches Objekt mit konfigurierenden Daten
+   * 
+   * @param pid
+   *        die Pid
+   * @param name
+   *        der Name
+   * @param set
+   *        die Pid der Menge der das dynamische Objekt hinzugefuegt wird, leer
+   *        wenn keine
+   * @param data
+   *        ein Feld von konfigurierenden Datensätzen, null wenn keine
+   * @return
+   *        das erzeugte Objekt
+   */
+  public CompletionStage<SystemObject> erzeuge(String pid, String name, String set, Data[] data);
+
+  /**
+   * Erzeugt ein dynamisches Objekt, fügt es der Menge hinzu und parametriert es
+   * 
+   * @param pid
+   *        die Pid
+   * @param name
+   *        der Name
+   * @param set
+   *        die Pid der Menge der das dynamische Objekt hinzugefuegt wird, leer
+   *        wenn keine
+   * @param data
+   *        ein Feld von konfigurierenden Datensätzen, null wenn keine
+   * @param parameter
+   *        ein Feld von parametrierenden Daten
+   * @return
+   *        das erzeugte und parametrierte Objekt
+   */
+  public CompletionStage<SystemObject> erzeugeUndParametriere(String pid, String name, String set, Data[] data,
+      Data[] parameter);
+
+  /**
+   * Parametriert ein dynamisches Objekt
+   * 
+   * @param pid
+   *        die Pid des Objekts
+   * @param data
+   *        ein Feld von parametrierenden Daten
+   * @return
+   *        das parametrierte Objekt
+   */
+  public CompletionStage<SystemObject> parametriere(String pid, Data[] data);
+
+  /**
+   * Loescht ein dynamisches Objekt
+   * 
+   * @param pid
+   *        die Pid des zu loeschenden Objekts
+   * @param set
+   *        die Pid der Menge aus welcher das dynamische Objekt entfernt wird,
+   *        leer wenn keine
+   * @return
+   *        das Ergebnis für das Objekt
+   */
+  public CompletionStage<VerwaltungsErgebnis> loesche(String pid, String set);
+}
@@ -0,0 +1,138 @@
+package de.bsvrz.sys.funclib.dambach.vewdynobj;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import de.bsvrz.dav.daf.main.config.SystemObject;
+import de.bsvrz.sys.funclib.debug.Debug;
+
+/**
+ * Periodisches Aufräumen einer Menge dynamischer Objekte im Hintergrund.
+ * In jedem Durchlauf werden alle Elemente der Menge, die die Bedingung erfüllen
+ * (z. B. abgelaufene Objekte), mit {@link VerwaltungStapel#loesche(String, Predicate)}
+ * gemeinsam aus der Menge entfernt und geloescht.
+ * 
+ * @author Dambach-Werke GmbH
+ * 
+ */
+public class VerwaltungBereinigung
+{
+  private final Debug _debug = Debug.getLogger();
+
+  private final VerwaltungStapel _verwaltung;
+
+  private final String _set;
+
+  private final Predicate<SystemObject> _abgelaufen;
+
+  private final ScheduledExecutorService _zeitgeber;
+
+  private ScheduledFuture<?> _lauf;
+
+  private final AtomicInteger _anzahlGeloescht = new AtomicInteger();
+
+  /**
+   * @param verwaltung
+   *        die Verwaltung, über die geloescht wird
+   * @param set
+   *        die Pid der Menge
+   * @param abgelaufen
+   *        die Bedingung für die zu loeschenden Elemente der Menge
+   */
+  public VerwaltungBereinigung(VerwaltungStapel verwaltung, String set, Predicate<SystemObject> abgelaufen)
+  {
+    _verwaltung = verwaltung;
+    _set = set;
+    _abgelaufen = abgelaufen;
+    _zeitgeber = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+    {
+      public Thread newThread(Runnable r)
+      {
+        Thread t = new Thread(r, "VerwaltungBereinigung " + _set);
+        t.setDaemon(true);
+        return t;
+      }
+    });
+  }
+
+  /**
+   * Startet das periodische Aufräumen
+   * 
+   * @param periode
+   *        der Abstand zwischen zwei Durchläufen in ms
+   */
+  public synchronized void start(long periode)
+  {
+    if (_lauf != null)
+      _lauf.cancel(false);
+
+    _lauf = _zeitgeber.scheduleWithFixedDelay(new Runnable()
+    {
+      public void run()
+      {
+        bereinige();
+      }
+    }, 0, periode, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Führt einen Durchlauf sofort im aufrufenden Thread aus
+   * 
+   * @return
+   *        das Ergebnis je geloeschtem Objekt
+   */
+  public List<VerwaltungsErgebnis> bereinige()
+  {
+    try
+    {
+      List<VerwaltungsErgebnis> ergebnis = _verwaltung.loesche(_set, _abgelaufen);
+
+      int geloescht = 0;
+
+      for (VerwaltungsErgebnis e : ergebnis)
+        if (e.isErfolgreich())
+          geloescht++;
+
+      _anzahlGeloescht.addAndGet(geloescht);
+
+      if (!ergebnis.isEmpty())
+        _debug.fine("Bereinigung " + _set + ": " + geloescht + " von " + ergebnis.size() + " Objekten geloescht");
+
+      return ergebnis;
+    }
+    catch (RuntimeException e)
+    {
+      /* Fehler dürfen die periodische Ausführung nicht beenden */
+      _debug.warning("Fehler bei der Bereinigung der Menge " + _set, e);
+      return Collections.<VerwaltungsErgebnis>emptyList();
+    }
+  }
+
+  /**
+   * @return die Anzahl der seit dem Erzeugen geloeschten Objekte
+   */
+  public int getAnzahlGeloescht()
+  {
+    return _anzahlGeloescht.get();
+  }
+
+  /**
+   * Beendet das periodische Aufräumen endgültig, ein erneuter Start ist nicht möglich
+   */
+  public synchronized void stop()
+  {
+    if (_lauf != null)
+      _lauf.cancel(false);
+
+    _lauf = null;
+
+    _zeitgeber.shutdown();
+  }
+}
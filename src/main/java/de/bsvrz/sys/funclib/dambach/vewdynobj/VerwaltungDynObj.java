@@ -5,17 +5,18 @@ package de.bsvrz.sys.funclib.dambach.vewdynobj;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
 
 import de.bsvrz.dav.daf.main.ClientDavInterface;
-import de.bsvrz.dav.daf.main.ClientSenderInterface;
 import de.bsvrz.dav.daf.main.Data;
 import de.bsvrz.dav.daf.main.DataAndATGUsageInformation;
 import de.bsvrz.dav.daf.main.DataDescription;
-import de.bsvrz.dav.daf.main.DataNotSubscribedException;
-import de.bsvrz.dav.daf.main.OneSubscriptionPerSendData;
 import de.bsvrz.dav.daf.main.ResultData;
-import de.bsvrz.dav.daf.main.SendSubscriptionNotConfirmed;
-import de.bsvrz.dav.daf.main.SenderRole;
 import de.bsvrz.dav.daf.main.config.Aspect;
 import de.bsvrz.dav.daf.main.config.AttributeGroup;
 import de.bsvrz.dav.daf.main.config.AttributeGroupUsage;
@@ -25,7 +26,10 @@ import de.bsvrz.dav.daf.main.config.ConfigurationObject;
 import de.bsvrz.dav.daf.main.config.DataModel;
 import de.bsvrz.dav.daf.main.config.DynamicObject;
 import de.bsvrz.dav.daf.main.config.DynamicObjectType;
+import de.bsvrz.dav.daf.main.config.MutableSet;
 import de.bsvrz.dav.daf.main.config.SystemObject;
+import de.bsvrz.sys.funclib.dambach.dav.daf.SendeErgebnis;
+import de.bsvrz.sys.funclib.dambach.dav.daf.SenderRegister;
 import de.bsvrz.sys.funclib.debug.Debug;
 
  
@@ -38,7 +42,7 @@ import de.bsvrz.sys.funclib.debug.Debug;
  * @author Timo Pittner
  *
  */
-public class VerwaltungDynObj implements Verwaltung, ClientSenderInterface
+public class VerwaltungDynObj implements VerwaltungStapel
 {
   private Debug _debug;
 
@@ -56,7 +60,16 @@ public class VerwaltungDynObj implements Verwaltung, ClientSenderInterface
 
   private SystemObject _systemObject;
 
-  private Boolean flag;
+  /**
+   * Anzahl der Objekte, die beim Loeschen mehrerer Objekte gemeinsam aus der
+   * Menge entfernt werden
+   */
+  public static final int STAPEL_GROESSE = 500;
+
+  /**
+   * Zeit in ms, die beim Parametrieren max. auf den Versand gewartet wird
+   */
+  public static final long SENDE_TIMEOUT = 5000;
 
   private ClientDavInterface _con;
 
@@ -152,7 +165,7 @@ public class VerwaltungDynObj implements Verwaltung, ClientSenderInterface
 
       _debug.fine("Objekt " + so.getPid() + " vorhanden, loesche!");
 
-      _systemObject = (DynamicObject)_dm.getObject(pid);
+      _systemObject = (DynamicObject)so;
 
       if (_systemObject != null)
       {
@@ -239,36 +252,11 @@ public class VerwaltungDynObj implements Verwaltung, ClientSenderInterface
     return true;
   }
 
-  /* (non-Javadoc)
-   * @see de.bsvrz.dav.daf.main.ClientSenderInterface#dataRequest(de.bsvrz.dav.daf.main.config.SystemObject, de.bsvrz.dav.daf.main.DataDescription, byte)
-   */
-  public void dataRequest(SystemObject arg0, DataDescription arg1, byte arg2)
-  {
-    // TODO Auto-generated method stub
-    _debug.fine("Sender VewDynObj : Objekt " + arg0.getPid() + " dd " + arg1 + " state " + arg2);
-
-    if (arg2 == 0)
-    {
-      flag = true;
-      synchronized (this)
-      {
-        notify();
-      }
-    }
-
-  }
-
-  /* (non-Javadoc)
-   * @see de.bsvrz.dav.daf.main.ClientSenderInterface#isRequestSupported(de.bsvrz.dav.daf.main.config.SystemObject, de.bsvrz.dav.daf.main.DataDescription)
-   */
-  public boolean isRequestSupported(SystemObject arg0, DataDescription arg1)
-  {
-    // TODO Auto-generated method stub
-    return false;
-  }
-
   /**
-   * Parametriert ein dynamisches Objekt
+   * Parametriert ein dynamisches Objekt. Die Sendeanmeldung erfolgt über das
+   * gemeinsame {@link SenderRegister} der Verbindung und wird von weiteren
+   * Aufrufen wiederverwendet. Auf den Versand wird höchstens
+   * {@link #SENDE_TIMEOUT} ms gewartet.
    * 
    * @param dd
    *        die Datenbeschreibung
@@ -281,88 +269,49 @@ public class VerwaltungDynObj implements Verwaltung, ClientSenderInterface
    */
   private boolean parametriere(DataDescription dd, ResultData resultData) throws IllegalArgumentException
   {
-    // TODO Auto-generated method stub
-
     if (dd == null || resultData == null)
       throw new IllegalArgumentException();
 
-    try
-    {
-
-      _debug.fine("send1 : " + resultData.getData());
-      getConnection().sendData(resultData);
-
-    }
-    catch (DataNotSubscribedException e)
-    {
-      // TODO Auto-generated catch block
-      // e.printStackTrace();
-
-      try
-      {
-        _debug.fine("subscribe!");
-        //getConnection().subscribeSender(this, resultData.getObject(), dd, SenderRole.sender());
-        getConnection().subscribeSender(this, resultData.getObject(), dd, SenderRole.sender());
+    SenderRegister register = SenderRegister.getInstanz(getConnection());
 
-      }
-      catch (OneSubscriptionPerSendData e1)
-      {
-        // TODO Auto-generated catch block
-        e1.printStackTrace();
-      }
-      try
-      {
+    register.anmelden(resultData.getObject(), dd);
 
-        flag = false;
-
-        synchronized (this)
-        {
+    CompletableFuture<SendeErgebnis> versand = register.sende(resultData);
 
-          while (!flag)
-          {
-
-            try
-            {
-              this.wait();
-            }
-            catch (InterruptedException e1)
-            {
-              // TODO Auto-generated catch block
-              e1.printStackTrace();
-            }
-          }
-        }
+    try
+    {
+      _debug.fine("send : " + resultData.getData());
 
-        try
-        {
-          Thread.sleep(1);
-        }
-        catch (InterruptedException e1)
-        {
-          // TODO Auto-generated catch block
-          e1.printStackTrace();
-        }
+      SendeErgebnis ergebnis = versand.get(SENDE_TIMEOUT, TimeUnit.MILLISECONDS);
 
-        _debug.fine("send2 : " + resultData.getData());
-        getConnection().sendData(resultData);
-      }
-      catch (DataNotSubscribedException e1)
+      if (ergebnis != SendeErgebnis.GESENDET)
       {
-        // TODO Auto-generated catch block
-        e1.printStackTrace();
-      }
-      catch (SendSubscriptionNotConfirmed e1)
-      {
-        // TODO Auto-generated catch block
-        e1.printStackTrace();
+        _debug.warning("Parametrierung von " + resultData.getObject().getPid() + " nicht gesendet: " + ergebnis);
+        return false;
       }
     }
-    catch (SendSubscriptionNotConfirmed e)
+    catch (InterruptedException e)
     {
-      // TODO Auto-generated catch block
-      e.printStackTrace();
+      versand.cancel(false);
+      Thread.currentThread().interrupt();
+      return false;
     }
-    
+    catch (TimeoutException e)
+    {
+      versand.cancel(false);
+      _debug.warning("Parametrierung von " + resultData.getObject().getPid() + " nach " + SENDE_TIMEOUT + " ms nicht gesendet");
+      return false;
+    }
+    catch (ExecutionException e)
+    {
+      _debug.warning("Fehler beim Parametrieren von " + resultData.getObject().getPid(), e.getCause());
+      return false;
+    }
+    finally
+    {
+      register.abmelden(resultData.getObject(), dd);
+    }
+
     return true;
 
   }
@@ -481,6 +430,370 @@ public class VerwaltungDynObj implements Verwaltung, ClientSenderInterface
     }
   }
 
+  /**
+   * Erzeugt mehrere dynamische Objekte. Die Attributgruppenverwendung wird
+   * einmal bestimmt, bereits vorhandene Pids werden vorab mit einer Anfrage
+   * ermittelt und nicht erneut angelegt. Jedes Objekt wird mit seinen
+   * konfigurierenden Daten in einem Aufruf erzeugt (die Konfiguration bietet
+   * kein Erzeugen mehrerer Objekte in einem Aufruf), anschließend werden alle
+   * erzeugten Objekte mit einem Aufruf der Menge hinzugefügt. Schlägt das fehl,
+   * wird jedes Objekt einzeln hinzugefügt, um das Ergebnis je Objekt zu bestimmen.<br>
+   * Das dynamische Objekt der Verwaltungsinstanz ({@link #getDynamicObject()})
+   * wird nicht verändert.
+   * 
+   * @see de.bsvrz.sys.funclib.dambach.vewdynobj.VerwaltungStapel#erzeuge(java.util.Collection, java.lang.String)
+   */
+  public List<VerwaltungsErgebnis> erzeuge(Collection<ErzeugungsAuftrag> auftraege, String set)
+  {
+    List<ErzeugungsAuftrag> liste = new ArrayList<ErzeugungsAuftrag>(auftraege);
+
+    String[] pids = new String[liste.size()];
+
+    for (int i = 0; i < pids.length; i++)
+      pids[i] = liste.get(i).getPid();
+
+    List<SystemObject> vorhanden = _dm.getObjects(pids);
+
+    AttributeGroupUsage atgu = _atg.getAttributeGroupUsage(_asp);
+
+    SystemObject[] objekte = new SystemObject[liste.size()];
+
+    Exception[] fehler = new Exception[liste.size()];
+
+    int anzahl = 0;
+
+    for (int i = 0; i < liste.size(); i++)
+    {
+      ErzeugungsAuftrag auftrag = liste.get(i);
+
+      if (vorhanden.get(i) != null)
+      {
+        fehler[i] = new IllegalArgumentException("Objekt " + auftrag.getPid() + " bereits vorhanden");
+        continue;
+      }
+
+      try
+      {
+
+        Collection<DataAndATGUsageInformation> col = null;
+
+        if (auftrag.getData() != null)
+        {
+          col = new ArrayList<DataAndATGUsageInformation>(auftrag.getData().length);
+
+          for (Data d : auftrag.getData())
+            col.add(new DataAndATGUsageInformation(atgu, d));
+        }
+
+        objekte[i] = _ca.createDynamicObject(_dot, auftrag.getPid(), auftrag.getName(), col);
+
+        anzahl++;
+
+      }
+      catch (Exception e)
+      {
+        _debug.warning("Objekt " + auftrag.getPid() + " konnte nicht erzeugt werden", e);
+        fehler[i] = e;
+      }
+    }
+
+    _debug.fine(anzahl + " von " + liste.size() + " Objekten vom Typ " + _dot.getPid() + " erzeugt");
+
+    boolean[] inMenge = hinzufuegeZuMenge(set, objekte, anzahl);
+
+    List<VerwaltungsErgebnis> ergebnis = new ArrayList<VerwaltungsErgebnis>(liste.size());
+
+    for (int i = 0; i < liste.size(); i++)
+      ergebnis.add(new VerwaltungsErgebnis(pids[i], objekte[i], inMenge[i], fehler[i]));
+
+    return ergebnis;
+  }
+
+  /**
+   * Fügt mehrere Objekte mit einem Aufruf der Menge hinzu, bei einem Fehler
+   * einzeln
+   * 
+   * @param set
+   *        die Pid der Menge, leer wenn keine
+   * @param objekte
+   *        die Objekte, null-Einträge werden übergangen
+   * @param anzahl
+   *        die Anzahl der Einträge ungleich null
+   * @return
+   *        je Objekt true, wenn es der Menge hinzugefügt wurde oder keine Menge
+   *        angegeben war
+   */
+  private boolean[] hinzufuegeZuMenge(String set, SystemObject[] objekte, int anzahl)
+  {
+    boolean[] inMenge = new boolean[objekte.length];
+
+    if (set == null || set.length() == 0)
+    {
+      for (int i = 0; i < objekte.length; i++)
+        inMenge[i] = objekte[i] != null;
+
+      return inMenge;
+    }
+
+    if (anzahl == 0)
+      return inMenge;
+
+    MutableSet menge = _cal.getMutableSet(set);
+
+    if (menge == null)
+    {
+      _debug.warning("Menge " + set + " nicht vorhanden");
+      return inMenge;
+    }
+
+    SystemObject[] neu = new SystemObject[anzahl];
+
+    for (int i = 0, j = 0; i < objekte.length; i++)
+      if (objekte[i] != null)
+        neu[j++] = objekte[i];
+
+    try
+    {
+      menge.add(neu);
+
+      for (int i = 0; i < objekte.length; i++)
+        inMenge[i] = objekte[i] != null;
+    }
+    catch (ConfigurationChangeException e)
+    {
+      _debug.warning("Objekte konnten nicht gemeinsam der Menge " + set + " hinzugefügt werden, einzeln", e);
+
+      for (int i = 0; i < objekte.length; i++)
+      {
+        if (objekte[i] == null)
+          continue;
+
+        try
+        {
+          menge.add(objekte[i]);
+          inMenge[i] = true;
+        }
+        catch (ConfigurationChangeException e1)
+        {
+          _debug.warning("Objekt " + objekte[i].getPid() + " konnte der Menge " + set + " nicht hinzugefügt werden", e1);
+        }
+      }
+    }
+
+    return inMenge;
+  }
+
+  /**
+   * Loescht mehrere dynamische Objekte. Die Objekte werden mit einer Anfrage
+   * bestimmt, in Stapeln von {@link #STAPEL_GROESSE} Objekten mit jeweils einem
+   * Aufruf aus der Menge entfernt und anschließend ungültig gesetzt.<br>
+   * Das dynamische Objekt der Verwaltungsinstanz ({@link #getDynamicObject()})
+   * wird nicht verändert.
+   * 
+   * @see de.bsvrz.sys.funclib.dambach.vewdynobj.VerwaltungStapel#loesche(java.util.Collection, java.lang.String)
+   */
+  public List<VerwaltungsErgebnis> loesche(Collection<String> pids, String set)
+  {
+    String[] feld = pids.toArray(new String[pids.size()]);
+
+    List<SystemObject> objekte = _dm.getObjects(feld);
+
+    return loesche(feld, objekte.toArray(new SystemObject[feld.length]), set);
+  }
+
+  /**
+   * Loescht alle Elemente der Menge, die die Bedingung erfüllen, wie
+   * {@link #loesche(Collection, String)}
+   * 
+   * @see de.bsvrz.sys.funclib.dambach.vewdynobj.VerwaltungStapel#loesche(java.lang.String, java.util.function.Predicate)
+   */
+  public List<VerwaltungsErgebnis> loesche(String set, Predicate<SystemObject> auswahl)
+  {
+    MutableSet menge = _cal.getMutableSet(set);
+
+    if (menge == null)
+      throw new IllegalArgumentException("Menge " + set + " nicht vorhanden");
+
+    List<SystemObject> ausgewaehlt = new ArrayList<SystemObject>();
+
+    for (SystemObject so : menge.getElements())
+      if (auswahl.test(so))
+        ausgewaehlt.add(so);
+
+    String[] pids = new String[ausgewaehlt.size()];
+
+    for (int i = 0; i < pids.length; i++)
+      pids[i] = ausgewaehlt.get(i).getPid();
+
+    return loesche(pids, ausgewaehlt.toArray(new SystemObject[pids.length]), set);
+  }
+
+  /**
+   * Entfernt die Objekte stapelweise aus der Menge und setzt sie ungültig.
+   * Objekte, die keine dynamischen Objekte vom verwalteten Typ sind, werden
+   * übergangen und als Fehler gemeldet.
+   * 
+   * @param pids
+   *        die Pids der Objekte
+   * @param objekte
+   *        die Objekte, null wenn zur Pid kein Objekt vorhanden ist
+   * @param set
+   *        die Pid der Menge, leer wenn keine
+   * @return
+   *        das Ergebnis je Objekt
+   */
+  private List<VerwaltungsErgebnis> loesche(String[] pids, SystemObject[] objekte, String set)
+  {
+    MutableSet menge = null;
+
+    if (set != null && set.length() > 0)
+    {
+      menge = _cal.getMutableSet(set);
+
+      if (menge == null)
+        _debug.warning("Menge " + set + " nicht vorhanden");
+    }
+
+    boolean[] ausMenge = new boolean[objekte.length];
+
+    Exception[] fehler = new Exception[objekte.length];
+
+    SystemObject[] verwaltet = new SystemObject[objekte.length];
+
+    for (int i = 0; i < objekte.length; i++)
+    {
+      if (objekte[i] == null)
+      {
+        fehler[i] = new IllegalArgumentException("Objekt " + pids[i] + " nicht vorhanden");
+      }
+      else if (!istVerwaltet(objekte[i]))
+      {
+        _debug.warning("Objekt " + pids[i] + " ist kein dynamisches Objekt vom Typ " + _dot.getPid() + ", wird nicht geloescht");
+        fehler[i] = new IllegalArgumentException("Objekt " + pids[i] + " ist kein dynamisches Objekt vom Typ " + _dot.getPid());
+      }
+      else
+      {
+        verwaltet[i] = objekte[i];
+      }
+    }
+
+    int geloescht = 0;
+
+    for (int anfang = 0; anfang < verwaltet.length; anfang += STAPEL_GROESSE)
+    {
+      int ende = Math.min(anfang + STAPEL_GROESSE, verwaltet.length);
+
+      entferneVonMenge(menge, set, verwaltet, anfang, ende, ausMenge);
+
+      for (int i = anfang; i < ende; i++)
+      {
+        if (verwaltet[i] == null)
+          continue;
+
+        try
+        {
+          verwaltet[i].invalidate();
+          geloescht++;
+        }
+        catch (ConfigurationChangeException e)
+        {
+          _debug.warning("Objekt " + pids[i] + " konnte nicht geloescht werden", e);
+          fehler[i] = e;
+        }
+      }
+    }
+
+    _debug.fine(geloescht + " von " + objekte.length + " Objekten geloescht");
+
+    List<VerwaltungsErgebnis> ergebnis = new ArrayList<VerwaltungsErgebnis>(objekte.length);
+
+    for (int i = 0; i < objekte.length; i++)
+      ergebnis.add(new VerwaltungsErgebnis(pids[i], objekte[i], ausMenge[i], fehler[i]));
+
+    return ergebnis;
+  }
+
+  /**
+   * Prüft, ob ein Objekt ein dynamisches Objekt vom verwalteten Typ ist und
+   * damit von dieser Verwaltung geloescht werden darf
+   * 
+   * @param so
+   *        das Objekt
+   * @return
+   *        true, wenn das Objekt geloescht werden darf
+   */
+  private boolean istVerwaltet(SystemObject so)
+  {
+    return so instanceof DynamicObject && so.isOfType(_dot);
+  }
+
+  /**
+   * Entfernt einen Stapel von Objekten mit einem Aufruf aus der Menge, bei
+   * einem Fehler einzeln
+   * 
+   * @param menge
+   *        die Menge, null wenn keine
+   * @param set
+   *        die Pid der Menge für Meldungen
+   * @param objekte
+   *        die Objekte, null-Einträge werden übergangen
+   * @param anfang
+   *        erster Index des Stapels
+   * @param ende
+   *        Index nach dem letzten Objekt des Stapels
+   * @param ausMenge
+   *        nimmt je Objekt auf, ob es aus der Menge entfernt wurde oder keine
+   *        Menge angegeben war
+   */
+  private void entferneVonMenge(MutableSet menge, String set, SystemObject[] objekte, int anfang, int ende,
+      boolean[] ausMenge)
+  {
+    if (menge == null)
+    {
+      for (int i = anfang; i < ende; i++)
+        ausMenge[i] = objekte[i] != null && (set == null || set.length() == 0);
+
+      return;
+    }
+
+    List<SystemObject> stapel = new ArrayList<SystemObject>(ende - anfang);
+
+    for (int i = anfang; i < ende; i++)
+      if (objekte[i] != null)
+        stapel.add(objekte[i]);
+
+    if (stapel.isEmpty())
+      return;
+
+    try
+    {
+      menge.remove(stapel.toArray(new SystemObject[stapel.size()]));
+
+      for (int i = anfang; i < ende; i++)
+        ausMenge[i] = objekte[i] != null;
+    }
+    catch (ConfigurationChangeException e)
+    {
+      _debug.warning("Objekte konnten nicht gemeinsam aus der Menge " + set + " entfernt werden, einzeln", e);
+
+      for (int i = anfang; i < ende; i++)
+      {
+        if (objekte[i] == null)
+          continue;
+
+        try
+        {
+          menge.remove(objekte[i]);
+          ausMenge[i] = true;
+        }
+        catch (ConfigurationChangeException e1)
+        {
+          _debug.warning("Objekt " + objekte[i].getPid() + " konnte nicht aus der Menge " + set + " entfernt werden", e1);
+        }
+      }
+    }
+  }
+
   /* (non-Javadoc)
    * @see de.bsvrz.vew.ereigniskal.ereigniskal.verwaltung.Verwaltung#parametriere(java.lang.String, java.lang.String)
    */
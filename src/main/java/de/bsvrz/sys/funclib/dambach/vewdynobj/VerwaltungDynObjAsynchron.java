@@ -0,0 +1,668 @@
+package de.bsvrz.sys.funclib.dambach.vewdynobj;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import de.bsvrz.dav.daf.main.ClientDavInterface;
+import de.bsvrz.dav.daf.main.Data;
+import de.bsvrz.dav.daf.main.DataAndATGUsageInformation;
+import de.bsvrz.dav.daf.main.DataDescription;
+import de.bsvrz.dav.daf.main.ResultData;
+import de.bsvrz.dav.daf.main.config.Aspect;
+import de.bsvrz.dav.daf.main.config.AttributeGroup;
+import de.bsvrz.dav.daf.main.config.AttributeGroupUsage;
+import de.bsvrz.dav.daf.main.config.ConfigurationArea;
+import de.bsvrz.dav.daf.main.config.ConfigurationChangeException;
+import de.bsvrz.dav.daf.main.config.ConfigurationObject;
+import de.bsvrz.dav.daf.main.config.DataModel;
+import de.bsvrz.dav.daf.main.config.DynamicObject;
+import de.bsvrz.dav.daf.main.config.DynamicObjectType;
+import de.bsvrz.dav.daf.main.config.MutableSet;
+import de.bsvrz.dav.daf.main.config.SystemObject;
+import de.bsvrz.sys.funclib.dambach.parameter.ParameterSendeDienst;
+import de.bsvrz.sys.funclib.dambach.parameter.ParameterSendeErgebnis;
+import de.bsvrz.sys.funclib.debug.Debug;
+
+/**
+ * Asynchrone Verwaltung dynamischer Objekte (erzeugen, Mengenzugehörigkeit,
+ * parametrieren, loeschen) mit denselben Konfigurationsobjekten wie
+ * {@link VerwaltungDynObj}.<br>
+ * Die Konfigurationsaufrufe laufen auf einer festen Anzahl von Threads. Alle
+ * Objekte, die während eines laufenden Mengenaufrufs derselben Menge
+ * hinzugefügt bzw. aus ihr entfernt werden sollen, werden gesammelt und mit
+ * dem nächsten Aufruf gemeinsam übertragen. Parametriert wird über einen
+ * {@link ParameterSendeDienst}, der die Sendeanmeldung je Objekt und
+ * Datenbeschreibung über das {@link de.bsvrz.sys.funclib.dambach.dav.daf.SenderRegister}
+ * der Verbindung wiederverwendet und ohne belegten Thread auf die
+ * Sendesteuerung wartet. Die Schritte eines Objekts (gleiche Pid) werden in
+ * der Reihenfolge des Aufrufs ausgeführt.
+ *
+ * @author Dambach-Werke GmbH
+ *
+ */
+public class VerwaltungDynObjAsynchron implements VerwaltungAsynchron
+{
+  private final Debug _debug = Debug.getLogger();
+
+  private final ClientDavInterface _con;
+
+  private final DataModel _dm;
+
+  private final ConfigurationArea _ca;
+
+  private final DynamicObjectType _dot;
+
+  private final ConfigurationObject _cal;
+
+  private final AttributeGroup _atg;
+
+  private final Aspect _asp;
+
+  private final ExecutorService _executor;
+
+  private final ParameterSendeDienst _sendeDienst;
+
+  private final boolean _eigenerSendeDienst;
+
+  /**
+   * Letzter Schritt je Pid, an den der nächste Schritt desselben Objekts angehängt wird
+   */
+  private final ConcurrentHashMap<String, CompletableFuture<?>> _ketten = new ConcurrentHashMap<String, CompletableFuture<?>>();
+
+  /**
+   * Gesammelte Mengenoperationen je Menge
+   */
+  private final ConcurrentHashMap<String, MengenPuffer> _hinzufuegen = new ConcurrentHashMap<String, MengenPuffer>();
+
+  private final ConcurrentHashMap<String, MengenPuffer> _entfernen = new ConcurrentHashMap<String, MengenPuffer>();
+
+  /**
+   * @param con
+   *        die Datenverteilerverbindung
+   * @param dm
+   *        das Datenmodell
+   * @param ca
+   *        der Konfigrationsbereich
+   * @param dot
+   *        der Objekttyp
+   * @param cal
+   *        das Konfigurationsobjekt mit den Mengen
+   * @param atg
+   *        die Attributgruppe
+   * @param asp
+   *        der Aspekt
+   * @param anzahlThreads
+   *        die Anzahl der Threads für Konfigurationsaufrufe und Versand
+   */
+  public VerwaltungDynObjAsynchron(ClientDavInterface con, DataModel dm, ConfigurationArea ca, DynamicObjectType dot,
+      ConfigurationObject cal, AttributeGroup atg, Aspect asp, int anzahlThreads)
+  {
+    this(con, dm, ca, dot, cal, atg, asp, anzahlThreads, new ParameterSendeDienst(con, anzahlThreads), true);
+  }
+
+  /**
+   * @param con
+   *        die Datenverteilerverbindung
+   * @param dm
+   *        das Datenmodell
+   * @param ca
+   *        der Konfigrationsbereich
+   * @param dot
+   *        der Objekttyp
+   * @param cal
+   *        das Konfigurationsobjekt mit den Mengen
+   * @param atg
+   *        die Attributgruppe
+   * @param asp
+   *        der Aspekt
+   * @param anzahlThreads
+   *        die Anzahl der Threads für Konfigurationsaufrufe
+   * @param sendeDienst
+   *        der Dienst zum Parametrieren, wird von {@link #dispose()} nicht beendet
+   */
+  public VerwaltungDynObjAsynchron(ClientDavInterface con, DataModel dm, ConfigurationArea ca, DynamicObjectType dot,
+      ConfigurationObject cal, AttributeGroup atg, Aspect asp, int anzahlThreads, ParameterSendeDienst sendeDienst)
+  {
+    this(con, dm, ca, dot, cal, atg, asp, anzahlThreads, sendeDienst, false);
+  }
+
+  private VerwaltungDynObjAsynchron(ClientDavInterface con, DataModel dm, ConfigurationArea ca, DynamicObjectType dot,
+      ConfigurationObject cal, AttributeGroup atg, Aspect asp, int anzahlThreads, ParameterSendeDienst sendeDienst,
+      boolean eigenerSendeDienst)
+  {
+    this._con = con;
+    this._dm = dm;
+    this._ca = ca;
+    this._dot = dot;
+    this._cal = cal;
+    this._atg = atg;
+    this._asp = asp;
+    this._sendeDienst = sendeDienst;
+    this._eigenerSendeDienst = eigenerSendeDienst;
+
+    final AtomicInteger nummer = new AtomicInteger();
+
+    _executor = Executors.newFixedThreadPool(anzahlThreads, new ThreadFactory()
+    {
+      public Thread newThread(Runnable r)
+      {
+        Thread t = new Thread(r, "VerwaltungDynObjAsynchron-" + nummer.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+      }
+    });
+  }
+
+  /* (non-Javadoc)
+   * @see de.bsvrz.sys.funclib.dambach.vewdynobj.VerwaltungAsynchron#erzeuge(java.lang.String, java.lang.String, java.lang.String, de.bsvrz.dav.daf.main.Data[])
+   */
+  public CompletionStage<SystemObject> erzeuge(final String pid, final String name, final String set, final Data[] data)
+  {
+    return nachVorgaenger(pid, new Supplier<CompletableFuture<SystemObject>>()
+    {
+      public CompletableFuture<SystemObject> get()
+      {
+        return erzeugeObjekt(pid, name, data).thenCompose(hinzufuegen(set));
+      }
+    });
+  }
+
+  /* (non-Javadoc)
+   * @see de.bsvrz.sys.funclib.dambach.vewdynobj.VerwaltungAsynchron#erzeugeUndParametriere(java.lang.String, java.lang.String, java.lang.String, de.bsvrz.dav.daf.main.Data[], de.bsvrz.dav.daf.main.Data[])
+   */
+  public CompletionStage<SystemObject> erzeugeUndParametriere(final String pid, final String name, final String set,
+      final Data[] data, final Data[] parameter)
+  {
+    return nachVorgaenger(pid, new Supplier<CompletableFuture<SystemObject>>()
+    {
+      public CompletableFuture<SystemObject> get()
+      {
+        return erzeugeObjekt(pid, name, data).thenCompose(hinzufuegen(set)).thenCompose(
+            new Function<SystemObject, CompletableFuture<SystemObject>>()
+            {
+              public CompletableFuture<SystemObject> apply(SystemObject so)
+              {
+                return parametriereObjekt(so, parameter);
+              }
+            });
+      }
+    });
+  }
+
+  /* (non-Javadoc)
+   * @see de.bsvrz.sys.funclib.dambach.vewdynobj.VerwaltungAsynchron#parametriere(java.lang.String, de.bsvrz.dav.daf.main.Data[])
+   */
+  public CompletionStage<SystemObject> parametriere(final String pid, final Data[] data)
+  {
+    return nachVorgaenger(pid, new Supplier<CompletableFuture<SystemObject>>()
+    {
+      public CompletableFuture<SystemObject> get()
+      {
+        return bestimmeObjekt(pid).thenCompose(new Function<SystemObject, CompletableFuture<SystemObject>>()
+        {
+          public CompletableFuture<SystemObject> apply(SystemObject so)
+          {
+            return parametriereObjekt(so, data);
+          }
+        });
+      }
+    });
+  }
+
+  /* (non-Javadoc)
+   * @see de.bsvrz.sys.funclib.dambach.vewdynobj.VerwaltungAsynchron#loesche(java.lang.String, java.lang.String)
+   */
+  public CompletionStage<VerwaltungsErgebnis> loesche(final String pid, final String set)
+  {
+    return nachVorgaenger(pid, new Supplier<CompletableFuture<VerwaltungsErgebnis>>()
+    {
+      public CompletableFuture<VerwaltungsErgebnis> get()
+      {
+        return bestimmeObjekt(pid).thenApply(new Function<SystemObject, SystemObject>()
+        {
+          public SystemObject apply(SystemObject so)
+          {
+            if (!(so instanceof DynamicObject) || !so.isOfType(_dot))
+            {
+              _debug.warning("Objekt " + pid + " ist kein dynamisches Objekt vom Typ " + _dot.getPid() + ", wird nicht geloescht");
+              throw new IllegalArgumentException("Objekt " + pid + " ist kein dynamisches Objekt vom Typ " + _dot.getPid());
+            }
+
+            return so;
+          }
+        }).thenCompose(entfernen(set)).thenApplyAsync(
+            new Function<SystemObject, VerwaltungsErgebnis>()
+            {
+              public VerwaltungsErgebnis apply(SystemObject so)
+              {
+                try
+                {
+                  so.invalidate();
+                  _debug.fine("Objekt " + pid + " geloescht!");
+                  return new VerwaltungsErgebnis(pid, so, true, null);
+                }
+                catch (ConfigurationChangeException e)
+                {
+                  throw new CompletionException(e);
+                }
+              }
+            }, _executor);
+      }
+    });
+  }
+
+  /**
+   * Holt die Datenverteilerverbindung
+   *
+   * @return
+   */
+  public ClientDavInterface getConnection()
+  {
+    return _con;
+  }
+
+  /**
+   * Beendet die Threads der Verwaltung und den eigenen Sendedienst. Noch nicht
+   * begonnene Schritte werden nicht mehr ausgeführt, ihre Ergebnisse und die
+   * der noch nicht übertragenen Mengenoperationen werden mit einer
+   * {@link CancellationException} abgeschlossen.
+   */
+  public void dispose()
+  {
+    _executor.shutdownNow();
+
+    CancellationException abbruch = new CancellationException("Verwaltung beendet");
+
+    for (MengenPuffer p : _hinzufuegen.values())
+      p.abbrechen(abbruch);
+
+    for (MengenPuffer p : _entfernen.values())
+      p.abbrechen(abbruch);
+
+    for (CompletableFuture<?> kette : _ketten.values())
+      kette.completeExceptionally(abbruch);
+
+    _ketten.clear();
+
+    if (_eigenerSendeDienst)
+      _sendeDienst.dispose();
+  }
+
+  /**
+   * Hängt einen Schritt an den letzten Schritt desselben Objekts an. Der
+   * Schritt beginnt, sobald der vorherige abgeschlossen ist, unabhängig davon,
+   * ob dieser erfolgreich war.
+   *
+   * @param pid
+   *        die Pid des Objekts
+   * @param schritt
+   *        startet den Schritt
+   * @return
+   *        das Ergebnis des Schritts
+   */
+  private <T> CompletableFuture<T> nachVorgaenger(final String pid, final Supplier<CompletableFuture<T>> schritt)
+  {
+    final CompletableFuture<T> ergebnis = new CompletableFuture<T>();
+
+    CompletableFuture<?> vorgaenger = _ketten.put(pid, ergebnis);
+
+    if (vorgaenger == null)
+      vorgaenger = CompletableFuture.completedFuture(null);
+
+    vorgaenger.whenComplete(new BiConsumer<Object, Throwable>()
+    {
+      public void accept(Object o, Throwable t)
+      {
+        CompletableFuture<T> lauf;
+
+        try
+        {
+          lauf = schritt.get();
+        }
+        catch (RuntimeException e)
+        {
+          lauf = new CompletableFuture<T>();
+          lauf.completeExceptionally(e);
+        }
+
+        lauf.whenComplete(new BiConsumer<T, Throwable>()
+        {
+          public void accept(T wert, Throwable fehler)
+          {
+            /* Kette entfernen, wenn kein weiterer Schritt angehängt wurde */
+            _ketten.remove(pid, ergebnis);
+
+            if (fehler != null)
+              ergebnis.completeExceptionally(fehler);
+            else
+              ergebnis.complete(wert);
+          }
+        });
+      }
+    });
+
+    return ergebnis;
+  }
+
+  /**
+   * Erzeugt das dynamische Objekt in einem Thread der Verwaltung
+   */
+  private CompletableFuture<SystemObject> erzeugeObjekt(final String pid, final String name, final Data[] data)
+  {
+    return CompletableFuture.supplyAsync(new Supplier<SystemObject>()
+    {
+      public SystemObject get()
+      {
+        Collection<DataAndATGUsageInformation> col = null;
+
+        if (data != null)
+        {
+          AttributeGroupUsage atgu = _atg.getAttributeGroupUsage(_asp);
+
+          col = new ArrayList<DataAndATGUsageInformation>(data.length);
+
+          for (Data d : data)
+            col.add(new DataAndATGUsageInformation(atgu, d));
+        }
+
+        try
+        {
+          SystemObject so = _ca.createDynamicObject(_dot, pid, name, col);
+
+          _debug.fine("Objekt " + pid + " erzeugt");
+
+          return so;
+        }
+        catch (ConfigurationChangeException e)
+        {
+          throw new CompletionException(e);
+        }
+      }
+    }, _executor);
+  }
+
+  /**
+   * Bestimmt das Objekt zu einer Pid in einem Thread der Verwaltung
+   */
+  private CompletableFuture<SystemObject> bestimmeObjekt(final String pid)
+  {
+    return CompletableFuture.supplyAsync(new Supplier<SystemObject>()
+    {
+      public SystemObject get()
+      {
+        SystemObject so = _dm.getObject(pid);
+
+        if (so == null)
+          throw new IllegalArgumentException("Objekt " + pid + " nicht vorhanden");
+
+        return so;
+      }
+    }, _executor);
+  }
+
+  /**
+   * Sendet die Datensätze nacheinander über den Sendedienst
+   */
+  private CompletableFuture<SystemObject> parametriereObjekt(final SystemObject so, Data[] data)
+  {
+    final DataDescription dd = new DataDescription(_atg, _asp);
+
+    CompletableFuture<SystemObject> kette = CompletableFuture.completedFuture(so);
+
+    if (data == null)
+      return kette;
+
+    for (final Data d : data)
+    {
+      kette = kette.thenCompose(new Function<SystemObject, CompletableFuture<SystemObject>>()
+      {
+        public CompletableFuture<SystemObject> apply(SystemObject o)
+        {
+          ResultData rd = new ResultData(so, dd, System.currentTimeMillis(), d);
+
+          return _sendeDienst.sende(rd).thenApply(new Function<ParameterSendeErgebnis, SystemObject>()
+          {
+            public SystemObject apply(ParameterSendeErgebnis ergebnis)
+            {
+              /* ERSETZT: ein später übergebener Datensatz für das Objekt wird gesendet,
+                 UNVERAENDERT: der Datensatz stimmt mit dem aktuellen Stand überein */
+              if (ergebnis != ParameterSendeErgebnis.GESENDET && ergebnis != ParameterSendeErgebnis.ERSETZT
+                  && ergebnis != ParameterSendeErgebnis.UNVERAENDERT)
+                throw new IllegalStateException("Parametrierung von " + so.getPid() + " fehlgeschlagen: " + ergebnis);
+
+              return so;
+            }
+          });
+        }
+      });
+    }
+
+    return kette;
+  }
+
+  /**
+   * @return Schritt, der ein Objekt der Menge hinzufügt
+   */
+  private Function<SystemObject, CompletableFuture<SystemObject>> hinzufuegen(final String set)
+  {
+    return new Function<SystemObject, CompletableFuture<SystemObject>>()
+    {
+      public CompletableFuture<SystemObject> apply(SystemObject so)
+      {
+        return mengenOperation(_hinzufuegen, set, true, so);
+      }
+    };
+  }
+
+  /**
+   * @return Schritt, der ein Objekt aus der Menge entfernt
+   */
+  private Function<SystemObject, CompletableFuture<SystemObject>> entfernen(final String set)
+  {
+    return new Function<SystemObject, CompletableFuture<SystemObject>>()
+    {
+      public CompletableFuture<SystemObject> apply(SystemObject so)
+      {
+        return mengenOperation(_entfernen, set, false, so);
+      }
+    };
+  }
+
+  /**
+   * Übergibt ein Objekt an den Puffer der Menge
+   */
+  private CompletableFuture<SystemObject> mengenOperation(ConcurrentHashMap<String, MengenPuffer> puffer, String set,
+      boolean hinzufuegen, SystemObject so)
+  {
+    if (set == null || set.length() == 0)
+      return CompletableFuture.completedFuture(so);
+
+    MengenPuffer p = puffer.get(set);
+
+    if (p == null)
+    {
+      MengenPuffer neu = new MengenPuffer(set, hinzufuegen);
+
+      p = puffer.putIfAbsent(set, neu);
+
+      if (p == null)
+        p = neu;
+    }
+
+    return p.einreihen(so);
+  }
+
+  /**
+   * Sammelt die Objekte, die einer Menge hinzugefügt bzw. aus ihr entfernt
+   * werden sollen. Es läuft höchstens ein Mengenaufruf je Puffer, alle während
+   * dieses Aufrufs eingereihten Objekte werden mit dem nächsten Aufruf
+   * gemeinsam übertragen.
+   */
+  private final class MengenPuffer implements Runnable
+  {
+    private final String _set;
+
+    private final boolean _hinzufuegen;
+
+    private final ConcurrentLinkedQueue<Eintrag> _warteschlange = new ConcurrentLinkedQueue<Eintrag>();
+
+    private final AtomicBoolean _geplant = new AtomicBoolean(false);
+
+    MengenPuffer(String set, boolean hinzufuegen)
+    {
+      _set = set;
+      _hinzufuegen = hinzufuegen;
+    }
+
+    CompletableFuture<SystemObject> einreihen(SystemObject so)
+    {
+      Eintrag eintrag = new Eintrag(so);
+
+      _warteschlange.add(eintrag);
+
+      planen();
+
+      return eintrag.ergebnis;
+    }
+
+    /**
+     * Schließt alle eingereihten, noch nicht übertragenen Objekte mit dem
+     * Fehler ab
+     */
+    void abbrechen(RuntimeException e)
+    {
+      Eintrag eintrag;
+
+      while ((eintrag = _warteschlange.poll()) != null)
+        eintrag.ergebnis.completeExceptionally(e);
+
+      _geplant.set(false);
+    }
+
+    private void planen()
+    {
+      if (!_warteschlange.isEmpty() && _geplant.compareAndSet(false, true))
+      {
+        try
+        {
+          _executor.execute(this);
+        }
+        catch (RuntimeException e)
+        {
+          abbrechen(e);
+        }
+      }
+    }
+
+    public void run()
+    {
+      List<Eintrag> stapel = new ArrayList<Eintrag>();
+
+      Eintrag eintrag;
+
+      while ((eintrag = _warteschlange.poll()) != null)
+        stapel.add(eintrag);
+
+      try
+      {
+        if (!stapel.isEmpty())
+          uebertragen(stapel);
+      }
+      finally
+      {
+        _geplant.set(false);
+
+        /* inzwischen eingereihte Objekte mit dem nächsten Aufruf übertragen */
+        planen();
+      }
+    }
+
+    private void uebertragen(List<Eintrag> stapel)
+    {
+      MutableSet menge = _cal.getMutableSet(_set);
+
+      if (menge == null)
+      {
+        IllegalArgumentException e = new IllegalArgumentException("Menge " + _set + " nicht vorhanden");
+
+        for (Eintrag eintrag : stapel)
+          eintrag.ergebnis.completeExceptionally(e);
+
+        return;
+      }
+
+      SystemObject[] objekte = new SystemObject[stapel.size()];
+
+      for (int i = 0; i < objekte.length; i++)
+        objekte[i] = stapel.get(i).objekt;
+
+      try
+      {
+        if (_hinzufuegen)
+          menge.add(objekte);
+        else
+          menge.remove(objekte);
+
+        for (Eintrag eintrag : stapel)
+          eintrag.ergebnis.complete(eintrag.objekt);
+
+        return;
+      }
+      catch (ConfigurationChangeException e)
+      {
+        _debug.warning("Gemeinsame Mengenoperation auf " + _set + " fehlgeschlagen, einzeln", e);
+      }
+      catch (RuntimeException e)
+      {
+        _debug.warning("Gemeinsame Mengenoperation auf " + _set + " fehlgeschlagen, einzeln", e);
+      }
+
+      for (Eintrag eintrag : stapel)
+      {
+        try
+        {
+          if (_hinzufuegen)
+            menge.add(eintrag.objekt);
+          else
+            menge.remove(eintrag.objekt);
+
+          eintrag.ergebnis.complete(eintrag.objekt);
+        }
+        catch (Exception e)
+        {
+          eintrag.ergebnis.completeExceptionally(e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Ein Objekt im {@link MengenPuffer} mit dem Ergebnis seiner Mengenoperation
+   */
+  private static final class Eintrag
+  {
+    final SystemObject objekt;
+
+    final CompletableFuture<SystemObject> ergebnis = new CompletableFuture<SystemObject>();
+
+    Eintrag(SystemObject so)
+    {
+      objekt = so;
+    }
+  }
+}
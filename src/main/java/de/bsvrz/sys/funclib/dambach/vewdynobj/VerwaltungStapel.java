@@ -0,0 +1,59 @@
+package de.bsvrz.sys.funclib.dambach.vewdynobj;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Predicate;
+
+import de.bsvrz.dav.daf.main.config.SystemObject;
+
+/**
+ * Erweiterung der {@link Verwaltung} um Operationen, die mehrere dynamische
+ * Objekte mit wenigen Aufrufen der Konfiguration bearbeiten
+ * 
+ * @author Dambach-Werke GmbH
+ * 
+ */
+public interface VerwaltungStapel extends Verwaltung
+{
+  /**
+   * Erzeugt mehrere dynamische Objekte mit ihren konfigurierenden Daten und
+   * fügt sie mit einem Aufruf der Menge hinzu
+   * 
+   * @param auftraege
+   *        die zu erzeugenden Objekte
+   * @param set
+   *        die Pid der Menge der die dynamischen Objekte hinzugefuegt werden,
+   *        leer wenn keine
+   * @return
+   *        das Ergebnis je Objekt in der Reihenfolge der Aufträge
+   */
+  public List<VerwaltungsErgebnis> erzeuge(Collection<ErzeugungsAuftrag> auftraege, String set);
+
+  /**
+   * Loescht mehrere dynamische Objekte. Die Objekte werden in Stapeln mit
+   * jeweils einem Aufruf aus der Menge entfernt und anschließend ungültig
+   * gesetzt.
+   * 
+   * @param pids
+   *        die Pids der zu loeschenden Objekte
+   * @param set
+   *        die Pid der Menge aus welcher die dynamischen Objekte entfernt
+   *        werden, leer wenn keine
+   * @return
+   *        das Ergebnis je Objekt in der Reihenfolge der Pids
+   */
+  public List<VerwaltungsErgebnis> loesche(Collection<String> pids, String set);
+
+  /**
+   * Loescht alle dynamischen Objekte einer Menge, die eine Bedingung erfüllen
+   * (z. B. abgelaufene Objekte), und entfernt sie aus der Menge
+   * 
+   * @param set
+   *        die Pid der Menge
+   * @param auswahl
+   *        die Bedingung für die zu loeschenden Elemente der Menge
+   * @return
+   *        das Ergebnis je geloeschtem Objekt
+   */
+  public List<VerwaltungsErgebnis> loesche(String set, Predicate<SystemObject> auswahl);
+}
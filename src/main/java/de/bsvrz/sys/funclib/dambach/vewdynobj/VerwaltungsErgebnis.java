@@ -0,0 +1,86 @@
+package de.bsvrz.sys.funclib.dambach.vewdynobj;
+
+import de.bsvrz.dav.daf.main.config.SystemObject;
+
+/**
+ * Ergebnis einer Operation der {@link Verwaltung} für ein einzelnes dynamisches
+ * Objekt, wenn mehrere Objekte mit einem Aufruf bearbeitet werden
+ * 
+ * @author Dambach-Werke GmbH
+ * 
+ */
+public class VerwaltungsErgebnis
+{
+  private final String _pid;
+
+  private final SystemObject _objekt;
+
+  private final boolean _inMenge;
+
+  private final Exception _fehler;
+
+  /**
+   * @param pid
+   *        die Pid des Objekts
+   * @param objekt
+   *        das bearbeitete Objekt, null wenn es nicht bestimmt werden konnte
+   * @param inMenge
+   *        true, wenn die Mengenoperation für das Objekt erfolgreich war
+   * @param fehler
+   *        der aufgetretene Fehler, null wenn erfolgreich
+   */
+  public VerwaltungsErgebnis(String pid, SystemObject objekt, boolean inMenge, Exception fehler)
+  {
+    _pid = pid;
+    _objekt = objekt;
+    _inMenge = inMenge;
+    _fehler = fehler;
+  }
+
+  /**
+   * @return die Pid des Objekts
+   */
+  public String getPid()
+  {
+    return _pid;
+  }
+
+  /**
+   * @return das bearbeitete Objekt, null wenn es nicht bestimmt werden konnte
+   */
+  public SystemObject getObjekt()
+  {
+    return _objekt;
+  }
+
+  /**
+   * @return true, wenn das Objekt der Menge hinzugefügt bzw. aus ihr entfernt
+   *         wurde oder keine Menge angegeben war
+   */
+  public boolean isInMenge()
+  {
+    return _inMenge;
+  }
+
+  /**
+   * @return der aufgetretene Fehler, null wenn erfolgreich
+   */
+  public Exception getFehler()
+  {
+    return _fehler;
+  }
+
+  /**
+   * @return true, wenn die Operation für das Objekt vollständig erfolgreich war
+   */
+  public boolean isErfolgreich()
+  {
+    return _fehler == null && _objekt != null && _inMenge;
+  }
+
+  @Override
+  public String toString()
+  {
+    return _pid + (isErfolgreich() ? ": ok" : ": " + (_fehler != null ? _fehler.getMessage() : "nicht in Menge"));
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.konfiguration.netz;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.Vector;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests für die Abfragen der Straßenteilsegmente über den Offset-Index von {@link StrassenSegment}
+ * @author Dambach Werke GmbH
+ */
+public class StrassenSegmentTest
+{
+  /**
+   * Straßensegment mit den Straßenteilsegmenten 0-100, 100-300 und 300-600
+   */
+  private StrassenSegment m_a;
+
+  /**
+   * Nachfolger auf der Straße mit den Straßenteilsegmenten 0-50 und 50-100
+   */
+  private StrassenSegment m_b;
+
+  /**
+   * Aufbau der Straßensegmente
+   */
+  @Before
+  public void erzeugeSegmente ()
+  {
+    m_a = TestNetz.segment( 100, 200, 300 );
+    m_b = TestNetz.segment( 50, 50 );
+
+    TestNetz.verbinde( m_a, m_b, true );
+  }
+
+  /**
+   * Offsets und primitive Felder des Index
+   */
+  @Test
+  public void testIndex ()
+  {
+    assertEquals( 600, m_a.getLaenge() );
+    assertArrayEquals( new long[] { 0, 100, 300, 600 }, m_a.getOffsetsTeilSegmente() );
+    assertArrayEquals( new int[] { 2, 3, 2 }, m_a.getAnzahlFahrstreifenTeilSegmente() );
+    assertArrayEquals( new double[] { 0, 1, 2 }, m_a.getSteigungGefaelleTeilSegmente(), 0 );
+
+    // Kopien, der Index bleibt unverändert
+
+    m_a.getOffsetsTeilSegmente()[1] = 0;
+    assertEquals( 100, m_a.getOffsetsTeilSegmente()[1] );
+  }
+
+  /**
+   * Grenzen der Abfragen ab und bis zu einem Offset
+   */
+  @Test
+  public void testAbUndBisOffset ()
+  {
+    Vector<StrassenTeilSegment> sts = m_a.getStrassenTeilSegmente();
+
+    assertEquals( sts.subList( 1, 3 ), m_a.getStrassenTeilSegmenteAbOffset( 100 ) );
+    assertEquals( sts, m_a.getStrassenTeilSegmenteAbOffset( 99 ) );
+    assertEquals( 0, m_a.getStrassenTeilSegmenteAbOffset( 600 ).size() );
+
+    assertEquals( sts.subList( 0, 1 ), m_a.getStrassenTeilSegmenteBisOffset( 100 ) );
+    assertEquals( sts.subList( 0, 2 ), m_a.getStrassenTeilSegmenteBisOffset( 101 ) );
+    assertEquals( 0, m_a.getStrassenTeilSegmenteBisOffset( 0 ).size() );
+  }
+
+  /**
+   * Bereichsabfrage innerhalb eines Segments und über die Segmentgrenze hinaus
+   */
+  @Test
+  public void testBereich ()
+  {
+    Vector<StrassenTeilSegment> sts = m_a.getStrassenTeilSegmente();
+    Vector<StrassenTeilSegment> stsB = m_b.getStrassenTeilSegmente();
+
+    assertEquals( sts.subList( 1, 2 ), m_a.getStrassenTeilSegmente( 150, 100 ) );
+    assertEquals( sts.subList( 1, 3 ), m_a.getStrassenTeilSegmente( 150, 200 ) );
+    assertEquals( Arrays.asList( sts.get( 2 ), stsB.get( 0 ) ), m_a.getStrassenTeilSegmente( 550, 100 ) );
+    assertEquals( Arrays.asList( sts.get( 2 ), stsB.get( 0 ), stsB.get( 1 ) ), m_a.getStrassenTeilSegmente( 550, 101 ) );
+  }
+
+  /**
+   * Streckenabschnitt über die Segmentgrenze mit anteiligen Längen
+   */
+  @Test
+  public void testStrecke ()
+  {
+    StreckenAbschnitt strecke = m_a.getStrecke( 550, 100, null );
+
+    assertEquals( 2, strecke.getAnzahl() );
+    assertEquals( 100, strecke.getGesamtLaenge() );
+    assertSame( m_a.getStrassenTeilSegmente().get( 2 ), strecke.getTeilSegment( 0 ) );
+    assertSame( m_b, strecke.getStrassenSegment( 1 ) );
+    assertEquals( 50, strecke.getAnfang()[1] );
+    assertEquals( 50, strecke.getLaenge()[1] );
+    assertEquals( 2, strecke.getAnzahlFahrstreifen()[0] );
+  }
+
+  /**
+   * Beginnt der Abschnitt hinter dem Ende des Segments, beginnt er um den Überstand versetzt im Nachfolger
+   */
+  @Test
+  public void testStreckeHinterSegmentende ()
+  {
+    StreckenAbschnitt ergebnis = new StreckenAbschnitt( 1 );
+
+    m_a.getStrecke( 0, 600, ergebnis );
+    assertEquals( 3, ergebnis.getAnzahl() );
+
+    // Die übergebene Instanz wird geleert und wiederverwendet
+
+    assertSame( ergebnis, m_a.getStrecke( 650, 30, ergebnis ) );
+    assertEquals( 1, ergebnis.getAnzahl() );
+    assertSame( m_b.getStrassenTeilSegmente().get( 1 ), ergebnis.getTeilSegment( 0 ) );
+    assertEquals( 30, ergebnis.getGesamtLaenge() );
+  }
+
+  /**
+   * Ohne Nachfolger endet der Abschnitt am Ende des letzten Segments
+   */
+  @Test
+  public void testStreckeOhneNachfolger ()
+  {
+    StreckenAbschnitt strecke = m_a.getStrecke( 0, 10000, null );
+
+    assertEquals( 5, strecke.getAnzahl() );
+    assertEquals( 700, strecke.getGesamtLaenge() );
+  }
+
+  /**
+   * Bei einem Ringschluss wird jedes Segment höchstens einmal durchlaufen
+   */
+  @Test(timeout = 5000)
+  public void testStreckeRing ()
+  {
+    TestNetz.verbinde( m_b, m_a, true );
+
+    StreckenAbschnitt strecke = m_a.getStrecke( 100, Long.MAX_VALUE / 2, null );
+
+    assertEquals( 4, strecke.getAnzahl() );
+    assertEquals( 600, strecke.getGesamtLaenge() );
+    assertSame( m_b, strecke.getStrassenSegment( 3 ) );
+  }
+}
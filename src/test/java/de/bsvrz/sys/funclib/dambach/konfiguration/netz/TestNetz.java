@@ -0,0 +1,163 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.konfiguration.netz;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Vector;
+
+/**
+ * Hilfsklasse für Tests und Benchmarks: erzeugt Straßensegmente ohne Datenverteiler und verknüpft sie zu Netzen.
+ * @author Dambach Werke GmbH
+ */
+public final class TestNetz
+{
+  /**
+   * Konstruktor der Klasse (keine Instanzen)
+   */
+  private TestNetz ()
+  {
+  }
+
+  /**
+   * Methode erzeugt ein Straßensegment ohne Systemobjekt. Die Länge des Segments ist die Summe der Längen der
+   * Straßenteilsegmente.
+   * @param laengen Längen der Straßenteilsegmente in Fahrtrichtung (in Meter)
+   * @return Straßensegment
+   */
+  public static StrassenSegment segment (long... laengen)
+  {
+    Vector<StrassenTeilSegment> teilSegmente = new Vector<StrassenTeilSegment>();
+
+    long laenge = 0;
+
+    for (int i = 0; i < laengen.length; i++)
+    {
+      teilSegmente.add( new StrassenTeilSegment( null, null, laengen[i], 2 + (i % 2), null, i ) );
+      laenge += laengen[i];
+    }
+
+    StrassenSegment segment = new StrassenSegment( null, null );
+    segment.setzeTeilSegmente( laenge, teilSegmente );
+
+    return segment;
+  }
+
+  /**
+   * Methode verknüpft zwei Straßensegmente in beide Richtungen (Nachfolger und Vorgänger)
+   * @param von Straßensegment
+   * @param nach Nachfolger des Straßensegments
+   * @param aufStrasse true: Nachfolger auf derselben Straße
+   */
+  public static void verbinde (StrassenSegment von, StrassenSegment nach, boolean aufStrasse)
+  {
+    if (aufStrasse)
+    {
+      von.addNachfolgerAufStrasse( nach );
+      nach.addVorgaengerAufStrasse( von );
+    }
+    else
+    {
+      von.addNachfolger( nach );
+      nach.addVorgaenger( von );
+    }
+  }
+
+  /**
+   * Methode erzeugt ein gitterförmiges Netz. Zwischen benachbarten Gitterpunkten liegt je Richtung ein
+   * Straßensegment, an jedem Gitterpunkt ist das geradeaus weiterführende Segment der Nachfolger auf der Straße,
+   * die abbiegenden Segmente sind sonstige Nachfolger. Ein Gitter mit 160 x 160 Punkten ergibt etwa 100.000
+   * Straßensegmente und entspricht damit der Größenordnung eines bundesweiten Netzes.
+   * @param breite Anzahl Gitterpunkte in x-Richtung
+   * @param hoehe Anzahl Gitterpunkte in y-Richtung
+   * @param minLaenge minimale Länge eines Straßensegments (in Meter)
+   * @param maxLaenge maximale Länge eines Straßensegments (in Meter)
+   * @param saat Startwert des Zufallsgenerators für die Längen
+   * @return Straßensegmente des Netzes
+   */
+  public static List<StrassenSegment> gitter (int breite, int hoehe, long minLaenge, long maxLaenge, long saat)
+  {
+    Random zufall = new Random( saat );
+
+    // Richtungen: 0 = Osten, 1 = Westen, 2 = Süden, 3 = Norden; Segment [x][y][r] beginnt am Gitterpunkt (x, y)
+
+    int[] dx = { 1, -1, 0, 0 };
+    int[] dy = { 0, 0, 1, -1 };
+
+    StrassenSegment[][][] netz = new StrassenSegment[breite][hoehe][4];
+    List<StrassenSegment> segmente = new ArrayList<StrassenSegment>();
+
+    for (int x = 0; x < breite; x++)
+      for (int y = 0; y < hoehe; y++)
+        for (int r = 0; r < 4; r++)
+        {
+          if (innerhalb( x + dx[r], y + dy[r], breite, hoehe ))
+          {
+            long laenge = minLaenge + (long) (zufall.nextDouble() * (maxLaenge - minLaenge));
+            long haelfte = laenge / 2;
+
+            netz[x][y][r] = segment( haelfte, laenge - haelfte );
+            segmente.add( netz[x][y][r] );
+          }
+        }
+
+    for (int x = 0; x < breite; x++)
+      for (int y = 0; y < hoehe; y++)
+        for (int r = 0; r < 4; r++)
+        {
+          StrassenSegment segment = netz[x][y][r];
+
+          if (segment == null)
+            continue;
+
+          int nx = x + dx[r];
+          int ny = y + dy[r];
+
+          for (int rn = 0; rn < 4; rn++)
+          {
+            StrassenSegment nachfolger = netz[nx][ny][rn];
+
+            // Wenden ist nicht möglich
+
+            if (nachfolger == null || (rn ^ 1) == r)
+              continue;
+
+            verbinde( segment, nachfolger, rn == r );
+          }
+        }
+
+    return segmente;
+  }
+
+  /**
+   * @return true, wenn der Gitterpunkt innerhalb des Gitters liegt
+   */
+  private static boolean innerhalb (int x, int y, int breite, int hoehe)
+  {
+    return x >= 0 && y >= 0 && x < breite && y < hoehe;
+  }
+}
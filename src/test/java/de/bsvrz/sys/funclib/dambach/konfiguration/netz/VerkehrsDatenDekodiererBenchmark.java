@@ -0,0 +1,134 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.konfiguration.netz;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.bsvrz.dav.daf.main.Data;
+import de.bsvrz.dav.daf.main.ResultData;
+import de.bsvrz.dav.daf.main.config.AttributeGroup;
+
+/**
+ * JMH-Benchmark der Dekodierung von Datensätzen der "atg.verkehrsDatenKurzZeitMq": bisheriger Zugriff über die
+ * Namen der Attribute und die Pid der Attributgruppe mit dem Güteindex als Text gegen den
+ * {@link VerkehrsDatenDekodierer}. Die Datensätze sind Datensätze im Speicher aus
+ * {@link de.bsvrz.sys.funclib.dambach.util.TestDaten}, die absoluten Zeiten weichen daher von Datensätzen des
+ * Datenverteilers ab.<br>
+ * Aufruf nach <code>mvn test-compile</code> mit dem Test-Classpath:<br>
+ * <code>java -cp target/test-classes:target/classes:&lt;Abhängigkeiten&gt; org.openjdk.jmh.Main VerkehrsDatenDekodiererBenchmark</code>
+ * @author Dambach Werke GmbH
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VerkehrsDatenDekodiererBenchmark
+{
+  /**
+   * Pid der Attributgruppe für den bisherigen Vergleich über die Pid
+   */
+  private static final String ATG = "atg.verkehrsDatenKurzZeitMq";
+
+  /**
+   * Datensatz
+   */
+  private ResultData m_datensatz;
+
+  /**
+   * Dekodierer
+   */
+  private VerkehrsDatenDekodierer m_dekodierer;
+
+  /**
+   * Wiederverwendetes Ergebnis des Dekodierers
+   */
+  private VerkehrsDatenDekodierer.Werte m_werte;
+
+  /**
+   * Aufbau von Datensatz und Dekodierer
+   */
+  @Setup(Level.Trial)
+  public void erzeuge ()
+  {
+    AttributeGroup atg = VerkehrsDatenDekodiererTest.atgMessQuerschnitt();
+
+    m_datensatz  = VerkehrsDatenDekodiererTest.datensatz( atg, 60000, 1200, 0.95, 1500, 0.5 );
+    m_dekodierer = VerkehrsDatenDekodierer.fuerMessQuerschnitt( VerkehrsDatenDekodiererTest.datenModell( atg ) );
+    m_werte      = new VerkehrsDatenDekodierer.Werte();
+  }
+
+  /**
+   * Bisheriger Zugriff wie in Verkehrsstaerke.verarbeiten(): Vergleich der Pid, Suche der Attribute über ihre
+   * Namen, Güteindex als Text
+   * @param loch Senke für die Ergebnisse
+   */
+  @Benchmark
+  public void nachNamen (Blackhole loch)
+  {
+    ResultData dat = m_datensatz;
+
+    if (dat.getDataDescription().getAttributeGroup().getPid().equals( ATG ) && dat.hasData())
+    {
+      Data d = dat.getData().getItem( "QB" );
+
+      loch.consume( d.getUnscaledValue( "Wert" ).longValue() );
+      loch.consume( d.getItem( "Güte" ).getTextValue( "Index" ).getValueText() );
+
+      d = dat.getData().getItem( "QKfz" );
+
+      loch.consume( d.getUnscaledValue( "Wert" ).longValue() );
+      loch.consume( d.getItem( "Güte" ).getTextValue( "Index" ).getValueText() );
+    }
+  }
+
+  /**
+   * Zugriff über den Dekodierer
+   * @return Ergebnis
+   */
+  @Benchmark
+  public VerkehrsDatenDekodierer.Werte dekodierer ()
+  {
+    if (m_dekodierer.istZustaendig( m_datensatz ))
+      m_dekodierer.dekodiere( m_datensatz, m_werte );
+
+    return m_werte;
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.konfiguration.netz;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.junit.Test;
+
+import de.bsvrz.dav.daf.main.Data;
+import de.bsvrz.dav.daf.main.DataDescription;
+import de.bsvrz.dav.daf.main.ResultData;
+import de.bsvrz.dav.daf.main.config.Attribute;
+import de.bsvrz.dav.daf.main.config.AttributeGroup;
+import de.bsvrz.dav.daf.main.config.AttributeType;
+import de.bsvrz.dav.daf.main.config.DataModel;
+import de.bsvrz.dav.daf.main.config.SystemObject;
+import de.bsvrz.sys.funclib.dambach.util.TestDaten;
+
+/**
+ * Tests für {@link VerkehrsDatenDekodierer}
+ * @author Dambach Werke GmbH
+ */
+public class VerkehrsDatenDekodiererTest
+{
+  /**
+   * Attribute von "atg.verkehrsDatenKurzZeitMq" in Definitionsreihenfolge
+   */
+  private static final String[] MQ = { "QKfz", "VKfz", "QLkw", "VLkw", "QPkw", "VPkw", "B", "BMax", "SKfz",
+      "VgKfz", "ALkw", "KKfz", "KLkw", "KPkw", "QB", "KB", "VDelta" };
+
+  /**
+   * Messquerschnitt als Absender der Datensätze
+   */
+  private static final SystemObject MESSQUERSCHNITT = TestDaten.objekt( 1, "mq.test" );
+
+  /**
+   * Methode erzeugt eine Attributgruppe mit der Struktur von "atg.verkehrsDatenKurzZeitMq": je Kenngröße eine
+   * Attributliste aus Wert, Status und Güte (Index und Verfahren)
+   * @return Attributgruppe
+   */
+  static AttributeGroup atgMessQuerschnitt ()
+  {
+    AttributeType status = TestDaten.liste( "atl.verkehrsDatenStatus",
+        TestDaten.attribut( "Erfassung", TestDaten.GANZZAHL ),
+        TestDaten.attribut( "PlFormal", TestDaten.GANZZAHL ),
+        TestDaten.attribut( "PlLogisch", TestDaten.GANZZAHL ),
+        TestDaten.attribut( "MessWertErsetzung", TestDaten.GANZZAHL ) );
+
+    AttributeType guete = TestDaten.liste( "atl.güte",
+        TestDaten.attribut( "Index", TestDaten.KOMMAZAHL ),
+        TestDaten.attribut( "Verfahren", TestDaten.GANZZAHL ) );
+
+    AttributeType wert = TestDaten.liste( "atl.verkehrsDatenKurzZeitWert",
+        TestDaten.attribut( "Wert", TestDaten.GANZZAHL ),
+        TestDaten.attribut( "Status", status ),
+        TestDaten.attribut( "Güte", guete ) );
+
+    Attribute[] attribute = new Attribute[MQ.length];
+
+    for (int i = 0; i < MQ.length; i++)
+      attribute[i] = TestDaten.attribut( MQ[i], wert );
+
+    return TestDaten.atg( "atg.verkehrsDatenKurzZeitMq", attribute );
+  }
+
+  /**
+   * Methode erzeugt ein Datenmodell, das nur die übergebene Attributgruppe kennt
+   * @param atg Attributgruppe
+   * @return Datenmodell
+   */
+  static DataModel datenModell (final AttributeGroup atg)
+  {
+    InvocationHandler handler = new InvocationHandler()
+    {
+      @Override
+      public Object invoke (Object proxy, Method methode, Object[] args)
+      {
+        if (methode.getName().equals( "getAttributeGroup" ))
+          return atg.getPid().equals( args[0] ) ? atg : null;
+
+        throw new UnsupportedOperationException( methode.toString() );
+      }
+    };
+
+    return (DataModel) Proxy.newProxyInstance( DataModel.class.getClassLoader(), new Class<?>[] { DataModel.class },
+        handler );
+  }
+
+  /**
+   * Methode erzeugt einen Datensatz mit QB und QKfz
+   * @param atg Attributgruppe
+   * @param zeit Zeitstempel
+   * @param qb Wert QB
+   * @param qbGuete Güteindex QB
+   * @param qkfz Wert QKfz
+   * @param qkfzGuete Güteindex QKfz
+   * @return Datensatz
+   */
+  static ResultData datensatz (AttributeGroup atg, long zeit, long qb, double qbGuete, long qkfz, double qkfzGuete)
+  {
+    Data daten = TestDaten.daten( atg );
+
+    for (int i = 0; i < MQ.length; i++)
+      daten.getItem( MQ[i] ).getUnscaledValue( "Wert" ).set( (long) (100 + i) );
+
+    daten.getItem( "QB" ).getUnscaledValue( "Wert" ).set( qb );
+    daten.getItem( "QB" ).getItem( "Güte" ).getScaledValue( "Index" ).set( qbGuete );
+    daten.getItem( "QKfz" ).getUnscaledValue( "Wert" ).set( qkfz );
+    daten.getItem( "QKfz" ).getItem( "Güte" ).getScaledValue( "Index" ).set( qkfzGuete );
+
+    return new ResultData( MESSQUERSCHNITT, new DataDescription( atg, null ), zeit, daten );
+  }
+
+  /**
+   * Wert und Güteindex von QB und QKfz werden über ihre Positionen gelesen
+   */
+  @Test
+  public void testDekodiere ()
+  {
+    AttributeGroup atg = atgMessQuerschnitt();
+    VerkehrsDatenDekodierer dekodierer = VerkehrsDatenDekodierer.fuerMessQuerschnitt( datenModell( atg ) );
+    VerkehrsDatenDekodierer.Werte werte = new VerkehrsDatenDekodierer.Werte();
+
+    assertTrue( dekodierer.dekodiere( datensatz( atg, 60000, 1200, 0.95, 1500, 0.5 ), werte ) );
+
+    assertEquals( 60000, werte.getZeit() );
+    assertEquals( 1200, werte.getQB() );
+    assertEquals( 1500, werte.getQKfz() );
+    assertEquals( 0.95, werte.getQBGuete(), 0 );
+    assertEquals( 0.5, werte.getQKfzGuete(), 0 );
+  }
+
+  /**
+   * Ein Datensatz ohne Daten setzt nur QB zurück
+   */
+  @Test
+  public void testOhneDaten ()
+  {
+    AttributeGroup atg = atgMessQuerschnitt();
+    VerkehrsDatenDekodierer dekodierer = VerkehrsDatenDekodierer.fuerMessQuerschnitt( datenModell( atg ) );
+    VerkehrsDatenDekodierer.Werte werte = new VerkehrsDatenDekodierer.Werte();
+
+    dekodierer.dekodiere( datensatz( atg, 60000, 1200, 0.95, 1500, 0.5 ), werte );
+
+    assertFalse( dekodierer.dekodiere( new ResultData( MESSQUERSCHNITT, new DataDescription( atg, null ), 120000, null ),
+        werte ) );
+
+    assertEquals( 120000, werte.getZeit() );
+    assertEquals( -1, werte.getQB() );
+    assertTrue( Double.isNaN( werte.getQBGuete() ) );
+
+    // QKfz bleibt wie in der bisherigen Auswertung unverändert
+    assertEquals( 1500, werte.getQKfz() );
+    assertEquals( 0.5, werte.getQKfzGuete(), 0 );
+  }
+
+  /**
+   * Zuständigkeit über die Attributgruppe
+   */
+  @Test
+  public void testZustaendig ()
+  {
+    AttributeGroup atg = atgMessQuerschnitt();
+    VerkehrsDatenDekodierer dekodierer = VerkehrsDatenDekodierer.fuerMessQuerschnitt( datenModell( atg ) );
+
+    assertTrue( dekodierer.istZustaendig( datensatz( atg, 0, 0, 0, 0, 0 ) ) );
+    assertFalse( dekodierer.istZustaendig( datensatz( atgMessQuerschnitt(), 0, 0, 0, 0, 0 ) ) );
+  }
+
+  /**
+   * Fehlt die Attributgruppe im Datenmodell, kann kein Dekodierer erzeugt werden
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testOhneAttributgruppe ()
+  {
+    VerkehrsDatenDekodierer.fuerFahrStreifen( datenModell( atgMessQuerschnitt() ) );
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.konfiguration.netz;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests für {@link VerlaufsReihe}
+ * @author Dambach Werke GmbH
+ */
+public class VerlaufsReiheTest
+{
+  /**
+   * Kennwerte einer leeren Reihe
+   */
+  @Test
+  public void testLeer ()
+  {
+    VerlaufsReihe reihe = new VerlaufsReihe( 4, 0.5 );
+
+    assertEquals( 0, reihe.getAnzahl() );
+    assertTrue( Double.isNaN( reihe.getMittelwert() ) );
+    assertTrue( Double.isNaN( reihe.getGeglaettet() ) );
+    assertEquals( -1, reihe.getMinimum() );
+    assertEquals( -1, reihe.getMaximum() );
+    assertEquals( 0, reihe.getAnzahlFehlend() );
+  }
+
+  /**
+   * Der älteste Wert fällt bei vollem Fenster heraus
+   */
+  @Test
+  public void testFenster ()
+  {
+    VerlaufsReihe reihe = new VerlaufsReihe( 3, 1.0 );
+
+    reihe.add( 5 );
+    reihe.add( 1 );
+    reihe.add( 9 );
+
+    assertEquals( 3, reihe.getAnzahl() );
+    assertEquals( 5.0, reihe.getMittelwert(), 1e-9 );
+    assertEquals( 1, reihe.getMinimum() );
+    assertEquals( 9, reihe.getMaximum() );
+
+    reihe.add( 4 );
+
+    assertEquals( 3, reihe.getAnzahl() );
+    assertEquals( 4, reihe.getWert( 0 ) );
+    assertEquals( 1, reihe.getWert( 2 ) );
+    assertEquals( 14.0 / 3, reihe.getMittelwert(), 1e-9 );
+
+    reihe.add( 6 );
+
+    assertEquals( 4, reihe.getMinimum() );
+    assertEquals( 9, reihe.getMaximum() );
+  }
+
+  /**
+   * Fehlende Werte zählen weder zum Mittelwert noch zu Minimum, Maximum und Glättung
+   */
+  @Test
+  public void testFehlendeWerte ()
+  {
+    VerlaufsReihe reihe = new VerlaufsReihe( 3, 0.5 );
+
+    reihe.add( -1 );
+
+    assertEquals( 1, reihe.getAnzahlFehlend() );
+    assertTrue( Double.isNaN( reihe.getGeglaettet() ) );
+
+    reihe.add( 10 );
+    reihe.add( -1 );
+    reihe.add( 20 );
+
+    assertEquals( 1, reihe.getAnzahlFehlend() );
+    assertEquals( 15.0, reihe.getMittelwert(), 1e-9 );
+    assertEquals( 15.0, reihe.getGeglaettet(), 1e-9 );
+    assertEquals( 10, reihe.getMinimum() );
+    assertEquals( -1, reihe.getWert( 1 ) );
+
+    reihe.add( -1 );
+    reihe.add( -1 );
+
+    assertEquals( 2, reihe.getAnzahlFehlend() );
+    assertEquals( 20, reihe.getMinimum() );
+    assertEquals( 20, reihe.getMaximum() );
+
+    reihe.add( -1 );
+
+    assertEquals( 3, reihe.getAnzahlFehlend() );
+    assertEquals( -1, reihe.getMinimum() );
+    assertTrue( Double.isNaN( reihe.getMittelwert() ) );
+    assertEquals( 15.0, reihe.getGeglaettet(), 1e-9 );
+  }
+
+  /**
+   * Zugriff außerhalb des Fensters
+   */
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testWertAusserhalb ()
+  {
+    VerlaufsReihe reihe = new VerlaufsReihe( 3, 0.5 );
+
+    reihe.add( 1 );
+    reihe.getWert( 1 );
+  }
+
+  /**
+   * Die inkrementell geführten Kennwerte stimmen mit einer vollständigen Neuberechnung über das Fenster überein
+   */
+  @Test
+  public void testGegenNeuberechnung ()
+  {
+    Random zufall = new Random( 3 );
+
+    for (int kapazitaet = 1; kapazitaet <= 7; kapazitaet++)
+    {
+      VerlaufsReihe reihe = new VerlaufsReihe( kapazitaet, 0.3 );
+
+      for (int i = 0; i < 1000; i++)
+      {
+        // wenige verschiedene Werte, damit auch gleiche Minima und Maxima vorkommen
+
+        reihe.add( zufall.nextInt( 8 ) - 2 );
+
+        int anzahl = reihe.getAnzahl();
+        int min = Integer.MAX_VALUE, max = -1, fehlend = 0;
+        long summe = 0;
+
+        for (int alter = 0; alter < anzahl; alter++)
+        {
+          int wert = reihe.getWert( alter );
+
+          if (wert < 0)
+          {
+            fehlend++;
+            continue;
+          }
+
+          summe += wert;
+          min = Math.min( min, wert );
+          max = Math.max( max, wert );
+        }
+
+        assertEquals( fehlend, reihe.getAnzahlFehlend() );
+        assertEquals( (min == Integer.MAX_VALUE) ? -1 : min, reihe.getMinimum() );
+        assertEquals( max, reihe.getMaximum() );
+
+        if (fehlend < anzahl)
+          assertEquals( (double) summe / (anzahl - fehlend), reihe.getMittelwert(), 1e-9 );
+      }
+    }
+  }
+}
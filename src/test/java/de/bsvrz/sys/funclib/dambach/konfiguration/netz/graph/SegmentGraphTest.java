@@ -0,0 +1,169 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.konfiguration.netz.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.bsvrz.sys.funclib.dambach.konfiguration.netz.StrassenSegment;
+import de.bsvrz.sys.funclib.dambach.konfiguration.netz.TestNetz;
+
+/**
+ * Tests für {@link SegmentGraph}
+ * @author Dambach Werke GmbH
+ */
+public class SegmentGraphTest
+{
+  /**
+   * Segmente, Längen und Indizes werden in der übergebenen Reihenfolge übernommen
+   */
+  @Test
+  public void testIndexUndLaenge ()
+  {
+    StrassenSegment a = TestNetz.segment( 100 );
+    StrassenSegment b = TestNetz.segment( 50, 150 );
+
+    SegmentGraph graph = new SegmentGraph( Arrays.asList( a, b ) );
+
+    assertEquals( 2, graph.getAnzahlSegmente() );
+    assertEquals( 0, graph.getIndex( a ) );
+    assertEquals( 1, graph.getIndex( b ) );
+    assertSame( b, graph.getSegment( 1 ) );
+    assertEquals( 100, graph.getLaenge( 0 ) );
+    assertEquals( 200, graph.getLaenge( 1 ) );
+    assertEquals( -1, graph.getIndex( TestNetz.segment( 10 ) ) );
+    assertEquals( -1, graph.getIndex( "unbekannt" ) );
+  }
+
+  /**
+   * Eine Kante, die als Nachfolger und als Vorgänger geführt ist, wird nur einmal übernommen
+   */
+  @Test
+  public void testKanteNurEinmal ()
+  {
+    StrassenSegment a = TestNetz.segment( 100 );
+    StrassenSegment b = TestNetz.segment( 100 );
+
+    TestNetz.verbinde( a, b, true );
+
+    SegmentGraph graph = new SegmentGraph( Arrays.asList( a, b ) );
+
+    assertEquals( 1, graph.getAnzahlKanten() );
+
+    int k = graph.getNachfolgerAnfang( 0 );
+    assertEquals( k + 1, graph.getNachfolgerEnde( 0 ) );
+    assertEquals( 1, graph.getNachfolger( k ) );
+    assertTrue( graph.isNachfolgerAufStrasse( k ) );
+
+    k = graph.getVorgaengerAnfang( 1 );
+    assertEquals( k + 1, graph.getVorgaengerEnde( 1 ) );
+    assertEquals( 0, graph.getVorgaenger( k ) );
+    assertTrue( graph.isVorgaengerAufStrasse( k ) );
+
+    assertEquals( graph.getNachfolgerAnfang( 1 ), graph.getNachfolgerEnde( 1 ) );
+    assertEquals( graph.getVorgaengerAnfang( 0 ), graph.getVorgaengerEnde( 0 ) );
+  }
+
+  /**
+   * Ist eine Kante einmal auf der Straße und einmal als sonstige Beziehung geführt, gilt sie als Kante auf der Straße
+   */
+  @Test
+  public void testKanteAufStrasseHatVorrang ()
+  {
+    StrassenSegment a = TestNetz.segment( 100 );
+    StrassenSegment b = TestNetz.segment( 100 );
+
+    a.addNachfolger( b );
+    b.addVorgaengerAufStrasse( a );
+
+    SegmentGraph graph = new SegmentGraph( Arrays.asList( a, b ) );
+
+    assertEquals( 1, graph.getAnzahlKanten() );
+    assertTrue( graph.isNachfolgerAufStrasse( graph.getNachfolgerAnfang( 0 ) ) );
+  }
+
+  /**
+   * Beziehungen zu Segmenten außerhalb des Graphen werden nicht übernommen
+   */
+  @Test
+  public void testFremdeSegmente ()
+  {
+    StrassenSegment a = TestNetz.segment( 100 );
+    StrassenSegment b = TestNetz.segment( 100 );
+    StrassenSegment fremd = TestNetz.segment( 100 );
+
+    TestNetz.verbinde( a, b, false );
+    TestNetz.verbinde( b, fremd, true );
+
+    SegmentGraph graph = new SegmentGraph( Arrays.asList( a, b ) );
+
+    assertEquals( 1, graph.getAnzahlKanten() );
+    assertFalse( graph.isNachfolgerAufStrasse( graph.getNachfolgerAnfang( 0 ) ) );
+    assertEquals( graph.getNachfolgerAnfang( 1 ), graph.getNachfolgerEnde( 1 ) );
+  }
+
+  /**
+   * Nachfolger- und Vorgängerlisten des Gitters sind zueinander konsistent
+   */
+  @Test
+  public void testGitterKonsistent ()
+  {
+    List<StrassenSegment> segmente = TestNetz.gitter( 6, 5, 100, 1000, 1 );
+
+    SegmentGraph graph = new SegmentGraph( segmente );
+
+    int kantenVor = 0;
+    int kantenNach = 0;
+
+    for (int u = 0; u < graph.getAnzahlSegmente(); u++)
+    {
+      StrassenSegment s = segmente.get( u );
+
+      assertEquals( s.getNachfolgerListe().size() + s.getNachfolgerAufStrasseListe().size(),
+          graph.getNachfolgerEnde( u ) - graph.getNachfolgerAnfang( u ) );
+
+      for (int k = graph.getNachfolgerAnfang( u ); k < graph.getNachfolgerEnde( u ); k++)
+      {
+        StrassenSegment nachfolger = graph.getSegment( graph.getNachfolger( k ) );
+
+        assertEquals( s.getNachfolgerAufStrasseListe().contains( nachfolger ), graph.isNachfolgerAufStrasse( k ) );
+      }
+
+      kantenNach += graph.getNachfolgerEnde( u ) - graph.getNachfolgerAnfang( u );
+      kantenVor  += graph.getVorgaengerEnde( u ) - graph.getVorgaengerAnfang( u );
+    }
+
+    assertEquals( graph.getAnzahlKanten(), kantenNach );
+    assertEquals( graph.getAnzahlKanten(), kantenVor );
+  }
+}
@@ -0,0 +1,201 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.konfiguration.netz.graph;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.bsvrz.sys.funclib.dambach.konfiguration.netz.StrassenSegment;
+import de.bsvrz.sys.funclib.dambach.konfiguration.netz.TestNetz;
+
+/**
+ * JMH-Benchmark der {@link WegSuche} auf einem synthetischen Netz in der Größenordnung eines bundesweiten Netzes
+ * (Gitter mit 160 x 160 Punkten, etwa 100.000 Straßensegmente, siehe {@link TestNetz#gitter}).<br>
+ * Aufruf nach <code>mvn test-compile</code> mit dem Test-Classpath:<br>
+ * <code>java -cp target/test-classes:target/classes:&lt;Abhängigkeiten&gt; org.openjdk.jmh.Main WegSucheBenchmark</code>
+ * @author Dambach Werke GmbH
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WegSucheBenchmark
+{
+  /**
+   * Anzahl Gitterpunkte je Richtung
+   */
+  @Param({ "160" })
+  public int m_gitter;
+
+  /**
+   * Maximale Entfernung der Erreichbarkeitssuche (in Meter)
+   */
+  @Param({ "10000", "50000" })
+  public long m_maxEntfernung;
+
+  /**
+   * Straßensegmente des Netzes
+   */
+  private List<StrassenSegment> m_segmente;
+
+  /**
+   * Graph des Netzes
+   */
+  private SegmentGraph m_graph;
+
+  /**
+   * Wegsuche auf dem Graphen
+   */
+  private WegSuche m_suche;
+
+  /**
+   * Untere Schranke für A*: das Zielsegment muss immer vollständig durchfahren werden
+   */
+  private UntereSchranke m_schranke;
+
+  /**
+   * Zufällige Start- und Zielsegmente
+   */
+  private int[] m_start, m_ziel;
+
+  /**
+   * Nummer der nächsten Suche
+   */
+  private int m_lauf;
+
+  /**
+   * Aufbau von Netz, Graph und Suchaufträgen
+   */
+  @Setup(Level.Trial)
+  public void erzeuge ()
+  {
+    m_segmente = TestNetz.gitter( m_gitter, m_gitter, 100, 2000, 1 );
+    m_graph    = new SegmentGraph( m_segmente );
+    m_suche    = new WegSuche( m_graph );
+
+    m_schranke = new UntereSchranke()
+    {
+      @Override
+      public long getUntereSchranke (int segment, int ziel)
+      {
+        return m_graph.getLaenge( ziel );
+      }
+    };
+
+    Random zufall = new Random( 2 );
+
+    m_start = new int[1024];
+    m_ziel  = new int[1024];
+
+    for (int i = 0; i < m_start.length; i++)
+    {
+      m_start[i] = zufall.nextInt( m_graph.getAnzahlSegmente() );
+      m_ziel[i]  = zufall.nextInt( m_graph.getAnzahlSegmente() );
+    }
+  }
+
+  /**
+   * @return Index des nächsten Suchauftrags
+   */
+  private int naechster ()
+  {
+    m_lauf = (m_lauf + 1) & (m_start.length - 1);
+
+    return m_lauf;
+  }
+
+  /**
+   * Kürzester Weg zwischen zufälligen Segmenten (Dijkstra)
+   * @return gefundener Weg
+   */
+  @Benchmark
+  public Weg dijkstra ()
+  {
+    int i = naechster();
+
+    return m_suche.sucheWeg( m_start[i], m_ziel[i], false, UntereSchranke.KEINE );
+  }
+
+  /**
+   * Kürzester Weg zwischen zufälligen Segmenten (A*)
+   * @return gefundener Weg
+   */
+  @Benchmark
+  public Weg aStern ()
+  {
+    int i = naechster();
+
+    return m_suche.sucheWeg( m_start[i], m_ziel[i], false, m_schranke );
+  }
+
+  /**
+   * Stromabwärts erreichbare Segmente bis zur maximalen Entfernung
+   * @return erreichbare Segmente
+   */
+  @Benchmark
+  public Erreichbarkeit stromabwaerts ()
+  {
+    return m_suche.sucheErreichbar( m_start[naechster()], m_maxEntfernung, false, true );
+  }
+
+  /**
+   * Stromaufwärts erreichbare Segmente auf derselben Straße bis zur maximalen Entfernung
+   * @return erreichbare Segmente
+   */
+  @Benchmark
+  public Erreichbarkeit stromaufwaertsAufStrasse ()
+  {
+    return m_suche.sucheErreichbar( m_start[naechster()], m_maxEntfernung, true, false );
+  }
+
+  /**
+   * Aufbau der CSR-Darstellung aus den Straßensegmenten
+   * @return Graph
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public SegmentGraph aufbau ()
+  {
+    return new SegmentGraph( m_segmente );
+  }
+}
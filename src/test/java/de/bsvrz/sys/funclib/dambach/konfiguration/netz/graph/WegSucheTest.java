@@ -0,0 +1,270 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.konfiguration.netz.graph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.bsvrz.sys.funclib.dambach.konfiguration.netz.StrassenSegment;
+import de.bsvrz.sys.funclib.dambach.konfiguration.netz.TestNetz;
+
+/**
+ * Tests für {@link WegSuche}
+ * @author Dambach Werke GmbH
+ */
+public class WegSucheTest
+{
+  /**
+   * Strecke a - b - c auf der Straße, Abkürzung a - d - c über sonstige Beziehungen
+   */
+  private StrassenSegment m_a, m_b, m_c, m_d;
+
+  /**
+   * Wegsuche auf dem Netz aus a, b, c und d
+   */
+  private WegSuche m_suche;
+
+  /**
+   * Aufbau des Netzes
+   */
+  @Before
+  public void erzeugeNetz ()
+  {
+    m_a = TestNetz.segment( 100 );
+    m_b = TestNetz.segment( 200 );
+    m_c = TestNetz.segment( 300 );
+    m_d = TestNetz.segment( 50 );
+
+    TestNetz.verbinde( m_a, m_b, true );
+    TestNetz.verbinde( m_b, m_c, true );
+    TestNetz.verbinde( m_a, m_d, false );
+    TestNetz.verbinde( m_d, m_c, false );
+
+    m_suche = new WegSuche( new SegmentGraph( Arrays.asList( m_a, m_b, m_c, m_d ) ) );
+  }
+
+  /**
+   * Der kürzeste Weg nutzt die Abkürzung, nur auf der Straße wird der längere Weg gefunden
+   */
+  @Test
+  public void testKuerzesterWeg ()
+  {
+    Weg weg = m_suche.sucheWeg( m_a, m_c, false );
+
+    assertEquals( 450, weg.getLaenge() );
+    assertEquals( Arrays.asList( m_a, m_d, m_c ), weg.getStrassenSegmente() );
+
+    weg = m_suche.sucheWeg( m_a, m_c, true );
+
+    assertEquals( 600, weg.getLaenge() );
+    assertEquals( Arrays.asList( m_a, m_b, m_c ), weg.getStrassenSegmente() );
+  }
+
+  /**
+   * Weg von einem Segment zu sich selbst, kein Weg gegen die Fahrtrichtung, Segment außerhalb des Graphen
+   */
+  @Test
+  public void testSonderfaelle ()
+  {
+    Weg weg = m_suche.sucheWeg( m_b, m_b, false );
+
+    assertEquals( 1, weg.getAnzahl() );
+    assertEquals( 200, weg.getLaenge() );
+
+    assertNull( m_suche.sucheWeg( m_c, m_a, false ) );
+    assertNull( m_suche.sucheWeg( m_a, TestNetz.segment( 10 ), false ) );
+  }
+
+  /**
+   * Die Entfernung zählt vom Ende des Startsegments bis zum Anfang des erreichten Segments, die Grenze ist inklusive
+   */
+  @Test
+  public void testStromabwaerts ()
+  {
+    Erreichbarkeit e = m_suche.stromabwaerts( m_a, 200, true );
+
+    assertEquals( Arrays.asList( m_b, m_c ), e.getStrassenSegmente() );
+    assertEquals( 0, e.getEntfernung( 0 ) );
+    assertEquals( 200, e.getEntfernung( 1 ) );
+
+    e = m_suche.stromabwaerts( m_a, 199, true );
+
+    assertEquals( Arrays.asList( m_b ), e.getStrassenSegmente() );
+
+    e = m_suche.stromabwaerts( m_a, 50, false );
+
+    assertEquals( 3, e.getAnzahl() );
+    assertTrue( e.getStrassenSegmente().containsAll( Arrays.asList( m_b, m_d ) ) );
+    assertSame( m_c, e.getStrassenSegmente().get( 2 ) );
+    assertEquals( 50, e.getEntfernung( 2 ) );
+
+    e = m_suche.stromabwaerts( m_a, 49, false );
+
+    assertEquals( 2, e.getAnzahl() );
+  }
+
+  /**
+   * Stromaufwärts werden die Vorgänger gegen die Fahrtrichtung gefunden
+   */
+  @Test
+  public void testStromaufwaerts ()
+  {
+    Erreichbarkeit e = m_suche.stromaufwaerts( m_c, 1000, true );
+
+    assertEquals( Arrays.asList( m_b, m_a ), e.getStrassenSegmente() );
+    assertEquals( 200, e.getEntfernung( 1 ) );
+
+    assertEquals( 0, m_suche.stromaufwaerts( m_a, 1000, false ).getAnzahl() );
+  }
+
+  /**
+   * Ringschlüsse führen nicht zu Endlosschleifen, jedes Segment wird höchstens einmal geliefert
+   */
+  @Test(timeout = 5000)
+  public void testRing ()
+  {
+    StrassenSegment x = TestNetz.segment( 10 );
+    StrassenSegment y = TestNetz.segment( 20 );
+
+    TestNetz.verbinde( x, y, true );
+    TestNetz.verbinde( y, x, true );
+
+    WegSuche suche = new WegSuche( new SegmentGraph( Arrays.asList( x, y ) ) );
+
+    Erreichbarkeit e = suche.stromabwaerts( x, Long.MAX_VALUE / 2, true );
+
+    assertEquals( 1, e.getAnzahl() );
+    assertSame( y, e.getStrassenSegmente().get( 0 ) );
+  }
+
+  /**
+   * Dijkstra und A* mit zulässiger Schranke liefern auf einem zufälligen Gitter dieselben Weglängen wie ein
+   * einfaches Vergleichsverfahren (Bellman-Ford)
+   */
+  @Test
+  public void testGitterGegenVergleichsverfahren ()
+  {
+    List<StrassenSegment> segmente = TestNetz.gitter( 8, 7, 100, 2000, 42 );
+
+    final SegmentGraph graph = new SegmentGraph( segmente );
+    WegSuche suche = new WegSuche( graph );
+
+    UntereSchranke halbeLaenge = new UntereSchranke()
+    {
+      @Override
+      public long getUntereSchranke (int segment, int ziel)
+      {
+        // Das Zielsegment muss immer vollständig durchfahren werden
+        return (segment == ziel) ? graph.getLaenge( ziel ) : graph.getLaenge( ziel ) / 2;
+      }
+    };
+
+    Random zufall = new Random( 7 );
+
+    for (int lauf = 0; lauf < 50; lauf++)
+    {
+      int start = zufall.nextInt( graph.getAnzahlSegmente() );
+      int ziel  = zufall.nextInt( graph.getAnzahlSegmente() );
+
+      long[] vergleich = bellmanFord( graph, start );
+
+      Weg dijkstra = suche.sucheWeg( start, ziel, false, UntereSchranke.KEINE );
+      Weg aStern   = suche.sucheWeg( start, ziel, false, halbeLaenge );
+
+      assertEquals( vergleich[ziel] + graph.getLaenge( ziel ), dijkstra.getLaenge() );
+      assertEquals( dijkstra.getLaenge(), aStern.getLaenge() );
+
+      // Der Weg muss zusammenhängend sein und die angegebene Länge haben
+
+      long laenge = 0;
+      for (int i = 0; i < dijkstra.getAnzahl(); i++)
+      {
+        laenge += graph.getLaenge( dijkstra.getSegmentIndex( i ) );
+
+        if (i > 0)
+          assertTrue( istNachfolger( graph, dijkstra.getSegmentIndex( i - 1 ), dijkstra.getSegmentIndex( i ) ) );
+      }
+      assertEquals( dijkstra.getLaenge(), laenge );
+    }
+  }
+
+  /**
+   * Vergleichsverfahren: Entfernungen vom Anfang des Startsegments bis zum Anfang aller Segmente
+   */
+  private static long[] bellmanFord (SegmentGraph graph, int start)
+  {
+    long[] entfernung = new long[graph.getAnzahlSegmente()];
+    Arrays.fill( entfernung, Long.MAX_VALUE );
+    entfernung[start] = 0;
+
+    boolean geaendert = true;
+    while (geaendert)
+    {
+      geaendert = false;
+
+      for (int u = 0; u < graph.getAnzahlSegmente(); u++)
+      {
+        if (entfernung[u] == Long.MAX_VALUE)
+          continue;
+
+        for (int k = graph.getNachfolgerAnfang( u ); k < graph.getNachfolgerEnde( u ); k++)
+        {
+          int v = graph.getNachfolger( k );
+          long neu = entfernung[u] + graph.getLaenge( u );
+
+          if (neu < entfernung[v])
+          {
+            entfernung[v] = neu;
+            geaendert = true;
+          }
+        }
+      }
+    }
+
+    return entfernung;
+  }
+
+  /**
+   * @return true, wenn v ein Nachfolger von u ist
+   */
+  private static boolean istNachfolger (SegmentGraph graph, int u, int v)
+  {
+    for (int k = graph.getNachfolgerAnfang( u ); k < graph.getNachfolgerEnde( u ); k++)
+      if (graph.getNachfolger( k ) == v)
+        return true;
+
+    return false;
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.parameter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.bsvrz.dav.daf.main.Data;
+import de.bsvrz.dav.daf.main.config.Attribute;
+import de.bsvrz.dav.daf.main.config.AttributeGroup;
+import de.bsvrz.dav.daf.main.config.SystemObject;
+import de.bsvrz.sys.funclib.dambach.util.TestDaten;
+
+/**
+ * Tests für {@link ParameterAenderungsFilter}
+ *
+ * @author Dambach Werke GmbH
+ */
+public class ParameterAenderungsFilterTest
+{
+  /**
+   * Objekt der Parameter
+   */
+  private final SystemObject _objekt = TestDaten.objekt(1, "objekt.test");
+
+  /**
+   * Parameter-ATG
+   */
+  private AttributeGroup _atg;
+
+  /**
+   * Filter ohne Cache, die Stände werden direkt übergeben
+   */
+  private ParameterAenderungsFilter _filter;
+
+  /**
+   * Aufbau von ATG und Filter
+   */
+  @Before
+  public void erzeuge()
+  {
+    _atg = TestDaten.atg("atg.parameterTest",
+        TestDaten.attribut("Wert", TestDaten.GANZZAHL),
+        TestDaten.attribut("Text", TestDaten.TEXT));
+    _filter = new ParameterAenderungsFilter(null);
+  }
+
+  /**
+   * Erzeugt einen Datensatz der Parameter-ATG
+   *
+   * @param wert Wert des Attributs "Wert"
+   * @return der Datensatz
+   */
+  private Data daten(long wert)
+  {
+    Data daten = TestDaten.daten(_atg);
+    daten.getItem("Wert").asUnscaledValue().set(wert);
+    daten.getItem("Text").asTextValue().setText("Text");
+    return daten;
+  }
+
+  /**
+   * Erzeugt einen Stand
+   *
+   * @param atg die ATG des Stands
+   * @param daten die Daten oder <code>null</code>
+   * @return der Stand
+   */
+  private ParameterStand stand(AttributeGroup atg, Data daten)
+  {
+    return new ParameterStand(_objekt, atg, 0, daten, 1);
+  }
+
+  /**
+   * Unveränderte Datensätze werden unterdrückt und gezählt
+   */
+  @Test
+  public void testUnveraendert()
+  {
+    assertTrue(_filter.istUnveraendert(stand(_atg, daten(5)), _atg, daten(5)));
+    assertTrue(_filter.istUnveraendert(stand(_atg, daten(5)), _atg, daten(5)));
+
+    assertEquals(2, _filter.getAnzahlUnterdrueckt());
+    assertEquals(0, _filter.getAnzahlGesendet());
+  }
+
+  /**
+   * Geänderte Datensätze werden gesendet
+   */
+  @Test
+  public void testGeaendert()
+  {
+    assertFalse(_filter.istUnveraendert(stand(_atg, daten(5)), _atg, daten(6)));
+
+    Data text = daten(5);
+    text.getItem("Text").asTextValue().setText("anders");
+    assertFalse(_filter.istUnveraendert(stand(_atg, daten(5)), _atg, text));
+
+    assertEquals(0, _filter.getAnzahlUnterdrueckt());
+  }
+
+  /**
+   * Ohne bekannten Stand, ohne Parameter im Stand oder bei anderer ATG wird gesendet
+   */
+  @Test
+  public void testOhneVergleichbarenStand()
+  {
+    assertFalse(_filter.istUnveraendert(null, _atg, daten(5)));
+    assertFalse(_filter.istUnveraendert(stand(_atg, null), _atg, daten(5)));
+
+    AttributeGroup andere = TestDaten.atg("atg.parameterTest",
+        _atg.getAttributes().toArray(new Attribute[0]));
+    assertFalse(_filter.istUnveraendert(stand(andere, daten(5)), _atg, daten(5)));
+
+    assertEquals(0, _filter.getAnzahlUnterdrueckt());
+  }
+
+  /**
+   * Zähler der gesendeten Datensätze und Zurücksetzen
+   */
+  @Test
+  public void testZaehler()
+  {
+    _filter.gesendet();
+    _filter.gesendet();
+    _filter.istUnveraendert(stand(_atg, daten(5)), _atg, daten(5));
+
+    assertEquals(2, _filter.getAnzahlGesendet());
+    assertEquals(1, _filter.getAnzahlUnterdrueckt());
+
+    _filter.zuruecksetzen();
+
+    assertEquals(0, _filter.getAnzahlGesendet());
+    assertEquals(0, _filter.getAnzahlUnterdrueckt());
+  }
+}
@@ -0,0 +1,192 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import de.bsvrz.dav.daf.main.Data;
+import de.bsvrz.dav.daf.main.config.AttributeGroup;
+
+/**
+ * Tests für {@link DatenVergleich}
+ * @author Dambach Werke GmbH
+ */
+public class DatenVergleichTest
+{
+  /**
+   * Attributgruppe der Datensätze
+   */
+  private AttributeGroup m_atg;
+
+  /**
+   * Vergleich der Attributgruppe
+   */
+  private DatenVergleich m_vergleich;
+
+  /**
+   * Zwei gleich gefüllte Datensätze
+   */
+  private Data m_a, m_b;
+
+  /**
+   * Aufbau der Datensätze
+   */
+  @Before
+  public void erzeugeDaten ()
+  {
+    m_atg       = TestDaten.atg( "atg.vergleich", KopierPlanTest.attribute() );
+    m_vergleich = DatenVergleich.fuer( m_atg );
+
+    m_a = TestDaten.daten( m_atg );
+    m_b = TestDaten.daten( m_atg );
+
+    KopierPlanTest.fuelle( m_a, 3 );
+    KopierPlanTest.fuelle( m_b, 3 );
+  }
+
+  /**
+   * Gleich gefüllte Datensätze sind gleich und haben denselben Hashwert
+   */
+  @Test
+  public void testGleich ()
+  {
+    assertTrue( m_vergleich.gleich( m_a, m_b ) );
+    assertEquals( m_vergleich.hashCode( m_a ), m_vergleich.hashCode( m_b ) );
+    assertTrue( DatenTools.gleich( m_atg, m_a, m_b ) );
+    assertEquals( DatenTools.hashCode( m_atg, m_a ), m_vergleich.hashCode( m_b ) );
+  }
+
+  /**
+   * Sonderfälle mit null und identischen Datensätzen
+   */
+  @Test
+  public void testNull ()
+  {
+    assertTrue( m_vergleich.gleich( m_a, m_a ) );
+    assertTrue( m_vergleich.gleich( null, null ) );
+    assertFalse( m_vergleich.gleich( m_a, null ) );
+    assertFalse( m_vergleich.gleich( null, m_b ) );
+    assertEquals( 0, m_vergleich.hashCode( null ) );
+  }
+
+  /**
+   * Jede Abweichung eines einfachen Attributs wird erkannt
+   */
+  @Test
+  public void testEinfacheAttribute ()
+  {
+    m_b.getItem( "Name" ).asTextValue().setText( "anders" );
+    assertFalse( m_vergleich.gleich( m_a, m_b ) );
+    erzeugeDaten();
+
+    m_b.getItem( "Wert" ).asUnscaledValue().set( 43L );
+    assertFalse( m_vergleich.gleich( m_a, m_b ) );
+    erzeugeDaten();
+
+    m_b.getItem( "Zeit" ).asTimeValue().setMillis( 1L );
+    assertFalse( m_vergleich.gleich( m_a, m_b ) );
+    erzeugeDaten();
+
+    m_b.getItem( "Objekt" ).asReferenceValue().setSystemObject( null );
+    assertFalse( m_vergleich.gleich( m_a, m_b ) );
+    erzeugeDaten();
+
+    m_b.getItem( "Liste" ).getItem( "B" ).asTextValue().setText( "c" );
+    assertFalse( m_vergleich.gleich( m_a, m_b ) );
+  }
+
+  /**
+   * Kommazahlen werden bitweise verglichen: NaN ist gleich NaN, 0.0 ungleich -0.0
+   */
+  @Test
+  public void testKommazahl ()
+  {
+    m_a.getItem( "Faktor" ).asScaledValue().set( Double.NaN );
+    m_b.getItem( "Faktor" ).asScaledValue().set( Double.NaN );
+    assertTrue( m_vergleich.gleich( m_a, m_b ) );
+
+    m_a.getItem( "Faktor" ).asScaledValue().set( 0.0 );
+    m_b.getItem( "Faktor" ).asScaledValue().set( -0.0 );
+    assertFalse( m_vergleich.gleich( m_a, m_b ) );
+  }
+
+  /**
+   * Referenzen werden über die Id des Objekts verglichen
+   */
+  @Test
+  public void testReferenz ()
+  {
+    m_b.getItem( "Objekt" ).asReferenceValue().setSystemObject( TestDaten.objekt( 4711, "andere.instanz" ) );
+
+    assertTrue( m_vergleich.gleich( m_a, m_b ) );
+    assertEquals( m_vergleich.hashCode( m_a ), m_vergleich.hashCode( m_b ) );
+
+    m_b.getItem( "Objekt" ).asReferenceValue().setSystemObject( TestDaten.objekt( 4712, "objekt.anders" ) );
+
+    assertFalse( m_vergleich.gleich( m_a, m_b ) );
+  }
+
+  /**
+   * Arrays unterscheiden sich in Länge oder Elementen
+   */
+  @Test
+  public void testArrays ()
+  {
+    m_b.getItem( "Werte" ).asUnscaledArray().set( new long[] { 0, 10 } );
+    assertFalse( m_vergleich.gleich( m_a, m_b ) );
+    erzeugeDaten();
+
+    m_b.getItem( "Texte" ).asTextArray().set( new String[] { "t0", "t1", "x" } );
+    assertFalse( m_vergleich.gleich( m_a, m_b ) );
+    erzeugeDaten();
+
+    m_b.getItem( "Zeiten" ).asTimeArray().setMillis( new long[] { 0, 10, 21 } );
+    assertFalse( m_vergleich.gleich( m_a, m_b ) );
+    erzeugeDaten();
+
+    m_b.getItem( "Eintraege" ).asArray().getItem( 2 ).getItem( "A" ).asUnscaledValue().set( 5L );
+    assertFalse( m_vergleich.gleich( m_a, m_b ) );
+    erzeugeDaten();
+
+    m_b.getItem( "Eintraege" ).asArray().setLength( 4 );
+    assertFalse( m_vergleich.gleich( m_a, m_b ) );
+  }
+
+  /**
+   * Pläne werden je Attributgruppe zwischengespeichert
+   */
+  @Test
+  public void testZwischenspeicher ()
+  {
+    assertSame( m_vergleich, DatenVergleich.fuer( m_atg ) );
+  }
+}
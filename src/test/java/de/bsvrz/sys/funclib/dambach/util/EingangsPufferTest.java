@@ -0,0 +1,199 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+/**
+ * Tests für {@link EingangsPuffer}
+ * @author Dambach Werke GmbH
+ */
+public class EingangsPufferTest
+{
+  /**
+   * Die Kapazität wird auf die nächste Zweierpotenz aufgerundet
+   */
+  @Test
+  public void testKapazitaet ()
+  {
+    assertEquals( 1, new EingangsPuffer<Integer>( 1 ).getKapazitaet() );
+    assertEquals( 8, new EingangsPuffer<Integer>( 5 ).getKapazitaet() );
+    assertEquals( 8, new EingangsPuffer<Integer>( 8 ).getKapazitaet() );
+  }
+
+  /**
+   * Ungültige Kapazität
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testKapazitaetUngueltig ()
+  {
+    new EingangsPuffer<Integer>( 0 );
+  }
+
+  /**
+   * null kann nicht eingetragen werden
+   */
+  @Test(expected = NullPointerException.class)
+  public void testNull ()
+  {
+    new EingangsPuffer<Integer>( 4 ).offer( null );
+  }
+
+  /**
+   * Reihenfolge, voller und leerer Puffer sowie Umlauf über das Ende des Rings
+   */
+  @Test
+  public void testEinfuegenUndEntnehmen ()
+  {
+    EingangsPuffer<Integer> puffer = new EingangsPuffer<Integer>( 4 );
+
+    assertTrue( puffer.isLeer() );
+    assertNull( puffer.poll() );
+
+    for (int runde = 0; runde < 3; runde++)
+    {
+      for (int i = 0; i < 4; i++)
+        assertTrue( puffer.offer( Integer.valueOf( runde * 10 + i ) ) );
+
+      assertFalse( puffer.offer( Integer.valueOf( -1 ) ) );
+      assertFalse( puffer.isLeer() );
+
+      for (int i = 0; i < 4; i++)
+        assertEquals( Integer.valueOf( runde * 10 + i ), puffer.poll() );
+
+      assertTrue( puffer.isLeer() );
+    }
+  }
+
+  /**
+   * Blockweise Entnahme ist auf die Größe des Zielfelds begrenzt
+   */
+  @Test
+  public void testEntnehme ()
+  {
+    EingangsPuffer<Integer> puffer = new EingangsPuffer<Integer>( 8 );
+
+    for (int i = 0; i < 5; i++)
+      puffer.offer( Integer.valueOf( i ) );
+
+    Integer[] ziel = new Integer[3];
+
+    assertEquals( 3, puffer.entnehme( ziel ) );
+    assertEquals( Integer.valueOf( 2 ), ziel[2] );
+
+    assertEquals( 2, puffer.entnehme( ziel ) );
+    assertEquals( Integer.valueOf( 3 ), ziel[0] );
+    assertEquals( Integer.valueOf( 4 ), ziel[1] );
+
+    assertEquals( 0, puffer.entnehme( ziel ) );
+  }
+
+  /**
+   * Mehrere Erzeuger und ein gleichzeitig entnehmender Verbraucher: jedes Element kommt genau einmal an und die
+   * Reihenfolge je Erzeuger bleibt erhalten
+   * @throws InterruptedException bei Unterbrechung
+   */
+  @Test(timeout = 30000)
+  public void testMehrereErzeuger () throws InterruptedException
+  {
+    final int erzeuger = 4;
+    final int anzahl = 100000;
+
+    final EingangsPuffer<long[]> puffer = new EingangsPuffer<long[]>( 64 );
+    final CountDownLatch start = new CountDownLatch( 1 );
+
+    Thread[] threads = new Thread[erzeuger];
+
+    for (int e = 0; e < erzeuger; e++)
+    {
+      final int nummer = e;
+
+      threads[e] = new Thread()
+      {
+        @Override
+        public void run ()
+        {
+          try
+          {
+            start.await();
+          }
+          catch (InterruptedException ex)
+          {
+            return;
+          }
+
+          for (int i = 0; i < anzahl; i++)
+          {
+            long[] element = { nummer, i };
+
+            while (!puffer.offer( element ))
+              Thread.yield();
+          }
+        }
+      };
+      threads[e].start();
+    }
+
+    start.countDown();
+
+    int[] naechster = new int[erzeuger];
+    long[][] block = new long[16][];
+    int empfangen = 0;
+
+    while (empfangen < erzeuger * anzahl)
+    {
+      int n = puffer.entnehme( block );
+
+      if (n == 0)
+        Thread.yield();
+
+      for (int i = 0; i < n; i++)
+      {
+        int nummer = (int) block[i][0];
+
+        assertEquals( naechster[nummer], block[i][1] );
+        naechster[nummer]++;
+      }
+
+      empfangen += n;
+    }
+
+    for (Thread t : threads)
+      t.join();
+
+    assertTrue( puffer.isLeer() );
+
+    for (int e = 0; e < erzeuger; e++)
+      assertEquals( anzahl, naechster[e] );
+  }
+}
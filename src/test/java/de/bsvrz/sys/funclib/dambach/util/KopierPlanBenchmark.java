@@ -0,0 +1,120 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.bsvrz.dav.daf.main.Data;
+import de.bsvrz.dav.daf.main.config.AttributeGroup;
+
+/**
+ * JMH-Benchmark der tiefen Kopie eines Datensatzes: rekursive Kopie über die Namen
+ * ({@link DatenTools#tiefeKopie(Data, Data)}) gegen den vorab übersetzten {@link KopierPlan}. Die Datensätze sind
+ * Datensätze im Speicher aus {@link TestDaten} mit der Struktur aus {@link KopierPlanTest}, die absoluten Zeiten
+ * weichen daher von Datensätzen des Datenverteilers ab, das Verhältnis der beiden Verfahren bleibt aussagekräftig.<br>
+ * Aufruf nach <code>mvn test-compile</code> mit dem Test-Classpath:<br>
+ * <code>java -cp target/test-classes:target/classes:&lt;Abhängigkeiten&gt; org.openjdk.jmh.Main KopierPlanBenchmark</code>
+ * @author Dambach Werke GmbH
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KopierPlanBenchmark
+{
+  /**
+   * Anzahl der Elemente je Array
+   */
+  @Param({ "1", "50" })
+  public int m_anzahl;
+
+  /**
+   * Attributgruppe von Quelle und Ziel
+   */
+  private AttributeGroup m_atg;
+
+  /**
+   * Quelldatensatz
+   */
+  private Data m_quelle;
+
+  /**
+   * Zieldatensatz
+   */
+  private Data m_ziel;
+
+  /**
+   * Aufbau der Datensätze
+   */
+  @Setup(Level.Trial)
+  public void erzeuge ()
+  {
+    m_atg    = TestDaten.atg( "atg.benchmark", KopierPlanTest.attribute() );
+    m_quelle = TestDaten.daten( m_atg );
+    m_ziel   = TestDaten.daten( m_atg );
+
+    KopierPlanTest.fuelle( m_quelle, m_anzahl );
+  }
+
+  /**
+   * Rekursive Kopie mit Namenssuche und Typprüfung je Attribut
+   * @return Zieldatensatz
+   */
+  @Benchmark
+  public Data rekursiv ()
+  {
+    DatenTools.tiefeKopie( m_quelle, m_ziel );
+
+    return m_ziel;
+  }
+
+  /**
+   * Kopie über den zwischengespeicherten Plan
+   * @return Zieldatensatz
+   */
+  @Benchmark
+  public Data plan ()
+  {
+    DatenTools.tiefeKopie( m_atg, m_quelle, m_atg, m_ziel );
+
+    return m_ziel;
+  }
+}
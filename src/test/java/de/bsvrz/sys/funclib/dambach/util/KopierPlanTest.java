@@ -0,0 +1,291 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import de.bsvrz.dav.daf.main.Data;
+import de.bsvrz.dav.daf.main.config.Attribute;
+import de.bsvrz.dav.daf.main.config.AttributeGroup;
+import de.bsvrz.dav.daf.main.config.AttributeType;
+import de.bsvrz.dav.daf.main.config.SystemObject;
+
+/**
+ * Tests für {@link KopierPlan}
+ * @author Dambach Werke GmbH
+ */
+public class KopierPlanTest
+{
+  /**
+   * Referenziertes Objekt
+   */
+  private static final SystemObject OBJEKT = TestDaten.objekt( 4711, "objekt.test" );
+
+  /**
+   * Attributliste mit einer Ganzzahl und einem Text
+   */
+  private static final AttributeType LISTE = TestDaten.liste( "atl.test",
+      TestDaten.attribut( "A", TestDaten.GANZZAHL ), TestDaten.attribut( "B", TestDaten.TEXT ) );
+
+  /**
+   * Attribute in der Reihenfolge der Quell-ATG
+   */
+  private static final Attribute[] ATTRIBUTE = {
+      TestDaten.attribut( "Name", TestDaten.TEXT ),
+      TestDaten.attribut( "Wert", TestDaten.GANZZAHL ),
+      TestDaten.attribut( "Faktor", TestDaten.KOMMAZAHL ),
+      TestDaten.attribut( "Zeit", TestDaten.ZEIT ),
+      TestDaten.attribut( "Objekt", TestDaten.REFERENZ ),
+      TestDaten.attribut( "Texte", TestDaten.TEXT, true ),
+      TestDaten.attribut( "Werte", TestDaten.GANZZAHL, true ),
+      TestDaten.attribut( "Faktoren", TestDaten.KOMMAZAHL, true ),
+      TestDaten.attribut( "Zeiten", TestDaten.ZEIT, true ),
+      TestDaten.attribut( "Objekte", TestDaten.REFERENZ, true ),
+      TestDaten.attribut( "Liste", LISTE ),
+      TestDaten.attribut( "Eintraege", LISTE, true ) };
+
+  /**
+   * @return liefert eine Kopie der Attribute in der Reihenfolge der Quell-ATG zurück
+   */
+  static Attribute[] attribute ()
+  {
+    return ATTRIBUTE.clone();
+  }
+
+  /**
+   * Methode füllt einen Datensatz mit der Struktur von {@link #ATTRIBUTE}
+   * @param daten Datensatz
+   * @param n Anzahl der Array-Elemente
+   */
+  static void fuelle (Data daten, int n)
+  {
+    daten.getItem( "Name" ).asTextValue().setText( "Quelle" );
+    daten.getItem( "Wert" ).asUnscaledValue().set( 42L );
+    daten.getItem( "Faktor" ).asScaledValue().set( 1.5 );
+    daten.getItem( "Zeit" ).asTimeValue().setMillis( 123456789L );
+    daten.getItem( "Objekt" ).asReferenceValue().setSystemObject( OBJEKT );
+
+    String[] texte = new String[n];
+    long[] werte = new long[n];
+    double[] faktoren = new double[n];
+    SystemObject[] objekte = new SystemObject[n];
+
+    for (int i = 0; i < n; i++)
+    {
+      texte[i]    = "t" + i;
+      werte[i]    = i * 10;
+      faktoren[i] = i / 4.0;
+      objekte[i]  = (i % 2 == 0) ? OBJEKT : null;
+    }
+
+    daten.getItem( "Texte" ).asTextArray().set( texte );
+    daten.getItem( "Werte" ).asUnscaledArray().set( werte );
+    daten.getItem( "Faktoren" ).asScaledArray().set( faktoren );
+    daten.getItem( "Zeiten" ).asTimeArray().setMillis( werte );
+    daten.getItem( "Objekte" ).asReferenceArray().set( objekte );
+
+    daten.getItem( "Liste" ).getItem( "A" ).asUnscaledValue().set( 7L );
+    daten.getItem( "Liste" ).getItem( "B" ).asTextValue().setText( "b" );
+
+    Data.Array eintraege = daten.getItem( "Eintraege" ).asArray();
+    eintraege.setLength( n );
+
+    for (int i = 0; i < n; i++)
+    {
+      eintraege.getItem( i ).getItem( "A" ).asUnscaledValue().set( (long) i );
+      eintraege.getItem( i ).getItem( "B" ).asTextValue().setText( "e" + i );
+    }
+  }
+
+  /**
+   * Kopie in eine ATG gleicher Struktur: dasselbe Ergebnis wie die rekursive Kopie, Arrays werden gekürzt
+   */
+  @Test
+  public void testGleicheStruktur ()
+  {
+    AttributeGroup quellAtg = TestDaten.atg( "atg.quelle", ATTRIBUTE );
+    AttributeGroup zielAtg  = TestDaten.atg( "atg.ziel", ATTRIBUTE );
+
+    Data quelle = TestDaten.daten( quellAtg );
+    fuelle( quelle, 3 );
+
+    Data ziel = TestDaten.daten( zielAtg );
+    fuelle( ziel, 5 );
+    ziel.getItem( "Name" ).asTextValue().setText( "Ziel" );
+
+    Data rekursiv = TestDaten.daten( zielAtg );
+
+    KopierPlan.fuer( quellAtg, zielAtg ).kopiere( quelle, ziel );
+    DatenTools.tiefeKopie( quelle, rekursiv );
+
+    DatenVergleich vergleich = DatenVergleich.fuer( quellAtg );
+
+    assertTrue( vergleich.gleich( quelle, ziel ) );
+    assertTrue( vergleich.gleich( rekursiv, ziel ) );
+    assertEquals( 3, ziel.getItem( "Eintraege" ).asArray().getLength() );
+    assertEquals( "Quelle", ziel.getItem( "Name" ).asTextValue().getText() );
+  }
+
+  /**
+   * Die Kopie ist tief: Änderungen der Quelle wirken sich nicht auf das Ziel aus
+   */
+  @Test
+  public void testTiefeKopie ()
+  {
+    AttributeGroup quellAtg = TestDaten.atg( "atg.quelle", ATTRIBUTE );
+
+    Data quelle = TestDaten.daten( quellAtg );
+    fuelle( quelle, 2 );
+
+    Data ziel = TestDaten.daten( quellAtg );
+    DatenTools.tiefeKopie( quellAtg, quelle, quellAtg, ziel );
+
+    quelle.getItem( "Eintraege" ).asArray().getItem( 1 ).getItem( "A" ).asUnscaledValue().set( 99L );
+    quelle.getItem( "Werte" ).asUnscaledArray().set( new long[] { 1 } );
+
+    assertEquals( 1, ziel.getItem( "Eintraege" ).asArray().getItem( 1 ).getItem( "A" ).asUnscaledValue().longValue() );
+    assertEquals( 2, ziel.getItem( "Werte" ).asUnscaledArray().getLength() );
+  }
+
+  /**
+   * Zusätzliche Attribute des Ziels werden übersprungen und bleiben unverändert
+   */
+  @Test
+  public void testZusaetzlicheAttribute ()
+  {
+    Attribute zusatz = TestDaten.attribut( "Zusatz", TestDaten.TEXT );
+    Attribute[] ziel = new Attribute[ATTRIBUTE.length + 2];
+
+    ziel[0] = zusatz;
+    System.arraycopy( ATTRIBUTE, 0, ziel, 1, 4 );
+    ziel[5] = TestDaten.attribut( "Zusatz2", TestDaten.GANZZAHL );
+    System.arraycopy( ATTRIBUTE, 4, ziel, 6, ATTRIBUTE.length - 4 );
+
+    AttributeGroup quellAtg = TestDaten.atg( "atg.quelle", ATTRIBUTE );
+    AttributeGroup zielAtg  = TestDaten.atg( "atg.zusatz", ziel );
+
+    Data quelle = TestDaten.daten( quellAtg );
+    fuelle( quelle, 2 );
+
+    Data daten = TestDaten.daten( zielAtg );
+    daten.getItem( "Zusatz" ).asTextValue().setText( "bleibt" );
+    daten.getItem( "Zusatz2" ).asUnscaledValue().set( -5L );
+
+    KopierPlan.fuer( quellAtg, zielAtg ).kopiere( quelle, daten );
+
+    assertEquals( "bleibt", daten.getItem( "Zusatz" ).asTextValue().getText() );
+    assertEquals( -5, daten.getItem( "Zusatz2" ).asUnscaledValue().longValue() );
+    assertEquals( 42, daten.getItem( "Wert" ).asUnscaledValue().longValue() );
+    assertSame( OBJEKT, daten.getItem( "Objekt" ).asReferenceValue().getSystemObject() );
+    assertEquals( "e1", daten.getItem( "Eintraege" ).asArray().getItem( 1 ).getItem( "B" ).asTextValue().getText() );
+  }
+
+  /**
+   * Abweichende Reihenfolge im Ziel: Zuordnung über die Namen
+   */
+  @Test
+  public void testAndereReihenfolge ()
+  {
+    Attribute[] ziel = new Attribute[ATTRIBUTE.length];
+
+    for (int i = 0; i < ziel.length; i++)
+      ziel[i] = ATTRIBUTE[ziel.length - 1 - i];
+
+    AttributeGroup quellAtg = TestDaten.atg( "atg.quelle", ATTRIBUTE );
+    AttributeGroup zielAtg  = TestDaten.atg( "atg.umgekehrt", ziel );
+
+    Data quelle = TestDaten.daten( quellAtg );
+    fuelle( quelle, 4 );
+
+    Data daten = TestDaten.daten( zielAtg );
+
+    KopierPlan.fuer( quellAtg, zielAtg ).kopiere( quelle, daten );
+
+    assertEquals( "Quelle", daten.getItem( "Name" ).asTextValue().getText() );
+    assertEquals( 1.5, daten.getItem( "Faktor" ).asScaledValue().doubleValue(), 0 );
+    assertEquals( 123456789L, daten.getItem( "Zeit" ).asTimeValue().getMillis() );
+    assertEquals( 30, daten.getItem( "Zeiten" ).asTimeArray().getMillis( 3 ) );
+    assertEquals( "t2", daten.getItem( "Texte" ).asTextArray().getText( 2 ) );
+    assertEquals( 7, daten.getItem( "Liste" ).getItem( "A" ).asUnscaledValue().longValue() );
+  }
+
+  /**
+   * Fehlt ein Attribut der Quelle im Ziel, kann kein Plan erzeugt werden
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testFehlendesAttribut ()
+  {
+    Attribute[] ziel = new Attribute[ATTRIBUTE.length - 1];
+    System.arraycopy( ATTRIBUTE, 1, ziel, 0, ziel.length );
+
+    KopierPlan.fuer( TestDaten.atg( "atg.quelle", ATTRIBUTE ), TestDaten.atg( "atg.fehlt", ziel ) );
+  }
+
+  /**
+   * Gleichnamige Attribute mit unterschiedlichem Typ
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testAndererTyp ()
+  {
+    Attribute[] ziel = ATTRIBUTE.clone();
+    ziel[1] = TestDaten.attribut( "Wert", TestDaten.KOMMAZAHL );
+
+    KopierPlan.fuer( TestDaten.atg( "atg.quelle", ATTRIBUTE ), TestDaten.atg( "atg.typ", ziel ) );
+  }
+
+  /**
+   * Einfaches Attribut in der Quelle, Array im Ziel
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testArrayUndEinfach ()
+  {
+    Attribute[] ziel = ATTRIBUTE.clone();
+    ziel[1] = TestDaten.attribut( "Wert", TestDaten.GANZZAHL, true );
+
+    KopierPlan.fuer( TestDaten.atg( "atg.quelle", ATTRIBUTE ), TestDaten.atg( "atg.feld", ziel ) );
+  }
+
+  /**
+   * Pläne werden je Paar von Attributgruppen zwischengespeichert
+   */
+  @Test
+  public void testZwischenspeicher ()
+  {
+    AttributeGroup a = TestDaten.atg( "atg.a", ATTRIBUTE );
+    AttributeGroup b = TestDaten.atg( "atg.b", ATTRIBUTE );
+
+    KopierPlan plan = KopierPlan.fuer( a, b );
+
+    assertSame( plan, KopierPlan.fuer( a, b ) );
+    assertNotSame( plan, KopierPlan.fuer( b, a ) );
+    assertNotSame( plan, KopierPlan.fuer( a, a ) );
+  }
+}
@@ -0,0 +1,662 @@
+/*
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ * 
+ * Contact Information:
+ * Dambach-Werke GmbH
+ * Elektronische Leitsysteme
+ * Fritz-Minhardt-Str. 1
+ * 76456 Kuppenheim
+ * Phone: +49-7222-402-0
+ * Fax: +49-7222-402-200
+ * mailto: info@els.dambach.de
+ */
+
+package de.bsvrz.sys.funclib.dambach.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.bsvrz.dav.daf.main.Data;
+import de.bsvrz.dav.daf.main.config.Attribute;
+import de.bsvrz.dav.daf.main.config.AttributeGroup;
+import de.bsvrz.dav.daf.main.config.AttributeListDefinition;
+import de.bsvrz.dav.daf.main.config.AttributeType;
+import de.bsvrz.dav.daf.main.config.DoubleAttributeType;
+import de.bsvrz.dav.daf.main.config.IntegerAttributeType;
+import de.bsvrz.dav.daf.main.config.ReferenceAttributeType;
+import de.bsvrz.dav.daf.main.config.StringAttributeType;
+import de.bsvrz.dav.daf.main.config.SystemObject;
+import de.bsvrz.dav.daf.main.config.TimeAttributeType;
+
+/**
+ * Hilfsklasse für Tests und Benchmarks: Attributgruppen, Attribute, Systemobjekte und vollständige Datensätze im
+ * Speicher, ohne Verbindung zum Datenverteiler. Die Objekte sind dynamische Proxies der Schnittstellen der
+ * Datenverteiler-Applikationsfunktionen, unterstützt wird der Teil der Schnittstellen, den die Bibliothek beim
+ * Lesen, Schreiben, Kopieren und Vergleichen von Datensätzen verwendet. Andere Methoden werfen eine
+ * {@link UnsupportedOperationException}.
+ * @author Dambach Werke GmbH
+ */
+public final class TestDaten
+{
+  /**
+   * Vergabe eindeutiger Ids für Attributgruppen und Attributtypen
+   */
+  private static final AtomicLong m_ids = new AtomicLong( 1000000 );
+
+  /**
+   * Attributtyp Text
+   */
+  public static final AttributeType TEXT = typ( StringAttributeType.class, "att.text", null );
+
+  /**
+   * Attributtyp Ganzzahl
+   */
+  public static final AttributeType GANZZAHL = typ( IntegerAttributeType.class, "att.ganzzahl", null );
+
+  /**
+   * Attributtyp Kommazahl
+   */
+  public static final AttributeType KOMMAZAHL = typ( DoubleAttributeType.class, "att.kommazahl", null );
+
+  /**
+   * Attributtyp Zeit
+   */
+  public static final AttributeType ZEIT = typ( TimeAttributeType.class, "att.zeit", null );
+
+  /**
+   * Attributtyp Referenz
+   */
+  public static final AttributeType REFERENZ = typ( ReferenceAttributeType.class, "att.referenz", null );
+
+  /**
+   * Konstruktor der Klasse (keine Instanzen)
+   */
+  private TestDaten ()
+  {
+  }
+
+  /**
+   * Methode erzeugt eine Attributliste
+   * @param pid Pid der Attributliste
+   * @param attribute Attribute der Liste
+   * @return Attributlistendefinition
+   */
+  public static AttributeType liste (String pid, Attribute... attribute)
+  {
+    return typ( AttributeListDefinition.class, pid, Collections.unmodifiableList( Arrays.asList( attribute ) ) );
+  }
+
+  /**
+   * Methode erzeugt ein einfaches Attribut
+   * @param name Name des Attributs
+   * @param typ Attributtyp
+   * @return Attribut
+   */
+  public static Attribute attribut (String name, AttributeType typ)
+  {
+    return attribut( name, typ, false );
+  }
+
+  /**
+   * Methode erzeugt ein Attribut
+   * @param name Name des Attributs
+   * @param typ Attributtyp
+   * @param feld true: Array variabler Länge
+   * @return Attribut
+   */
+  public static Attribute attribut (String name, AttributeType typ, boolean feld)
+  {
+    Map<String, Object> werte = new HashMap<String, Object>();
+
+    werte.put( "getName", name );
+    werte.put( "getPid", name );
+    werte.put( "getAttributeType", typ );
+    werte.put( "isArray", Boolean.valueOf( feld ) );
+    werte.put( "isCountVariable", Boolean.valueOf( feld ) );
+    werte.put( "getMaxCount", Integer.valueOf( feld ? 0 : 1 ) );
+
+    return konfigurationsObjekt( Attribute.class, werte );
+  }
+
+  /**
+   * Methode erzeugt eine Attributgruppe mit eindeutiger Id
+   * @param pid Pid der Attributgruppe
+   * @param attribute Attribute der Attributgruppe
+   * @return Attributgruppe
+   */
+  public static AttributeGroup atg (String pid, Attribute... attribute)
+  {
+    Map<String, Object> werte = new HashMap<String, Object>();
+
+    werte.put( "getPid", pid );
+    werte.put( "getName", pid );
+    werte.put( "getId", Long.valueOf( m_ids.incrementAndGet() ) );
+    werte.put( "getAttributes", Collections.unmodifiableList( Arrays.asList( attribute ) ) );
+
+    return konfigurationsObjekt( AttributeGroup.class, werte );
+  }
+
+  /**
+   * Methode erzeugt ein Systemobjekt
+   * @param id Id des Objekts
+   * @param pid Pid des Objekts
+   * @return Systemobjekt
+   */
+  public static SystemObject objekt (long id, String pid)
+  {
+    Map<String, Object> werte = new HashMap<String, Object>();
+
+    werte.put( "getId", Long.valueOf( id ) );
+    werte.put( "getPid", pid );
+    werte.put( "getName", pid );
+
+    return konfigurationsObjekt( SystemObject.class, werte );
+  }
+
+  /**
+   * Methode erzeugt einen vollständigen Datensatz einer Attributgruppe mit Standardwerten (leerer Text, 0,
+   * keine Referenz) und leeren Arrays
+   * @param atg Attributgruppe
+   * @return Datensatz
+   */
+  public static Data daten (AttributeGroup atg)
+  {
+    return new Knoten( atg.getPid(), null, atg.getAttributes() ).m_proxy;
+  }
+
+  /**
+   * Methode erzeugt einen Attributtyp
+   * @param art Schnittstelle des Attributtyps
+   * @param pid Pid des Attributtyps
+   * @param attribute Attribute bei einer Attributliste, sonst null
+   * @return Attributtyp
+   */
+  private static AttributeType typ (Class<? extends AttributeType> art, String pid, List<Attribute> attribute)
+  {
+    Map<String, Object> werte = new HashMap<String, Object>();
+
+    werte.put( "getPid", pid );
+    werte.put( "getName", pid );
+    werte.put( "getId", Long.valueOf( m_ids.incrementAndGet() ) );
+
+    if (attribute != null)
+      werte.put( "getAttributes", attribute );
+
+    return konfigurationsObjekt( art, werte );
+  }
+
+  /**
+   * Methode erzeugt ein Konfigurationsobjekt, dessen Methoden ohne Parameter feste Werte liefern. Gleichheit ist
+   * Identität.
+   * @param art Schnittstelle des Objekts
+   * @param werte Rückgabewerte je Methodenname
+   * @return Konfigurationsobjekt
+   */
+  private static <T> T konfigurationsObjekt (Class<T> art, final Map<String, Object> werte)
+  {
+    InvocationHandler handler = new InvocationHandler()
+    {
+      @Override
+      public Object invoke (Object proxy, Method methode, Object[] args)
+      {
+        String name = methode.getName();
+
+        if (name.equals( "equals" ))
+          return Boolean.valueOf( proxy == args[0] );
+
+        if (name.equals( "hashCode" ))
+          return Integer.valueOf( System.identityHashCode( proxy ) );
+
+        if (name.equals( "toString" ))
+          return String.valueOf( werte.get( "getPid" ) );
+
+        if (args == null && werte.containsKey( name ))
+          return werte.get( name );
+
+        throw new UnsupportedOperationException( methode.toString() );
+      }
+    };
+
+    return art.cast( Proxy.newProxyInstance( TestDaten.class.getClassLoader(), new Class<?>[] { art }, handler ) );
+  }
+
+  /**
+   * Methode erzeugt einen Proxy einer Schnittstelle von {@link Data}
+   * @param art Schnittstelle
+   * @param handler Implementierung
+   * @return Proxy
+   */
+  private static <T> T proxy (Class<T> art, InvocationHandler handler)
+  {
+    return art.cast( Proxy.newProxyInstance( TestDaten.class.getClassLoader(), new Class<?>[] { art }, handler ) );
+  }
+
+  /**
+   * (Sub-)Datum eines Datensatzes: Attributliste, Array oder einfaches Datum
+   */
+  private static final class Knoten implements InvocationHandler
+  {
+    /**
+     * Name des Datums
+     */
+    private final String m_name;
+
+    /**
+     * Attributtyp, null auf oberster Ebene
+     */
+    private final AttributeType m_typ;
+
+    /**
+     * true bei einem Array
+     */
+    private final boolean m_feld;
+
+    /**
+     * Sub-Daten einer Attributliste oder Elemente eines Arrays, sonst null
+     */
+    private final List<Data> m_kinder;
+
+    /**
+     * Wert eines einfachen Datums
+     */
+    private Object m_wert;
+
+    /**
+     * Datum als Proxy
+     */
+    private final Data m_proxy;
+
+    /**
+     * Konstruktor für die oberste Ebene eines Datensatzes
+     * @param name Name des Datums
+     * @param typ Attributtyp, null auf oberster Ebene
+     * @param attribute Attribute der Liste
+     */
+    Knoten (String name, AttributeType typ, List<Attribute> attribute)
+    {
+      m_name   = name;
+      m_typ    = typ;
+      m_feld   = false;
+      m_kinder = new ArrayList<Data>();
+      m_proxy  = proxy( Data.class, this );
+
+      for (Attribute a : attribute)
+        m_kinder.add( new Knoten( a.getName(), a.getAttributeType(), a.isArray() ).m_proxy );
+    }
+
+    /**
+     * Konstruktor für ein Sub-Datum
+     * @param name Name des Datums
+     * @param typ Attributtyp
+     * @param feld true bei einem Array
+     */
+    Knoten (String name, AttributeType typ, boolean feld)
+    {
+      m_name  = name;
+      m_typ   = typ;
+      m_feld  = feld;
+      m_proxy = proxy( Data.class, this );
+
+      if (feld)
+      {
+        m_kinder = new ArrayList<Data>();
+      }
+      else if (typ instanceof AttributeListDefinition)
+      {
+        m_kinder = new ArrayList<Data>();
+
+        for (Attribute a : ((AttributeListDefinition) typ).getAttributes())
+          m_kinder.add( new Knoten( a.getName(), a.getAttributeType(), a.isArray() ).m_proxy );
+      }
+      else
+      {
+        m_kinder = null;
+
+        if (typ == TEXT)
+          m_wert = "";
+        else if (typ == KOMMAZAHL)
+          m_wert = Double.valueOf( 0 );
+        else if (typ != REFERENZ)
+          m_wert = Long.valueOf( 0 );
+      }
+    }
+
+    /**
+     * @param data Proxy eines Datums
+     * @return liefert den Knoten des Proxys zurück
+     */
+    private static Knoten knoten (Data data)
+    {
+      return (Knoten) Proxy.getInvocationHandler( data );
+    }
+
+    @Override
+    public Object invoke (Object proxy, Method methode, Object[] args)
+    {
+      String name = methode.getName();
+
+      if (name.equals( "equals" ))
+        return Boolean.valueOf( proxy == args[0] );
+
+      if (name.equals( "hashCode" ))
+        return Integer.valueOf( System.identityHashCode( proxy ) );
+
+      if (name.equals( "toString" ) || name.equals( "valueToString" ))
+        return m_name + (m_kinder != null ? m_kinder.toString() : "=" + m_wert);
+
+      if (name.equals( "getName" ))
+        return m_name;
+
+      if (name.equals( "getAttributeType" ))
+        return m_typ;
+
+      if (name.equals( "isDefined" ))
+        return Boolean.TRUE;
+
+      if (name.equals( "isList" ))
+        return Boolean.valueOf( m_kinder != null && !m_feld );
+
+      if (name.equals( "isArray" ))
+        return Boolean.valueOf( m_feld );
+
+      if (name.equals( "isPlain" ))
+        return Boolean.valueOf( m_kinder == null );
+
+      if (name.equals( "iterator" ))
+        return Collections.unmodifiableList( m_kinder ).iterator();
+
+      if (name.equals( "getItem" ))
+        return item( (String) args[0] );
+
+      if (name.equals( "asArray" ))
+        return proxy( Data.Array.class, new Zugriff( this ) );
+
+      if (name.startsWith( "as" ))
+        return proxy( methode.getReturnType(), new Zugriff( this ) );
+
+      // getUnscaledValue(name) usw. entsprechen getItem(name).asUnscaledValue()
+
+      if (name.startsWith( "get" ) && args != null && args.length == 1 && args[0] instanceof String)
+      {
+        Data item = item( (String) args[0] );
+
+        if (item == null)
+          throw new IllegalArgumentException( "Kein Sub-Datum " + args[0] );
+
+        return proxy( methode.getReturnType(), new Zugriff( knoten( item ) ) );
+      }
+
+      throw new UnsupportedOperationException( methode.toString() );
+    }
+
+    /**
+     * @param name Name eines Sub-Datums
+     * @return liefert das Sub-Datum zurück, null wenn es nicht existiert
+     */
+    private Data item (String name)
+    {
+      if (m_kinder == null || m_feld)
+        return null;
+
+      for (Data kind : m_kinder)
+        if (kind.getName().equals( name ))
+          return kind;
+
+      return null;
+    }
+
+    /**
+     * Methode setzt die Länge eines Arrays
+     * @param laenge neue Länge
+     */
+    private void setzeLaenge (int laenge)
+    {
+      while (m_kinder.size() > laenge)
+        m_kinder.remove( m_kinder.size() - 1 );
+
+      while (m_kinder.size() < laenge)
+        m_kinder.add( new Knoten( m_name, m_typ, false ).m_proxy );
+    }
+
+    /**
+     * @param i Index
+     * @return liefert den Knoten eines Array-Elements zurück
+     */
+    private Knoten element (int i)
+    {
+      return knoten( m_kinder.get( i ) );
+    }
+  }
+
+  /**
+   * Zugriff auf den Wert eines einfachen Datums oder die Elemente eines Arrays (TextValue, NumberValue,
+   * NumberArray, Array usw.)
+   */
+  private static final class Zugriff implements InvocationHandler
+  {
+    /**
+     * Datum, auf das zugegriffen wird
+     */
+    private final Knoten m_knoten;
+
+    /**
+     * Konstruktor der Klasse
+     * @param knoten Datum, auf das zugegriffen wird
+     */
+    Zugriff (Knoten knoten)
+    {
+      m_knoten = knoten;
+    }
+
+    @Override
+    public Object invoke (Object proxy, Method methode, Object[] args)
+    {
+      String name = methode.getName();
+      Class<?> ergebnis = methode.getReturnType();
+      Object wert = m_knoten.m_wert;
+
+      if (name.equals( "equals" ))
+        return Boolean.valueOf( proxy == args[0] );
+
+      if (name.equals( "hashCode" ))
+        return Integer.valueOf( System.identityHashCode( proxy ) );
+
+      if (name.equals( "toString" ))
+        return String.valueOf( wert );
+
+      // Arrays
+
+      if (m_knoten.m_feld)
+        return feld( methode, args );
+
+      // Einfache Werte
+
+      if (name.equals( "getText" ) || name.equals( "getValueText" ))
+        return (wert instanceof SystemObject) ? ((SystemObject) wert).getPid() : String.valueOf( wert );
+
+      if (name.equals( "getSuffixText" ))
+        return "";
+
+      if (name.equals( "setText" ))
+      {
+        m_knoten.m_wert = args[0];
+        return null;
+      }
+
+      if (name.equals( "isNumber" ))
+        return Boolean.TRUE;
+
+      if (name.equals( "isState" ))
+        return Boolean.FALSE;
+
+      if (name.equals( "set" ) || name.equals( "setMillis" ) || name.equals( "setSystemObject" ))
+      {
+        m_knoten.m_wert = args[0];
+        return null;
+      }
+
+      if (name.equals( "setSeconds" ))
+      {
+        m_knoten.m_wert = Long.valueOf( ((Long) args[0]).longValue() * 1000 );
+        return null;
+      }
+
+      if (name.equals( "getMillis" ))
+        return wert;
+
+      if (name.equals( "getSeconds" ))
+        return Long.valueOf( ((Number) wert).longValue() / 1000 );
+
+      if (name.equals( "getSystemObject" ))
+        return wert;
+
+      if (name.equals( "getId" ))
+        return Long.valueOf( (wert == null) ? 0 : ((SystemObject) wert).getId() );
+
+      if (name.endsWith( "Value" ) && args == null)
+        return zahl( (Number) wert, ergebnis );
+
+      throw new UnsupportedOperationException( methode.toString() );
+    }
+
+    /**
+     * Methode führt eine Methode auf einem Array aus
+     * @param methode Methode
+     * @param args Argumente
+     * @return Ergebnis
+     */
+    private Object feld (Method methode, Object[] args)
+    {
+      String name = methode.getName();
+      Class<?> ergebnis = methode.getReturnType();
+      List<Data> elemente = m_knoten.m_kinder;
+      int n = elemente.size();
+
+      if (name.equals( "getLength" ))
+        return Integer.valueOf( n );
+
+      if (name.equals( "setLength" ))
+      {
+        m_knoten.setzeLaenge( ((Integer) args[0]).intValue() );
+        return null;
+      }
+
+      if (name.equals( "isCountVariable" ))
+        return Boolean.TRUE;
+
+      if (name.equals( "isCountLimited" ))
+        return Boolean.FALSE;
+
+      if (name.equals( "getMaxCount" ))
+        return Integer.valueOf( 0 );
+
+      if (name.equals( "getItem" ))
+        return elemente.get( ((Integer) args[0]).intValue() );
+
+      if (name.startsWith( "as" ))
+        return proxy( ergebnis, this );
+
+      if (args != null && args.length == 1 && args[0] instanceof Integer)
+      {
+        Knoten element = m_knoten.element( ((Integer) args[0]).intValue() );
+
+        // getText(i), getMillis(i), getSystemObject(i), longValue(i), doubleValue(i)
+
+        if (!ergebnis.isInterface())
+        {
+          Object wert = element.m_wert;
+
+          if (ergebnis == String.class)
+            return String.valueOf( wert );
+
+          if (wert == null || ergebnis.isInstance( wert ) || ergebnis == Object.class || !(wert instanceof Number))
+            return wert;
+
+          return zahl( (Number) wert, ergebnis );
+        }
+
+        // getUnscaledValue(i), getTextValue(i), getReferenceValue(i), getValue(i) usw.
+
+        return proxy( ergebnis, new Zugriff( element ) );
+      }
+
+      if (name.equals( "getLongArray" ) || name.equals( "getDoubleArray" ) || name.equals( "getSystemObjectArray" ))
+      {
+        Class<?> komponente = ergebnis.getComponentType();
+        Object feld = java.lang.reflect.Array.newInstance( komponente, n );
+
+        for (int i = 0; i < n; i++)
+        {
+          Object wert = m_knoten.element( i ).m_wert;
+          java.lang.reflect.Array.set( feld, i, komponente.isPrimitive() ? zahl( (Number) wert, komponente ) : wert );
+        }
+
+        return feld;
+      }
+
+      if (name.equals( "set" ) || name.equals( "setMillis" ))
+      {
+        Object feld = args[0];
+        int laenge = java.lang.reflect.Array.getLength( feld );
+
+        m_knoten.setzeLaenge( laenge );
+
+        for (int i = 0; i < laenge; i++)
+          m_knoten.element( i ).m_wert = java.lang.reflect.Array.get( feld, i );
+
+        return null;
+      }
+
+      throw new UnsupportedOperationException( methode.toString() );
+    }
+
+    /**
+     * Methode wandelt eine Zahl in den Rückgabetyp um
+     * @param wert Zahl
+     * @param typ Rückgabetyp (long, double, int, ...)
+     * @return umgewandelte Zahl
+     */
+    private static Object zahl (Number wert, Class<?> typ)
+    {
+      if (typ == long.class || typ == Long.class)
+        return Long.valueOf( wert.longValue() );
+
+      if (typ == double.class || typ == Double.class)
+        return Double.valueOf( wert.doubleValue() );
+
+      if (typ == int.class)
+        return Integer.valueOf( wert.intValue() );
+
+      if (typ == short.class)
+        return Short.valueOf( wert.shortValue() );
+
+      if (typ == byte.class)
+        return Byte.valueOf( wert.byteValue() );
+
+      if (typ == float.class)
+        return Float.valueOf( wert.floatValue() );
+
+      return wert;
+    }
+  }
+}